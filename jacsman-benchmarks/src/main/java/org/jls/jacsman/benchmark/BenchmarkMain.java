@@ -0,0 +1,70 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.benchmark;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.runner.RunnerException;
+
+/**
+ * Entry point of the benchmarks jar. Accepts the JMH command line options
+ * (<code>-h</code> to list them) and writes the results in JSON by default, in
+ * a file named after the start date of the run, so that runs can be compared
+ * with each other.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class BenchmarkMain {
+
+	/**
+	 * Runs the benchmarks.
+	 * 
+	 * @param args
+	 *            JMH command line options.
+	 * @throws RunnerException
+	 *             If a benchmark failed.
+	 * @throws IOException
+	 *             If the results cannot be written.
+	 */
+	public static void main (String[] args) throws RunnerException, IOException {
+		List<String> options = new ArrayList<>(Arrays.asList(args));
+		if (!options.contains("-rf")) {
+			options.add("-rf");
+			options.add("json");
+			if (!options.contains("-rff")) {
+				options.add("-rff");
+				options.add("jmh-result-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".json");
+			}
+		}
+		Main.main(options.toArray(new String[options.size()]));
+	}
+}
@@ -0,0 +1,120 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.benchmark;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.jls.jacsman.plugin.Plugin;
+import org.jls.jacsman.plugin.PluginInterface;
+import org.jls.jacsman.util.PluginManager;
+import org.jls.toolbox.net.Interface;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to load a plugin with {@link PluginManager#loadPlugin(String, PluginInterface)}.
+ * Each invocation is measured alone : with <code>cached=false</code> the jar
+ * is evicted from the cache before each load, which measures the class
+ * loader, plugin class and instance as the first load of a plugin. With
+ * <code>cached=true</code> only the instance is created, as for a new tab.
+ * <p>
+ * The plugins are loaded from the <code>plugins</code> directory of the
+ * working directory : run the benchmarks from the root of the project.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 50)
+@Fork(value = 3, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class PluginLoadBenchmark implements PluginInterface {
+
+	@Param({"RawText.jar"})
+	public String jarName;
+
+	@Param({"false", "true"})
+	public boolean cached;
+
+	private Interface com;
+
+	@Setup
+	public void setup () throws IOException {
+		File jar = new File(System.getProperty("user.dir") + File.separator + "plugins", this.jarName);
+		if (!jar.exists()) {
+			throw new FileNotFoundException("Plugin jar not found : " + jar.getPath());
+		}
+		this.com = new Interface("Benchmark", "127.0.0.1", 0);
+	}
+
+	/**
+	 * Evicts the jar from the cache when measuring the first load.
+	 */
+	@Setup(Level.Invocation)
+	public void evict () {
+		if (!this.cached) {
+			PluginManager.getInstance().evict(this.jarName);
+		}
+	}
+
+	/**
+	 * Loads the plugin.
+	 */
+	@Benchmark
+	public Plugin load () throws Exception {
+		return PluginManager.getInstance().loadPlugin(this.jarName, this);
+	}
+
+	@Override
+	public int send (byte[] msg) throws IOException {
+		return msg.length;
+	}
+
+	@Override
+	public Interface getInterface () {
+		return this.com;
+	}
+
+	@Override
+	public boolean isRunning () {
+		return true;
+	}
+}
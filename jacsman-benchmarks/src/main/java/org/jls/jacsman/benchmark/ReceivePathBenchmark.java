@@ -0,0 +1,122 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.benchmark;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.jacsman.plugin.PluginEvent;
+import org.jls.jacsman.plugin.buffer.BufferPluginEvent;
+import org.jls.toolbox.net.Interface;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Cost of handing a received message to a plugin, from the read buffer of the
+ * network engine to the release of the message.
+ * <p>
+ * Run with the GC profiler ({@link #main(String[])}) :
+ * <code>gc.alloc.rate.norm</code> is about 0 B/op for {@link #pooled} and
+ * grows with the message size for {@link #array}, the path used before the
+ * buffer pool.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ReceivePathBenchmark {
+
+	@Param({"64", "1024", "16384"})
+	public int size;
+
+	private BufferPool pool;
+	private ByteBuffer readBuffer;
+	private Interface com;
+
+	@Setup
+	public void setup () throws IOException {
+		this.pool = new BufferPool(true, 65536, 256);
+		this.readBuffer = ByteBuffer.allocateDirect(65536);
+		this.com = new Interface("Benchmark", "127.0.0.1", 0);
+	}
+
+	/**
+	 * Pooled buffer and recycled event.
+	 */
+	@Benchmark
+	public void pooled (final Blackhole bh) {
+		this.readBuffer.clear();
+		this.readBuffer.limit(this.size);
+		PooledBuffer msg = this.pool.copyOf(this.readBuffer);
+		BufferPluginEvent event = BufferPluginEvent.obtain(this, this.com, msg);
+		try {
+			bh.consume(event.getBuffer().get(0));
+			bh.consume(event.getSize());
+		} finally {
+			event.release();
+		}
+	}
+
+	/**
+	 * Copy of the message in a new array and new event.
+	 */
+	@Benchmark
+	public void array (final Blackhole bh) {
+		this.readBuffer.clear();
+		this.readBuffer.limit(this.size);
+		byte[] msg = new byte[this.readBuffer.remaining()];
+		this.readBuffer.get(msg);
+		PluginEvent event = new PluginEvent(this, this.com, msg);
+		bh.consume(event.getMessage()[0]);
+		bh.consume(event.getMessage().length);
+	}
+
+	public static void main (String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(ReceivePathBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class).build();
+		new Runner(opt).run();
+	}
+}
@@ -0,0 +1,208 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.benchmark;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.JPanel;
+
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.jacsman.gui.server.ServerController;
+import org.jls.jacsman.gui.server.ServerModel;
+import org.jls.jacsman.plugin.Plugin;
+import org.jls.jacsman.plugin.PluginEvent;
+import org.jls.jacsman.plugin.buffer.BufferPlugin;
+import org.jls.jacsman.plugin.buffer.BufferPluginEvent;
+import org.jls.jacsman.util.Framing;
+import org.jls.jacsman.util.Protocol;
+import org.jls.jacsman.util.ResourceManager;
+import org.jls.toolbox.net.Interface;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the receive path of the server tab, from the read buffer of the
+ * network engine to the plugin : console tracing, framing, plugin event and
+ * dispatch to the worker calling the plugin. The messages are passed to
+ * {@link ServerController#onReceive(Interface, PooledBuffer)} of a started
+ * server tab, as its network engine does. The tab is created but not
+ * displayed.
+ * <p>
+ * The {@link #console} parameter measures the cost of tracing the traffic in
+ * the console (<code>console.traffic.enabled</code>), which is rendered as
+ * when the tab is displayed. The {@link #plugin} parameter measures the cost
+ * of dispatching to a plugin receiving a {@link PluginEvent} instead of a
+ * buffer. The score includes the time spent waiting for the worker when the
+ * plugin side is the slowest and the dispatcher blocks.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class ReceivePipelineBenchmark {
+
+	/**
+	 * Type of plugin the messages are dispatched to.
+	 */
+	public enum PluginType {
+		BUFFER,
+		LEGACY;
+	}
+
+	@Param({"NONE", "LENGTH_32"})
+	public Framing framing;
+
+	@Param({"false", "true"})
+	public boolean console;
+
+	@Param({"BUFFER", "LEGACY"})
+	public PluginType plugin;
+
+	@Param({"64", "1024"})
+	public int size;
+
+	private final AtomicLong sink = new AtomicLong();
+
+	private BufferPool pool;
+	private ByteBuffer readBuffer;
+	private Interface com;
+	private ServerController controller;
+
+	@Setup(Level.Trial)
+	public void setup () throws IOException {
+		this.pool = new BufferPool(true, 65536, 256);
+		this.com = new Interface("Benchmark", "127.0.0.1", 0);
+
+		// One whole frame per read
+		this.readBuffer = ByteBuffer.allocateDirect(65536);
+		if (this.framing == Framing.LENGTH_32) {
+			this.readBuffer.putInt(0, this.size);
+			this.readBuffer.limit(4 + this.size);
+		} else {
+			this.readBuffer.limit(this.size);
+		}
+
+		// Read by the controller when it is created
+		ResourceManager props = ResourceManager.getInstance();
+		props.setProperty("console.traffic.enabled", String.valueOf(this.console));
+		props.setProperty("serverView.port.default", String.valueOf(freePort()));
+		ServerModel model = new ServerModel();
+		model.setServerType(Protocol.TCP_NIO);
+		model.setFraming(this.framing);
+		this.controller = new ServerController(model);
+		this.controller.createGui();
+		// Replaces the plugin selected by the view
+		this.controller.updatePlugin(this.plugin == PluginType.BUFFER ? new SinkBufferPlugin() : new SinkPlugin());
+		// Not displayed, the console is rendered by its own timer
+		this.controller.getView().getConsole().start();
+		this.controller.start();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown () {
+		this.controller.dispose();
+		this.controller.getView().getConsole().stop();
+	}
+
+	/**
+	 * Receives one message.
+	 */
+	@Benchmark
+	public void receive () {
+		this.readBuffer.position(0);
+		this.controller.onReceive(this.com, this.pool.copyOf(this.readBuffer));
+	}
+
+	/**
+	 * Returns a free local port.
+	 */
+	private static int freePort () throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	/**
+	 * Plugin reading the received messages as byte arrays.
+	 */
+	private class SinkPlugin implements Plugin {
+
+		@Override
+		public String getName () {
+			return "Sink";
+		}
+
+		@Override
+		public void onReceive (PluginEvent e) {
+			sink.addAndGet(e.getMessage()[0] + e.getMessage().length);
+		}
+
+		@Override
+		public void onTimeout (PluginEvent e) {
+		}
+
+		@Override
+		public void onException (PluginEvent e, Throwable t) {
+		}
+
+		@Override
+		public JPanel getView () {
+			return null;
+		}
+	}
+
+	/**
+	 * Plugin reading the received messages from their buffers.
+	 */
+	private class SinkBufferPlugin extends SinkPlugin implements BufferPlugin {
+
+		@Override
+		public void onReceive (BufferPluginEvent event) {
+			sink.addAndGet(event.getBuffer().get(0) + event.getSize());
+		}
+	}
+}
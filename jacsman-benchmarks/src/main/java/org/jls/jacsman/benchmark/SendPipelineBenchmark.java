@@ -0,0 +1,179 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.benchmark;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.jacsman.gui.client.ClientController;
+import org.jls.jacsman.gui.client.ClientModel;
+import org.jls.jacsman.net.EngineListener;
+import org.jls.jacsman.net.NioTcpServer;
+import org.jls.jacsman.util.Protocol;
+import org.jls.jacsman.util.ResourceManager;
+import org.jls.toolbox.net.Interface;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the send path of the client tab, from the plugin to the network
+ * engine : console tracing, traffic log, latency tracking, traffic shaping
+ * and write. The messages are passed to
+ * {@link ClientController#send(ByteBuffer)} of a client tab connected over
+ * the loopback interface to a server discarding them. The tab is created but
+ * not displayed.
+ * <p>
+ * The {@link #console} parameter measures the cost of tracing the traffic in
+ * the console (<code>console.traffic.enabled</code>), which is rendered as
+ * when the tab is displayed.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class SendPipelineBenchmark {
+
+	private static final long CONNECT_TIMEOUT = 5000;
+
+	@Param({"TCP", "TCP_NIO"})
+	public Protocol protocol;
+
+	@Param({"false", "true"})
+	public boolean console;
+
+	@Param({"64", "1024"})
+	public int size;
+
+	private ByteBuffer payload;
+	private NioTcpServer server;
+	private ClientController controller;
+
+	@Setup(Level.Trial)
+	public void setup () throws IOException, InterruptedException {
+		this.payload = ByteBuffer.allocate(this.size);
+		int port = freePort();
+		this.server = new NioTcpServer(new Interface("Sink", "127.0.0.1", port), 1, 65536,
+				new BufferPool(true, 65536, 256));
+		this.server.setListener(new Sink());
+		this.server.start();
+
+		// Read by the controller when it is created
+		ResourceManager props = ResourceManager.getInstance();
+		props.setProperty("console.traffic.enabled", String.valueOf(this.console));
+		props.setProperty("clientView.address.default", "127.0.0.1");
+		props.setProperty("clientView.port.default", String.valueOf(port));
+		ClientModel model = new ClientModel();
+		model.setClientType(this.protocol);
+		this.controller = new ClientController(model);
+		this.controller.createGui();
+		// The messages are not passed to a plugin
+		this.controller.updatePlugin(null);
+		// Not displayed, the console is rendered by its own timer
+		this.controller.getView().getConsole().start();
+		this.controller.start();
+
+		// The server accepts the connection asynchronously
+		long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT;
+		while (this.server.getClients().isEmpty()) {
+			if (System.currentTimeMillis() > deadline) {
+				throw new IOException("Client not connected to " + this.server.getInterface().getId());
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown () throws IOException {
+		this.controller.dispose();
+		this.controller.getView().getConsole().stop();
+		this.server.stop();
+	}
+
+	/**
+	 * Sends one message.
+	 */
+	@Benchmark
+	public int send () throws IOException {
+		this.payload.clear();
+		return this.controller.send(this.payload);
+	}
+
+	/**
+	 * Returns a free local port.
+	 */
+	private static int freePort () throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	/**
+	 * Listener of the server discarding the received messages.
+	 */
+	private static class Sink implements EngineListener {
+
+		@Override
+		public void onReceive (Interface source, PooledBuffer msg) {
+			msg.release();
+		}
+
+		@Override
+		public void onConnect (Interface client) {
+		}
+
+		@Override
+		public void onDisconnect (Interface client) {
+		}
+
+		@Override
+		public void onTimeout (Interface source) {
+		}
+
+		@Override
+		public void onException (Interface source, Throwable t) {
+		}
+	}
+}
@@ -0,0 +1,246 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.benchmark;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.jacsman.net.ClientEngine;
+import org.jls.jacsman.net.EngineListener;
+import org.jls.jacsman.net.NioTcpServer;
+import org.jls.jacsman.net.NioUdpClient;
+import org.jls.jacsman.net.NioUdpServer;
+import org.jls.jacsman.net.ServerEngine;
+import org.jls.jacsman.net.TcpClientEngine;
+import org.jls.jacsman.net.ToolboxClientEngine;
+import org.jls.jacsman.net.ToolboxServerEngine;
+import org.jls.jacsman.util.Protocol;
+import org.jls.toolbox.net.Interface;
+import org.jls.toolbox.net.TCPClient;
+import org.jls.toolbox.net.TCPServer;
+import org.jls.toolbox.net.UDPClient;
+import org.jls.toolbox.net.UDPMulticastClient;
+import org.jls.toolbox.net.UDPMulticastServer;
+import org.jls.toolbox.net.UDPServer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of the network engines over the loopback interface, for each
+ * protocol and message size. The score is the number of messages sent per
+ * second, the <code>messages</code> and <code>bytes</code> counters are the
+ * messages and bytes received per second : on UDP, the difference with the
+ * score is the number of messages lost.
+ * <p>
+ * The client sends to the server, except in {@link Protocol#UDP_MULTICAST}
+ * where the server sends to the group joined by the client. The multicast
+ * benchmark needs a route for the group on the loopback interface.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class TransportBenchmark {
+
+	private static final String LOOPBACK = "127.0.0.1";
+	private static final String MULTICAST_GROUP = "239.255.42.1";
+	private static final long CONNECT_TIMEOUT = 5000;
+
+	@Param({"TCP", "TCP_NIO", "UDP", "UDP_NIO", "UDP_MULTICAST"})
+	public Protocol protocol;
+
+	@Param({"64", "512", "4096"})
+	public int size;
+
+	private final LongAdder receivedMessages = new LongAdder();
+	private final LongAdder receivedBytes = new LongAdder();
+
+	private ServerEngine server;
+	private ClientEngine client;
+	private ByteBuffer payload;
+
+	/**
+	 * Messages and bytes received during the iteration.
+	 */
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	@State(Scope.Thread)
+	public static class Received {
+
+		private TransportBenchmark benchmark;
+		private long startMessages;
+		private long startBytes;
+
+		@Setup(Level.Iteration)
+		public void setup (final TransportBenchmark benchmark) {
+			this.benchmark = benchmark;
+			this.startMessages = benchmark.receivedMessages.sum();
+			this.startBytes = benchmark.receivedBytes.sum();
+		}
+
+		public long messages () {
+			return this.benchmark.receivedMessages.sum() - this.startMessages;
+		}
+
+		public long bytes () {
+			return this.benchmark.receivedBytes.sum() - this.startBytes;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup () throws IOException, InterruptedException {
+		this.payload = ByteBuffer.allocate(this.size);
+		int port = freePort(this.protocol);
+		String address = this.protocol == Protocol.UDP_MULTICAST ? MULTICAST_GROUP : LOOPBACK;
+		Interface serverCom = new Interface(this.protocol + "Server", address, port);
+		Interface clientCom = new Interface(this.protocol + "Client", address, port);
+
+		switch (this.protocol) {
+			case TCP:
+				this.server = new ToolboxServerEngine(new TCPServer(serverCom));
+				this.client = new ToolboxClientEngine(new TCPClient(clientCom, null));
+				break;
+			case TCP_NIO:
+				this.server = new NioTcpServer(serverCom, 1, 65536, new BufferPool(true, 65536, 256));
+				this.client = new TcpClientEngine(clientCom, 65536, new BufferPool(true, 65536, 256));
+				break;
+			case UDP:
+				this.server = new ToolboxServerEngine(new UDPServer(serverCom));
+				this.client = new ToolboxClientEngine(new UDPClient(clientCom, 2000));
+				break;
+			case UDP_NIO:
+				this.server = new NioUdpServer(serverCom, 65507, new BufferPool(true, 65536, 256));
+				this.client = new NioUdpClient(clientCom, 65507, new BufferPool(true, 65536, 256));
+				break;
+			case UDP_MULTICAST:
+				this.server = new ToolboxServerEngine(new UDPMulticastServer(serverCom));
+				this.client = new ToolboxClientEngine(new UDPMulticastClient(clientCom, 2000));
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown protocol : " + this.protocol);
+		}
+		EngineListener listener = new Counter();
+		this.server.setListener(listener);
+		this.client.setListener(listener);
+		this.server.start();
+		this.client.start();
+
+		// The TCP servers accept the connection asynchronously
+		if (this.protocol == Protocol.TCP || this.protocol == Protocol.TCP_NIO) {
+			long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT;
+			while (this.server.getClients().isEmpty()) {
+				if (System.currentTimeMillis() > deadline) {
+					throw new IOException("Client not connected to " + serverCom.getId());
+				}
+				Thread.sleep(10);
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown () throws IOException {
+		this.client.stop();
+		this.server.stop();
+	}
+
+	/**
+	 * Sends one message.
+	 */
+	@Benchmark
+	public void send (final Received received) throws IOException {
+		this.payload.clear();
+		if (this.protocol == Protocol.UDP_MULTICAST) {
+			this.server.send(this.payload);
+		} else {
+			this.client.send(this.payload);
+		}
+	}
+
+	/**
+	 * Returns a port which is free on the loopback interface.
+	 */
+	private static int freePort (final Protocol protocol) throws IOException {
+		if (protocol == Protocol.TCP || protocol == Protocol.TCP_NIO) {
+			try (ServerSocket socket = new ServerSocket(0)) {
+				return socket.getLocalPort();
+			}
+		}
+		try (DatagramSocket socket = new DatagramSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	/**
+	 * Counts the received messages.
+	 */
+	private class Counter implements EngineListener {
+
+		@Override
+		public void onReceive (Interface source, PooledBuffer msg) {
+			receivedMessages.increment();
+			receivedBytes.add(msg.size());
+			msg.release();
+		}
+
+		@Override
+		public void onConnect (Interface client) {
+		}
+
+		@Override
+		public void onDisconnect (Interface client) {
+		}
+
+		@Override
+		public void onTimeout (Interface source) {
+		}
+
+		@Override
+		public void onException (Interface source, Throwable t) {
+		}
+	}
+}
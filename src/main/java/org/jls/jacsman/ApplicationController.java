@@ -25,6 +25,7 @@
 package org.jls.jacsman;
 
 import java.awt.Image;
+import java.util.ArrayList;
 
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
@@ -36,6 +37,12 @@ import org.jls.jacsman.gui.client.ClientController;
 import org.jls.jacsman.gui.client.ClientModel;
 import org.jls.jacsman.gui.server.ServerController;
 import org.jls.jacsman.gui.server.ServerModel;
+import org.jls.jacsman.metrics.SessionMetrics;
+import org.jls.jacsman.shaping.TrafficShaper;
+import org.jls.jacsman.util.PluginManager;
+import org.jls.jacsman.util.ResourceManager;
+import org.jls.jacsman.util.SessionFactory;
+import org.jls.toolbox.gui.AbstractView;
 
 /**
  * Application's controller.
@@ -61,6 +68,7 @@ public class ApplicationController {
 		this.logger = LogManager.getLogger();
 		this.model = model;
 		this.view = new ApplicationView(model, this);
+		watchPlugins();
 	}
 
 	/**
@@ -75,6 +83,9 @@ public class ApplicationController {
 	 */
 	public void exitApplication () {
 		this.logger.info("Exiting application");
+		for (String id : new ArrayList<>(this.model.getTabs().keySet())) {
+			closeTab(id);
+		}
 		Runtime.getRuntime().exit(0);
 	}
 
@@ -139,11 +150,14 @@ public class ApplicationController {
 	 *            Server's identifier.
 	 */
 	public void createServer (final String id) {
-		this.logger.info("Creating new server with ID : {}", id);
+		// Several tabs may be created with the same identifier
+		String tabId = uniqueId(id);
+		this.logger.info("Creating new server with ID : {}", tabId);
 		ServerController controller = new ServerController(new ServerModel());
-		this.model.getServers().put(id, controller);
-		this.model.getTabs().put(id, controller.createGui());
-		this.view.addTab(id, this.model.getTabs().get(id));
+		this.model.getServers().put(tabId, controller);
+		registerMetrics(controller.getMetrics(), controller.getShaper(), "Server", tabId);
+		this.model.getTabs().put(tabId, controller.createGui());
+		this.view.addTab(tabId, this.model.getTabs().get(tabId));
 	}
 
 	/**
@@ -153,10 +167,111 @@ public class ApplicationController {
 	 *            Client's identifier.
 	 */
 	public void createClient (final String id) {
-		this.logger.info("Creating new client with ID : {}", id);
+		// Several tabs may be created with the same identifier
+		String tabId = uniqueId(id);
+		this.logger.info("Creating new client with ID : {}", tabId);
 		ClientController controller = new ClientController(new ClientModel());
-		this.model.getClients().put(id, controller);
-		this.model.getTabs().put(id, controller.createGui());
-		this.view.addTab(id, this.model.getTabs().get(id));
+		this.model.getClients().put(tabId, controller);
+		registerMetrics(controller.getMetrics(), controller.getShaper(), "Client", tabId);
+		this.model.getTabs().put(tabId, controller.createGui());
+		this.view.addTab(tabId, this.model.getTabs().get(tabId));
+	}
+
+	/**
+	 * Closes a server or client tab : its session is stopped and the tab is
+	 * removed from the main frame.
+	 * 
+	 * @param id
+	 *            Tab's identifier.
+	 */
+	public void closeTab (final String id) {
+		this.logger.info("Closing tab {}", id);
+		ServerController server = this.model.getServers().remove(id);
+		if (server != null) {
+			server.dispose();
+			unregisterMetrics(server.getMetrics(), server.getShaper(), id);
+		}
+		ClientController client = this.model.getClients().remove(id);
+		if (client != null) {
+			client.dispose();
+			unregisterMetrics(client.getMetrics(), client.getShaper(), id);
+		}
+		AbstractView tab = this.model.getTabs().remove(id);
+		if (tab != null) {
+			this.view.removeTab(tab);
+		}
+	}
+
+	/**
+	 * Starts watching the plugins directory, if enabled, so the tabs reload
+	 * their plugin when its jar is modified. A failure is only logged, the
+	 * plugins are then loaded when selected only.
+	 */
+	private void watchPlugins () {
+		if (ResourceManager.getInstance().getBoolean("plugins.watch.enabled")) {
+			try {
+				PluginManager.getInstance().getWatcher().start();
+			} catch (Exception e) {
+				this.logger.warn("Cannot watch the plugins directory, plugins will not be reloaded", e);
+			}
+		}
+	}
+
+	/**
+	 * Returns an identifier used by no tab : the specified identifier, followed
+	 * by a number if a tab already uses it.
+	 * 
+	 * @param id
+	 *            Requested identifier.
+	 * @return Identifier of the new tab.
+	 */
+	private String uniqueId (final String id) {
+		String tabId = id;
+		for (int i = 2; this.model.getTabs().containsKey(tabId); i++) {
+			tabId = id + " " + i;
+		}
+		return tabId;
+	}
+
+	/**
+	 * Exports the metrics and the traffic shaper of a tab through JMX. A
+	 * failure is only logged, the tab works without export.
+	 * 
+	 * @param metrics
+	 *            Metrics of the tab.
+	 * @param shaper
+	 *            Traffic shaper of the tab.
+	 * @param type
+	 *            Type of the tab, <code>Server</code> or <code>Client</code>.
+	 * @param id
+	 *            Tab's identifier.
+	 */
+	private void registerMetrics (final SessionMetrics metrics, final TrafficShaper shaper, final String type,
+			final String id) {
+		try {
+			SessionFactory.registerMetrics(metrics, shaper, type, id);
+		} catch (Exception e) {
+			this.logger.warn("Cannot export the metrics of {} through JMX", id, e);
+		}
+	}
+
+	/**
+	 * Removes the metrics and the traffic shaper of a tab from JMX. A failure
+	 * is only logged.
+	 * 
+	 * @param metrics
+	 *            Metrics of the tab.
+	 * @param shaper
+	 *            Traffic shaper of the tab.
+	 * @param id
+	 *            Tab's identifier.
+	 */
+	private void unregisterMetrics (final SessionMetrics metrics, final TrafficShaper shaper, final String id) {
+		try {
+			metrics.getRegistry().unregister();
+			shaper.unregister();
+		} catch (Exception e) {
+			this.logger.warn("Cannot remove the metrics of {} from JMX", id, e);
+		}
 	}
 }
\ No newline at end of file
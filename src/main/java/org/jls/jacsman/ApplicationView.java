@@ -105,6 +105,16 @@ public class ApplicationView extends JFrame implements ActionListener {
 		this.tabbedPane.add(title, panel);
 	}
 
+	/**
+	 * Removes a tab from the main frame.
+	 * 
+	 * @param panel
+	 *            The panel associated with the tab.
+	 */
+	public void removeTab (final JPanel panel) {
+		this.tabbedPane.remove(panel);
+	}
+
 	/**
 	 * Creates the components of the GUI.
 	 */
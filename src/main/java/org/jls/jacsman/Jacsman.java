@@ -34,6 +34,7 @@ import javax.swing.SwingUtilities;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jls.jacsman.headless.HeadlessRuntime;
 import org.jls.jacsman.util.ResourceManager;
 import org.jls.toolbox.widget.ErrorPopUp;
 
@@ -46,10 +47,13 @@ import org.jls.toolbox.widget.ErrorPopUp;
 public class Jacsman {
 
 	/**
-	 * Launches the application and shows the Graphical User Interface.
+	 * Launches the application and shows the Graphical User Interface, or runs
+	 * the servers and clients without it if {@value HeadlessRuntime#HEADLESS_OPTION}
+	 * is given.
 	 * 
 	 * @param args
-	 *            No arguments.
+	 *            Arguments of the headless runtime, none for the Graphical
+	 *            User Interface.
 	 */
 	public static void main (final String[] args) {
 		/*
@@ -91,6 +95,14 @@ public class Jacsman {
 		head += "\t#####################################\n";
 		logger.info(head);
 
+		/*
+		 * Runs without GUI
+		 */
+		if (HeadlessRuntime.isHeadless(args)) {
+			HeadlessRuntime.launch(args);
+			return;
+		}
+
 		/*
 		 * Starts GUI
 		 */
@@ -0,0 +1,342 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+package org.jls.jacsman.buffer;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Pool of reusable {@link ByteBuffer}s, direct or on heap.
+ * <p>
+ * Buffers are sorted in size classes, each one being a power of two between
+ * {@link #MIN_CAPACITY} and the maximum capacity of the pool. A request is
+ * served by the smallest class large enough, and requests larger than the
+ * maximum capacity get a buffer which is not pooled. Each class keeps a
+ * bounded number of free buffers.
+ * </p>
+ * <p>
+ * Small buffers are carved out of slabs of {@link #SLAB_SIZE} bytes, so an
+ * empty class allocates several buffers at once instead of one allocation
+ * per buffer. Borrowing and releasing a buffer allocate nothing once the pool
+ * is warm.
+ * </p>
+ * <p>
+ * In debug mode, the pool records where each buffer has been borrowed and
+ * reports the buffers garbage collected without having been released.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class BufferPool {
+
+	/**
+	 * Capacity of the smallest size class.
+	 */
+	public static final int MIN_CAPACITY = 256;
+	/**
+	 * Size in bytes of the slabs in which the small buffers are carved.
+	 */
+	public static final int SLAB_SIZE = 64 * 1024;
+	private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_CAPACITY);
+
+	private final Logger logger;
+	private final boolean direct;
+	private final int maxCapacity;
+	private final List<BlockingQueue<PooledBuffer>> free;
+	private final boolean leakDetection;
+	private final ReferenceQueue<PooledBuffer> collected;
+	private final Set<LeakRecord> borrowed;
+	private final AtomicLong leakCount;
+
+	/**
+	 * Instanciates a new pool, without leak detection.
+	 * 
+	 * @param direct
+	 *            <code>true</code> to allocate direct buffers,
+	 *            <code>false</code> for heap buffers.
+	 * @param maxCapacity
+	 *            Capacity of the largest size class, rounded up to a power of
+	 *            two.
+	 * @param maxFree
+	 *            Maximum number of free buffers kept by each size class.
+	 */
+	public BufferPool (final boolean direct, final int maxCapacity, final int maxFree) {
+		this(direct, maxCapacity, maxFree, false);
+	}
+
+	/**
+	 * Instanciates a new pool.
+	 * 
+	 * @param direct
+	 *            <code>true</code> to allocate direct buffers,
+	 *            <code>false</code> for heap buffers.
+	 * @param maxCapacity
+	 *            Capacity of the largest size class, rounded up to a power of
+	 *            two.
+	 * @param maxFree
+	 *            Maximum number of free buffers kept by each size class.
+	 * @param leakDetection
+	 *            <code>true</code> to track the borrowed buffers and report
+	 *            the ones which are never released. Tracking costs an
+	 *            allocation per borrowed buffer, it should only be enabled
+	 *            while debugging.
+	 */
+	public BufferPool (final boolean direct, final int maxCapacity, final int maxFree, final boolean leakDetection) {
+		if (maxCapacity <= 0 || maxFree <= 0) {
+			throw new IllegalArgumentException("Invalid pool limits : " + maxCapacity + ", " + maxFree);
+		}
+		this.logger = LogManager.getLogger();
+		this.direct = direct;
+		this.maxCapacity = roundUp(maxCapacity);
+		int nbClasses = classIndex(this.maxCapacity) + 1;
+		this.free = new ArrayList<>(nbClasses);
+		for (int i = 0; i < nbClasses; i++) {
+			this.free.add(new ArrayBlockingQueue<PooledBuffer>(maxFree));
+		}
+		this.leakDetection = leakDetection;
+		this.collected = leakDetection ? new ReferenceQueue<PooledBuffer>() : null;
+		this.borrowed = leakDetection ? Collections.newSetFromMap(new ConcurrentHashMap<LeakRecord, Boolean>()) : null;
+		this.leakCount = new AtomicLong();
+	}
+
+	/**
+	 * Borrows a buffer. The returned buffer has a position of zero and a limit
+	 * equal to the requested size, its capacity may be larger.
+	 * 
+	 * @param size
+	 *            Size in bytes needed by the caller.
+	 * @return Handle of the borrowed buffer, to be released by its owner.
+	 */
+	public PooledBuffer acquire (final int size) {
+		if (size < 0) {
+			throw new IllegalArgumentException("Negative size : " + size);
+		}
+		if (size > this.maxCapacity) {
+			return PooledBuffer.wrap(allocate(size));
+		}
+		int idx = classIndex(size);
+		PooledBuffer buf = this.free.get(idx).poll();
+		if (buf == null) {
+			buf = allocateClass(idx);
+		}
+		buf.reset(size);
+		if (this.leakDetection) {
+			checkLeaks();
+			buf.leak = new LeakRecord(buf, this.collected);
+			this.borrowed.add(buf.leak);
+		}
+		return buf;
+	}
+
+	/**
+	 * Borrows a buffer and copies the remaining bytes of the specified buffer
+	 * in it. The position of the source buffer is moved to its limit.
+	 * 
+	 * @param src
+	 *            The bytes to copy.
+	 * @return Handle of the borrowed buffer, ready to be read.
+	 */
+	public PooledBuffer copyOf (final ByteBuffer src) {
+		PooledBuffer buf = acquire(src.remaining());
+		buf.buffer().put(src);
+		buf.buffer().flip();
+		return buf;
+	}
+
+	/**
+	 * Reports the borrowed buffers which have been garbage collected without
+	 * having been released. Does nothing if leak detection is disabled. Also
+	 * called each time a buffer is borrowed.
+	 * 
+	 * @return Number of leaks found by this call.
+	 */
+	public int checkLeaks () {
+		if (!this.leakDetection) {
+			return 0;
+		}
+		int found = 0;
+		LeakRecord record;
+		while ((record = (LeakRecord) this.collected.poll()) != null) {
+			// Records of released buffers have been removed
+			if (this.borrowed.remove(record)) {
+				found++;
+				this.leakCount.incrementAndGet();
+				this.logger.error("Buffer of {} bytes garbage collected without having been released", record.capacity,
+						record.site);
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Specifies if the pool allocates direct buffers.
+	 * 
+	 * @return <code>true</code> for direct buffers.
+	 */
+	public boolean isDirect () {
+		return this.direct;
+	}
+
+	/**
+	 * Specifies if the pool tracks the borrowed buffers.
+	 * 
+	 * @return <code>true</code> in debug mode.
+	 */
+	public boolean isLeakDetection () {
+		return this.leakDetection;
+	}
+
+	/**
+	 * Returns the capacity of the largest size class.
+	 * 
+	 * @return Maximum pooled capacity in bytes.
+	 */
+	public int getMaxCapacity () {
+		return this.maxCapacity;
+	}
+
+	/**
+	 * Returns the number of free buffers kept by the pool.
+	 * 
+	 * @return Number of free buffers.
+	 */
+	public int getFreeCount () {
+		int count = 0;
+		for (BlockingQueue<PooledBuffer> q : this.free) {
+			count += q.size();
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of buffers borrowed and not released yet. Only
+	 * tracked when leak detection is enabled.
+	 * 
+	 * @return Number of borrowed buffers, zero if leak detection is disabled.
+	 */
+	public int getBorrowedCount () {
+		return this.leakDetection ? this.borrowed.size() : 0;
+	}
+
+	/**
+	 * Returns the number of leaks reported since the creation of the pool.
+	 * 
+	 * @return Number of buffers never released.
+	 */
+	public long getLeakCount () {
+		return this.leakCount.get();
+	}
+
+	/**
+	 * Gives back a released buffer to its size class.
+	 * 
+	 * @param buf
+	 *            The released buffer.
+	 */
+	void recycle (final PooledBuffer buf) {
+		if (buf.leak != null) {
+			this.borrowed.remove(buf.leak);
+			buf.leak.clear();
+			buf.leak = null;
+		}
+		// If the class is full, the buffer is left to the garbage collector
+		this.free.get(classIndex(buf.buffer().capacity())).offer(buf);
+	}
+
+	/**
+	 * Allocates the buffers of an empty size class. Classes smaller than a
+	 * slab get a whole slab, the spare buffers being kept as free buffers.
+	 */
+	private PooledBuffer allocateClass (final int idx) {
+		int capacity = MIN_CAPACITY << idx;
+		if (capacity >= SLAB_SIZE) {
+			return new PooledBuffer(this, allocate(capacity));
+		}
+		ByteBuffer slab = allocate(SLAB_SIZE);
+		PooledBuffer first = null;
+		for (int offset = 0; offset < SLAB_SIZE; offset += capacity) {
+			slab.limit(offset + capacity).position(offset);
+			PooledBuffer buf = new PooledBuffer(this, slab.slice());
+			if (first == null) {
+				first = buf;
+			} else if (!this.free.get(idx).offer(buf)) {
+				break;
+			}
+		}
+		return first;
+	}
+
+	/**
+	 * Allocates a new buffer.
+	 */
+	private ByteBuffer allocate (final int capacity) {
+		return this.direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+	}
+
+	/**
+	 * Returns the index of the smallest size class holding the specified size.
+	 */
+	private static int classIndex (final int size) {
+		if (size <= MIN_CAPACITY) {
+			return 0;
+		}
+		return 32 - Integer.numberOfLeadingZeros(size - 1) - MIN_SHIFT;
+	}
+
+	/**
+	 * Rounds up a size to the next power of two, at least {@link #MIN_CAPACITY}.
+	 */
+	private static int roundUp (final int size) {
+		return MIN_CAPACITY << classIndex(size);
+	}
+
+	/**
+	 * Record of a borrowed buffer, enqueued by the garbage collector if the
+	 * buffer becomes unreachable before being released.
+	 */
+	static final class LeakRecord extends WeakReference<PooledBuffer> {
+
+		private final int capacity;
+		private final Throwable site;
+
+		public LeakRecord (final PooledBuffer buf, final ReferenceQueue<PooledBuffer> queue) {
+			super(buf, queue);
+			this.capacity = buf.buffer().capacity();
+			this.site = new Throwable("Buffer borrowed here");
+		}
+	}
+}
@@ -0,0 +1,251 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Handle on a {@link ByteBuffer} borrowed from a {@link BufferPool}. The
+ * handle travels with the message from the network engine to the plugin, and
+ * its owner gives the buffer back to the pool with {@link #release()}.
+ * <p>
+ * The handle is reference counted : a buffer shared by several owners, e.g. a
+ * message written to several clients, is retained by each additional owner
+ * and goes back to the pool when the last owner releases it.
+ * </p>
+ * <p>
+ * A handle can also wrap a buffer which does not belong to any pool, in which
+ * case releasing it does nothing.
+ * </p>
+ * <p>
+ * A {@link #slice(int, int) slice} shares a region of the buffer without
+ * copying it. It has its own reference count and keeps its parent retained
+ * until it is released.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public final class PooledBuffer {
+
+	private final BufferPool pool;
+	private final ByteBuffer buffer;
+	private final PooledBuffer parent;
+	private final AtomicInteger refCount;
+	/**
+	 * Record of the borrower, only set when the pool detects leaks.
+	 */
+	BufferPool.LeakRecord leak;
+
+	/**
+	 * Instanciates a new handle.
+	 * 
+	 * @param pool
+	 *            The pool owning the buffer, <code>null</code> if the buffer
+	 *            is not pooled.
+	 * @param buffer
+	 *            The buffer.
+	 */
+	PooledBuffer (final BufferPool pool, final ByteBuffer buffer) {
+		this(pool, buffer, null);
+	}
+
+	/**
+	 * Instanciates a new handle.
+	 * 
+	 * @param pool
+	 *            The pool owning the buffer, <code>null</code> if the buffer
+	 *            is not pooled.
+	 * @param buffer
+	 *            The buffer.
+	 * @param parent
+	 *            The handle this one is a slice of, <code>null</code> if
+	 *            none.
+	 */
+	private PooledBuffer (final BufferPool pool, final ByteBuffer buffer, final PooledBuffer parent) {
+		this.pool = pool;
+		this.buffer = buffer;
+		this.parent = parent;
+		this.refCount = new AtomicInteger(1);
+		this.leak = null;
+	}
+
+	/**
+	 * Wraps a buffer which does not belong to any pool.
+	 * 
+	 * @param buffer
+	 *            The buffer to wrap.
+	 * @return The handle of the buffer.
+	 */
+	public static PooledBuffer wrap (final ByteBuffer buffer) {
+		return new PooledBuffer(null, buffer);
+	}
+
+	/**
+	 * Wraps an array which does not belong to any pool, without copying it.
+	 * 
+	 * @param array
+	 *            The array to wrap.
+	 * @return The handle of the array.
+	 */
+	public static PooledBuffer wrap (final byte[] array) {
+		return new PooledBuffer(null, ByteBuffer.wrap(array));
+	}
+
+	/**
+	 * Returns the buffer. The message lies between the position and the limit
+	 * of the buffer.
+	 * 
+	 * @return The buffer.
+	 */
+	public ByteBuffer buffer () {
+		return this.buffer;
+	}
+
+	/**
+	 * Returns a handle on a region of the buffer, sharing its content. The
+	 * parent is retained until the slice is released, and must not be
+	 * written to in this region meanwhile.
+	 * 
+	 * @param index
+	 *            Absolute index of the region in the buffer.
+	 * @param length
+	 *            Size in bytes of the region.
+	 * @return The handle of the region, with a position of zero and a limit
+	 *         equal to its size.
+	 */
+	public PooledBuffer slice (final int index, final int length) {
+		if (index < 0 || length < 0 || index + length > this.buffer.capacity()) {
+			throw new IndexOutOfBoundsException("Invalid region : " + index + ", " + length);
+		}
+		ByteBuffer dup = this.buffer.duplicate();
+		dup.limit(index + length);
+		dup.position(index);
+		retain();
+		return new PooledBuffer(null, dup.slice(), this);
+	}
+
+	/**
+	 * Returns the size of the message, i.e. the remaining bytes of the buffer.
+	 * 
+	 * @return Size in bytes of the message.
+	 */
+	public int size () {
+		return this.buffer.remaining();
+	}
+
+	/**
+	 * Returns the message as an array. The position of the buffer is not
+	 * modified.
+	 * 
+	 * @return The message.
+	 * @see #toArray(ByteBuffer)
+	 */
+	public byte[] toArray () {
+		return toArray(this.buffer);
+	}
+
+	/**
+	 * Returns the remaining bytes of a buffer as an array. The backing array
+	 * is returned as is when it holds exactly the remaining bytes, otherwise
+	 * the bytes are copied. The position of the buffer is not modified.
+	 * 
+	 * @param buf
+	 *            The buffer.
+	 * @return The remaining bytes of the buffer.
+	 */
+	public static byte[] toArray (final ByteBuffer buf) {
+		if (buf.hasArray() && buf.arrayOffset() == 0 && buf.position() == 0 && buf.remaining() == buf.array().length) {
+			return buf.array();
+		}
+		byte[] array = new byte[buf.remaining()];
+		int pos = buf.position();
+		buf.get(array);
+		buf.position(pos);
+		return array;
+	}
+
+	/**
+	 * Specifies if the buffer belongs to a pool.
+	 * 
+	 * @return <code>true</code> if the buffer is pooled.
+	 */
+	public boolean isPooled () {
+		return this.parent != null ? this.parent.isPooled() : this.pool != null;
+	}
+
+	/**
+	 * Adds an owner to the buffer, which will have to release it too.
+	 * 
+	 * @return This handle.
+	 */
+	public PooledBuffer retain () {
+		if (this.refCount.getAndIncrement() <= 0) {
+			this.refCount.decrementAndGet();
+			throw new IllegalStateException("Buffer already released");
+		}
+		return this;
+	}
+
+	/**
+	 * Releases the buffer for one of its owners. When the last owner releases
+	 * it, the buffer goes back to its pool and must not be used anymore.
+	 */
+	public void release () {
+		int count = this.refCount.decrementAndGet();
+		if (count == 0) {
+			if (this.parent != null) {
+				this.parent.release();
+			} else if (this.pool != null) {
+				this.pool.recycle(this);
+			}
+		} else if (count < 0) {
+			this.refCount.incrementAndGet();
+			throw new IllegalStateException("Buffer already released");
+		}
+	}
+
+	/**
+	 * Returns the number of owners of the buffer.
+	 * 
+	 * @return Reference count, zero once released.
+	 */
+	public int refCount () {
+		return this.refCount.get();
+	}
+
+	/**
+	 * Prepares a recycled handle to be lent again.
+	 * 
+	 * @param size
+	 *            Size in bytes requested by the borrower.
+	 */
+	void reset (final int size) {
+		this.buffer.clear();
+		this.buffer.limit(size);
+		this.refCount.set(1);
+	}
+}
@@ -0,0 +1,105 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.capture;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.util.Arrays;
+
+/**
+ * Layout of a capture directory.
+ * <p>
+ * The messages are appended to segment files <code>segment-NNNNN.cap</code> of
+ * fixed size, starting with a header of {@link #SEGMENT_HEADER} bytes : magic
+ * number, format version and segment number. Each record holds the size of the
+ * message (int), its time in nanoseconds since the start of the capture
+ * (long), its direction (byte) and its bytes. A size of zero marks the end of
+ * the records of a segment.
+ * </p>
+ * <p>
+ * The sparse time index <code>capture.idx</code> starts with the magic number,
+ * the format version and the start time of the capture in milliseconds since
+ * the epoch, followed by entries of {@link #INDEX_ENTRY} bytes : time of a
+ * record (long), its segment (int) and its position in the segment (int).
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+final class CaptureFormat {
+
+	static final int MAGIC = 0x4A434150;
+	static final int VERSION = 1;
+	static final int SEGMENT_HEADER = 12;
+	static final int RECORD_HEADER = 13;
+	static final int INDEX_HEADER = 16;
+	static final int INDEX_ENTRY = 16;
+	static final String INDEX_FILE = "capture.idx";
+
+	private static final String SEGMENT_PREFIX = "segment-";
+	private static final String SEGMENT_SUFFIX = ".cap";
+
+	/**
+	 * Not instanciable.
+	 */
+	private CaptureFormat () {
+	}
+
+	/**
+	 * Returns the file of a segment.
+	 * 
+	 * @param dir
+	 *            Capture directory.
+	 * @param segment
+	 *            Segment number.
+	 * @return The segment file.
+	 */
+	static File getSegmentFile (final File dir, final int segment) {
+		return new File(dir, String.format("%s%05d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+	}
+
+	/**
+	 * Lists the segment files of a capture, in order.
+	 * 
+	 * @param dir
+	 *            Capture directory.
+	 * @return The segment files.
+	 */
+	static File[] listSegments (final File dir) {
+		File[] files = dir.listFiles(new FileFilter() {
+
+			@Override
+			public boolean accept (File file) {
+				return file.isFile() && file.getName().startsWith(SEGMENT_PREFIX)
+						&& file.getName().endsWith(SEGMENT_SUFFIX);
+			}
+		});
+		if (files == null) {
+			return new File[0];
+		}
+		Arrays.sort(files);
+		return files;
+	}
+}
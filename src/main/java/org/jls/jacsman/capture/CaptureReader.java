@@ -0,0 +1,261 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.capture;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads the messages of a capture directory written by {@link CaptureWriter},
+ * in their recording order.
+ * <p>
+ * The segments are mapped in memory one at a time. The reader is a cursor :
+ * {@link #next()} moves to the next message, whose time, direction and bytes
+ * are then returned by the getters, without any allocation. The sparse time
+ * index is loaded when the capture is opened, so {@link #seek(long)} only
+ * reads the records of the interval holding the requested time.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class CaptureReader implements Closeable {
+
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private final File dir;
+	private final File[] segments;
+	private final long startTime;
+	private final long[] indexTimes;
+	private final int[] indexSegments;
+	private final int[] indexPositions;
+
+	private MappedByteBuffer segment;
+	private int segmentNumber;
+	private int recordEnd;
+	private long time;
+	private Direction direction;
+
+	/**
+	 * Opens a capture.
+	 * 
+	 * @param dir
+	 *            Capture directory.
+	 * @throws IOException
+	 *             If the directory does not hold a capture or its index
+	 *             cannot be read.
+	 */
+	public CaptureReader (final File dir) throws IOException {
+		this.dir = dir;
+		this.segments = CaptureFormat.listSegments(dir);
+		File indexFile = new File(dir, CaptureFormat.INDEX_FILE);
+		if (!indexFile.isFile()) {
+			throw new IOException("No capture in " + dir);
+		}
+		try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+			ByteBuffer index = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			if (index.remaining() < CaptureFormat.INDEX_HEADER || index.getInt() != CaptureFormat.MAGIC) {
+				throw new IOException("Invalid capture index " + indexFile);
+			}
+			int version = index.getInt();
+			if (version != CaptureFormat.VERSION) {
+				throw new IOException("Unsupported capture version " + version + " in " + indexFile);
+			}
+			this.startTime = index.getLong();
+			int entries = index.remaining() / CaptureFormat.INDEX_ENTRY;
+			this.indexTimes = new long[entries];
+			this.indexSegments = new int[entries];
+			this.indexPositions = new int[entries];
+			for (int i = 0; i < entries; i++) {
+				this.indexTimes[i] = index.getLong();
+				this.indexSegments[i] = index.getInt();
+				this.indexPositions[i] = index.getInt();
+			}
+		}
+		this.segment = null;
+		this.segmentNumber = -1;
+		this.recordEnd = 0;
+		this.time = 0;
+		this.direction = null;
+	}
+
+	/**
+	 * Moves to the next message.
+	 * 
+	 * @return <code>true</code> if there is a next message,
+	 *         <code>false</code> at the end of the capture.
+	 * @throws IOException
+	 *             If a segment cannot be read.
+	 */
+	public boolean next () throws IOException {
+		while (true) {
+			if (this.segment != null) {
+				this.segment.limit(this.segment.capacity()).position(this.recordEnd);
+				if (this.segment.remaining() >= CaptureFormat.RECORD_HEADER) {
+					int size = this.segment.getInt();
+					if (size > 0) {
+						this.time = this.segment.getLong();
+						this.direction = DIRECTIONS[this.segment.get()];
+						this.recordEnd = this.segment.position() + size;
+						this.segment.limit(this.recordEnd);
+						return true;
+					}
+				}
+			}
+			if (this.segmentNumber + 1 >= this.segments.length) {
+				return false;
+			}
+			openSegment(this.segmentNumber + 1, CaptureFormat.SEGMENT_HEADER);
+		}
+	}
+
+	/**
+	 * Moves before the first message recorded at or after the specified time,
+	 * so that the next call to {@link #next()} returns it.
+	 * 
+	 * @param time
+	 *            Time in nanoseconds since the start of the capture.
+	 * @throws IOException
+	 *             If a segment cannot be read.
+	 */
+	public void seek (final long time) throws IOException {
+		// Last index entry before the time, then a linear scan
+		int low = 0;
+		int high = this.indexTimes.length - 1;
+		int entry = -1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (this.indexTimes[mid] <= time) {
+				entry = mid;
+				low = mid + 1;
+			} else {
+				high = mid - 1;
+			}
+		}
+		if (entry >= 0) {
+			openSegment(this.indexSegments[entry], this.indexPositions[entry]);
+		} else {
+			this.segment = null;
+			this.segmentNumber = -1;
+		}
+		int position = this.recordEnd;
+		int number = this.segmentNumber;
+		while (next() && this.time < time) {
+			position = this.recordEnd;
+			number = this.segmentNumber;
+		}
+		// Steps back before the message found
+		if (this.segment != null) {
+			if (number != this.segmentNumber) {
+				openSegment(this.segmentNumber, CaptureFormat.SEGMENT_HEADER);
+			} else {
+				this.recordEnd = position;
+			}
+		}
+	}
+
+	/**
+	 * Returns the time of the current message.
+	 * 
+	 * @return Time in nanoseconds since the start of the capture.
+	 */
+	public long getTime () {
+		return this.time;
+	}
+
+	/**
+	 * Returns the direction of the current message.
+	 * 
+	 * @return Direction of the message.
+	 */
+	public Direction getDirection () {
+		return this.direction;
+	}
+
+	/**
+	 * Returns the bytes of the current message, between the position and the
+	 * limit of the returned buffer. The buffer is reused by the next call to
+	 * {@link #next()}, it must not be kept.
+	 * 
+	 * @return The message.
+	 */
+	public ByteBuffer getMessage () {
+		return this.segment;
+	}
+
+	/**
+	 * Returns the start time of the capture.
+	 * 
+	 * @return Time in milliseconds since the epoch.
+	 */
+	public long getStartTime () {
+		return this.startTime;
+	}
+
+	/**
+	 * Returns the capture directory.
+	 * 
+	 * @return Capture directory.
+	 */
+	public File getDirectory () {
+		return this.dir;
+	}
+
+	@Override
+	public void close () {
+		this.segment = null;
+		this.segmentNumber = this.segments.length;
+	}
+
+	/**
+	 * Maps a segment and moves to a record of it.
+	 * 
+	 * @param number
+	 *            Index of the segment.
+	 * @param position
+	 *            Position of the record in the segment.
+	 * @throws IOException
+	 *             If the segment cannot be read.
+	 */
+	private void openSegment (final int number, final int position) throws IOException {
+		if (number != this.segmentNumber || this.segment == null) {
+			try (FileChannel channel = FileChannel.open(this.segments[number].toPath(), StandardOpenOption.READ)) {
+				this.segment = channel.map(MapMode.READ_ONLY, 0, channel.size());
+			}
+			if (this.segment.capacity() < CaptureFormat.SEGMENT_HEADER
+					|| this.segment.getInt(0) != CaptureFormat.MAGIC) {
+				throw new IOException("Invalid capture segment " + this.segments[number]);
+			}
+			this.segmentNumber = number;
+		}
+		this.recordEnd = position;
+	}
+}
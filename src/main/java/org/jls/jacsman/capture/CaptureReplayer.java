@@ -0,0 +1,216 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.capture;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jls.jacsman.plugin.buffer.BufferPluginInterface;
+
+/**
+ * Sends again the messages of a capture through a server or client, from a
+ * thread of its own.
+ * <p>
+ * The messages are sent at the pace they were recorded, multiplied by the
+ * speed : 1 replays at the original speed, 2 twice as fast, 0.5 twice as slow.
+ * With {@link #MAXIMUM_SPEED} they are sent as fast as possible. The times are
+ * measured from the first replayed message, so a replay can start anywhere in
+ * the capture.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class CaptureReplayer {
+
+	/**
+	 * Speed sending the messages without waiting.
+	 */
+	public static final double MAXIMUM_SPEED = 0;
+
+	/**
+	 * Notified when a replay ends.
+	 */
+	public interface Listener {
+
+		/**
+		 * Called from the replay thread when all the messages have been sent,
+		 * when the replay is stopped or when a message cannot be sent.
+		 * 
+		 * @param messages
+		 *            Number of messages sent.
+		 * @param error
+		 *            The error stopping the replay, <code>null</code> if none.
+		 */
+		public void onFinished (long messages, Throwable error);
+	}
+
+	private final String name;
+	private final Logger logger;
+	private final CaptureReader reader;
+	private final BufferPluginInterface target;
+	private final Direction direction;
+	private final double speed;
+	private final Listener listener;
+	private final LongAdder sent;
+
+	private volatile boolean running;
+	private Thread thread;
+
+	/**
+	 * Instanciates a new replayer.
+	 * 
+	 * @param name
+	 *            Name of the replayer, used to name its thread.
+	 * @param reader
+	 *            The capture, read from its current position. It is closed
+	 *            at the end of the replay.
+	 * @param target
+	 *            Server or client sending the messages.
+	 * @param direction
+	 *            Direction of the replayed messages, the others are skipped.
+	 * @param speed
+	 *            Speed factor, strictly positive, or {@link #MAXIMUM_SPEED}.
+	 * @param listener
+	 *            Notified at the end of the replay, may be <code>null</code>.
+	 */
+	public CaptureReplayer (final String name, final CaptureReader reader, final BufferPluginInterface target,
+			final Direction direction, final double speed, final Listener listener) {
+		if (speed < 0 || Double.isNaN(speed)) {
+			throw new IllegalArgumentException("Invalid replay speed : " + speed);
+		}
+		this.name = name;
+		this.logger = LogManager.getLogger();
+		this.reader = reader;
+		this.target = target;
+		this.direction = direction;
+		this.speed = speed;
+		this.listener = listener;
+		this.sent = new LongAdder();
+		this.running = false;
+	}
+
+	/**
+	 * Starts sending.
+	 */
+	public synchronized void start () {
+		if (this.running || this.thread != null) {
+			throw new IllegalStateException("Replay already started");
+		}
+		this.logger.info("Replaying {} at {}", this.reader.getDirectory(),
+				this.speed == MAXIMUM_SPEED ? "maximum speed" : "speed x" + this.speed);
+		this.running = true;
+		this.thread = new Thread(new Runnable() {
+
+			@Override
+			public void run () {
+				replay();
+			}
+		}, this.name + "-replay");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Stops sending, waiting for the message being sent.
+	 */
+	public void stop () {
+		Thread thread;
+		synchronized (this) {
+			this.running = false;
+			thread = this.thread;
+		}
+		if (thread != null && thread != Thread.currentThread()) {
+			LockSupport.unpark(thread);
+			try {
+				thread.join(1000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Specifies if the replayer is sending.
+	 * 
+	 * @return <code>true</code> if the replay is running.
+	 */
+	public boolean isRunning () {
+		return this.running;
+	}
+
+	/**
+	 * Returns the number of messages sent.
+	 * 
+	 * @return Number of messages.
+	 */
+	public long getSent () {
+		return this.sent.sum();
+	}
+
+	/**
+	 * Replay loop, run by the replay thread.
+	 */
+	private void replay () {
+		Throwable error = null;
+		try {
+			long firstTime = -1;
+			long startNanos = 0;
+			while (this.running && this.reader.next()) {
+				if (this.reader.getDirection() != this.direction) {
+					continue;
+				}
+				if (firstTime < 0) {
+					firstTime = this.reader.getTime();
+					startNanos = System.nanoTime();
+				} else if (this.speed != MAXIMUM_SPEED) {
+					long due = startNanos + (long) ((this.reader.getTime() - firstTime) / this.speed);
+					long wait;
+					while (this.running && (wait = due - System.nanoTime()) > 0) {
+						LockSupport.parkNanos(this, wait);
+					}
+					if (!this.running) {
+						break;
+					}
+				}
+				this.target.send(this.reader.getMessage());
+				this.sent.increment();
+			}
+		} catch (IOException | RuntimeException e) {
+			this.logger.error("Replay of {} failed", this.reader.getDirectory(), e);
+			error = e;
+		} finally {
+			this.running = false;
+			this.reader.close();
+		}
+		this.logger.info("Replay of {} finished, {} message(s) sent", this.reader.getDirectory(), this.sent.sum());
+		if (this.listener != null) {
+			this.listener.onFinished(this.sent.sum(), error);
+		}
+	}
+}
@@ -0,0 +1,233 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.capture;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the messages of a server or client into a capture directory, in the
+ * format described by {@link CaptureFormat}.
+ * <p>
+ * Each segment is mapped in memory, so appending a message is a copy into the
+ * mapped buffer, written to the disk by the operating system. A new segment is
+ * created when the current one is full. An entry of the sparse time index is
+ * written for the first record of each segment and for the first record
+ * following each index interval, to seek a time without reading the whole
+ * capture. This class is thread safe : the messages of all the network threads
+ * are appended in their arrival order.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class CaptureWriter implements Closeable {
+
+	private final File dir;
+	private final int segmentSize;
+	private final long indexInterval;
+	private final long startNanos;
+	private final FileChannel index;
+	private final ByteBuffer indexEntry;
+
+	private MappedByteBuffer segment;
+	private int segmentNumber;
+	private long nextIndexTime;
+	private long records;
+	private long bytes;
+	private boolean closed;
+
+	/**
+	 * Creates a new capture.
+	 * 
+	 * @param dir
+	 *            Capture directory, created if needed. It must not contain a
+	 *            capture already.
+	 * @param segmentSize
+	 *            Size of a segment file in bytes, the largest message
+	 *            recorded.
+	 * @param indexInterval
+	 *            Minimum time between two entries of the time index.
+	 * @param unit
+	 *            Unit of the interval.
+	 * @throws IOException
+	 *             If the capture files cannot be created.
+	 */
+	public CaptureWriter (final File dir, final int segmentSize, final long indexInterval, final TimeUnit unit)
+			throws IOException {
+		if (segmentSize <= CaptureFormat.SEGMENT_HEADER + CaptureFormat.RECORD_HEADER) {
+			throw new IllegalArgumentException("Segment size too small : " + segmentSize);
+		}
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("Cannot create capture directory " + dir);
+		}
+		this.dir = dir;
+		this.segmentSize = segmentSize;
+		this.indexInterval = unit.toNanos(indexInterval);
+		this.startNanos = System.nanoTime();
+		this.index = FileChannel.open(new File(dir, CaptureFormat.INDEX_FILE).toPath(), StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.WRITE);
+		this.indexEntry = ByteBuffer.allocate(CaptureFormat.INDEX_ENTRY);
+
+		ByteBuffer header = ByteBuffer.allocate(CaptureFormat.INDEX_HEADER);
+		header.putInt(CaptureFormat.MAGIC).putInt(CaptureFormat.VERSION).putLong(System.currentTimeMillis()).flip();
+		writeIndex(header);
+		this.segment = null;
+		this.segmentNumber = -1;
+		this.nextIndexTime = 0;
+		this.records = 0;
+		this.bytes = 0;
+		this.closed = false;
+	}
+
+	/**
+	 * Appends a message. The position of the buffer is left unchanged.
+	 * 
+	 * @param direction
+	 *            Direction of the message.
+	 * @param msg
+	 *            The message, between its position and its limit. Empty
+	 *            messages are not recorded.
+	 * @throws IOException
+	 *             If a new segment cannot be created, or if the message is
+	 *             larger than a segment.
+	 */
+	public synchronized void append (final Direction direction, final ByteBuffer msg) throws IOException {
+		if (this.closed) {
+			throw new IOException("Capture " + this.dir + " closed");
+		}
+		int size = msg.remaining();
+		if (size == 0) {
+			return;
+		}
+		int recordSize = CaptureFormat.RECORD_HEADER + size;
+		if (recordSize > this.segmentSize - CaptureFormat.SEGMENT_HEADER) {
+			throw new IOException("Message of " + size + " bytes larger than a capture segment");
+		}
+		long time = System.nanoTime() - this.startNanos;
+		boolean indexed = false;
+		if (this.segment == null || this.segment.remaining() < recordSize) {
+			nextSegment();
+			indexed = true;
+		}
+		if (indexed || time >= this.nextIndexTime) {
+			this.indexEntry.clear();
+			this.indexEntry.putLong(time).putInt(this.segmentNumber).putInt(this.segment.position()).flip();
+			writeIndex(this.indexEntry);
+			this.nextIndexTime = time + this.indexInterval;
+		}
+		int position = msg.position();
+		this.segment.putInt(size).putLong(time).put((byte) direction.ordinal()).put(msg);
+		msg.position(position);
+		this.records++;
+		this.bytes += size;
+	}
+
+	/**
+	 * Flushes the current segment to the disk and closes the capture.
+	 * 
+	 * @throws IOException
+	 *             If the index cannot be closed.
+	 */
+	@Override
+	public synchronized void close () throws IOException {
+		if (!this.closed) {
+			this.closed = true;
+			if (this.segment != null) {
+				this.segment.force();
+				this.segment = null;
+			}
+			this.index.close();
+		}
+	}
+
+	/**
+	 * Returns the number of recorded messages.
+	 * 
+	 * @return Number of messages.
+	 */
+	public synchronized long getRecords () {
+		return this.records;
+	}
+
+	/**
+	 * Returns the number of recorded bytes, headers excluded.
+	 * 
+	 * @return Number of bytes.
+	 */
+	public synchronized long getBytes () {
+		return this.bytes;
+	}
+
+	/**
+	 * Returns the capture directory.
+	 * 
+	 * @return Capture directory.
+	 */
+	public File getDirectory () {
+		return this.dir;
+	}
+
+	/**
+	 * Flushes the current segment and maps the next one.
+	 * 
+	 * @throws IOException
+	 *             If the segment file cannot be created.
+	 */
+	private void nextSegment () throws IOException {
+		if (this.segment != null) {
+			this.segment.force();
+		}
+		this.segmentNumber++;
+		try (FileChannel channel = FileChannel.open(
+				CaptureFormat.getSegmentFile(this.dir, this.segmentNumber).toPath(), StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			// The mapping stays valid once the channel is closed
+			this.segment = channel.map(MapMode.READ_WRITE, 0, this.segmentSize);
+		}
+		this.segment.putInt(CaptureFormat.MAGIC).putInt(CaptureFormat.VERSION).putInt(this.segmentNumber);
+	}
+
+	/**
+	 * Appends bytes to the index file.
+	 * 
+	 * @param buffer
+	 *            The bytes.
+	 * @throws IOException
+	 *             If the index cannot be written.
+	 */
+	private void writeIndex (final ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			this.index.write(buffer);
+		}
+	}
+}
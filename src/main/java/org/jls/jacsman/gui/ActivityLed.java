@@ -0,0 +1,156 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.gui;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.swing.JLabel;
+import javax.swing.Timer;
+
+import org.jls.jacsman.ApplicationModel;
+
+/**
+ * Activity LED showing the message rate of a network tab.
+ * <p>
+ * Network threads only increment a counter with {@link #hit()}. A single
+ * Swing timer shared by all the LEDs of the application samples the counters
+ * on the Event Dispatch Thread : a LED is lit during one frame if at least one
+ * message arrived since the previous frame, whatever the number of messages,
+ * and its text shows the rate measured over the last second.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class ActivityLed extends JLabel {
+
+	private static final long serialVersionUID = 2318154658413021893L;
+
+	/**
+	 * Frame period of the animation in milliseconds.
+	 */
+	private static final int FRAME_PERIOD = 100;
+	/**
+	 * Number of frames between two updates of the displayed rate.
+	 */
+	private static final int RATE_FRAMES = 10;
+
+	private static final List<ActivityLed> LEDS = new CopyOnWriteArrayList<>();
+	private static final Timer TIMER = new Timer(FRAME_PERIOD, new ActionListener() {
+
+		@Override
+		public void actionPerformed (ActionEvent e) {
+			for (ActivityLed led : LEDS) {
+				led.refresh();
+			}
+		}
+	});
+
+	private final LongAdder hits;
+	private long lastFrameHits;
+	private long lastRateHits;
+	private long lastRateTime;
+	private int frames;
+	private boolean lit;
+
+	/**
+	 * Instanciates a new LED.
+	 */
+	public ActivityLed () {
+		super(ApplicationModel.LED_GRAY);
+		this.hits = new LongAdder();
+		this.lastFrameHits = 0;
+		this.lastRateHits = 0;
+		this.lastRateTime = System.nanoTime();
+		this.frames = 0;
+		this.lit = false;
+		setText(formatRate(0));
+	}
+
+	/**
+	 * Notifies an activity. This method can be called from any thread and
+	 * costs a counter increment.
+	 */
+	public void hit () {
+		this.hits.increment();
+	}
+
+	/**
+	 * Returns the number of activities notified since the LED creation.
+	 * 
+	 * @return Number of activities.
+	 */
+	public long getHits () {
+		return this.hits.sum();
+	}
+
+	@Override
+	public void addNotify () {
+		super.addNotify();
+		LEDS.add(this);
+		TIMER.start();
+	}
+
+	@Override
+	public void removeNotify () {
+		LEDS.remove(this);
+		if (LEDS.isEmpty()) {
+			TIMER.stop();
+		}
+		super.removeNotify();
+	}
+
+	/**
+	 * Updates the LED state and rate. Called on the EDT at each frame.
+	 */
+	private void refresh () {
+		long count = this.hits.sum();
+		boolean active = count != this.lastFrameHits;
+		this.lastFrameHits = count;
+		if (active != this.lit) {
+			this.lit = active;
+			setIcon(active ? ApplicationModel.LED_GREEN : ApplicationModel.LED_GRAY);
+		}
+		if (++this.frames >= RATE_FRAMES) {
+			long now = System.nanoTime();
+			long rate = (count - this.lastRateHits) * 1000000000L / Math.max(1, now - this.lastRateTime);
+			setText(formatRate(rate));
+			this.lastRateHits = count;
+			this.lastRateTime = now;
+			this.frames = 0;
+		}
+	}
+
+	/**
+	 * Formats a message rate.
+	 */
+	private static String formatRate (final long rate) {
+		return rate + " msg/s";
+	}
+}
@@ -0,0 +1,353 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.gui;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextPane;
+import javax.swing.Timer;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jls.jacsman.util.ResourceManager;
+
+/**
+ * Console displaying the lines printed by a network tab. Lines can be printed
+ * from any thread : they are queued and rendered in batches on the Event
+ * Dispatch Thread at a fixed frame interval.
+ * <p>
+ * Both the queue and the history are bounded. When the queue is full the
+ * oldest pending lines are dropped, and when a batch holds more lines than the
+ * history can display the lines that would be scrolled out immediately are
+ * skipped without being rendered. Both counts are reported in the console and
+ * by {@link #getDroppedCount()} and {@link #getCoalescedCount()}.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class BufferedConsole extends JPanel {
+
+	private static final long serialVersionUID = -6146250735474834567L;
+
+	private static final Color PREFIX_COLOR = Color.blue;
+	private static final Color NOTICE_COLOR = Color.gray;
+	private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter
+			.ofPattern(ResourceManager.getInstance().getString("pattern.format.date.console"))
+			.withZone(ZoneId.systemDefault());
+
+	private static volatile Timestamp lastTimestamp = new Timestamp(Long.MIN_VALUE, "");
+
+	private final Logger logger;
+	private final int maxLines;
+	private final int maxPending;
+	private final Queue<Line> pending;
+	private final AtomicInteger pendingCount;
+	private final AtomicLong dropped;
+	private final AtomicLong coalesced;
+	private final HashMap<Color, AttributeSet> styles;
+	private final AttributeSet prefixStyle;
+	private final Timer timer;
+
+	private JTextPane textPane;
+	private long reportedDropped;
+	private long reportedCoalesced;
+
+	/**
+	 * Instanciates a new console.
+	 * 
+	 * @param maxLines
+	 *            Maximum number of lines kept in the history.
+	 * @param maxPending
+	 *            Maximum number of lines waiting to be rendered.
+	 * @param period
+	 *            Rendering period in milliseconds.
+	 */
+	public BufferedConsole (final int maxLines, final int maxPending, final int period) {
+		super(new BorderLayout());
+		if (maxLines <= 0 || maxPending <= 0 || period <= 0) {
+			throw new IllegalArgumentException("Console limits must be positive");
+		}
+		this.logger = LogManager.getLogger();
+		this.maxLines = maxLines;
+		this.maxPending = maxPending;
+		this.pending = new ConcurrentLinkedQueue<>();
+		this.pendingCount = new AtomicInteger();
+		this.dropped = new AtomicLong();
+		this.coalesced = new AtomicLong();
+		this.styles = new HashMap<>();
+		this.prefixStyle = createStyle(PREFIX_COLOR, true);
+		this.reportedDropped = 0;
+		this.reportedCoalesced = 0;
+		this.timer = new Timer(period, new ActionListener() {
+
+			@Override
+			public void actionPerformed (ActionEvent e) {
+				render();
+			}
+		});
+		this.timer.setCoalesce(true);
+		createComponents();
+	}
+
+	/**
+	 * Queues a line to be printed. This method can be called from any thread
+	 * and never blocks.
+	 * 
+	 * @param text
+	 *            The text of the line.
+	 * @param color
+	 *            The text's color.
+	 */
+	public void println (final String text, final Color color) {
+		this.pending.add(new Line(timestamp(), text, color));
+		if (this.pendingCount.incrementAndGet() > this.maxPending) {
+			// Drops the oldest line
+			if (this.pending.poll() != null) {
+				this.pendingCount.decrementAndGet();
+				this.dropped.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Removes all the lines of the console.
+	 */
+	public void clear () {
+		this.textPane.setText("");
+	}
+
+	/**
+	 * Returns the number of lines dropped because the queue was full.
+	 * 
+	 * @return Number of dropped lines.
+	 */
+	public long getDroppedCount () {
+		return this.dropped.get();
+	}
+
+	/**
+	 * Returns the number of lines skipped because they would have been
+	 * scrolled out of the history in the batch where they were rendered.
+	 * 
+	 * @return Number of coalesced lines.
+	 */
+	public long getCoalescedCount () {
+		return this.coalesced.get();
+	}
+
+	/**
+	 * Returns the number of lines waiting to be rendered.
+	 * 
+	 * @return Number of pending lines.
+	 */
+	public int getPendingCount () {
+		return this.pendingCount.get();
+	}
+
+	/**
+	 * Starts rendering the queued lines periodically. Called once the console
+	 * is displayed, or explicitly when it is used without being displayed.
+	 */
+	public void start () {
+		this.timer.start();
+	}
+
+	/**
+	 * Stops rendering the queued lines, they are kept until the console is
+	 * started again.
+	 */
+	public void stop () {
+		this.timer.stop();
+	}
+
+	@Override
+	public void addNotify () {
+		super.addNotify();
+		start();
+	}
+
+	@Override
+	public void removeNotify () {
+		stop();
+		super.removeNotify();
+	}
+
+	/**
+	 * Creates the graphical components.
+	 */
+	private void createComponents () {
+		this.textPane = new JTextPane();
+		this.textPane.setEditable(false);
+		add(new JScrollPane(this.textPane), BorderLayout.CENTER);
+	}
+
+	/**
+	 * Renders the pending lines. Called on the EDT.
+	 */
+	private void render () {
+		int count = this.pendingCount.get();
+		if (count == 0 && this.reportedDropped == this.dropped.get()) {
+			return;
+		}
+		// Lines that would be scrolled out by this batch are not rendered
+		int skip = Math.max(0, count - this.maxLines);
+		StyledDocument doc = this.textPane.getStyledDocument();
+		try {
+			Line line;
+			for (int i = 0; i < count && (line = this.pending.poll()) != null; i++) {
+				this.pendingCount.decrementAndGet();
+				if (i < skip) {
+					continue;
+				}
+				doc.insertString(doc.getLength(), line.timestamp + " > ", this.prefixStyle);
+				doc.insertString(doc.getLength(), line.text + "\n", getStyle(line.color));
+			}
+			this.coalesced.addAndGet(skip);
+			reportLosses(doc);
+			trim(doc);
+		} catch (BadLocationException e) {
+			this.logger.error("Failed to render console lines", e);
+		}
+		this.textPane.setCaretPosition(doc.getLength());
+	}
+
+	/**
+	 * Prints a notice if lines have been dropped or coalesced since the last
+	 * notice.
+	 */
+	private void reportLosses (final StyledDocument doc) throws BadLocationException {
+		long d = this.dropped.get();
+		long c = this.coalesced.get();
+		if (d != this.reportedDropped || c != this.reportedCoalesced) {
+			String notice = "... " + (d - this.reportedDropped) + " line(s) dropped, " + (c - this.reportedCoalesced)
+					+ " line(s) coalesced\n";
+			doc.insertString(doc.getLength(), notice, getStyle(NOTICE_COLOR));
+			this.reportedDropped = d;
+			this.reportedCoalesced = c;
+		}
+	}
+
+	/**
+	 * Removes the oldest lines exceeding the history size.
+	 */
+	private void trim (final StyledDocument doc) throws BadLocationException {
+		Element root = doc.getDefaultRootElement();
+		// The last paragraph is the empty one following the last line break
+		int excess = root.getElementCount() - 1 - this.maxLines;
+		if (excess > 0) {
+			doc.remove(0, root.getElement(excess - 1).getEndOffset());
+		}
+	}
+
+	/**
+	 * Returns the plain text style of the specified color.
+	 */
+	private AttributeSet getStyle (final Color color) {
+		AttributeSet style = this.styles.get(color);
+		if (style == null) {
+			style = createStyle(color, false);
+			this.styles.put(color, style);
+		}
+		return style;
+	}
+
+	/**
+	 * Creates a text style.
+	 */
+	private static AttributeSet createStyle (final Color color, final boolean bold) {
+		SimpleAttributeSet style = new SimpleAttributeSet();
+		StyleConstants.setForeground(style, color);
+		StyleConstants.setBold(style, bold);
+		return style;
+	}
+
+	/**
+	 * Returns the timestamp of a line printed now. The timestamp is formatted
+	 * at most once per millisecond for all the consoles : the lines printed
+	 * within the same millisecond share the same string.
+	 * 
+	 * @return The formatted timestamp.
+	 */
+	private static String timestamp () {
+		long now = System.currentTimeMillis();
+		Timestamp last = lastTimestamp;
+		if (last.millis != now) {
+			// Two threads may both format the same millisecond, which is harmless
+			last = new Timestamp(now, TIMESTAMP_FORMAT.format(Instant.ofEpochMilli(now)));
+			lastTimestamp = last;
+		}
+		return last.text;
+	}
+
+	/**
+	 * Formatted timestamp of a millisecond.
+	 */
+	private static final class Timestamp {
+
+		private final long millis;
+		private final String text;
+
+		public Timestamp (final long millis, final String text) {
+			this.millis = millis;
+			this.text = text;
+		}
+	}
+
+	/**
+	 * A line waiting to be rendered.
+	 */
+	private static final class Line {
+
+		private final String timestamp;
+		private final String text;
+		private final Color color;
+
+		public Line (final String timestamp, final String text, final Color color) {
+			this.timestamp = timestamp;
+			this.text = text;
+			this.color = color;
+		}
+	}
+}
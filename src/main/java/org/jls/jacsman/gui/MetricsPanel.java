@@ -0,0 +1,135 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.gui;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.Timer;
+
+import org.jls.jacsman.metrics.Counter;
+import org.jls.jacsman.metrics.Gauge;
+import org.jls.jacsman.metrics.Meter;
+import org.jls.jacsman.metrics.MetricsRegistry;
+import org.jls.jacsman.util.ResourceManager;
+
+import net.miginfocom.swing.MigLayout;
+
+/**
+ * Small panel showing the metrics of a tab, refreshed by a Swing timer while
+ * the panel is displayed. A counter shows its count, a meter its count and
+ * rate and a gauge its value.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class MetricsPanel extends JPanel {
+
+	private static final long serialVersionUID = -4213409170377465263L;
+
+	/**
+	 * Number of metrics shown on each line.
+	 */
+	private static final int METRICS_PER_LINE = 6;
+
+	private final MetricsRegistry registry;
+	private final List<Object> metrics;
+	private final List<JLabel> values;
+	private final Timer timer;
+
+	/**
+	 * Instanciates the panel.
+	 * 
+	 * @param registry
+	 *            The shown metrics.
+	 */
+	public MetricsPanel (final MetricsRegistry registry) {
+		super(new MigLayout("insets 0, wrap " + METRICS_PER_LINE * 2, "", ""));
+		ResourceManager props = ResourceManager.getInstance();
+		this.registry = registry;
+		this.metrics = new ArrayList<>();
+		this.values = new ArrayList<>();
+		for (String name : registry.getNames()) {
+			JLabel value = new JLabel();
+			this.metrics.add(registry.getMetric(name));
+			this.values.add(value);
+			add(new JLabel(props.getString("metrics.label." + name)),
+					this.values.size() % METRICS_PER_LINE == 1 ? "" : "gap left 25lp");
+			add(value, "sg value, wmin 110lp");
+		}
+		this.timer = new Timer(props.getInt("metrics.refresh.period"), new ActionListener() {
+
+			@Override
+			public void actionPerformed (ActionEvent e) {
+				refresh();
+			}
+		});
+		refresh();
+	}
+
+	@Override
+	public void addNotify () {
+		super.addNotify();
+		this.timer.start();
+	}
+
+	@Override
+	public void removeNotify () {
+		this.timer.stop();
+		super.removeNotify();
+	}
+
+	/**
+	 * Returns the shown metrics.
+	 * 
+	 * @return The metrics registry.
+	 */
+	public MetricsRegistry getRegistry () {
+		return this.registry;
+	}
+
+	/**
+	 * Reads the metrics and updates the labels. Called on the EDT.
+	 */
+	private void refresh () {
+		for (int i = 0; i < this.metrics.size(); i++) {
+			Object metric = this.metrics.get(i);
+			String text;
+			if (metric instanceof Meter) {
+				Meter meter = (Meter) metric;
+				text = meter.getCount() + " (" + Math.round(meter.getRate()) + "/s)";
+			} else if (metric instanceof Counter) {
+				text = String.valueOf(((Counter) metric).getCount());
+			} else {
+				text = String.valueOf(((Gauge) metric).getValue());
+			}
+			this.values.get(i).setText(text);
+		}
+	}
+}
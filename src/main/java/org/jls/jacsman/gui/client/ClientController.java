@@ -25,36 +25,64 @@
 package org.jls.jacsman.gui.client;
 
 import java.awt.Color;
-import java.awt.Font;
+import java.awt.event.ActionListener;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.JComboBox;
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jls.jacsman.ApplicationView;
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.jacsman.capture.CaptureReplayer;
 import org.jls.jacsman.gui.server.ServerView;
+import org.jls.jacsman.latency.CorrelationIdExtractor;
+import org.jls.jacsman.latency.LatencyTracker;
+import org.jls.jacsman.load.LoadGenerator;
+import org.jls.jacsman.load.LoadStats;
+import org.jls.jacsman.load.PayloadSource;
+import org.jls.jacsman.load.RateProfile;
+import org.jls.jacsman.load.TemplatePayload;
+import org.jls.jacsman.metrics.Gauge;
+import org.jls.jacsman.metrics.SessionMetrics;
+import org.jls.jacsman.metrics.TrafficLog;
+import org.jls.jacsman.net.ClientEngine;
+import org.jls.jacsman.net.DatagramStats;
+import org.jls.jacsman.net.EngineListener;
+import org.jls.jacsman.net.SendResult;
+import org.jls.jacsman.net.TlsStats;
+import org.jls.jacsman.pipeline.FramingException;
+import org.jls.jacsman.pipeline.FramingStage;
+import org.jls.jacsman.pipeline.ReceiveDispatcher;
 import org.jls.jacsman.plugin.Plugin;
 import org.jls.jacsman.plugin.PluginEvent;
-import org.jls.jacsman.plugin.PluginInterface;
+import org.jls.jacsman.plugin.buffer.BufferPlugin;
+import org.jls.jacsman.plugin.buffer.BufferPluginEvent;
+import org.jls.jacsman.plugin.buffer.BufferPluginInterface;
+import org.jls.jacsman.plugin.buffer.CorrelationPlugin;
+import org.jls.jacsman.plugin.buffer.PayloadPlugin;
+import org.jls.jacsman.shaping.ShapedClientEngine;
+import org.jls.jacsman.shaping.TrafficShaper;
 import org.jls.jacsman.util.PluginManager;
+import org.jls.jacsman.util.PluginWatcher;
 import org.jls.jacsman.util.Protocol;
+import org.jls.jacsman.util.ResourceManager;
+import org.jls.jacsman.util.SessionFactory;
 import org.jls.toolbox.gui.AbstractView;
 import org.jls.toolbox.gui.ActionCallback;
 import org.jls.toolbox.gui.ActionEvent;
-import org.jls.toolbox.net.Client;
 import org.jls.toolbox.net.Interface;
-import org.jls.toolbox.net.InterfaceEvent;
-import org.jls.toolbox.net.InterfaceListener;
-import org.jls.toolbox.net.TCPClient;
-import org.jls.toolbox.net.UDPClient;
-import org.jls.toolbox.net.UDPMulticastClient;
-import org.jls.toolbox.util.TimeUtils;
 import org.jls.toolbox.widget.dialog.Dialog;
 
 /**
@@ -63,13 +91,21 @@ import org.jls.toolbox.widget.dialog.Dialog;
  * @author Julien LE SAUCE
  * @date 1 mars 2016
  */
-public class ClientController implements InterfaceListener, PluginInterface {
+public class ClientController implements EngineListener, BufferPluginInterface {
 
 	private final ClientModel model;
 	private final Logger logger;
 	private ClientView view;
 
 	private Dialog pluginDialog;
+	private volatile String pluginJar;
+	private PluginWatcher.Listener pluginListener;
+	private Timer loadTimer;
+	private LoadStats lastLoadStats;
+	private final boolean consoleTraffic;
+	private final TrafficLog trafficLog;
+	private final TrafficShaper shaper;
+	private final SessionMetrics metrics;
 
 	/**
 	 * Instanciates the controller.
@@ -80,64 +116,149 @@ public class ClientController implements InterfaceListener, PluginInterface {
 	public ClientController (final ClientModel model) {
 		this.model = model;
 		this.logger = LogManager.getLogger();
-		this.view = new ClientView(model);
+		this.metrics = SessionFactory.createMetrics(new Gauge() {
+
+			@Override
+			public long getValue () {
+				return SessionFactory.getConnections(getModel().getClient());
+			}
+		});
+		this.view = new ClientView(model, this.metrics.getRegistry());
 		this.pluginDialog = null;
+		this.loadTimer = null;
+		this.lastLoadStats = null;
+		this.consoleTraffic = ResourceManager.getInstance().getBoolean("console.traffic.enabled");
+		this.trafficLog = SessionFactory.createTrafficLog(this.logger, Level.INFO);
+		this.shaper = SessionFactory.createTrafficShaper();
+		this.metrics.setTrafficShaper(this.shaper);
 	}
 
 	@Override
-	public void onReceive (InterfaceEvent event) {
-		byte[] msg = event.getMessage();
-		if (msg != null && msg.length > 0) {
-			Interface com = event.getInterface();
-			this.logger.info("Incoming message from {} ({}:{}), size={} bytes", com.getId(), com.getAddress(), com.getPort(),
-					msg.length);
-			appendConsole("Incoming message from " + com.getId() + " (" + com.getAddress() + ":" + com.getPort() + "), size="
-					+ msg.length + " bytes", ServerView.greenColor);
-
-			// Notifies plugin
-			PluginEvent pluginEvent = new PluginEvent(this, this.model.getClient().getInterface(), event.getMessage());
-			this.model.getPlugin().onReceive(pluginEvent);
+	public void onReceive (Interface com, PooledBuffer msg) {
+		int size = msg.size();
+		if (size > 0) {
+			this.metrics.onReceive(size);
+			this.view.incomingMessage();
+			this.trafficLog.onReceive(com, size);
+			if (this.consoleTraffic) {
+				appendConsole("Incoming message from " + com.getId() + " (" + com.getAddress() + ":" + com.getPort()
+						+ "), size=" + size + " bytes", ServerView.greenColor);
+			}
+
+			// Splits the bytes into frames, each frame is dispatched to the plugin
+			FramingStage<Interface> framingStage = this.model.getFramingStage();
+			try {
+				if (framingStage != null) {
+					// Each connection of a pool is a stream of its own
+					framingStage.decode(com, msg);
+				} else {
+					// Received while the client stops
+					msg.release();
+				}
+			} catch (FramingException e) {
+				onException(com, e);
+			}
 		} else {
-			this.logger.warn("Receiving empty message from {}", event.getInterface().getId());
-			appendConsole("Warning : Receiving empty message from " + event.getInterface().getId(), ServerView.redColor);
+			msg.release();
+			this.logger.warn("Receiving empty message from {}", com.getId());
+			appendConsole("Warning : Receiving empty message from " + com.getId(), ServerView.redColor);
 		}
 	}
 
 	@Override
-	public void onTimeout (InterfaceEvent event) {
-		this.logger.warn("*** TIMEOUT occurred on {}", event.getInterface().getId());
+	public void onConnect (Interface com) {
+		this.logger.debug("Connected to {}", com.getId());
 	}
 
 	@Override
-	public void onException (InterfaceEvent event, Throwable t) {
-		this.logger.error("An error occurred on interface {}", event.getInterface().getId(), t);
-		appendConsole("ERROR : An error occurred on interface " + event.getInterface().getId() + " : " + t.getMessage(),
+	public void onDisconnect (Interface com) {
+		// Forgets the connection, a connection of a pool reopened later starts a new stream
+		FramingStage<Interface> framingStage = this.model.getFramingStage();
+		if (framingStage != null) {
+			framingStage.remove(com);
+		}
+		ReceiveDispatcher<Interface, BufferPluginEvent> dispatcher = this.model.getDispatcher();
+		if (dispatcher != null) {
+			dispatcher.remove(com);
+		}
+		LatencyTracker<Interface> tracker = this.model.getLatencyTracker();
+		if (tracker != null) {
+			tracker.close(com);
+		}
+		this.logger.warn("Connection closed by {}", com.getId());
+		appendConsole("Warning : Connection closed by " + com.getId(), ServerView.redColor);
+	}
+
+	@Override
+	public void onTimeout (Interface com) {
+		this.metrics.onTimeout();
+		this.logger.warn("*** TIMEOUT occurred on {}", com.getId());
+	}
+
+	@Override
+	public void onException (Interface com, Throwable t) {
+		this.metrics.onError();
+		this.logger.error("An error occurred on interface {}", com.getId(), t);
+		appendConsole("ERROR : An error occurred on interface " + com.getId() + " : " + t.getMessage(),
 				ServerView.redColor);
 	}
 
 	@Override
 	public int send (byte[] msg) throws IOException {
-		Client client = this.model.getClient();
+		return send(ByteBuffer.wrap(msg));
+	}
+
+	@Override
+	public int send (ByteBuffer msg) throws IOException {
+		ClientEngine client = this.model.getClient();
 		// If the client is instanciated
 		if (client != null) {
-			this.logger.info("Send message");
+			int size = msg.remaining();
 			Interface com = client.getInterface();
-			appendConsole("Sending message to " + com.getId() + " (" + com.getAddress() + ":" + com.getPort() + "), size="
-					+ msg.length + " bytes", ServerView.dataColor);
+			this.trafficLog.onSend(com, size);
+			if (this.consoleTraffic) {
+				appendConsole("Sending message to " + com.getId() + " (" + com.getAddress() + ":" + com.getPort()
+						+ "), size=" + size + " bytes", ServerView.dataColor);
+			}
+			LatencyTracker<Interface> tracker = this.model.getLatencyTracker();
+			if (tracker != null) {
+				tracker.onSend(com, msg);
+			}
 			client.send(msg);
-			return msg.length;
+			this.metrics.onSend(size);
+			return size;
 		} else {
 			throw new IllegalStateException("No client connected");
 		}
 	}
 
+	@Override
+	public CompletableFuture<SendResult> sendAsync (ByteBuffer msg) {
+		ClientEngine client = this.model.getClient();
+		// If the client is instanciated
+		if (client != null) {
+			Interface com = client.getInterface();
+			if (this.consoleTraffic) {
+				appendConsole("Sending message to " + com.getId() + " (" + com.getAddress() + ":" + com.getPort()
+						+ "), size=" + msg.remaining() + " bytes", ServerView.dataColor);
+			}
+			LatencyTracker<Interface> tracker = this.model.getLatencyTracker();
+			if (tracker != null) {
+				tracker.onSend(com, msg);
+			}
+			return this.metrics.onSendAsync(client.sendAsync(msg), msg.remaining());
+		} else {
+			CompletableFuture<SendResult> future = new CompletableFuture<>();
+			future.completeExceptionally(new IllegalStateException("No client connected"));
+			return future;
+		}
+	}
+
 	@ActionCallback("connectClient")
 	public void action_connectClient (final ActionEvent e) {
 		this.logger.debug("Action : {}, From : {}", e.getActionCommand(), e.getView().getClass().getSimpleName());
 		try {
-			Interface com = new Interface(this.model.getClientType().toString() + "Client", this.view.getClientAddress(),
-					this.view.getClientPort());
-			startClient(com);
+			start();
 		} catch (Exception e1) {
 			this.logger.error("An error occurred starting client", e1);
 			appendConsole("An error occurred starting client : " + e1.getMessage(), ClientView.redColor);
@@ -150,7 +271,7 @@ public class ClientController implements InterfaceListener, PluginInterface {
 	public void action_disconnectClient (final ActionEvent e) {
 		this.logger.debug("Action : {}, From : {}", e.getActionCommand(), e.getView().getClass().getSimpleName());
 		try {
-			stopClient();
+			stop();
 		} catch (Exception e1) {
 			this.logger.error("An error occurred stopping client", e1);
 			appendConsole("An error occurred stopping client : " + e1.getMessage(), ClientView.redColor);
@@ -159,6 +280,44 @@ public class ClientController implements InterfaceListener, PluginInterface {
 		}
 	}
 
+	@ActionCallback("startLoad")
+	public void action_startLoad (final ActionEvent e) {
+		this.logger.debug("Action : {}, From : {}", e.getActionCommand(), e.getView().getClass().getSimpleName());
+		try {
+			startLoad();
+		} catch (Exception e1) {
+			this.logger.error("An error occurred starting load generator", e1);
+			appendConsole("An error occurred starting load generator : " + e1.getMessage(), ClientView.redColor);
+			this.view.pop("Load Error", "An error occurred starting load generator :\n\n" + e1.getMessage(),
+					JOptionPane.ERROR_MESSAGE);
+		}
+	}
+
+	@ActionCallback("stopLoad")
+	public void action_stopLoad (final ActionEvent e) {
+		this.logger.debug("Action : {}, From : {}", e.getActionCommand(), e.getView().getClass().getSimpleName());
+		stopLoad();
+	}
+
+	@ActionCallback("startReplay")
+	public void action_startReplay (final ActionEvent e) {
+		this.logger.debug("Action : {}, From : {}", e.getActionCommand(), e.getView().getClass().getSimpleName());
+		try {
+			startReplay();
+		} catch (Exception e1) {
+			this.logger.error("An error occurred starting replay", e1);
+			appendConsole("An error occurred starting replay : " + e1.getMessage(), ClientView.redColor);
+			this.view.pop("Replay Error", "An error occurred starting replay :\n\n" + e1.getMessage(),
+					JOptionPane.ERROR_MESSAGE);
+		}
+	}
+
+	@ActionCallback("stopReplay")
+	public void action_stopReplay (final ActionEvent e) {
+		this.logger.debug("Action : {}, From : {}", e.getActionCommand(), e.getView().getClass().getSimpleName());
+		stopReplay();
+	}
+
 	@ActionCallback("selectPlugin")
 	public void action_selectPlugin (final ActionEvent e) {
 		this.logger.debug("Action : {}, From : {}", e.getActionCommand(), e.getView().getClass().getSimpleName());
@@ -190,16 +349,54 @@ public class ClientController implements InterfaceListener, PluginInterface {
 	 * @return The new graphical interface.
 	 */
 	public AbstractView createGui () {
-		this.view = new ClientView(this.model);
+		this.view = new ClientView(this.model, this.metrics.getRegistry());
 		this.view.addListener(this);
 		this.view.createGui(null);
 		this.model.addObserver(this.view);
 		loadPlugin(this.view.getSelectedPlugin());
+		this.pluginListener = new PluginWatcher.Listener() {
+
+			@Override
+			public void onPluginAdded (String jarName) {
+				updatePlugins();
+			}
+
+			@Override
+			public void onPluginChanged (String jarName) {
+				if (jarName.equals(pluginJar)) {
+					reloadPlugin(jarName);
+				}
+			}
+
+			@Override
+			public void onPluginRemoved (String jarName) {
+				updatePlugins();
+			}
+		};
+		PluginManager.getInstance().getWatcher().addListener(this.pluginListener);
 		return this.view;
 	}
 
 	/**
-	 * Prints the specified text to the console.
+	 * Closes the tab : stops the client and stops listening to the plugins
+	 * directory. The controller cannot be used afterwards.
+	 */
+	public void dispose () {
+		if (this.pluginListener != null) {
+			PluginManager.getInstance().getWatcher().removeListener(this.pluginListener);
+			this.pluginListener = null;
+		}
+		try {
+			stopLoad();
+			stopClient();
+		} catch (Exception e) {
+			this.logger.error("An error occurred stopping client", e);
+		}
+	}
+
+	/**
+	 * Prints the specified text to the console. The line is rendered
+	 * asynchronously, so this method can be called from the network threads.
 	 * 
 	 * @param text
 	 *            The text to print.
@@ -207,9 +404,7 @@ public class ClientController implements InterfaceListener, PluginInterface {
 	 *            The text's color.
 	 */
 	public void appendConsole (final String text, final Color color) {
-		this.view.print(TimeUtils.getConsoleTimestamp(), Color.blue, Font.BOLD);
-		this.view.print(" > ", Color.blue, Font.BOLD);
-		this.view.print(text + "\n", color, Font.PLAIN);
+		this.view.println(text, color);
 	}
 
 	/**
@@ -222,6 +417,28 @@ public class ClientController implements InterfaceListener, PluginInterface {
 		this.model.setPlugin(plugin);
 	}
 
+	/**
+	 * Connects the client to the address and the port of the view, as its
+	 * connect button does.
+	 * 
+	 * @throws IOException
+	 *             If an error occurred starting the client.
+	 */
+	public void start () throws IOException {
+		startClient(new Interface(this.model.getClientType().toString() + "Client", this.view.getClientAddress(),
+				this.view.getClientPort()));
+	}
+
+	/**
+	 * Stops the client, as its disconnect button does.
+	 * 
+	 * @throws IOException
+	 *             If an error occurred stopping the client.
+	 */
+	public void stop () throws IOException {
+		stopClient();
+	}
+
 	/**
 	 * Starts the network client.
 	 * 
@@ -231,32 +448,28 @@ public class ClientController implements InterfaceListener, PluginInterface {
 	 *             If an error occurred starting the client.
 	 */
 	private void startClient (final Interface com) throws IOException {
-		Client client = this.model.getClient();
+		ClientEngine client = this.model.getClient();
 		// If no client instanciated
 		if (client == null) {
-			Protocol clientType = this.model.getClientType();
 			this.logger.info("Creating client {}", com.getId());
 			appendConsole("Creating client " + com.getId(), ClientView.normalColor);
-			switch (clientType) {
-				case TCP:
-					client = new TCPClient(com, null);
-					break;
-				case UDP:
-					client = new UDPClient(com, 2000);
-					break;
-				case UDP_MULTICAST:
-					client = new UDPMulticastClient(com, 2000);
-					break;
-				default:
-					throw new IllegalArgumentException("Unknown client type : " + clientType.toString());
-			}
+			ClientEngine engine = SessionFactory.createClient(this.model.getClientType(), com);
+			this.model.setDispatcher(createDispatcher(com.getId()));
+			this.model.setFramingStage(createFramingStage(engine.getInterface(), this.model.getDispatcher()));
+			this.model.setLatencyTracker(createLatencyTracker());
+			// Applies the limits of the tab to the messages sent
+			client = new ShapedClientEngine(engine, this.shaper);
 			this.model.setClient(client);
-			client.addListener(this);
+			client.setListener(this);
+			this.metrics.setDatagramStats(engine instanceof DatagramStats ? (DatagramStats) engine : null);
+			this.metrics.setTlsStats(engine instanceof TlsStats ? (TlsStats) engine : null);
+			this.metrics.setDispatcher(this.model.getDispatcher());
 		}
 		this.logger.info("Starting client {} on port {}", com.getId(), com.getPort());
 		appendConsole("Starting " + com.getId() + " on port " + com.getPort(), ClientView.normalColor);
 		client.start();
 		if (client.isRunning()) {
+			this.trafficLog.start(com.getId());
 			this.view.setConnected(true);
 			appendConsole(com.getId() + " now listening on port " + com.getPort(), ClientView.greenColor);
 		} else {
@@ -272,13 +485,28 @@ public class ClientController implements InterfaceListener, PluginInterface {
 	 *             If an error occurred stopping the network client.
 	 */
 	private void stopClient () throws IOException {
-		Client client = this.model.getClient();
+		ClientEngine client = this.model.getClient();
 		// If a client has been instanciated
 		if (client != null) {
+			stopReplay();
 			String clientId = client.getInterface().getId();
 			this.logger.info("Stopping client {}", clientId);
 			appendConsole("Stopping client " + clientId, ClientView.normalColor);
-			client.stop();
+			try {
+				client.stop();
+			} finally {
+				// Stages shut down first, the frames still being decoded are discarded
+				this.model.getFramingStage().shutdown();
+				this.model.setFramingStage(null);
+				this.model.getDispatcher().shutdown();
+				this.model.setDispatcher(null);
+				this.model.setClient(null);
+				stopLatencyTracker(clientId);
+				this.trafficLog.stop();
+			}
+			if (this.shaper.isLimited()) {
+				this.logger.info("Traffic shaping of {} : {}", clientId, this.shaper.formatStats());
+			}
 			if (client.isRunning()) {
 				this.logger.error("An error occurred stopping client {}", clientId);
 				this.view.pop("Client Error", "An error occurred stopping client " + clientId + ".",
@@ -288,10 +516,267 @@ public class ClientController implements InterfaceListener, PluginInterface {
 				this.logger.info("{} now disconnected", clientId);
 				appendConsole("Client now disconnected", ClientView.greenColor);
 			}
-			this.model.setClient(null);
 		}
 	}
 
+	/**
+	 * Opens the connections of the load generator and starts sending, using
+	 * the protocol and server of the tab. The messages are provided by the
+	 * plugin if it implements {@link PayloadPlugin}, otherwise they are built
+	 * from the template of the load properties.
+	 * 
+	 * @throws IOException
+	 *             If no connection could be opened.
+	 */
+	private void startLoad () throws IOException {
+		if (this.model.getLoadGenerator() != null) {
+			throw new IllegalStateException("Load generator already running");
+		}
+		ResourceManager props = ResourceManager.getInstance();
+		final Protocol clientType = this.model.getClientType();
+		final String address = this.view.getClientAddress();
+		final int port = this.view.getClientPort();
+		RateProfile profile = SessionFactory.createRateProfile(this.view.getLoadProfile(), this.view.getLoadRate());
+		Plugin plugin = this.model.getPlugin();
+		PayloadSource payload = plugin instanceof PayloadPlugin ? (PayloadPlugin) plugin
+				: new TemplatePayload(props.getString("load.template"));
+
+		LoadGenerator generator = new LoadGenerator(clientType.toString() + "Load",
+				new LoadGenerator.ConnectionFactory() {
+
+					@Override
+					public ClientEngine create (int index) throws IOException {
+						return SessionFactory.createClient(clientType,
+								new Interface(clientType.toString() + "Client#" + index, address, port));
+					}
+				}, this.view.getLoadConnections(), profile, payload,
+				TimeUnit.SECONDS.toNanos(props.getInt("load.duration")), props.getInt("load.maxInFlight"));
+		this.logger.info("Starting load on {}:{}, {} connection(s), {}", address, port, this.view.getLoadConnections(),
+				profile);
+		appendConsole("Starting load on " + address + ":" + port + ", " + this.view.getLoadConnections()
+				+ " connection(s), " + profile, ClientView.normalColor);
+		generator.start();
+		this.model.setLoadGenerator(generator);
+		this.view.setLoading(true);
+
+		// Shows the statistics until the generator stops
+		this.lastLoadStats = null;
+		this.loadTimer = new Timer(props.getInt("load.stats.period"), new ActionListener() {
+
+			@Override
+			public void actionPerformed (java.awt.event.ActionEvent e) {
+				refreshLoadStats();
+			}
+		});
+		this.loadTimer.start();
+	}
+
+	/**
+	 * Shows the statistics of the load generator, and stops it once it has
+	 * finished sending.
+	 */
+	private void refreshLoadStats () {
+		LoadGenerator generator = this.model.getLoadGenerator();
+		if (generator != null) {
+			LoadStats stats = generator.getStats();
+			this.view.setLoadStats(stats.format(this.lastLoadStats));
+			this.lastLoadStats = stats;
+			if (!generator.isRunning()) {
+				stopLoad();
+			}
+		}
+	}
+
+	/**
+	 * Stops the load generator and closes its connections.
+	 */
+	private void stopLoad () {
+		LoadGenerator generator = this.model.getLoadGenerator();
+		if (generator != null) {
+			if (this.loadTimer != null) {
+				this.loadTimer.stop();
+				this.loadTimer = null;
+			}
+			generator.stop();
+			this.model.setLoadGenerator(null);
+			this.view.setLoading(false);
+
+			LoadStats stats = generator.getStats();
+			this.view.setLoadStats(stats.format(null));
+			this.logger.info("Load finished : {}", stats.format(null));
+			appendConsole("Load finished : " + stats.format(null),
+					stats.getErrors() > 0 ? ClientView.redColor : ClientView.greenColor);
+		}
+	}
+
+	/**
+	 * Replays a capture chosen by the user through the connected client, at
+	 * the speed selected in the view.
+	 * 
+	 * @throws IOException
+	 *             If the capture cannot be opened.
+	 */
+	private void startReplay () throws IOException {
+		if (this.model.getReplayer() != null) {
+			throw new IllegalStateException("Replay already running");
+		}
+		ClientEngine client = this.model.getClient();
+		if (client == null || !client.isRunning()) {
+			throw new IllegalStateException("No client connected");
+		}
+		double speed = SessionFactory.parseReplaySpeed(this.view.getReplaySpeed());
+		File dir = this.view.chooseCapture(
+				new File(ResourceManager.USER_DIR, ResourceManager.getInstance().getString("capture.dir")));
+		if (dir == null) {
+			return;
+		}
+		CaptureReplayer replayer = SessionFactory.createCaptureReplayer(client.getInterface().getId(), dir, this,
+				speed, new CaptureReplayer.Listener() {
+
+					@Override
+					public void onFinished (long messages, Throwable error) {
+						appendConsole("Replay finished, " + messages + " message(s) sent"
+								+ (error != null ? " : " + error.getMessage() : ""),
+								error != null ? ClientView.redColor : ClientView.greenColor);
+						SwingUtilities.invokeLater(new Runnable() {
+
+							@Override
+							public void run () {
+								getModel().setReplayer(null);
+								getView().setReplaying(false);
+							}
+						});
+					}
+				});
+		appendConsole("Replaying " + dir.getPath() + " at " + (speed == CaptureReplayer.MAXIMUM_SPEED ? "maximum speed"
+				: "speed x" + speed), ClientView.normalColor);
+		this.model.setReplayer(replayer);
+		this.view.setReplaying(true);
+		replayer.start();
+	}
+
+	/**
+	 * Stops the capture replay, if running.
+	 */
+	private void stopReplay () {
+		CaptureReplayer replayer = this.model.getReplayer();
+		if (replayer != null) {
+			replayer.stop();
+		}
+	}
+
+	/**
+	 * Creates the tracker measuring the latency of the replies, if enabled by
+	 * the network properties. The replies are matched by the identifiers read
+	 * by the plugin if it implements {@link CorrelationPlugin}, otherwise in
+	 * FIFO order.
+	 * 
+	 * @return The new latency tracker, <code>null</code> if the latency is
+	 *         not measured.
+	 */
+	private LatencyTracker<Interface> createLatencyTracker () {
+		Plugin plugin = this.model.getPlugin();
+		CorrelationIdExtractor extractor = plugin instanceof CorrelationPlugin ? (CorrelationPlugin) plugin : null;
+		LatencyTracker<Interface> tracker = SessionFactory.createLatencyTracker(extractor);
+		if (tracker != null) {
+			appendConsole("Measuring latency, replies matched " + (extractor != null ? "by correlation id" : "in FIFO order"),
+					ClientView.normalColor);
+		}
+		return tracker;
+	}
+
+	/**
+	 * Stops measuring the latency, prints the percentiles and exports them to
+	 * a CSV file of the latency directory.
+	 * 
+	 * @param name
+	 *            Name of the tab, used to name the file.
+	 */
+	private void stopLatencyTracker (final String name) {
+		LatencyTracker<Interface> tracker = this.model.getLatencyTracker();
+		if (tracker != null) {
+			this.model.setLatencyTracker(null);
+			for (Interface com : tracker.getConnections()) {
+				this.logger.info("Latency of {}", tracker.format(com));
+			}
+			this.logger.info("Latency of {}", tracker.formatTotal());
+			appendConsole("Latency : " + tracker.formatTotal(), ClientView.greenColor);
+
+			File file = SessionFactory.getLatencyExportFile(name);
+			try {
+				tracker.export(file);
+				appendConsole("Latencies exported to " + file.getPath(), ClientView.normalColor);
+			} catch (IOException e) {
+				this.logger.error("Cannot export latencies to {}", file, e);
+				appendConsole("ERROR : Cannot export latencies to " + file.getPath() + " : " + e.getMessage(),
+						ClientView.redColor);
+			}
+		}
+	}
+
+	/**
+	 * Creates the stage splitting the received bytes into frames, using the
+	 * framing selected by the user and configured by the network properties.
+	 * The frames are passed to the receive dispatcher.
+	 * 
+	 * @param com
+	 *            Interface of the client, under which the replies are
+	 *            tracked.
+	 * @param dispatcher
+	 *            Dispatcher of the frames to the plugin.
+	 * @return The new framing stage.
+	 */
+	private FramingStage<Interface> createFramingStage (final Interface com,
+			final ReceiveDispatcher<Interface, BufferPluginEvent> dispatcher) {
+		return SessionFactory.createFramingStage(this.model.getFraming(), new FramingStage.Listener<Interface>() {
+
+			@Override
+			public void onFrame (Interface key, PooledBuffer frame) {
+				getMetrics().onMessage();
+				LatencyTracker<Interface> tracker = getModel().getLatencyTracker();
+				if (tracker != null) {
+					// The replies to a pool come from its connections, the requests are tracked as the client's
+					tracker.onReceive(com, frame.buffer());
+				}
+				// Notifies plugin, the buffer is released once handled
+				BufferPluginEvent pluginEvent = BufferPluginEvent.obtain(ClientController.this, key, frame);
+				dispatcher.dispatch(key, pluginEvent);
+			}
+		});
+	}
+
+	/**
+	 * Creates the stage dispatching the received messages to the plugin,
+	 * configured by the network properties.
+	 * 
+	 * @param name
+	 *            Name of the dispatcher.
+	 * @return The new dispatcher.
+	 */
+	private ReceiveDispatcher<Interface, BufferPluginEvent> createDispatcher (final String name) {
+		return SessionFactory.createDispatcher(name, new ReceiveDispatcher.Handler<BufferPluginEvent>() {
+
+			@Override
+			public void handle (BufferPluginEvent event) {
+				try {
+					Plugin plugin = getModel().getPlugin();
+					if (plugin instanceof BufferPlugin) {
+						((BufferPlugin) plugin).onReceive(event);
+					} else if (plugin != null) {
+						plugin.onReceive(new PluginEvent(event.getSource(), event.getInterface(), event.getMessage()));
+					}
+				} finally {
+					event.release();
+				}
+			}
+
+			@Override
+			public void discard (BufferPluginEvent event) {
+				event.release();
+			}
+		});
+	}
+
 	/**
 	 * Shows the plugin associated view.
 	 */
@@ -321,6 +806,61 @@ public class ClientController implements InterfaceListener, PluginInterface {
 		});
 	}
 
+	/**
+	 * Loads the new version of the plugin of the tab, after its jar has been
+	 * modified. The new version replaces the previous one at once : the
+	 * messages being handled by the previous version complete with it, the
+	 * next ones go to the new version. If the new version cannot be loaded,
+	 * the tab keeps the previous one.
+	 * 
+	 * @param jarName
+	 *            Name of the modified jar.
+	 */
+	private void reloadPlugin (final String jarName) {
+		this.logger.info("Reloading plugin : {}", jarName);
+		Plugin plugin;
+		try {
+			plugin = PluginManager.getInstance().loadPlugin(jarName, this);
+		} catch (Exception | LinkageError e) {
+			this.logger.error("Failed to reload plugin {}", jarName, e);
+			appendConsole("Failed to reload plugin " + jarName + ", keeping the previous version : " + e.getMessage(),
+					ClientView.redColor);
+			return;
+		}
+		this.model.setPlugin(plugin);
+		appendConsole("Plugin " + jarName + " reloaded", ClientView.greenColor);
+		SwingUtilities.invokeLater(new Runnable() {
+
+			@Override
+			public void run () {
+				// The dialog shows the view of the previous version
+				Dialog dialog = getPluginDialog();
+				if (dialog != null) {
+					boolean visible = dialog.isVisible();
+					dialog.dispose();
+					setPluginDialog(null);
+					if (visible) {
+						showPluginView();
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Updates the plugins proposed by the tab after a jar has been added to
+	 * or removed from the plugins directory.
+	 */
+	private void updatePlugins () {
+		SwingUtilities.invokeLater(new Runnable() {
+
+			@Override
+			public void run () {
+				view.updatePlugins();
+			}
+		});
+	}
+
 	/**
 	 * Loads the specified plugin selected by the user.
 	 * 
@@ -336,6 +876,7 @@ public class ClientController implements InterfaceListener, PluginInterface {
 		try {
 			Plugin plugin = PluginManager.getInstance().loadPlugin(pluginName, this);
 			this.model.setPlugin(plugin);
+			this.pluginJar = pluginName;
 		} catch (FileNotFoundException e) {
 			this.logger.error("Plugin jar {} not found", pluginName, e);
 			this.view.pop("Plugin Error", "Plugin JAR file " + pluginName + " not found :\n\n" + e.getMessage(),
@@ -393,6 +934,33 @@ public class ClientController implements InterfaceListener, PluginInterface {
 		return this.model;
 	}
 
+	/**
+	 * Returns the view.
+	 * 
+	 * @return The view.
+	 */
+	public ClientView getView () {
+		return this.view;
+	}
+
+	/**
+	 * Returns the metrics of the client.
+	 * 
+	 * @return The metrics.
+	 */
+	public SessionMetrics getMetrics () {
+		return this.metrics;
+	}
+
+	/**
+	 * Returns the traffic shaper of the client.
+	 * 
+	 * @return The shaper.
+	 */
+	public TrafficShaper getShaper () {
+		return this.shaper;
+	}
+
 	/**
 	 * Returns the plugin dialog.
 	 * 
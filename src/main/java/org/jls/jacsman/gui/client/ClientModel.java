@@ -24,10 +24,18 @@
 
 package org.jls.jacsman.gui.client;
 
+import org.jls.jacsman.capture.CaptureReplayer;
+import org.jls.jacsman.latency.LatencyTracker;
+import org.jls.jacsman.load.LoadGenerator;
+import org.jls.jacsman.net.ClientEngine;
+import org.jls.jacsman.pipeline.FramingStage;
+import org.jls.jacsman.pipeline.ReceiveDispatcher;
 import org.jls.jacsman.plugin.Plugin;
+import org.jls.jacsman.plugin.buffer.BufferPluginEvent;
+import org.jls.jacsman.util.Framing;
 import org.jls.jacsman.util.Protocol;
 import org.jls.toolbox.gui.AbstractModel;
-import org.jls.toolbox.net.Client;
+import org.jls.toolbox.net.Interface;
 
 /**
  * Client's panel data model.
@@ -38,16 +46,28 @@ import org.jls.toolbox.net.Client;
 public class ClientModel extends AbstractModel {
 
 	private Protocol clientType;
-	private Client client;
-	private Plugin plugin;
+	private Framing framing;
+	private ClientEngine client;
+	private volatile Plugin plugin;
+	private FramingStage<Interface> framingStage;
+	private ReceiveDispatcher<Interface, BufferPluginEvent> dispatcher;
+	private LatencyTracker<Interface> latencyTracker;
+	private LoadGenerator loadGenerator;
+	private CaptureReplayer replayer;
 
 	/**
 	 * Instanciates a new default data model.
 	 */
 	public ClientModel () {
 		this.clientType = Protocol.TCP;
+		this.framing = Framing.NONE;
 		this.client = null;
 		this.plugin = null;
+		this.framingStage = null;
+		this.dispatcher = null;
+		this.latencyTracker = null;
+		this.loadGenerator = null;
+		this.replayer = null;
 	}
 
 	/**
@@ -74,7 +94,7 @@ public class ClientModel extends AbstractModel {
 	 * 
 	 * @return Network client.
 	 */
-	public Client getClient () {
+	public ClientEngine getClient () {
 		return this.client;
 	}
 
@@ -84,7 +104,7 @@ public class ClientModel extends AbstractModel {
 	 * @param client
 	 *            Network client.
 	 */
-	public void setClient (Client client) {
+	public void setClient (ClientEngine client) {
 		this.client = client;
 	}
 
@@ -98,7 +118,8 @@ public class ClientModel extends AbstractModel {
 	}
 
 	/**
-	 * Updates the plugin.
+	 * Updates the plugin. The plugin can be replaced while the network is
+	 * running : each message goes either to the previous or to the new plugin.
 	 * 
 	 * @param plugin
 	 *            The plugin.
@@ -106,4 +127,119 @@ public class ClientModel extends AbstractModel {
 	public void setPlugin (final Plugin plugin) {
 		this.plugin = plugin;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Returns the stage dispatching the received messages to the plugin.
+	 * 
+	 * @return The receive dispatcher.
+	 */
+	public ReceiveDispatcher<Interface, BufferPluginEvent> getDispatcher () {
+		return this.dispatcher;
+	}
+
+	/**
+	 * Updates the stage dispatching the received messages to the plugin.
+	 * 
+	 * @param dispatcher
+	 *            The receive dispatcher.
+	 */
+	public void setDispatcher (ReceiveDispatcher<Interface, BufferPluginEvent> dispatcher) {
+		this.dispatcher = dispatcher;
+	}
+
+	/**
+	 * Returns the framing of the received bytes.
+	 * 
+	 * @return The framing.
+	 */
+	public Framing getFraming () {
+		return this.framing;
+	}
+
+	/**
+	 * Updates the framing of the received bytes.
+	 * 
+	 * @param framing
+	 *            The framing.
+	 */
+	public void setFraming (final Framing framing) {
+		this.framing = framing;
+	}
+
+	/**
+	 * Returns the stage splitting the received bytes into frames.
+	 * 
+	 * @return The framing stage.
+	 */
+	public FramingStage<Interface> getFramingStage () {
+		return this.framingStage;
+	}
+
+	/**
+	 * Updates the stage splitting the received bytes into frames.
+	 * 
+	 * @param framingStage
+	 *            The framing stage.
+	 */
+	public void setFramingStage (FramingStage<Interface> framingStage) {
+		this.framingStage = framingStage;
+	}
+
+	/**
+	 * Returns the running load generator.
+	 * 
+	 * @return The load generator, <code>null</code> if none is running.
+	 */
+	public LoadGenerator getLoadGenerator () {
+		return this.loadGenerator;
+	}
+
+	/**
+	 * Updates the running load generator.
+	 * 
+	 * @param loadGenerator
+	 *            The load generator.
+	 */
+	public void setLoadGenerator (LoadGenerator loadGenerator) {
+		this.loadGenerator = loadGenerator;
+	}
+
+	/**
+	 * Returns the running capture replay.
+	 * 
+	 * @return The replayer, <code>null</code> if no capture is replayed.
+	 */
+	public CaptureReplayer getReplayer () {
+		return this.replayer;
+	}
+
+	/**
+	 * Updates the running capture replay.
+	 * 
+	 * @param replayer
+	 *            The replayer.
+	 */
+	public void setReplayer (CaptureReplayer replayer) {
+		this.replayer = replayer;
+	}
+
+	/**
+	 * Returns the tracker measuring the latency of the replies.
+	 * 
+	 * @return The latency tracker, <code>null</code> if the latency is not
+	 *         measured.
+	 */
+	public LatencyTracker<Interface> getLatencyTracker () {
+		return this.latencyTracker;
+	}
+
+	/**
+	 * Updates the tracker measuring the latency of the replies.
+	 * 
+	 * @param latencyTracker
+	 *            The latency tracker, <code>null</code> to stop measuring.
+	 */
+	public void setLatencyTracker (LatencyTracker<Interface> latencyTracker) {
+		this.latencyTracker = latencyTracker;
+	}
+}
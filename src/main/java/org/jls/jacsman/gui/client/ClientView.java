@@ -25,14 +25,15 @@
 package org.jls.jacsman.gui.client;
 
 import java.awt.Color;
-import java.awt.Font;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
 import java.util.Observable;
 
+import javax.swing.DefaultComboBoxModel;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
+import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTextField;
@@ -40,12 +41,17 @@ import javax.swing.JTextField;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jls.jacsman.ApplicationModel;
+import org.jls.jacsman.gui.ActivityLed;
+import org.jls.jacsman.gui.BufferedConsole;
+import org.jls.jacsman.gui.MetricsPanel;
+import org.jls.jacsman.load.LoadProfile;
+import org.jls.jacsman.metrics.MetricsRegistry;
+import org.jls.jacsman.util.Framing;
 import org.jls.jacsman.util.PluginManager;
 import org.jls.jacsman.util.Protocol;
 import org.jls.jacsman.util.ResourceManager;
 import org.jls.toolbox.gui.AbstractView;
 import org.jls.toolbox.gui.CommandListener;
-import org.jls.toolbox.widget.Console;
 import org.jls.toolbox.widget.spinner.IncrementalSpinner;
 import org.jls.toolbox.widget.spinner.IncrementalSpinnerModel;
 
@@ -67,14 +73,17 @@ public class ClientView extends AbstractView implements ActionListener {
 
 	private final ClientModel model;
 	private final Logger logger;
+	private final MetricsRegistry metrics;
 
-	private Console console;
+	private BufferedConsole console;
+	private MetricsPanel metricsPanel;
 
 	// Client control panel
 	private JPanel topPanel;
 	private JLabel lblIsConnectedLed;
-	private JLabel lblActivityLed;
+	private ActivityLed lblActivityLed;
 	private JComboBox<Protocol> cbClientType;
+	private JComboBox<Framing> cbFraming;
 	private JComboBox<String> cbPlugin;
 	private JTextField tfClientAddr;
 	private IncrementalSpinner spClientPort;
@@ -82,15 +91,31 @@ public class ClientView extends AbstractView implements ActionListener {
 	private JButton btnDisconnect;
 	private JButton btnShowPluginView;
 
+	// Load generator panel
+	private IncrementalSpinner spLoadConnections;
+	private IncrementalSpinner spLoadRate;
+	private JComboBox<LoadProfile> cbLoadProfile;
+	private JButton btnStartLoad;
+	private JButton btnStopLoad;
+	private JLabel lblLoadStats;
+
+	// Capture replay panel
+	private JComboBox<String> cbReplaySpeed;
+	private JButton btnStartReplay;
+	private JButton btnStopReplay;
+
 	/**
 	 * Instanciates a new panel.
 	 * 
 	 * @param model
 	 *            Panel's data model.
+	 * @param metrics
+	 *            Metrics of the client, shown under the control panel.
 	 */
-	public ClientView (final ClientModel model) {
+	public ClientView (final ClientModel model, final MetricsRegistry metrics) {
 		super();
 		this.model = model;
+		this.metrics = metrics;
 		this.logger = LogManager.getLogger();
 	}
 
@@ -109,56 +134,112 @@ public class ClientView extends AbstractView implements ActionListener {
 	public void setConnected (final boolean isConnected) {
 		this.lblIsConnectedLed.setIcon(isConnected ? ApplicationModel.LED_GREEN : ApplicationModel.LED_RED);
 		this.cbClientType.setEnabled(!isConnected);
+		this.cbFraming.setEnabled(!isConnected);
 		this.cbPlugin.setEnabled(!isConnected);
 		this.spClientPort.setEnabled(!isConnected);
 	}
 
 	/**
-	 * Prints the specified text to the console.
+	 * Updates the load generator controls.
+	 * 
+	 * @param isLoading
+	 *            <code>true</code> if the load generator is running,
+	 *            <code>false</code> otherwise.
+	 */
+	public void setLoading (final boolean isLoading) {
+		this.spLoadConnections.setEnabled(!isLoading);
+		this.spLoadRate.setEnabled(!isLoading);
+		this.cbLoadProfile.setEnabled(!isLoading);
+		this.btnStartLoad.setEnabled(!isLoading);
+		this.btnStopLoad.setEnabled(isLoading);
+	}
+
+	/**
+	 * Updates the capture replay controls.
+	 * 
+	 * @param isReplaying
+	 *            <code>true</code> if a capture is replayed,
+	 *            <code>false</code> otherwise.
+	 */
+	public void setReplaying (final boolean isReplaying) {
+		this.cbReplaySpeed.setEnabled(!isReplaying);
+		this.btnStartReplay.setEnabled(!isReplaying);
+		this.btnStopReplay.setEnabled(isReplaying);
+	}
+
+	/**
+	 * Asks the user the capture to replay.
+	 * 
+	 * @param dir
+	 *            Directory shown first.
+	 * @return The capture directory, <code>null</code> if the user cancelled.
+	 */
+	public File chooseCapture (final File dir) {
+		JFileChooser chooser = new JFileChooser(dir);
+		chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+		if (chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION) {
+			return chooser.getSelectedFile();
+		}
+		return null;
+	}
+
+	/**
+	 * Shows the statistics of the load generator. Must be called from the
+	 * Event Dispatch Thread.
+	 * 
+	 * @param text
+	 *            The statistics.
+	 */
+	public void setLoadStats (final String text) {
+		this.lblLoadStats.setText(text);
+	}
+
+	/**
+	 * Prints the specified line to the console. The line is queued and
+	 * rendered later on the Event Dispatch Thread, so this method can be
+	 * called from any thread.
 	 * 
 	 * @param text
 	 *            The text to print.
 	 * @param textColor
 	 *            Text's color.
-	 * @param fontStyle
-	 *            Text's font style ({@link Font#BOLD}, {@link Font#ITALIC} or
-	 *            {@link Font#PLAIN}.
 	 */
-	public void print (String text, Color textColor, int fontStyle) {
-		this.console.print(text, textColor, fontStyle);
+	public void println (final String text, final Color textColor) {
+		this.console.println(text, textColor);
 	}
 
 	/**
-	 * Notifies an incoming message. This method blinks the activity LED during
-	 * a brief moment to indicates that a message has been received.
+	 * Returns the console of the view.
+	 * 
+	 * @return The console.
 	 */
-	public synchronized void incomingMessage () {
-		// Blinks the LED
-		new Thread(new Runnable() {
-
-			@Override
-			public void run () {
-				try {
-					getLblActivityLed().setIcon(ApplicationModel.LED_GREEN);
-					Thread.sleep(100);
-					getLblActivityLed().setIcon(ApplicationModel.LED_GRAY);
-				} catch (InterruptedException e) {
-					logger.error(e);
-				}
-			}
-		}).start();
+	public BufferedConsole getConsole () {
+		return this.console;
+	}
+
+	/**
+	 * Notifies an incoming message. The activity LED is lit during a brief
+	 * moment to indicate that messages have been received, and shows the
+	 * message rate. This method can be called from any thread.
+	 */
+	public void incomingMessage () {
+		this.lblActivityLed.hit();
 	}
 
 	@Override
 	protected void createComponents () {
 		this.topPanel = createTopPanel();
-		this.console = new Console();
+		this.metricsPanel = new MetricsPanel(this.metrics);
+		ResourceManager p = ResourceManager.getInstance();
+		this.console = new BufferedConsole(p.getInt("console.history.maxLines"), p.getInt("console.pending.maxLines"),
+				p.getInt("console.refresh.period"));
 	}
 
 	@Override
 	protected void setStyle () {
 		setLayout(new MigLayout(""));
 		add(this.topPanel, "growx, pushx, span, grow");
+		add(this.metricsPanel, "span, growx");
 		add(this.console, "span, grow, pushy, w 500lp:600lp, h 200lp:300lp");
 	}
 
@@ -169,12 +250,21 @@ public class ClientView extends AbstractView implements ActionListener {
 		this.btnDisconnect.setActionCommand("disconnectClient");
 		this.btnShowPluginView.setActionCommand("showPluginView");
 		this.cbPlugin.setActionCommand("selectPlugin");
+		this.btnStartLoad.setActionCommand("startLoad");
+		this.btnStopLoad.setActionCommand("stopLoad");
+		this.btnStartReplay.setActionCommand("startReplay");
+		this.btnStopReplay.setActionCommand("stopReplay");
 		this.btnConnect.addActionListener(cmdListener);
 		this.btnDisconnect.addActionListener(cmdListener);
 		this.btnShowPluginView.addActionListener(cmdListener);
 		this.cbPlugin.addActionListener(cmdListener);
+		this.btnStartLoad.addActionListener(cmdListener);
+		this.btnStopLoad.addActionListener(cmdListener);
+		this.btnStartReplay.addActionListener(cmdListener);
+		this.btnStopReplay.addActionListener(cmdListener);
 
 		this.cbClientType.addActionListener(this);
+		this.cbFraming.addActionListener(this);
 		this.cbPlugin.addActionListener(this);
 	}
 
@@ -190,22 +280,20 @@ public class ClientView extends AbstractView implements ActionListener {
 
 		PluginManager.getInstance();
 		// Retrieves the plugins
-		File[] plugins = PluginManager.listPlugins();
-		String[] pluginsNames = new String[plugins.length];
-		for (int i = 0; i < pluginsNames.length; i++) {
-			pluginsNames[i] = plugins[i].getName();
-		}
+		String[] pluginsNames = PluginManager.listPluginNames();
 
 		// Creates the graphical components
 		JLabel lblIsConnected = new JLabel(p.getString("clientView.label.isConnected"));
 		JLabel lblActivity = new JLabel(p.getString("clientView.label.activity"));
 		JLabel lblClientType = new JLabel(p.getString("clientView.label.clientType"));
+		JLabel lblFraming = new JLabel(p.getString("clientView.label.framing"));
 		JLabel lblPlugin = new JLabel(p.getString("clientView.label.plugin"));
 		JLabel lblClientAddr = new JLabel(p.getString("clientView.label.clientAddress"));
 		JLabel lblClientPort = new JLabel(p.getString("clientView.label.clientPort"));
 		this.lblIsConnectedLed = new JLabel(ApplicationModel.LED_GRAY);
-		this.lblActivityLed = new JLabel(ApplicationModel.LED_GRAY);
+		this.lblActivityLed = new ActivityLed();
 		this.cbClientType = new JComboBox<>(Protocol.values());
+		this.cbFraming = new JComboBox<>(Framing.values());
 		this.cbPlugin = new JComboBox<>(pluginsNames);
 		this.tfClientAddr = new JTextField(defAddr);
 		this.tfClientAddr.setHorizontalAlignment(JTextField.CENTER);
@@ -213,11 +301,33 @@ public class ClientView extends AbstractView implements ActionListener {
 		this.btnConnect = new JButton(p.getString("clientView.button.connect.label"));
 		this.btnDisconnect = new JButton(p.getString("clientView.button.disconnect.label"));
 		this.btnShowPluginView = new JButton(p.getString("clientView.button.showPluginView.label"));
+		JLabel lblLoad = new JLabel(p.getString("clientView.label.load"));
+		JLabel lblLoadConnections = new JLabel(p.getString("clientView.label.load.connections"));
+		JLabel lblLoadRate = new JLabel(p.getString("clientView.label.load.rate"));
+		JLabel lblLoadProfile = new JLabel(p.getString("clientView.label.load.profile"));
+		this.spLoadConnections = new IncrementalSpinner(
+				new IncrementalSpinnerModel(p.getInt("load.connections.default"), 1, 10000, 1));
+		this.spLoadRate = new IncrementalSpinner(
+				new IncrementalSpinnerModel(p.getInt("load.rate.default"), 1, 10000000, 100));
+		this.cbLoadProfile = new JComboBox<>(LoadProfile.values());
+		this.btnStartLoad = new JButton(p.getString("clientView.button.startLoad.label"));
+		this.btnStopLoad = new JButton(p.getString("clientView.button.stopLoad.label"));
+		this.btnStopLoad.setEnabled(false);
+		this.lblLoadStats = new JLabel(" ");
+		JLabel lblReplay = new JLabel(p.getString("clientView.label.replay"));
+		JLabel lblReplaySpeed = new JLabel(p.getString("clientView.label.replay.speed"));
+		this.cbReplaySpeed = new JComboBox<>(p.getString("capture.replay.speeds").split(","));
+		this.cbReplaySpeed.setEditable(true);
+		this.btnStartReplay = new JButton(p.getString("clientView.button.startReplay.label"));
+		this.btnStopReplay = new JButton(p.getString("clientView.button.stopReplay.label"));
+		this.btnStopReplay.setEnabled(false);
 
 		// Creates the panel
-		JPanel panel = new JPanel(new MigLayout("", "", "[]15lp[]"));
-		panel.add(lblClientType, "split 8, span, left");
+		JPanel panel = new JPanel(new MigLayout("", "", "[]15lp[]15lp[][]"));
+		panel.add(lblClientType, "split 10, span, left");
 		panel.add(this.cbClientType, "");
+		panel.add(lblFraming, "gap left 25lp");
+		panel.add(this.cbFraming, "");
 		panel.add(lblPlugin, "gap left 25lp");
 		panel.add(this.cbPlugin, "");
 		panel.add(lblClientAddr, "gap left 25lp");
@@ -230,7 +340,22 @@ public class ClientView extends AbstractView implements ActionListener {
 		panel.add(this.lblActivityLed, "");
 		panel.add(this.btnConnect, "");
 		panel.add(this.btnDisconnect, "");
-		panel.add(this.btnShowPluginView, "");
+		panel.add(this.btnShowPluginView, "wrap");
+		panel.add(lblLoad, "split 9, span, left");
+		panel.add(lblLoadConnections, "gap left 10lp");
+		panel.add(this.spLoadConnections, "width 75lp");
+		panel.add(lblLoadProfile, "gap left 25lp");
+		panel.add(this.cbLoadProfile, "");
+		panel.add(lblLoadRate, "gap left 25lp");
+		panel.add(this.spLoadRate, "width 100lp");
+		panel.add(this.btnStartLoad, "gap left 25lp");
+		panel.add(this.btnStopLoad, "wrap");
+		panel.add(lblReplay, "split 5, span, left");
+		panel.add(lblReplaySpeed, "gap left 10lp");
+		panel.add(this.cbReplaySpeed, "width 75lp");
+		panel.add(this.btnStartReplay, "gap left 25lp");
+		panel.add(this.btnStopReplay, "wrap");
+		panel.add(this.lblLoadStats, "span, left");
 		return panel;
 	}
 
@@ -246,6 +371,11 @@ public class ClientView extends AbstractView implements ActionListener {
 			if (this.cbClientType.equals(box)) {
 				this.model.setClientType((Protocol) box.getSelectedItem());
 			}
+
+			// Framing
+			if (this.cbFraming.equals(box)) {
+				this.model.setFraming((Framing) box.getSelectedItem());
+			}
 		}
 	}
 
@@ -254,10 +384,28 @@ public class ClientView extends AbstractView implements ActionListener {
 	 * 
 	 * @return The LED.
 	 */
-	protected JLabel getLblActivityLed () {
+	protected ActivityLed getLblActivityLed () {
 		return this.lblActivityLed;
 	}
 
+	/**
+	 * Updates the list of the plugins from the plugins directory, keeping the
+	 * selected plugin even if its jar has been removed : the tab still uses
+	 * it.
+	 */
+	public void updatePlugins () {
+		Object selected = this.cbPlugin.getSelectedItem();
+		DefaultComboBoxModel<String> plugins = new DefaultComboBoxModel<>(PluginManager.listPluginNames());
+		if (selected != null) {
+			if (plugins.getIndexOf(selected) < 0) {
+				plugins.insertElementAt(selected.toString(), 0);
+			}
+			plugins.setSelectedItem(selected);
+		}
+		// Replacing the model does not notify the selection of a plugin
+		this.cbPlugin.setModel(plugins);
+	}
+
 	/**
 	 * Returns the selected plugin.
 	 * 
@@ -284,4 +432,40 @@ public class ClientView extends AbstractView implements ActionListener {
 	public int getClientPort () {
 		return (Integer) this.spClientPort.getValue();
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Returns the number of connections of the load generator.
+	 * 
+	 * @return Number of connections.
+	 */
+	public int getLoadConnections () {
+		return (Integer) this.spLoadConnections.getValue();
+	}
+
+	/**
+	 * Returns the target rate of the load generator.
+	 * 
+	 * @return Rate in messages per second.
+	 */
+	public int getLoadRate () {
+		return (Integer) this.spLoadRate.getValue();
+	}
+
+	/**
+	 * Returns the rate profile of the load generator.
+	 * 
+	 * @return The profile.
+	 */
+	public LoadProfile getLoadProfile () {
+		return (LoadProfile) this.cbLoadProfile.getSelectedItem();
+	}
+
+	/**
+	 * Returns the speed of the capture replay.
+	 * 
+	 * @return Speed factor, or <code>MAX</code> for the maximum speed.
+	 */
+	public String getReplaySpeed () {
+		return String.valueOf(this.cbReplaySpeed.getSelectedItem());
+	}
+}
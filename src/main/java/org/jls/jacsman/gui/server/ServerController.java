@@ -25,36 +25,58 @@
 package org.jls.jacsman.gui.server;
 
 import java.awt.Color;
-import java.awt.Font;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import javax.swing.JComboBox;
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
 
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jls.jacsman.ApplicationView;
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.jacsman.capture.CaptureWriter;
+import org.jls.jacsman.capture.Direction;
+import org.jls.jacsman.latency.CorrelationIdExtractor;
+import org.jls.jacsman.latency.LatencyTracker;
+import org.jls.jacsman.metrics.Gauge;
+import org.jls.jacsman.metrics.SessionMetrics;
+import org.jls.jacsman.metrics.TrafficLog;
+import org.jls.jacsman.net.DatagramStats;
+import org.jls.jacsman.net.EngineListener;
+import org.jls.jacsman.net.NoClientException;
+import org.jls.jacsman.net.SendResult;
+import org.jls.jacsman.net.ServerEngine;
+import org.jls.jacsman.net.TlsStats;
+import org.jls.jacsman.pipeline.FramingException;
+import org.jls.jacsman.pipeline.FramingStage;
+import org.jls.jacsman.pipeline.ReceiveDispatcher;
 import org.jls.jacsman.plugin.Plugin;
 import org.jls.jacsman.plugin.PluginEvent;
-import org.jls.jacsman.plugin.PluginInterface;
+import org.jls.jacsman.plugin.buffer.BufferPlugin;
+import org.jls.jacsman.plugin.buffer.BufferPluginEvent;
+import org.jls.jacsman.plugin.buffer.CorrelationPlugin;
+import org.jls.jacsman.plugin.buffer.ServerPluginInterface;
+import org.jls.jacsman.shaping.ShapedServerEngine;
+import org.jls.jacsman.shaping.TrafficShaper;
 import org.jls.jacsman.util.PluginManager;
+import org.jls.jacsman.util.PluginWatcher;
 import org.jls.jacsman.util.Protocol;
+import org.jls.jacsman.util.ResourceManager;
+import org.jls.jacsman.util.SessionFactory;
 import org.jls.toolbox.gui.AbstractView;
 import org.jls.toolbox.gui.ActionCallback;
 import org.jls.toolbox.gui.ActionEvent;
 import org.jls.toolbox.net.Interface;
-import org.jls.toolbox.net.InterfaceEvent;
-import org.jls.toolbox.net.InterfaceListener;
-import org.jls.toolbox.net.NoClientConnectedException;
-import org.jls.toolbox.net.Server;
-import org.jls.toolbox.net.TCPServer;
-import org.jls.toolbox.net.UDPMulticastServer;
-import org.jls.toolbox.net.UDPServer;
-import org.jls.toolbox.util.TimeUtils;
 import org.jls.toolbox.widget.dialog.Dialog;
 
 /**
@@ -63,13 +85,19 @@ import org.jls.toolbox.widget.dialog.Dialog;
  * @author Julien LE SAUCE
  * @date 1 mars 2016
  */
-public class ServerController implements InterfaceListener, PluginInterface {
+public class ServerController implements EngineListener, ServerPluginInterface {
 
 	private final ServerModel model;
 	private final Logger logger;
 	private ServerView view;
 
 	private Dialog pluginDialog;
+	private volatile String pluginJar;
+	private PluginWatcher.Listener pluginListener;
+	private final boolean consoleTraffic;
+	private final TrafficLog trafficLog;
+	private final TrafficShaper shaper;
+	private final SessionMetrics metrics;
 
 	/**
 	 * Instanciates the controller.
@@ -80,56 +108,115 @@ public class ServerController implements InterfaceListener, PluginInterface {
 	public ServerController (final ServerModel model) {
 		this.model = model;
 		this.logger = LogManager.getLogger();
-		this.view = new ServerView(model);
+		this.metrics = SessionFactory.createMetrics(new Gauge() {
+
+			@Override
+			public long getValue () {
+				return getClients().size();
+			}
+		});
+		this.view = new ServerView(model, this.metrics.getRegistry());
 		this.pluginDialog = null;
+		this.consoleTraffic = ResourceManager.getInstance().getBoolean("console.traffic.enabled");
+		this.trafficLog = SessionFactory.createTrafficLog(this.logger, Level.INFO);
+		this.shaper = SessionFactory.createTrafficShaper();
+		this.metrics.setTrafficShaper(this.shaper);
 	}
 
 	@Override
-	public void onReceive (InterfaceEvent event) {
-		byte[] msg = event.getMessage();
-		if (msg != null && msg.length > 0) {
-			Interface com = event.getInterface();
-			this.logger.info("Incoming message from {} ({}:{}), size={} bytes", com.getId(), com.getAddress(), com.getPort(),
-					msg.length);
-			appendConsole("Incoming message from " + com.getId() + " (" + com.getAddress() + ":" + com.getPort() + "), size="
-					+ msg.length + " bytes", ServerView.greenColor);
-
-			// Notifies plugin
-			PluginEvent pluginEvent = new PluginEvent(this, this.model.getServer().getInterface(), event.getMessage());
-			this.model.getPlugin().onReceive(pluginEvent);
+	public void onReceive (Interface com, PooledBuffer msg) {
+		int size = msg.size();
+		if (size > 0) {
+			this.metrics.onReceive(size);
+			capture(Direction.IN, msg.buffer());
+			this.view.incomingMessage();
+			// Sampled or summarized according to the traffic log mode
+			this.trafficLog.onReceive(com, size);
+			if (this.consoleTraffic) {
+				appendConsole("Incoming message from " + com.getId() + " (" + com.getAddress() + ":" + com.getPort()
+						+ "), size=" + size + " bytes", ServerView.greenColor);
+			}
+
+			// Splits the bytes into frames, each frame is dispatched to the plugin
+			FramingStage<Interface> framingStage = this.model.getFramingStage();
+			try {
+				if (framingStage != null) {
+					framingStage.decode(com, msg);
+				} else {
+					// Received while the server stops
+					msg.release();
+				}
+			} catch (FramingException e) {
+				onException(com, e);
+			}
 		} else {
-			this.logger.warn("Receiving empty message from {}", event.getInterface().getId());
-			appendConsole("Warning : Receiving empty message from " + event.getInterface().getId(), ServerView.redColor);
+			msg.release();
+			this.logger.warn("Receiving empty message from {}", com.getId());
+			appendConsole("Warning : Receiving empty message from " + com.getId(), ServerView.redColor);
 		}
 	}
 
 	@Override
-	public void onTimeout (InterfaceEvent event) {
-		this.logger.warn("*** TIMEOUT occurred on {}", event.getInterface().getId());
+	public void onConnect (Interface client) {
+		this.logger.debug("Client {} connected", client.getId());
 	}
 
 	@Override
-	public void onException (InterfaceEvent event, Throwable t) {
-		this.logger.error("An error occurred on interface {}", event.getInterface().getId(), t);
-		appendConsole("ERROR : An error occurred on interface " + event.getInterface().getId() + " : " + t.getMessage(),
+	public void onDisconnect (Interface client) {
+		this.logger.debug("Client {} disconnected", client.getId());
+		ReceiveDispatcher<Interface, BufferPluginEvent> dispatcher = this.model.getDispatcher();
+		if (dispatcher != null) {
+			dispatcher.remove(client);
+		}
+		FramingStage<Interface> framingStage = this.model.getFramingStage();
+		if (framingStage != null) {
+			framingStage.remove(client);
+		}
+		LatencyTracker<Interface> tracker = this.model.getLatencyTracker();
+		if (tracker != null) {
+			tracker.close(client);
+		}
+	}
+
+	@Override
+	public void onTimeout (Interface com) {
+		this.metrics.onTimeout();
+		this.logger.warn("*** TIMEOUT occurred on {}", com.getId());
+	}
+
+	@Override
+	public void onException (Interface com, Throwable t) {
+		this.metrics.onError();
+		this.logger.error("An error occurred on interface {}", com.getId(), t);
+		appendConsole("ERROR : An error occurred on interface " + com.getId() + " : " + t.getMessage(),
 				ServerView.redColor);
 	}
 
 	@Override
 	public int send (byte[] msg) throws IOException {
-		Server server = this.model.getServer();
+		return send(ByteBuffer.wrap(msg));
+	}
+
+	@Override
+	public int send (ByteBuffer msg) throws IOException {
+		ServerEngine server = this.model.getServer();
 		// If the server is instanciated
 		if (server != null) {
-			this.logger.info("Send message");
-			for (Interface client : server.getClients()) {
-				appendConsole("Sending message to " + client.getId() + " (" + client.getAddress() + ":" + client.getPort()
-						+ "), size=" + msg.length + " bytes", ServerView.dataColor);
+			int size = msg.remaining();
+			this.trafficLog.onBroadcast(server.getClients().size(), size);
+			if (this.consoleTraffic) {
+				appendConsole("Sending message to " + server.getClients().size() + " client(s), size=" + size + " bytes",
+						ServerView.dataColor);
 			}
+			trackBroadcast(server, msg);
+			capture(Direction.OUT, msg);
 			try {
-				// Send the message
-				this.model.getServer().send(msg);
-				return msg.length;
-			} catch (NoClientConnectedException e) {
+				// Each client is written to by its own queue
+				server.send(msg);
+				this.metrics.onSend(size);
+				return size;
+			} catch (NoClientException e) {
+				this.metrics.onError();
 				this.logger.warn("No client connected to server");
 				appendConsole("Warning : Cannot send message because no client connected to server", ServerView.redColor);
 
@@ -145,14 +232,104 @@ public class ServerController implements InterfaceListener, PluginInterface {
 		}
 	}
 
+	@Override
+	public int send (Interface client, byte[] msg) throws IOException {
+		return send(client, ByteBuffer.wrap(msg));
+	}
+
+	@Override
+	public int send (Interface client, ByteBuffer msg) throws IOException {
+		ServerEngine server = this.model.getServer();
+		// If the server is instanciated
+		if (server != null) {
+			int size = msg.remaining();
+			this.trafficLog.onSend(client, size);
+			if (this.consoleTraffic) {
+				appendConsole("Sending message to " + client.getId() + " (" + client.getAddress() + ":" + client.getPort()
+						+ "), size=" + size + " bytes", ServerView.dataColor);
+			}
+			LatencyTracker<Interface> tracker = this.model.getLatencyTracker();
+			if (tracker != null) {
+				tracker.onSend(client, msg);
+			}
+			capture(Direction.OUT, msg);
+			try {
+				server.send(client, msg);
+				this.metrics.onSend(size);
+				return size;
+			} catch (NoClientException e) {
+				this.metrics.onError();
+				this.logger.warn("Client {} not connected to server", client.getId());
+				appendConsole("Warning : Cannot send message because " + client.getId() + " is not connected to server",
+						ServerView.redColor);
+
+				// Notifies the plugin
+				PluginEvent pluginEvent = new PluginEvent(this, server.getInterface());
+				this.model.getPlugin().onException(pluginEvent, e);
+
+				// Return an error code
+				return -1;
+			}
+		} else {
+			throw new IllegalStateException("No server connected");
+		}
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (ByteBuffer msg) {
+		ServerEngine server = this.model.getServer();
+		// If the server is instanciated
+		if (server != null) {
+			if (this.consoleTraffic) {
+				appendConsole("Sending message to " + server.getClients().size() + " client(s), size=" + msg.remaining()
+						+ " bytes", ServerView.dataColor);
+			}
+			trackBroadcast(server, msg);
+			capture(Direction.OUT, msg);
+			return this.metrics.onSendAsync(server.sendAsync(msg), msg.remaining());
+		} else {
+			CompletableFuture<SendResult> future = new CompletableFuture<>();
+			future.completeExceptionally(new IllegalStateException("No server connected"));
+			return future;
+		}
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (Interface client, ByteBuffer msg) {
+		ServerEngine server = this.model.getServer();
+		// If the server is instanciated
+		if (server != null) {
+			if (this.consoleTraffic) {
+				appendConsole("Sending message to " + client.getId() + " (" + client.getAddress() + ":" + client.getPort()
+						+ "), size=" + msg.remaining() + " bytes", ServerView.dataColor);
+			}
+			LatencyTracker<Interface> tracker = this.model.getLatencyTracker();
+			if (tracker != null) {
+				tracker.onSend(client, msg);
+			}
+			capture(Direction.OUT, msg);
+			return this.metrics.onSendAsync(server.sendAsync(client, msg), msg.remaining());
+		} else {
+			CompletableFuture<SendResult> future = new CompletableFuture<>();
+			future.completeExceptionally(new IllegalStateException("No server connected"));
+			return future;
+		}
+	}
+
+	@Override
+	public List<Interface> getClients () {
+		ServerEngine server = this.model.getServer();
+		if (server != null) {
+			return server.getClients();
+		}
+		return Collections.emptyList();
+	}
+
 	@ActionCallback("connectServer")
 	public void action_connectServer (final org.jls.toolbox.gui.ActionEvent e) {
 		this.logger.debug("Action : {}, From : {}", e.getActionCommand(), e.getView().getClass().getSimpleName());
-		// Retrieves the server address
-		ServerView view = (ServerView) e.getView();
-		this.model.setServerAddress(view.getServerAddress());
 		try {
-			startServer();
+			start();
 		} catch (Exception e1) {
 			this.logger.error("An error occurred starting server", e1);
 			appendConsole("An error occurred starting server : " + e1.getMessage(), ServerView.redColor);
@@ -165,7 +342,7 @@ public class ServerController implements InterfaceListener, PluginInterface {
 	public void action_disconnectServer (final ActionEvent e) {
 		this.logger.debug("Action : {}, From : {}", e.getActionCommand(), e.getView().getClass().getSimpleName());
 		try {
-			stopServer();
+			stop();
 		} catch (Exception e1) {
 			this.logger.error("An error occurred stopping server", e1);
 			appendConsole("An error occurred stopping server : " + e1.getMessage(), ServerView.redColor);
@@ -174,6 +351,25 @@ public class ServerController implements InterfaceListener, PluginInterface {
 		}
 	}
 
+	@ActionCallback("startCapture")
+	public void action_startCapture (final ActionEvent e) {
+		this.logger.debug("Action : {}, From : {}", e.getActionCommand(), e.getView().getClass().getSimpleName());
+		try {
+			startCapture();
+		} catch (Exception e1) {
+			this.logger.error("An error occurred starting capture", e1);
+			appendConsole("An error occurred starting capture : " + e1.getMessage(), ServerView.redColor);
+			this.view.pop("Capture Error", "An error occurred starting capture :\n\n" + e1.getMessage(),
+					JOptionPane.ERROR_MESSAGE);
+		}
+	}
+
+	@ActionCallback("stopCapture")
+	public void action_stopCapture (final ActionEvent e) {
+		this.logger.debug("Action : {}, From : {}", e.getActionCommand(), e.getView().getClass().getSimpleName());
+		stopCapture();
+	}
+
 	@ActionCallback("showPluginView")
 	public void action_showPluginView (final ActionEvent e) {
 		this.logger.debug("Action : {}, From : {}", e.getActionCommand(), e.getView().getClass().getSimpleName());
@@ -205,16 +401,54 @@ public class ServerController implements InterfaceListener, PluginInterface {
 	 * @return The new graphical interface.
 	 */
 	public AbstractView createGui () {
-		this.view = new ServerView(this.model);
+		this.view = new ServerView(this.model, this.metrics.getRegistry());
 		this.view.addListener(this);
 		this.view.createGui(null);
 		this.model.addObserver(this.view);
 		loadPlugin(this.view.getSelectedPlugin());
+		this.pluginListener = new PluginWatcher.Listener() {
+
+			@Override
+			public void onPluginAdded (String jarName) {
+				updatePlugins();
+			}
+
+			@Override
+			public void onPluginChanged (String jarName) {
+				if (jarName.equals(pluginJar)) {
+					reloadPlugin(jarName);
+				}
+			}
+
+			@Override
+			public void onPluginRemoved (String jarName) {
+				updatePlugins();
+			}
+		};
+		PluginManager.getInstance().getWatcher().addListener(this.pluginListener);
 		return this.view;
 	}
 
 	/**
-	 * Prints the specified text to the console.
+	 * Closes the tab : stops the server and stops listening to the plugins
+	 * directory. The controller cannot be used afterwards.
+	 */
+	public void dispose () {
+		if (this.pluginListener != null) {
+			PluginManager.getInstance().getWatcher().removeListener(this.pluginListener);
+			this.pluginListener = null;
+		}
+		try {
+			stopCapture();
+			stopServer();
+		} catch (Exception e) {
+			this.logger.error("An error occurred stopping server", e);
+		}
+	}
+
+	/**
+	 * Prints the specified text to the console. The line is rendered
+	 * asynchronously, so this method can be called from the network threads.
 	 * 
 	 * @param text
 	 *            The text to print.
@@ -222,9 +456,7 @@ public class ServerController implements InterfaceListener, PluginInterface {
 	 *            The text's color.
 	 */
 	public void appendConsole (final String text, final Color color) {
-		this.view.print(TimeUtils.getConsoleTimestamp(), Color.blue, Font.BOLD);
-		this.view.print(" > ", Color.blue, Font.BOLD);
-		this.view.print(text + "\n", color, Font.PLAIN);
+		this.view.println(text, color);
 	}
 
 	/**
@@ -237,6 +469,29 @@ public class ServerController implements InterfaceListener, PluginInterface {
 		this.model.setPlugin(plugin);
 	}
 
+	/**
+	 * Starts the server with the address, the port and the multicast
+	 * interfaces of the view, as its connect button does.
+	 * 
+	 * @throws IOException
+	 *             If an error occurred starting the server.
+	 */
+	public void start () throws IOException {
+		this.model.setServerAddress(this.view.getServerAddress());
+		this.model.setMulticastInterfaces(this.view.getMulticastInterfaces());
+		startServer();
+	}
+
+	/**
+	 * Stops the server, as its disconnect button does.
+	 * 
+	 * @throws IOException
+	 *             If an error occurred stopping the server.
+	 */
+	public void stop () throws IOException {
+		stopServer();
+	}
+
 	/**
 	 * Starts the network server.
 	 * 
@@ -244,9 +499,11 @@ public class ServerController implements InterfaceListener, PluginInterface {
 	 *             If an error occurred starting the server.
 	 */
 	private void startServer () throws IOException {
-		Server server = this.model.getServer();
-		Interface com = new Interface(this.model.getServerType().toString() + "Server", this.model.getServerAddress(),
-				this.view.getServerPort());
+		ServerEngine server = this.model.getServer();
+		// The address of a NIO multicast server is its list of groups
+		boolean groups = this.model.getServerType() == Protocol.UDP_MULTICAST_NIO;
+		Interface com = new Interface(this.model.getServerType().toString() + "Server",
+				groups ? SessionFactory.ANY_ADDRESS : this.model.getServerAddress(), this.view.getServerPort());
 
 		// If no server instanciated yet
 		if (server == null) {
@@ -254,26 +511,24 @@ public class ServerController implements InterfaceListener, PluginInterface {
 
 			this.logger.info("Creating server {}", com.getId());
 			appendConsole("Creating server " + com.getId(), ServerView.normalColor);
-			switch (serverType) {
-				case TCP:
-					server = new TCPServer(com);
-					break;
-				case UDP:
-					server = new UDPServer(com);
-					break;
-				case UDP_MULTICAST:
-					server = new UDPMulticastServer(com);
-					break;
-				default:
-					throw new IllegalArgumentException("Unknown server type : " + serverType.toString());
-			}
+			ServerEngine engine = groups ? SessionFactory.createMulticastServer(com, this.model.getServerAddress(),
+					this.model.getMulticastInterfaces()) : SessionFactory.createServer(serverType, com);
+			this.model.setDispatcher(createDispatcher(com.getId()));
+			this.model.setFramingStage(createFramingStage(engine.getInterface(), this.model.getDispatcher()));
+			this.model.setLatencyTracker(createLatencyTracker());
+			// Applies the limits of the tab to the messages sent
+			server = new ShapedServerEngine(engine, this.shaper);
 			this.model.setServer(server);
-			server.addListener(this);
+			server.setListener(this);
+			this.metrics.setDatagramStats(engine instanceof DatagramStats ? (DatagramStats) engine : null);
+			this.metrics.setTlsStats(engine instanceof TlsStats ? (TlsStats) engine : null);
+			this.metrics.setDispatcher(this.model.getDispatcher());
 		}
 		this.logger.info("Starting server {} on port {}", com.getId(), com.getPort());
 		appendConsole("Starting " + com.getId() + " on port " + com.getPort(), ServerView.normalColor);
 		server.start();
 		if (server.isRunning()) {
+			this.trafficLog.start(com.getId());
 			this.view.setConnected(true);
 			appendConsole(com.getId() + " now listening on port " + com.getPort(), ServerView.greenColor);
 			appendConsole("Waiting for client to connect...", ServerView.normalColor);
@@ -290,13 +545,27 @@ public class ServerController implements InterfaceListener, PluginInterface {
 	 *             If an error occurred stopping the network server.
 	 */
 	private void stopServer () throws IOException {
-		Server server = this.model.getServer();
+		ServerEngine server = this.model.getServer();
 		// If a server has been instanciated
 		if (server != null) {
 			String serverId = server.getInterface().getId();
 			this.logger.info("Stopping server {}", serverId);
 			appendConsole("Stopping server " + serverId, ServerView.normalColor);
-			server.stop();
+			try {
+				server.stop();
+			} finally {
+				// Stages shut down first, the frames still being decoded are discarded
+				this.model.getFramingStage().shutdown();
+				this.model.setFramingStage(null);
+				this.model.getDispatcher().shutdown();
+				this.model.setDispatcher(null);
+				this.model.setServer(null);
+				stopLatencyTracker(serverId);
+				this.trafficLog.stop();
+			}
+			if (this.shaper.isLimited()) {
+				this.logger.info("Traffic shaping of {} : {}", serverId, this.shaper.formatStats());
+			}
 			if (server.isRunning()) {
 				this.logger.error("An error occurred stopping server {}", serverId);
 				this.view.pop("Server Error", "An error occurred stopping server " + serverId + ".",
@@ -306,10 +575,207 @@ public class ServerController implements InterfaceListener, PluginInterface {
 				this.logger.info("{} now disconnected", serverId);
 				appendConsole(server.toString() + " now disconnected", ServerView.greenColor);
 			}
-			this.model.setServer(null);
 		}
 	}
 
+	/**
+	 * Starts recording the received and sent messages in a new capture of the
+	 * capture directory.
+	 * 
+	 * @throws IOException
+	 *             If the capture files cannot be created.
+	 */
+	private void startCapture () throws IOException {
+		if (this.model.getCaptureWriter() != null) {
+			throw new IllegalStateException("Capture already running");
+		}
+		CaptureWriter capture = SessionFactory.createCaptureWriter(this.model.getServerType().toString() + "Server");
+		this.model.setCaptureWriter(capture);
+		this.view.setCapturing(true);
+		this.logger.info("Capturing traffic to {}", capture.getDirectory());
+		appendConsole("Capturing traffic to " + capture.getDirectory().getPath(), ServerView.normalColor);
+	}
+
+	/**
+	 * Stops recording the messages and closes the capture. This method can be
+	 * called from any thread.
+	 */
+	private void stopCapture () {
+		CaptureWriter capture = this.model.getCaptureWriter();
+		if (capture != null) {
+			this.model.setCaptureWriter(null);
+			try {
+				capture.close();
+			} catch (IOException e) {
+				this.logger.error("Cannot close capture {}", capture.getDirectory(), e);
+			}
+			this.logger.info("Capture stopped, {} message(s) recorded to {}", capture.getRecords(),
+					capture.getDirectory());
+			appendConsole("Capture stopped, " + capture.getRecords() + " message(s) recorded to "
+					+ capture.getDirectory().getPath(), ServerView.greenColor);
+			SwingUtilities.invokeLater(new Runnable() {
+
+				@Override
+				public void run () {
+					getView().setCapturing(false);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Records a message if the traffic is captured. The capture is stopped if
+	 * the message cannot be recorded.
+	 * 
+	 * @param direction
+	 *            Direction of the message.
+	 * @param msg
+	 *            The message, its position is left unchanged.
+	 */
+	private void capture (final Direction direction, final ByteBuffer msg) {
+		CaptureWriter capture = this.model.getCaptureWriter();
+		if (capture != null) {
+			try {
+				capture.append(direction, msg);
+			} catch (IOException e) {
+				// Ignored if the capture has been stopped meanwhile
+				if (capture == this.model.getCaptureWriter()) {
+					this.logger.error("Cannot record message to {}", capture.getDirectory(), e);
+					appendConsole("ERROR : Cannot record message : " + e.getMessage(), ServerView.redColor);
+					stopCapture();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Timestamps a message sent to all the clients, as a request of each
+	 * client, if the latency is measured.
+	 * 
+	 * @param server
+	 *            The network server.
+	 * @param msg
+	 *            The message.
+	 */
+	private void trackBroadcast (final ServerEngine server, final ByteBuffer msg) {
+		LatencyTracker<Interface> tracker = this.model.getLatencyTracker();
+		if (tracker != null) {
+			for (Interface client : server.getClients()) {
+				tracker.onSend(client, msg);
+			}
+		}
+	}
+
+	/**
+	 * Creates the tracker measuring the latency of the replies, if enabled by
+	 * the network properties. The replies are matched by the identifiers read
+	 * by the plugin if it implements {@link CorrelationPlugin}, otherwise in
+	 * FIFO order.
+	 * 
+	 * @return The new latency tracker, <code>null</code> if the latency is
+	 *         not measured.
+	 */
+	private LatencyTracker<Interface> createLatencyTracker () {
+		Plugin plugin = this.model.getPlugin();
+		CorrelationIdExtractor extractor = plugin instanceof CorrelationPlugin ? (CorrelationPlugin) plugin : null;
+		LatencyTracker<Interface> tracker = SessionFactory.createLatencyTracker(extractor);
+		if (tracker != null) {
+			appendConsole("Measuring latency, replies matched " + (extractor != null ? "by correlation id" : "in FIFO order"),
+					ServerView.normalColor);
+		}
+		return tracker;
+	}
+
+	/**
+	 * Stops measuring the latency, prints the percentiles and exports them to
+	 * a CSV file of the latency directory.
+	 * 
+	 * @param name
+	 *            Name of the tab, used to name the file.
+	 */
+	private void stopLatencyTracker (final String name) {
+		LatencyTracker<Interface> tracker = this.model.getLatencyTracker();
+		if (tracker != null) {
+			this.model.setLatencyTracker(null);
+			for (Interface com : tracker.getConnections()) {
+				this.logger.info("Latency of {}", tracker.format(com));
+			}
+			this.logger.info("Latency of {}", tracker.formatTotal());
+			appendConsole("Latency : " + tracker.formatTotal(), ServerView.greenColor);
+
+			File file = SessionFactory.getLatencyExportFile(name);
+			try {
+				tracker.export(file);
+				appendConsole("Latencies exported to " + file.getPath(), ServerView.normalColor);
+			} catch (IOException e) {
+				this.logger.error("Cannot export latencies to {}", file, e);
+				appendConsole("ERROR : Cannot export latencies to " + file.getPath() + " : " + e.getMessage(),
+						ServerView.redColor);
+			}
+		}
+	}
+
+	/**
+	 * Creates the stage splitting the received bytes into frames, using the
+	 * framing selected by the user and configured by the network properties.
+	 * The frames are passed to the receive dispatcher.
+	 * 
+	 * @param com
+	 *            Interface of the server, source of the plugin events.
+	 * @param dispatcher
+	 *            Dispatcher of the frames to the plugin.
+	 * @return The new framing stage.
+	 */
+	private FramingStage<Interface> createFramingStage (final Interface com,
+			final ReceiveDispatcher<Interface, BufferPluginEvent> dispatcher) {
+		return SessionFactory.createFramingStage(this.model.getFraming(), new FramingStage.Listener<Interface>() {
+
+			@Override
+			public void onFrame (Interface key, PooledBuffer frame) {
+				getMetrics().onMessage();
+				LatencyTracker<Interface> tracker = getModel().getLatencyTracker();
+				if (tracker != null) {
+					tracker.onReceive(key, frame.buffer());
+				}
+				// Notifies plugin, the buffer is released once handled
+				BufferPluginEvent pluginEvent = BufferPluginEvent.obtain(ServerController.this, com, frame);
+				dispatcher.dispatch(key, pluginEvent);
+			}
+		});
+	}
+
+	/**
+	 * Creates the stage dispatching the received messages to the plugin,
+	 * configured by the network properties.
+	 * 
+	 * @param name
+	 *            Name of the dispatcher.
+	 * @return The new dispatcher.
+	 */
+	private ReceiveDispatcher<Interface, BufferPluginEvent> createDispatcher (final String name) {
+		return SessionFactory.createDispatcher(name, new ReceiveDispatcher.Handler<BufferPluginEvent>() {
+
+			@Override
+			public void handle (BufferPluginEvent event) {
+				try {
+					Plugin plugin = getModel().getPlugin();
+					if (plugin instanceof BufferPlugin) {
+						((BufferPlugin) plugin).onReceive(event);
+					} else if (plugin != null) {
+						plugin.onReceive(new PluginEvent(event.getSource(), event.getInterface(), event.getMessage()));
+					}
+				} finally {
+					event.release();
+				}
+			}
+
+			@Override
+			public void discard (BufferPluginEvent event) {
+				event.release();
+			}
+		});
+	}
+
 	/**
 	 * Shows the plugin associated view.
 	 */
@@ -339,6 +805,61 @@ public class ServerController implements InterfaceListener, PluginInterface {
 		});
 	}
 
+	/**
+	 * Loads the new version of the plugin of the tab, after its jar has been
+	 * modified. The new version replaces the previous one at once : the
+	 * messages being handled by the previous version complete with it, the
+	 * next ones go to the new version. If the new version cannot be loaded,
+	 * the tab keeps the previous one.
+	 * 
+	 * @param jarName
+	 *            Name of the modified jar.
+	 */
+	private void reloadPlugin (final String jarName) {
+		this.logger.info("Reloading plugin : {}", jarName);
+		Plugin plugin;
+		try {
+			plugin = PluginManager.getInstance().loadPlugin(jarName, this);
+		} catch (Exception | LinkageError e) {
+			this.logger.error("Failed to reload plugin {}", jarName, e);
+			appendConsole("Failed to reload plugin " + jarName + ", keeping the previous version : " + e.getMessage(),
+					ServerView.redColor);
+			return;
+		}
+		this.model.setPlugin(plugin);
+		appendConsole("Plugin " + jarName + " reloaded", ServerView.greenColor);
+		SwingUtilities.invokeLater(new Runnable() {
+
+			@Override
+			public void run () {
+				// The dialog shows the view of the previous version
+				Dialog dialog = getPluginDialog();
+				if (dialog != null) {
+					boolean visible = dialog.isVisible();
+					dialog.dispose();
+					setPluginDialog(null);
+					if (visible) {
+						showPluginView();
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Updates the plugins proposed by the tab after a jar has been added to
+	 * or removed from the plugins directory.
+	 */
+	private void updatePlugins () {
+		SwingUtilities.invokeLater(new Runnable() {
+
+			@Override
+			public void run () {
+				view.updatePlugins();
+			}
+		});
+	}
+
 	/**
 	 * Loads the specified plugin selected by the user.
 	 * 
@@ -354,6 +875,7 @@ public class ServerController implements InterfaceListener, PluginInterface {
 		try {
 			Plugin plugin = PluginManager.getInstance().loadPlugin(pluginName, this);
 			this.model.setPlugin(plugin);
+			this.pluginJar = pluginName;
 		} catch (FileNotFoundException e) {
 			this.logger.error("Plugin jar {} not found", pluginName, e);
 			this.view.pop("Plugin Error", "Plugin JAR file " + pluginName + " not found :\n\n" + e.getMessage(),
@@ -411,6 +933,33 @@ public class ServerController implements InterfaceListener, PluginInterface {
 		return this.model;
 	}
 
+	/**
+	 * Returns the view.
+	 * 
+	 * @return The view.
+	 */
+	public ServerView getView () {
+		return this.view;
+	}
+
+	/**
+	 * Returns the metrics of the server.
+	 * 
+	 * @return The metrics.
+	 */
+	public SessionMetrics getMetrics () {
+		return this.metrics;
+	}
+
+	/**
+	 * Returns the traffic shaper of the server.
+	 * 
+	 * @return The shaper.
+	 */
+	public TrafficShaper getShaper () {
+		return this.shaper;
+	}
+
 	/**
 	 * Returns the plugin dialog.
 	 * 
@@ -24,10 +24,17 @@
 
 package org.jls.jacsman.gui.server;
 
+import org.jls.jacsman.capture.CaptureWriter;
+import org.jls.jacsman.net.ServerEngine;
+import org.jls.jacsman.latency.LatencyTracker;
+import org.jls.jacsman.pipeline.FramingStage;
+import org.jls.jacsman.pipeline.ReceiveDispatcher;
 import org.jls.jacsman.plugin.Plugin;
+import org.jls.jacsman.plugin.buffer.BufferPluginEvent;
+import org.jls.jacsman.util.Framing;
 import org.jls.jacsman.util.Protocol;
 import org.jls.toolbox.gui.AbstractModel;
-import org.jls.toolbox.net.Server;
+import org.jls.toolbox.net.Interface;
 
 /**
  * Server's panel data model.
@@ -38,18 +45,30 @@ import org.jls.toolbox.net.Server;
 public class ServerModel extends AbstractModel {
 
 	private Protocol serverType;
-	private Server server;
-	private Plugin plugin;
+	private Framing framing;
+	private ServerEngine server;
+	private volatile Plugin plugin;
 	private String serverAddress;
+	private String multicastInterfaces;
+	private FramingStage<Interface> framingStage;
+	private ReceiveDispatcher<Interface, BufferPluginEvent> dispatcher;
+	private LatencyTracker<Interface> latencyTracker;
+	private volatile CaptureWriter captureWriter;
 
 	/**
 	 * Instanciates a new default data model.
 	 */
 	public ServerModel () {
 		this.serverType = Protocol.TCP;
+		this.framing = Framing.NONE;
 		this.server = null;
 		this.plugin = null;
 		this.serverAddress = null;
+		this.multicastInterfaces = "";
+		this.framingStage = null;
+		this.dispatcher = null;
+		this.latencyTracker = null;
+		this.captureWriter = null;
 	}
 
 	/**
@@ -76,7 +95,7 @@ public class ServerModel extends AbstractModel {
 	 * 
 	 * @return Network server.
 	 */
-	public Server getServer () {
+	public ServerEngine getServer () {
 		return server;
 	}
 
@@ -86,7 +105,7 @@ public class ServerModel extends AbstractModel {
 	 * @param server
 	 *            Network server.
 	 */
-	public void setServer (Server server) {
+	public void setServer (ServerEngine server) {
 		this.server = server;
 	}
 
@@ -100,7 +119,8 @@ public class ServerModel extends AbstractModel {
 	}
 
 	/**
-	 * Updates the plugin.
+	 * Updates the plugin. The plugin can be replaced while the network is
+	 * running : each message goes either to the previous or to the new plugin.
 	 * 
 	 * @param plugin
 	 *            The plugin.
@@ -127,4 +147,123 @@ public class ServerModel extends AbstractModel {
 	public void setServerAddress (String addr) {
 		this.serverAddress = addr;
 	}
+
+	/**
+	 * Returns the network interfaces joining the groups of a
+	 * {@link Protocol#UDP_MULTICAST_NIO} server.
+	 * 
+	 * @return Names of the interfaces separated by commas, empty for all the
+	 *         interfaces supporting multicast.
+	 */
+	public String getMulticastInterfaces () {
+		return this.multicastInterfaces;
+	}
+
+	/**
+	 * Updates the network interfaces joining the groups of a
+	 * {@link Protocol#UDP_MULTICAST_NIO} server.
+	 * 
+	 * @param interfaces
+	 *            Names of the interfaces separated by commas, empty for all
+	 *            the interfaces supporting multicast.
+	 */
+	public void setMulticastInterfaces (final String interfaces) {
+		this.multicastInterfaces = interfaces;
+	}
+
+	/**
+	 * Returns the stage dispatching the received messages to the plugin.
+	 * 
+	 * @return The receive dispatcher.
+	 */
+	public ReceiveDispatcher<Interface, BufferPluginEvent> getDispatcher () {
+		return this.dispatcher;
+	}
+
+	/**
+	 * Updates the stage dispatching the received messages to the plugin.
+	 * 
+	 * @param dispatcher
+	 *            The receive dispatcher.
+	 */
+	public void setDispatcher (ReceiveDispatcher<Interface, BufferPluginEvent> dispatcher) {
+		this.dispatcher = dispatcher;
+	}
+
+	/**
+	 * Returns the framing of the received bytes.
+	 * 
+	 * @return The framing.
+	 */
+	public Framing getFraming () {
+		return this.framing;
+	}
+
+	/**
+	 * Updates the framing of the received bytes.
+	 * 
+	 * @param framing
+	 *            The framing.
+	 */
+	public void setFraming (final Framing framing) {
+		this.framing = framing;
+	}
+
+	/**
+	 * Returns the stage splitting the received bytes into frames.
+	 * 
+	 * @return The framing stage.
+	 */
+	public FramingStage<Interface> getFramingStage () {
+		return this.framingStage;
+	}
+
+	/**
+	 * Updates the stage splitting the received bytes into frames.
+	 * 
+	 * @param framingStage
+	 *            The framing stage.
+	 */
+	public void setFramingStage (FramingStage<Interface> framingStage) {
+		this.framingStage = framingStage;
+	}
+
+	/**
+	 * Returns the tracker measuring the latency of the replies.
+	 * 
+	 * @return The latency tracker, <code>null</code> if the latency is not
+	 *         measured.
+	 */
+	public LatencyTracker<Interface> getLatencyTracker () {
+		return this.latencyTracker;
+	}
+
+	/**
+	 * Updates the tracker measuring the latency of the replies.
+	 * 
+	 * @param latencyTracker
+	 *            The latency tracker, <code>null</code> to stop measuring.
+	 */
+	public void setLatencyTracker (LatencyTracker<Interface> latencyTracker) {
+		this.latencyTracker = latencyTracker;
+	}
+
+	/**
+	 * Returns the capture recording the traffic of the server.
+	 * 
+	 * @return The capture, <code>null</code> if the traffic is not recorded.
+	 */
+	public CaptureWriter getCaptureWriter () {
+		return this.captureWriter;
+	}
+
+	/**
+	 * Updates the capture recording the traffic of the server.
+	 * 
+	 * @param captureWriter
+	 *            The capture, <code>null</code> to stop recording.
+	 */
+	public void setCaptureWriter (CaptureWriter captureWriter) {
+		this.captureWriter = captureWriter;
+	}
 }
\ No newline at end of file
@@ -25,12 +25,11 @@
 package org.jls.jacsman.gui.server;
 
 import java.awt.Color;
-import java.awt.Font;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.File;
 import java.util.Observable;
 
+import javax.swing.DefaultComboBoxModel;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
 import javax.swing.JLabel;
@@ -40,12 +39,16 @@ import javax.swing.JTextField;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.jls.jacsman.ApplicationModel;
+import org.jls.jacsman.gui.ActivityLed;
+import org.jls.jacsman.gui.BufferedConsole;
+import org.jls.jacsman.gui.MetricsPanel;
+import org.jls.jacsman.metrics.MetricsRegistry;
+import org.jls.jacsman.util.Framing;
 import org.jls.jacsman.util.PluginManager;
 import org.jls.jacsman.util.Protocol;
 import org.jls.jacsman.util.ResourceManager;
 import org.jls.toolbox.gui.AbstractView;
 import org.jls.toolbox.gui.CommandListener;
-import org.jls.toolbox.widget.Console;
 import org.jls.toolbox.widget.spinner.IncrementalSpinner;
 import org.jls.toolbox.widget.spinner.IncrementalSpinnerModel;
 
@@ -69,31 +72,41 @@ public class ServerView extends AbstractView implements ActionListener {
 	private final ServerModel model;
 	private final Logger logger;
 	private final ResourceManager props;
+	private final MetricsRegistry metrics;
 
-	private Console console;
+	private BufferedConsole console;
+	private MetricsPanel metricsPanel;
 
 	// Server control panel
 	private JPanel topPanel;
 	private JLabel lblIsConnectedLed;
-	private JLabel lblActivityLed;
+	private ActivityLed lblActivityLed;
 	private JComboBox<Protocol> cbServerType;
+	private JComboBox<Framing> cbFraming;
 	private JComboBox<String> cbPlugin;
 	private JLabel lblServerAddress;
 	private JTextField tfServerAddress;
+	private JLabel lblInterfaces;
+	private JTextField tfInterfaces;
 	private IncrementalSpinner spServerPort;
 	private JButton btnConnect;
 	private JButton btnDisconnect;
 	private JButton btnShowPluginView;
+	private JButton btnStartCapture;
+	private JButton btnStopCapture;
 
 	/**
 	 * Instanciates a new panel.
 	 * 
 	 * @param model
 	 *            Panel's data model.
+	 * @param metrics
+	 *            Metrics of the server, shown under the control panel.
 	 */
-	public ServerView (final ServerModel model) {
+	public ServerView (final ServerModel model, final MetricsRegistry metrics) {
 		super();
 		this.model = model;
+		this.metrics = metrics;
 		this.logger = LogManager.getLogger();
 		this.props = ResourceManager.getInstance();
 	}
@@ -113,51 +126,63 @@ public class ServerView extends AbstractView implements ActionListener {
 	public void setConnected (final boolean isConnected) {
 		this.lblIsConnectedLed.setIcon(isConnected ? ApplicationModel.LED_GREEN : ApplicationModel.LED_RED);
 		this.cbServerType.setEnabled(!isConnected);
+		this.cbFraming.setEnabled(!isConnected);
 		this.cbPlugin.setEnabled(!isConnected);
 		this.tfServerAddress.setEnabled(!isConnected);
+		this.tfInterfaces.setEnabled(!isConnected);
 		this.spServerPort.setEnabled(!isConnected);
 	}
 
 	/**
-	 * Prints the specified text to the console.
+	 * Updates the capture buttons.
+	 * 
+	 * @param isCapturing
+	 *            <code>true</code> if the traffic is recorded,
+	 *            <code>false</code> otherwise.
+	 */
+	public void setCapturing (final boolean isCapturing) {
+		this.btnStartCapture.setEnabled(!isCapturing);
+		this.btnStopCapture.setEnabled(isCapturing);
+	}
+
+	/**
+	 * Prints the specified line to the console. The line is queued and
+	 * rendered later on the Event Dispatch Thread, so this method can be
+	 * called from any thread.
 	 * 
 	 * @param text
 	 *            The text to print.
 	 * @param textColor
 	 *            Text's color.
-	 * @param fontStyle
-	 *            Text's font style ({@link Font#BOLD}, {@link Font#ITALIC} or
-	 *            {@link Font#PLAIN}.
 	 */
-	public void print (String text, Color textColor, int fontStyle) {
-		this.console.print(text, textColor, fontStyle);
+	public void println (final String text, final Color textColor) {
+		this.console.println(text, textColor);
+	}
+
+	/**
+	 * Returns the console of the view.
+	 * 
+	 * @return The console.
+	 */
+	public BufferedConsole getConsole () {
+		return this.console;
 	}
 
 	/**
-	 * Notifies an incoming message. This method blinks the activity LED during
-	 * a brief moment to indicates that a message has been received.
+	 * Notifies an incoming message. The activity LED is lit during a brief
+	 * moment to indicate that messages have been received, and shows the
+	 * message rate. This method can be called from any thread.
 	 */
-	public synchronized void incomingMessage () {
-		// Blinks the LED
-		new Thread(new Runnable() {
-
-			@Override
-			public void run () {
-				try {
-					getLblActivityLed().setIcon(ApplicationModel.LED_GREEN);
-					Thread.sleep(100);
-					getLblActivityLed().setIcon(ApplicationModel.LED_GRAY);
-				} catch (InterruptedException e) {
-					logger.error(e);
-				}
-			}
-		}).start();
+	public void incomingMessage () {
+		this.lblActivityLed.hit();
 	}
 
 	@Override
 	protected void createComponents () {
 		this.topPanel = createTopPanel();
-		this.console = new Console();
+		this.metricsPanel = new MetricsPanel(this.metrics);
+		this.console = new BufferedConsole(this.props.getInt("console.history.maxLines"),
+				this.props.getInt("console.pending.maxLines"), this.props.getInt("console.refresh.period"));
 
 		updateGui(this.model);
 	}
@@ -166,6 +191,7 @@ public class ServerView extends AbstractView implements ActionListener {
 	protected void setStyle () {
 		setLayout(new MigLayout(""));
 		add(this.topPanel, "growx, pushx, span, grow");
+		add(this.metricsPanel, "span, growx");
 		add(this.console, "span, grow, pushy, w 500lp:600lp, h 200lp:300lp");
 	}
 
@@ -175,13 +201,18 @@ public class ServerView extends AbstractView implements ActionListener {
 		this.btnConnect.setActionCommand("connectServer");
 		this.btnDisconnect.setActionCommand("disconnectServer");
 		this.btnShowPluginView.setActionCommand("showPluginView");
+		this.btnStartCapture.setActionCommand("startCapture");
+		this.btnStopCapture.setActionCommand("stopCapture");
 		this.cbPlugin.setActionCommand("selectPlugin");
 		this.btnConnect.addActionListener(cmdListener);
 		this.btnDisconnect.addActionListener(cmdListener);
 		this.btnShowPluginView.addActionListener(cmdListener);
+		this.btnStartCapture.addActionListener(cmdListener);
+		this.btnStopCapture.addActionListener(cmdListener);
 		this.cbPlugin.addActionListener(cmdListener);
 
 		this.cbServerType.addActionListener(this);
+		this.cbFraming.addActionListener(this);
 		this.cbPlugin.addActionListener(this);
 	}
 
@@ -193,13 +224,17 @@ public class ServerView extends AbstractView implements ActionListener {
 	 */
 	private void updateGui (final ServerModel model) {
 		// Address Field visible only in multicast
-		if (model.getServerType().equals(Protocol.UDP_MULTICAST)) {
-			this.lblServerAddress.setVisible(true);
-			this.tfServerAddress.setVisible(true);
-		} else {
-			this.lblServerAddress.setVisible(false);
-			this.tfServerAddress.setVisible(false);
-		}
+		boolean multicast = model.getServerType().equals(Protocol.UDP_MULTICAST)
+				|| model.getServerType().equals(Protocol.UDP_MULTICAST_NIO);
+		this.lblServerAddress.setVisible(multicast);
+		this.tfServerAddress.setVisible(multicast);
+		// Groups and interfaces lists only with the NIO multicast server
+		boolean groups = model.getServerType().equals(Protocol.UDP_MULTICAST_NIO);
+		this.lblServerAddress.setText(this.props
+				.getString(groups ? "serverView.label.multicastGroups" : "serverView.label.serverAddress"));
+		this.tfServerAddress.setToolTipText(groups ? this.props.getString("serverView.tooltip.multicastGroups") : null);
+		this.lblInterfaces.setVisible(groups);
+		this.tfInterfaces.setVisible(groups);
 	}
 
 	/**
@@ -210,48 +245,58 @@ public class ServerView extends AbstractView implements ActionListener {
 	private JPanel createTopPanel () {
 		PluginManager.getInstance();
 		// Retrieves the plugins
-		File[] plugins = PluginManager.listPlugins();
-		String[] pluginsNames = new String[plugins.length];
-		for (int i = 0; i < pluginsNames.length; i++) {
-			pluginsNames[i] = plugins[i].getName();
-		}
+		String[] pluginsNames = PluginManager.listPluginNames();
 		int defPort = this.props.getInt("serverView.port.default");
 
 		// Creates the graphical components
 		JLabel lblIsConnected = new JLabel(this.props.getString("serverView.label.isConnected"));
 		JLabel lblActivity = new JLabel(this.props.getString("serverView.label.activity"));
 		JLabel lblServerType = new JLabel(this.props.getString("serverView.label.serverType"));
+		JLabel lblFraming = new JLabel(this.props.getString("serverView.label.framing"));
 		JLabel lblPlugin = new JLabel(this.props.getString("serverView.label.plugin"));
 		this.lblServerAddress = new JLabel(this.props.getString("serverView.label.serverAddress"));
+		this.lblInterfaces = new JLabel(this.props.getString("serverView.label.multicastInterfaces"));
 		JLabel lblServerPort = new JLabel(this.props.getString("serverView.label.serverPort"));
 		this.lblIsConnectedLed = new JLabel(ApplicationModel.LED_GRAY);
-		this.lblActivityLed = new JLabel(ApplicationModel.LED_GRAY);
+		this.lblActivityLed = new ActivityLed();
 		this.cbServerType = new JComboBox<>(Protocol.values());
+		this.cbFraming = new JComboBox<>(Framing.values());
 		this.cbPlugin = new JComboBox<>(pluginsNames);
 		this.tfServerAddress = new JTextField(this.props.getString("serverView.address.multicast.default"));
 		this.tfServerAddress.setHorizontalAlignment(JTextField.CENTER);
+		this.tfInterfaces = new JTextField();
+		this.tfInterfaces.setToolTipText(this.props.getString("serverView.tooltip.multicastInterfaces"));
 		this.spServerPort = new IncrementalSpinner(new IncrementalSpinnerModel(defPort, 0, 99999, 1));
 		this.btnConnect = new JButton(this.props.getString("serverView.button.connect.label"));
 		this.btnDisconnect = new JButton(this.props.getString("serverView.button.disconnect.label"));
 		this.btnShowPluginView = new JButton(this.props.getString("serverView.button.showPluginView.label"));
+		this.btnStartCapture = new JButton(this.props.getString("serverView.button.startCapture.label"));
+		this.btnStopCapture = new JButton(this.props.getString("serverView.button.stopCapture.label"));
+		this.btnStopCapture.setEnabled(false);
 
 		// Creates the panel
 		JPanel panel = new JPanel(new MigLayout("", "", "[]15lp[]"));
-		panel.add(lblServerType, "split 8, span, left");
+		panel.add(lblServerType, "split 12, span, left");
 		panel.add(this.cbServerType, "");
+		panel.add(lblFraming, "gap left 25lp");
+		panel.add(this.cbFraming, "");
 		panel.add(lblPlugin, "gap left 25lp");
 		panel.add(this.cbPlugin, "");
 		panel.add(this.lblServerAddress, "gap left 25lp, hidemode 2");
 		panel.add(this.tfServerAddress, "width 130lp, hidemode 2");
+		panel.add(this.lblInterfaces, "gap left 25lp, hidemode 2");
+		panel.add(this.tfInterfaces, "width 80lp, hidemode 2");
 		panel.add(lblServerPort, "gap left 25lp");
 		panel.add(this.spServerPort, "width 75lp, wrap");
-		panel.add(lblIsConnected, "split 7, span, left");
+		panel.add(lblIsConnected, "split 9, span, left");
 		panel.add(this.lblIsConnectedLed, "");
 		panel.add(lblActivity, "");
 		panel.add(this.lblActivityLed, "");
 		panel.add(this.btnConnect, "");
 		panel.add(this.btnDisconnect, "");
 		panel.add(this.btnShowPluginView, "");
+		panel.add(this.btnStartCapture, "gap left 25lp");
+		panel.add(this.btnStopCapture, "");
 		return panel;
 	}
 
@@ -268,6 +313,11 @@ public class ServerView extends AbstractView implements ActionListener {
 				this.model.setServerType((Protocol) box.getSelectedItem());
 				updateGui(this.model);
 			}
+
+			// Framing
+			if (this.cbFraming.equals(box)) {
+				this.model.setFraming((Framing) box.getSelectedItem());
+			}
 		}
 	}
 
@@ -276,10 +326,28 @@ public class ServerView extends AbstractView implements ActionListener {
 	 * 
 	 * @return The LED.
 	 */
-	protected JLabel getLblActivityLed () {
+	protected ActivityLed getLblActivityLed () {
 		return this.lblActivityLed;
 	}
 
+	/**
+	 * Updates the list of the plugins from the plugins directory, keeping the
+	 * selected plugin even if its jar has been removed : the tab still uses
+	 * it.
+	 */
+	public void updatePlugins () {
+		Object selected = this.cbPlugin.getSelectedItem();
+		DefaultComboBoxModel<String> plugins = new DefaultComboBoxModel<>(PluginManager.listPluginNames());
+		if (selected != null) {
+			if (plugins.getIndexOf(selected) < 0) {
+				plugins.insertElementAt(selected.toString(), 0);
+			}
+			plugins.setSelectedItem(selected);
+		}
+		// Replacing the model does not notify the selection of a plugin
+		this.cbPlugin.setModel(plugins);
+	}
+
 	/**
 	 * Returns the selected plugin.
 	 * 
@@ -298,6 +366,16 @@ public class ServerView extends AbstractView implements ActionListener {
 		return this.tfServerAddress.getText();
 	}
 
+	/**
+	 * Returns the network interfaces joining the multicast groups.
+	 * 
+	 * @return Names of the interfaces separated by commas, empty for all the
+	 *         interfaces supporting multicast.
+	 */
+	public String getMulticastInterfaces () {
+		return this.tfInterfaces.getText();
+	}
+
 	/**
 	 * Returns the server's port.
 	 * 
@@ -0,0 +1,409 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.headless;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.jacsman.gui.client.ClientModel;
+import org.jls.jacsman.latency.CorrelationIdExtractor;
+import org.jls.jacsman.latency.LatencyTracker;
+import org.jls.jacsman.load.LoadGenerator;
+import org.jls.jacsman.load.LoadProfile;
+import org.jls.jacsman.load.LoadStats;
+import org.jls.jacsman.load.PayloadSource;
+import org.jls.jacsman.load.RateProfile;
+import org.jls.jacsman.load.TemplatePayload;
+import org.jls.jacsman.net.ClientEngine;
+import org.jls.jacsman.net.DatagramStats;
+import org.jls.jacsman.net.SendResult;
+import org.jls.jacsman.net.TlsStats;
+import org.jls.jacsman.pipeline.FramingException;
+import org.jls.jacsman.pipeline.FramingStage;
+import org.jls.jacsman.pipeline.ReceiveDispatcher;
+import org.jls.jacsman.plugin.Plugin;
+import org.jls.jacsman.plugin.buffer.BufferPluginEvent;
+import org.jls.jacsman.plugin.buffer.CorrelationPlugin;
+import org.jls.jacsman.plugin.buffer.PayloadPlugin;
+import org.jls.jacsman.shaping.ShapedClientEngine;
+import org.jls.jacsman.util.Protocol;
+import org.jls.jacsman.util.ResourceManager;
+import org.jls.jacsman.util.SessionFactory;
+import org.jls.toolbox.net.Interface;
+
+/**
+ * Client run without graphical interface, counterpart of the client tab. The
+ * client either connects to the server and passes the received messages to
+ * its plugin, or runs a load generator against the server if a load is
+ * configured.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class HeadlessClient extends HeadlessSession {
+
+	private final ClientModel model;
+	private final String address;
+	private final int port;
+
+	private LoadProfile loadProfile;
+	private int loadRate;
+	private int loadConnections;
+	private int loadDuration;
+
+	/**
+	 * Instanciates the client.
+	 * 
+	 * @param name
+	 *            Name of the client in the configuration.
+	 * @param model
+	 *            Data model, giving the protocol and framing of the client.
+	 * @param address
+	 *            Address of the server.
+	 * @param port
+	 *            Port of the server.
+	 */
+	public HeadlessClient (final String name, final ClientModel model, final String address, final int port) {
+		super("Client", name);
+		this.model = model;
+		this.address = address;
+		this.port = port;
+		this.loadProfile = null;
+		this.loadRate = 0;
+		this.loadConnections = 0;
+		this.loadDuration = 0;
+	}
+
+	/**
+	 * Runs a load generator instead of connecting the client.
+	 * 
+	 * @param profile
+	 *            Shape of the message rate.
+	 * @param rate
+	 *            Target rate in messages per second.
+	 * @param connections
+	 *            Number of connections opened by the load generator.
+	 * @param duration
+	 *            Duration of the load in seconds, 0 to send until stopped.
+	 */
+	public void setLoad (final LoadProfile profile, final int rate, final int connections, final int duration) {
+		this.loadProfile = profile;
+		this.loadRate = rate;
+		this.loadConnections = connections;
+		this.loadDuration = duration;
+	}
+
+	@Override
+	public synchronized void start () throws IOException {
+		if (this.loadProfile != null) {
+			startLoad();
+		} else {
+			startClient();
+		}
+	}
+
+	@Override
+	public synchronized void stop () throws IOException {
+		LoadGenerator generator = this.model.getLoadGenerator();
+		if (generator != null) {
+			generator.stop();
+			this.model.setLoadGenerator(null);
+			this.logger.info("Load of {} finished : {}", getName(), generator.getStats().format(null));
+		}
+		ClientEngine client = this.model.getClient();
+		if (client != null) {
+			this.logger.info("Stopping client {}", getName());
+			try {
+				client.stop();
+			} finally {
+				// Stages shut down first, the frames still being decoded are discarded
+				this.model.getFramingStage().shutdown();
+				this.model.setFramingStage(null);
+				this.model.getDispatcher().shutdown();
+				this.model.setDispatcher(null);
+				this.model.setClient(null);
+				LatencyTracker<Interface> tracker = this.model.getLatencyTracker();
+				this.model.setLatencyTracker(null);
+				logLatency(tracker);
+				this.trafficLog.stop();
+				if (this.shaper.isLimited()) {
+					this.logger.info("Traffic shaping of {} : {}", getName(), this.shaper.formatStats());
+				}
+			}
+			this.logger.info("{} now disconnected", getName());
+		}
+	}
+
+	/**
+	 * Returns the statistics of the load generator.
+	 * 
+	 * @return The statistics, <code>null</code> if no load is running.
+	 */
+	public LoadStats getLoadStats () {
+		LoadGenerator generator = this.model.getLoadGenerator();
+		return generator != null ? generator.getStats() : null;
+	}
+
+	/**
+	 * Tells whether the session has finished : its load has been sent. A
+	 * connected client never finishes by itself.
+	 * 
+	 * @return <code>true</code> if the load generator has stopped sending.
+	 */
+	public boolean isFinished () {
+		LoadGenerator generator = this.model.getLoadGenerator();
+		return generator != null && !generator.isRunning();
+	}
+
+	@Override
+	public void onReceive (Interface com, PooledBuffer msg) {
+		int size = msg.size();
+		if (size > 0) {
+			this.metrics.onReceive(size);
+			this.trafficLog.onReceive(com, size);
+			FramingStage<Interface> framingStage = this.model.getFramingStage();
+			try {
+				if (framingStage != null) {
+					// Each connection of a pool is a stream of its own
+					framingStage.decode(com, msg);
+				} else {
+					// Received while the client stops
+					msg.release();
+				}
+			} catch (FramingException e) {
+				onException(com, e);
+			}
+		} else {
+			msg.release();
+			this.logger.warn("Receiving empty message from {}", com.getId());
+		}
+	}
+
+	@Override
+	public void onConnect (Interface com) {
+		this.logger.debug("Connected to {}", com.getId());
+	}
+
+	@Override
+	public void onDisconnect (Interface com) {
+		// Forgets the connection, a connection of a pool reopened later starts a new stream
+		FramingStage<Interface> framingStage = this.model.getFramingStage();
+		if (framingStage != null) {
+			framingStage.remove(com);
+		}
+		ReceiveDispatcher<Interface, BufferPluginEvent> dispatcher = this.model.getDispatcher();
+		if (dispatcher != null) {
+			dispatcher.remove(com);
+		}
+		LatencyTracker<Interface> tracker = this.model.getLatencyTracker();
+		if (tracker != null) {
+			tracker.close(com);
+		}
+		this.logger.warn("Connection closed by {}", com.getId());
+	}
+
+	@Override
+	public int send (byte[] msg) throws IOException {
+		return send(ByteBuffer.wrap(msg));
+	}
+
+	@Override
+	public int send (ByteBuffer msg) throws IOException {
+		ClientEngine client = getClient();
+		int size = msg.remaining();
+		LatencyTracker<Interface> tracker = this.model.getLatencyTracker();
+		if (tracker != null) {
+			tracker.onSend(client.getInterface(), msg);
+		}
+		client.send(msg);
+		this.metrics.onSend(size);
+		return size;
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (ByteBuffer msg) {
+		ClientEngine client = this.model.getClient();
+		if (client == null) {
+			CompletableFuture<SendResult> future = new CompletableFuture<>();
+			future.completeExceptionally(new IllegalStateException("No client connected"));
+			return future;
+		}
+		LatencyTracker<Interface> tracker = this.model.getLatencyTracker();
+		if (tracker != null) {
+			tracker.onSend(client.getInterface(), msg);
+		}
+		return this.metrics.onSendAsync(client.sendAsync(msg), msg.remaining());
+	}
+
+	@Override
+	public Interface getInterface () {
+		return getClient().getInterface();
+	}
+
+	@Override
+	public boolean isRunning () {
+		ClientEngine client = this.model.getClient();
+		return client != null && client.isRunning();
+	}
+
+	@Override
+	protected int getConnections () {
+		return SessionFactory.getConnections(this.model.getClient());
+	}
+
+	@Override
+	public Plugin getPlugin () {
+		return this.model.getPlugin();
+	}
+
+	@Override
+	protected void setPlugin (final Plugin plugin) {
+		this.model.setPlugin(plugin);
+	}
+
+	/**
+	 * Connects the client to the server.
+	 * 
+	 * @throws IOException
+	 *             If the client cannot be started.
+	 */
+	private void startClient () throws IOException {
+		if (this.model.getClient() != null) {
+			throw new IllegalStateException("Client " + getName() + " already started");
+		}
+		Interface com = new Interface(getName(), this.address, this.port);
+		this.logger.info("Creating {} client {}", this.model.getClientType(), com.getId());
+		ClientEngine engine = SessionFactory.createClient(this.model.getClientType(), com);
+		this.model.setDispatcher(createDispatcher());
+		this.model.setFramingStage(createFramingStage(engine.getInterface(), this.model.getDispatcher()));
+		Plugin plugin = this.model.getPlugin();
+		this.model.setLatencyTracker(SessionFactory
+				.createLatencyTracker(plugin instanceof CorrelationPlugin ? (CorrelationIdExtractor) plugin : null));
+		ClientEngine client = new ShapedClientEngine(engine, this.shaper);
+		this.model.setClient(client);
+		client.setListener(this);
+		this.metrics.setDatagramStats(engine instanceof DatagramStats ? (DatagramStats) engine : null);
+		this.metrics.setTlsStats(engine instanceof TlsStats ? (TlsStats) engine : null);
+		this.metrics.setDispatcher(this.model.getDispatcher());
+
+		this.logger.info("Starting client {} on {}:{}", com.getId(), com.getAddress(), com.getPort());
+		client.start();
+		if (!client.isRunning()) {
+			stop();
+			throw new IOException("An error occurred starting " + com.getId());
+		}
+		this.trafficLog.start(com.getId());
+		this.logger.info("{} now connected to {}:{}", com.getId(), com.getAddress(), com.getPort());
+	}
+
+	/**
+	 * Opens the connections of the load generator and starts sending. The
+	 * messages are provided by the plugin if it implements
+	 * {@link PayloadPlugin}, otherwise they are built from the template of the
+	 * load properties.
+	 * 
+	 * @throws IOException
+	 *             If no connection could be opened.
+	 */
+	private void startLoad () throws IOException {
+		if (this.model.getLoadGenerator() != null) {
+			throw new IllegalStateException("Load generator of " + getName() + " already running");
+		}
+		ResourceManager props = ResourceManager.getInstance();
+		final Protocol clientType = this.model.getClientType();
+		RateProfile profile = SessionFactory.createRateProfile(this.loadProfile, this.loadRate);
+		Plugin plugin = this.model.getPlugin();
+		PayloadSource payload = plugin instanceof PayloadPlugin ? (PayloadPlugin) plugin
+				: new TemplatePayload(props.getString("load.template"));
+
+		LoadGenerator generator = new LoadGenerator(getName(), new LoadGenerator.ConnectionFactory() {
+
+			@Override
+			public ClientEngine create (int index) throws IOException {
+				return SessionFactory.createClient(clientType, new Interface(getName() + "#" + index, address, port));
+			}
+		}, this.loadConnections, profile, payload, TimeUnit.SECONDS.toNanos(this.loadDuration),
+				props.getInt("load.maxInFlight"));
+		this.logger.info("Starting load of {} on {}:{}, {} connection(s), {}", getName(), this.address, this.port,
+				this.loadConnections, profile);
+		generator.start();
+		this.model.setLoadGenerator(generator);
+	}
+
+	/**
+	 * Returns the running network client.
+	 * 
+	 * @return The network client.
+	 */
+	private ClientEngine getClient () {
+		ClientEngine client = this.model.getClient();
+		if (client == null) {
+			throw new IllegalStateException("No client connected");
+		}
+		return client;
+	}
+
+	/**
+	 * Creates the stage splitting the received bytes into frames, passed to
+	 * the receive dispatcher.
+	 * 
+	 * @param com
+	 *            Interface of the client, under which the replies are
+	 *            tracked.
+	 * @param dispatcher
+	 *            Dispatcher of the frames to the plugin.
+	 * @return The new framing stage.
+	 */
+	private FramingStage<Interface> createFramingStage (final Interface com,
+			final ReceiveDispatcher<Interface, BufferPluginEvent> dispatcher) {
+		return SessionFactory.createFramingStage(this.model.getFraming(), new FramingStage.Listener<Interface>() {
+
+			@Override
+			public void onFrame (Interface key, PooledBuffer frame) {
+				getMetrics().onMessage();
+				LatencyTracker<Interface> tracker = getModel().getLatencyTracker();
+				if (tracker != null) {
+					// The replies to a pool come from its connections, the requests are tracked as the client's
+					tracker.onReceive(com, frame.buffer());
+				}
+				// Notifies plugin, the buffer is released once handled
+				BufferPluginEvent pluginEvent = BufferPluginEvent.obtain(HeadlessClient.this, key, frame);
+				dispatcher.dispatch(key, pluginEvent);
+			}
+		});
+	}
+
+	/**
+	 * Return the data model.
+	 * 
+	 * @return The data model.
+	 */
+	protected ClientModel getModel () {
+		return this.model;
+	}
+}
@@ -0,0 +1,484 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.headless;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jls.jacsman.gui.client.ClientModel;
+import org.jls.jacsman.gui.server.ServerModel;
+import org.jls.jacsman.load.LoadProfile;
+import org.jls.jacsman.load.LoadStats;
+import org.jls.jacsman.util.Framing;
+import org.jls.jacsman.util.PluginManager;
+import org.jls.jacsman.util.PluginWatcher;
+import org.jls.jacsman.util.Protocol;
+import org.jls.jacsman.util.ResourceManager;
+
+/**
+ * Runs servers and clients without graphical interface, for the machines
+ * without display. No AWT or Swing class is loaded by the runtime itself.
+ * <p>
+ * The servers and clients are described by a properties file given with
+ * {@value #CONFIG_OPTION} and by <code>key=value</code> arguments, which
+ * override the file :
+ * </p>
+ * 
+ * <pre>
+ * servers=echo
+ * server.echo.type=TCP_NIO
+ * server.echo.port=5000
+ * server.echo.plugin=RawText.jar
+ * clients=load
+ * client.load.type=TCP
+ * client.load.address=127.0.0.1
+ * client.load.port=5000
+ * client.load.load=CONSTANT
+ * client.load.load.rate=10000
+ * client.load.load.connections=10
+ * client.load.load.duration=60
+ * </pre>
+ * <p>
+ * Each server and client also accepts <code>address</code> and
+ * <code>framing</code>. The address of a <code>UDP_MULTICAST_NIO</code> server
+ * is its list of groups, joined on its <code>interfaces</code>. A client with a <code>load</code> profile runs a load
+ * generator instead of connecting. The runtime runs until the JVM is stopped,
+ * or until all the loads are sent if it only runs load generators.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class HeadlessRuntime {
+
+	public static final String HEADLESS_OPTION = "--headless";
+	public static final String CONFIG_OPTION = "--config";
+
+	private final Logger logger;
+	private final Properties config;
+	private final List<HeadlessSession> sessions;
+	private final CountDownLatch terminated;
+	private ScheduledExecutorService statsExecutor;
+	private PluginWatcher.Listener pluginListener;
+
+	/**
+	 * Instanciates the runtime.
+	 * 
+	 * @param config
+	 *            Description of the servers and clients.
+	 */
+	public HeadlessRuntime (final Properties config) {
+		this.logger = LogManager.getLogger();
+		this.config = config;
+		this.sessions = new ArrayList<>();
+		this.terminated = new CountDownLatch(1);
+		this.statsExecutor = null;
+	}
+
+	/**
+	 * Tells whether the application has to run without graphical interface.
+	 * 
+	 * @param args
+	 *            Arguments of the application.
+	 * @return <code>true</code> if the arguments contain
+	 *         {@value #HEADLESS_OPTION}.
+	 */
+	public static boolean isHeadless (final String[] args) {
+		for (String arg : args) {
+			if (HEADLESS_OPTION.equals(arg)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Runs the servers and clients described by the arguments of the
+	 * application, until the JVM is stopped or the loads are sent.
+	 * 
+	 * @param args
+	 *            Arguments of the application.
+	 */
+	public static void launch (final String[] args) {
+		// Plugins touching AWT must not look for a display
+		System.setProperty("java.awt.headless", "true");
+		final Logger logger = LogManager.getLogger();
+		final HeadlessRuntime runtime;
+		try {
+			runtime = new HeadlessRuntime(parseArguments(args));
+			runtime.start();
+		} catch (Exception e) {
+			logger.fatal("An error occurred starting the headless runtime", e);
+			Runtime.getRuntime().exit(1);
+			return;
+		}
+
+		Thread hook = new Thread(new Runnable() {
+
+			@Override
+			public void run () {
+				runtime.stop();
+			}
+		}, "HeadlessRuntime-Shutdown");
+		Runtime.getRuntime().addShutdownHook(hook);
+		try {
+			runtime.awaitTermination();
+			// Stopped by itself, the JVM is not shutting down yet
+			Runtime.getRuntime().removeShutdownHook(hook);
+		} catch (@SuppressWarnings("unused") IllegalStateException e) {
+			// Stopped by the shutdown hook
+			return;
+		} catch (InterruptedException e) {
+			logger.error("Interrupted while waiting for the headless runtime", e);
+			runtime.stop();
+		}
+		logger.info("Exiting application");
+		Runtime.getRuntime().exit(0);
+	}
+
+	/**
+	 * Reads the description of the servers and clients from the arguments of
+	 * the application : the file following {@value #CONFIG_OPTION}, then the
+	 * <code>key=value</code> arguments.
+	 * 
+	 * @param args
+	 *            Arguments of the application.
+	 * @return The description of the servers and clients.
+	 * @throws IOException
+	 *             If the configuration file cannot be read.
+	 */
+	public static Properties parseArguments (final String[] args) throws IOException {
+		Properties config = new Properties();
+		Properties overrides = new Properties();
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if (HEADLESS_OPTION.equals(arg)) {
+				continue;
+			}
+			if (CONFIG_OPTION.equals(arg)) {
+				if (++i == args.length) {
+					throw new IllegalArgumentException("Missing configuration file after " + CONFIG_OPTION);
+				}
+				try (InputStream in = new FileInputStream(new File(args[i]))) {
+					config.load(in);
+				}
+			} else {
+				int separator = arg.indexOf('=');
+				if (separator <= 0) {
+					throw new IllegalArgumentException("Invalid argument, key=value expected : " + arg);
+				}
+				overrides.setProperty(arg.substring(0, separator).trim(), arg.substring(separator + 1).trim());
+			}
+		}
+		config.putAll(overrides);
+		return config;
+	}
+
+	/**
+	 * Creates and starts the servers, then the clients. If a session cannot be
+	 * started, the sessions already started are stopped.
+	 * 
+	 * @throws Exception
+	 *             If the configuration is invalid, a plugin cannot be loaded
+	 *             or a session cannot be started.
+	 */
+	public synchronized void start () throws Exception {
+		if (!this.sessions.isEmpty()) {
+			throw new IllegalStateException("Headless runtime already started");
+		}
+		createSessions();
+		try {
+			for (HeadlessSession session : this.sessions) {
+				session.registerMetrics();
+				session.start();
+			}
+		} catch (Exception e) {
+			stop();
+			throw e;
+		}
+
+		this.statsExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+			@Override
+			public Thread newThread (Runnable r) {
+				Thread t = new Thread(r, "HeadlessRuntime-Stats");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		long period = ResourceManager.getInstance().getInt("headless.stats.period");
+		this.statsExecutor.scheduleAtFixedRate(new Runnable() {
+
+			@Override
+			public void run () {
+				checkSessions();
+			}
+		}, period, period, TimeUnit.MILLISECONDS);
+		watchPlugins();
+		this.logger.info("Headless runtime started, {} session(s)", this.sessions.size());
+	}
+
+	/**
+	 * Reloads the plugins of the sessions when their jar is modified, if
+	 * enabled. A failure to watch the plugins directory is only logged.
+	 */
+	private void watchPlugins () {
+		if (!ResourceManager.getInstance().getBoolean("plugins.watch.enabled")) {
+			return;
+		}
+		final List<HeadlessSession> sessions = new ArrayList<>(this.sessions);
+		this.pluginListener = new PluginWatcher.Listener() {
+
+			@Override
+			public void onPluginAdded (String jarName) {
+				// No session uses it yet
+			}
+
+			@Override
+			public void onPluginChanged (String jarName) {
+				for (HeadlessSession session : sessions) {
+					session.reloadPlugin(jarName);
+				}
+			}
+
+			@Override
+			public void onPluginRemoved (String jarName) {
+				// The sessions keep their loaded version
+			}
+		};
+		PluginWatcher watcher = PluginManager.getInstance().getWatcher();
+		watcher.addListener(this.pluginListener);
+		try {
+			watcher.start();
+		} catch (IOException e) {
+			this.logger.warn("Cannot watch the plugins directory, plugins will not be reloaded", e);
+		}
+	}
+
+	/**
+	 * Stops the clients, then the servers. Does nothing if the runtime is
+	 * already stopped.
+	 */
+	public synchronized void stop () {
+		if (this.statsExecutor != null) {
+			this.statsExecutor.shutdown();
+			this.statsExecutor = null;
+		}
+		if (this.pluginListener != null) {
+			PluginWatcher watcher = PluginManager.getInstance().getWatcher();
+			watcher.removeListener(this.pluginListener);
+			watcher.stop();
+			this.pluginListener = null;
+		}
+		for (int i = this.sessions.size() - 1; i >= 0; i--) {
+			HeadlessSession session = this.sessions.get(i);
+			try {
+				session.stop();
+			} catch (Exception e) {
+				this.logger.error("An error occurred stopping {}", session.getName(), e);
+			}
+			session.unregisterMetrics();
+		}
+		if (this.terminated.getCount() > 0) {
+			this.logger.info("Headless runtime stopped");
+			this.terminated.countDown();
+		}
+	}
+
+	/**
+	 * Waits until the runtime is stopped.
+	 * 
+	 * @throws InterruptedException
+	 *             If the current thread is interrupted while waiting.
+	 */
+	public void awaitTermination () throws InterruptedException {
+		this.terminated.await();
+	}
+
+	/**
+	 * Returns the servers and clients of the runtime, servers first.
+	 * 
+	 * @return The sessions.
+	 */
+	public synchronized List<HeadlessSession> getSessions () {
+		return Collections.unmodifiableList(new ArrayList<>(this.sessions));
+	}
+
+	/**
+	 * Logs the statistics of the load generators, and stops the runtime once
+	 * all of them are finished if it runs nothing else.
+	 */
+	private void checkSessions () {
+		boolean finished = true;
+		for (HeadlessSession session : getSessions()) {
+			if (session instanceof HeadlessClient) {
+				HeadlessClient client = (HeadlessClient) session;
+				LoadStats stats = client.getLoadStats();
+				if (stats != null) {
+					this.logger.info("Load of {} : {}", client.getName(), stats.format(null));
+				}
+				finished &= client.isFinished();
+			} else {
+				finished = false;
+			}
+		}
+		if (finished) {
+			this.logger.info("All the loads are sent");
+			stop();
+		}
+	}
+
+	/**
+	 * Creates the servers and clients described by the configuration and
+	 * loads their plugins.
+	 * 
+	 * @throws Exception
+	 *             If the configuration is invalid or a plugin cannot be
+	 *             loaded.
+	 */
+	private void createSessions () throws Exception {
+		ResourceManager props = ResourceManager.getInstance();
+		for (String name : getNames("servers")) {
+			String prefix = "server." + name + ".";
+			ServerModel model = new ServerModel();
+			model.setServerType(Protocol.valueOf(getString(prefix + "type", null)));
+			model.setServerAddress(getString(prefix + "address", props.getString("headless.server.address")));
+			model.setMulticastInterfaces(
+					getString(prefix + "interfaces", props.getString("network.multicast.interfaces")));
+			model.setFraming(Framing.valueOf(getString(prefix + "framing", Framing.NONE.name())));
+			HeadlessServer server = new HeadlessServer(name, model, getInt(prefix + "port", null));
+			loadPlugin(server, prefix);
+			this.sessions.add(server);
+		}
+		for (String name : getNames("clients")) {
+			String prefix = "client." + name + ".";
+			ClientModel model = new ClientModel();
+			model.setClientType(Protocol.valueOf(getString(prefix + "type", null)));
+			model.setFraming(Framing.valueOf(getString(prefix + "framing", Framing.NONE.name())));
+			HeadlessClient client = new HeadlessClient(name, model,
+					getString(prefix + "address", props.getString("headless.client.address")),
+					getInt(prefix + "port", null));
+			String load = getString(prefix + "load", "");
+			if (!load.isEmpty()) {
+				client.setLoad(LoadProfile.valueOf(load),
+						getInt(prefix + "load.rate", props.getString("load.rate.default")),
+						getInt(prefix + "load.connections", props.getString("load.connections.default")),
+						getInt(prefix + "load.duration", props.getString("load.duration")));
+			}
+			loadPlugin(client, prefix);
+			this.sessions.add(client);
+		}
+		if (this.sessions.isEmpty()) {
+			throw new IllegalArgumentException("Nothing to run : no servers nor clients configured");
+		}
+	}
+
+	/**
+	 * Loads the plugin of a session, if one is configured.
+	 * 
+	 * @param session
+	 *            The session.
+	 * @param prefix
+	 *            Prefix of the keys of the session.
+	 * @throws Exception
+	 *             If the plugin cannot be loaded.
+	 */
+	private void loadPlugin (final HeadlessSession session, final String prefix) throws Exception {
+		String plugin = getString(prefix + "plugin", "");
+		if (!plugin.isEmpty()) {
+			session.loadPlugin(plugin);
+		}
+	}
+
+	/**
+	 * Returns the names of a comma separated list of the configuration.
+	 * 
+	 * @param key
+	 *            The configuration key.
+	 * @return The names, empty if the key is not set.
+	 */
+	private List<String> getNames (final String key) {
+		List<String> names = new ArrayList<>();
+		for (String name : getString(key, "").split(",")) {
+			if (!name.trim().isEmpty()) {
+				names.add(name.trim());
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Returns a string of the configuration.
+	 * 
+	 * @param key
+	 *            The configuration key.
+	 * @param defaultValue
+	 *            Value if the key is not set, <code>null</code> if the key is
+	 *            mandatory.
+	 * @return The associated string.
+	 */
+	private String getString (final String key, final String defaultValue) {
+		String value = this.config.getProperty(key);
+		if (value != null) {
+			return value.trim();
+		}
+		if (defaultValue == null) {
+			throw new IllegalArgumentException("Missing headless option : " + key);
+		}
+		return defaultValue;
+	}
+
+	/**
+	 * Returns an integer of the configuration.
+	 * 
+	 * @param key
+	 *            The configuration key.
+	 * @param defaultValue
+	 *            Value if the key is not set, <code>null</code> if the key is
+	 *            mandatory.
+	 * @return The associated value.
+	 */
+	private int getInt (final String key, final String defaultValue) {
+		String str = getString(key, defaultValue);
+		try {
+			return Integer.parseInt(str);
+		} catch (@SuppressWarnings("unused") NumberFormatException e) {
+			throw new NumberFormatException("Cannot parse value of " + key + " to integer : " + str);
+		}
+	}
+}
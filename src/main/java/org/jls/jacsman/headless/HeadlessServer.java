@@ -0,0 +1,390 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.headless;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.jacsman.gui.server.ServerModel;
+import org.jls.jacsman.latency.CorrelationIdExtractor;
+import org.jls.jacsman.latency.LatencyTracker;
+import org.jls.jacsman.net.DatagramStats;
+import org.jls.jacsman.net.NoClientException;
+import org.jls.jacsman.net.SendResult;
+import org.jls.jacsman.net.ServerEngine;
+import org.jls.jacsman.net.TlsStats;
+import org.jls.jacsman.pipeline.FramingException;
+import org.jls.jacsman.pipeline.FramingStage;
+import org.jls.jacsman.pipeline.ReceiveDispatcher;
+import org.jls.jacsman.plugin.Plugin;
+import org.jls.jacsman.plugin.PluginEvent;
+import org.jls.jacsman.plugin.buffer.BufferPluginEvent;
+import org.jls.jacsman.plugin.buffer.CorrelationPlugin;
+import org.jls.jacsman.plugin.buffer.ServerPluginInterface;
+import org.jls.jacsman.shaping.ShapedServerEngine;
+import org.jls.jacsman.util.Protocol;
+import org.jls.jacsman.util.SessionFactory;
+import org.jls.toolbox.net.Interface;
+
+/**
+ * Server run without graphical interface, counterpart of the server tab.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class HeadlessServer extends HeadlessSession implements ServerPluginInterface {
+
+	private final ServerModel model;
+	private final int port;
+
+	/**
+	 * Instanciates the server.
+	 * 
+	 * @param name
+	 *            Name of the server in the configuration.
+	 * @param model
+	 *            Data model, giving the protocol, address and framing of the
+	 *            server.
+	 * @param port
+	 *            Listening port.
+	 */
+	public HeadlessServer (final String name, final ServerModel model, final int port) {
+		super("Server", name);
+		this.model = model;
+		this.port = port;
+	}
+
+	@Override
+	public synchronized void start () throws IOException {
+		if (this.model.getServer() != null) {
+			throw new IllegalStateException("Server " + getName() + " already started");
+		}
+		// The address of a NIO multicast server is its list of groups
+		boolean groups = this.model.getServerType() == Protocol.UDP_MULTICAST_NIO;
+		Interface com = new Interface(getName(), groups ? SessionFactory.ANY_ADDRESS : this.model.getServerAddress(),
+				this.port);
+		this.logger.info("Creating {} server {}", this.model.getServerType(), com.getId());
+		ServerEngine engine = groups ? SessionFactory.createMulticastServer(com, this.model.getServerAddress(),
+				this.model.getMulticastInterfaces()) : SessionFactory.createServer(this.model.getServerType(), com);
+		this.model.setDispatcher(createDispatcher());
+		this.model.setFramingStage(createFramingStage(engine.getInterface(), this.model.getDispatcher()));
+		this.model.setLatencyTracker(createLatencyTracker());
+		ServerEngine server = new ShapedServerEngine(engine, this.shaper);
+		this.model.setServer(server);
+		server.setListener(this);
+		this.metrics.setDatagramStats(engine instanceof DatagramStats ? (DatagramStats) engine : null);
+		this.metrics.setTlsStats(engine instanceof TlsStats ? (TlsStats) engine : null);
+		this.metrics.setDispatcher(this.model.getDispatcher());
+
+		this.logger.info("Starting server {} on {}:{}", com.getId(), com.getAddress(), com.getPort());
+		server.start();
+		if (!server.isRunning()) {
+			stop();
+			throw new IOException("An error occurred starting " + com.getId());
+		}
+		this.trafficLog.start(com.getId());
+		this.logger.info("{} now listening on port {}", com.getId(), com.getPort());
+	}
+
+	@Override
+	public synchronized void stop () throws IOException {
+		ServerEngine server = this.model.getServer();
+		if (server != null) {
+			this.logger.info("Stopping server {}", getName());
+			try {
+				server.stop();
+			} finally {
+				// Stages shut down first, the frames still being decoded are discarded
+				this.model.getFramingStage().shutdown();
+				this.model.setFramingStage(null);
+				this.model.getDispatcher().shutdown();
+				this.model.setDispatcher(null);
+				this.model.setServer(null);
+				LatencyTracker<Interface> tracker = this.model.getLatencyTracker();
+				this.model.setLatencyTracker(null);
+				logLatency(tracker);
+				this.trafficLog.stop();
+				if (this.shaper.isLimited()) {
+					this.logger.info("Traffic shaping of {} : {}", getName(), this.shaper.formatStats());
+				}
+			}
+			this.logger.info("{} now disconnected", getName());
+		}
+	}
+
+	@Override
+	public void onReceive (Interface com, PooledBuffer msg) {
+		int size = msg.size();
+		if (size > 0) {
+			this.metrics.onReceive(size);
+			this.trafficLog.onReceive(com, size);
+			FramingStage<Interface> framingStage = this.model.getFramingStage();
+			try {
+				if (framingStage != null) {
+					framingStage.decode(com, msg);
+				} else {
+					// Received while the server stops
+					msg.release();
+				}
+			} catch (FramingException e) {
+				onException(com, e);
+			}
+		} else {
+			msg.release();
+			this.logger.warn("Receiving empty message from {}", com.getId());
+		}
+	}
+
+	@Override
+	public void onConnect (Interface client) {
+		this.logger.debug("Client {} connected", client.getId());
+	}
+
+	@Override
+	public void onDisconnect (Interface client) {
+		this.logger.debug("Client {} disconnected", client.getId());
+		ReceiveDispatcher<Interface, BufferPluginEvent> dispatcher = this.model.getDispatcher();
+		if (dispatcher != null) {
+			dispatcher.remove(client);
+		}
+		FramingStage<Interface> framingStage = this.model.getFramingStage();
+		if (framingStage != null) {
+			framingStage.remove(client);
+		}
+		LatencyTracker<Interface> tracker = this.model.getLatencyTracker();
+		if (tracker != null) {
+			tracker.close(client);
+		}
+	}
+
+	@Override
+	public int send (byte[] msg) throws IOException {
+		return send(ByteBuffer.wrap(msg));
+	}
+
+	@Override
+	public int send (ByteBuffer msg) throws IOException {
+		ServerEngine server = getServer();
+		int size = msg.remaining();
+		trackBroadcast(server, msg);
+		try {
+			server.send(msg);
+			this.metrics.onSend(size);
+			return size;
+		} catch (NoClientException e) {
+			this.metrics.onError();
+			this.logger.warn("No client connected to server {}", getName());
+			notifyPlugin(server, e);
+			return -1;
+		}
+	}
+
+	@Override
+	public int send (Interface client, byte[] msg) throws IOException {
+		return send(client, ByteBuffer.wrap(msg));
+	}
+
+	@Override
+	public int send (Interface client, ByteBuffer msg) throws IOException {
+		ServerEngine server = getServer();
+		int size = msg.remaining();
+		LatencyTracker<Interface> tracker = this.model.getLatencyTracker();
+		if (tracker != null) {
+			tracker.onSend(client, msg);
+		}
+		try {
+			server.send(client, msg);
+			this.metrics.onSend(size);
+			return size;
+		} catch (NoClientException e) {
+			this.metrics.onError();
+			this.logger.warn("Client {} not connected to server {}", client.getId(), getName());
+			notifyPlugin(server, e);
+			return -1;
+		}
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (ByteBuffer msg) {
+		ServerEngine server = this.model.getServer();
+		if (server == null) {
+			CompletableFuture<SendResult> future = new CompletableFuture<>();
+			future.completeExceptionally(new IllegalStateException("No server connected"));
+			return future;
+		}
+		trackBroadcast(server, msg);
+		return this.metrics.onSendAsync(server.sendAsync(msg), msg.remaining());
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (Interface client, ByteBuffer msg) {
+		ServerEngine server = this.model.getServer();
+		if (server == null) {
+			CompletableFuture<SendResult> future = new CompletableFuture<>();
+			future.completeExceptionally(new IllegalStateException("No server connected"));
+			return future;
+		}
+		LatencyTracker<Interface> tracker = this.model.getLatencyTracker();
+		if (tracker != null) {
+			tracker.onSend(client, msg);
+		}
+		return this.metrics.onSendAsync(server.sendAsync(client, msg), msg.remaining());
+	}
+
+	@Override
+	public List<Interface> getClients () {
+		ServerEngine server = this.model.getServer();
+		if (server != null) {
+			return server.getClients();
+		}
+		return Collections.emptyList();
+	}
+
+	@Override
+	public Interface getInterface () {
+		return getServer().getInterface();
+	}
+
+	@Override
+	public boolean isRunning () {
+		ServerEngine server = this.model.getServer();
+		return server != null && server.isRunning();
+	}
+
+	@Override
+	protected int getConnections () {
+		return getClients().size();
+	}
+
+	@Override
+	public Plugin getPlugin () {
+		return this.model.getPlugin();
+	}
+
+	@Override
+	protected void setPlugin (final Plugin plugin) {
+		this.model.setPlugin(plugin);
+	}
+
+	/**
+	 * Returns the running network server.
+	 * 
+	 * @return The network server.
+	 */
+	private ServerEngine getServer () {
+		ServerEngine server = this.model.getServer();
+		if (server == null) {
+			throw new IllegalStateException("No server connected");
+		}
+		return server;
+	}
+
+	/**
+	 * Notifies the plugin that a message could not be sent.
+	 * 
+	 * @param server
+	 *            The network server.
+	 * @param e
+	 *            The error.
+	 */
+	private void notifyPlugin (final ServerEngine server, final NoClientException e) {
+		Plugin plugin = this.model.getPlugin();
+		if (plugin != null) {
+			plugin.onException(new PluginEvent(this, server.getInterface()), e);
+		}
+	}
+
+	/**
+	 * Timestamps a message sent to all the clients, as a request of each
+	 * client, if the latency is measured.
+	 * 
+	 * @param server
+	 *            The network server.
+	 * @param msg
+	 *            The message.
+	 */
+	private void trackBroadcast (final ServerEngine server, final ByteBuffer msg) {
+		LatencyTracker<Interface> tracker = this.model.getLatencyTracker();
+		if (tracker != null) {
+			for (Interface client : server.getClients()) {
+				tracker.onSend(client, msg);
+			}
+		}
+	}
+
+	/**
+	 * Creates the tracker measuring the latency of the replies, if enabled by
+	 * the network properties.
+	 * 
+	 * @return The new latency tracker, <code>null</code> if the latency is
+	 *         not measured.
+	 */
+	private LatencyTracker<Interface> createLatencyTracker () {
+		Plugin plugin = this.model.getPlugin();
+		return SessionFactory
+				.createLatencyTracker(plugin instanceof CorrelationPlugin ? (CorrelationIdExtractor) plugin : null);
+	}
+
+	/**
+	 * Creates the stage splitting the received bytes into frames, passed to
+	 * the receive dispatcher.
+	 * 
+	 * @param com
+	 *            Interface of the server, source of the plugin events.
+	 * @param dispatcher
+	 *            Dispatcher of the frames to the plugin.
+	 * @return The new framing stage.
+	 */
+	private FramingStage<Interface> createFramingStage (final Interface com,
+			final ReceiveDispatcher<Interface, BufferPluginEvent> dispatcher) {
+		return SessionFactory.createFramingStage(this.model.getFraming(), new FramingStage.Listener<Interface>() {
+
+			@Override
+			public void onFrame (Interface key, PooledBuffer frame) {
+				getMetrics().onMessage();
+				LatencyTracker<Interface> tracker = getModel().getLatencyTracker();
+				if (tracker != null) {
+					tracker.onReceive(key, frame.buffer());
+				}
+				// Notifies plugin, the buffer is released once handled
+				BufferPluginEvent pluginEvent = BufferPluginEvent.obtain(HeadlessServer.this, com, frame);
+				dispatcher.dispatch(key, pluginEvent);
+			}
+		});
+	}
+
+	/**
+	 * Return the data model.
+	 * 
+	 * @return The data model.
+	 */
+	protected ServerModel getModel () {
+		return this.model;
+	}
+}
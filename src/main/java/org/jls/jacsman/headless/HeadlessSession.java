@@ -0,0 +1,269 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.headless;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jls.jacsman.latency.LatencyTracker;
+import org.jls.jacsman.metrics.Gauge;
+import org.jls.jacsman.metrics.SessionMetrics;
+import org.jls.jacsman.metrics.TrafficLog;
+import org.jls.jacsman.net.EngineListener;
+import org.jls.jacsman.pipeline.ReceiveDispatcher;
+import org.jls.jacsman.plugin.Plugin;
+import org.jls.jacsman.plugin.PluginEvent;
+import org.jls.jacsman.plugin.buffer.BufferPlugin;
+import org.jls.jacsman.plugin.buffer.BufferPluginEvent;
+import org.jls.jacsman.plugin.buffer.BufferPluginInterface;
+import org.jls.jacsman.shaping.TrafficShaper;
+import org.jls.jacsman.util.PluginManager;
+import org.jls.jacsman.util.SessionFactory;
+import org.jls.toolbox.net.Interface;
+
+/**
+ * Server or client run by the {@link HeadlessRuntime}. Counterpart of the
+ * controller of a tab without view : the console is replaced by the logger.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public abstract class HeadlessSession implements EngineListener, BufferPluginInterface {
+
+	protected final Logger logger;
+	protected final SessionMetrics metrics;
+	protected final TrafficLog trafficLog;
+	protected final TrafficShaper shaper;
+	private final String type;
+	private final String name;
+	private volatile String pluginJar;
+
+	/**
+	 * Instanciates the session.
+	 * 
+	 * @param type
+	 *            Type of the session, <code>Server</code> or
+	 *            <code>Client</code>, naming its MBean.
+	 * @param name
+	 *            Name of the session in the configuration.
+	 */
+	protected HeadlessSession (final String type, final String name) {
+		this.logger = LogManager.getLogger();
+		this.type = type;
+		this.name = name;
+		this.metrics = SessionFactory.createMetrics(new Gauge() {
+
+			@Override
+			public long getValue () {
+				return getConnections();
+			}
+		});
+		this.trafficLog = SessionFactory.createTrafficLog(this.logger, Level.DEBUG);
+		this.shaper = SessionFactory.createTrafficShaper();
+		this.metrics.setTrafficShaper(this.shaper);
+	}
+
+	/**
+	 * Starts the session.
+	 * 
+	 * @throws IOException
+	 *             If an error occurred starting the network engine.
+	 */
+	public abstract void start () throws IOException;
+
+	/**
+	 * Stops the session. Does nothing if the session is not started.
+	 * 
+	 * @throws IOException
+	 *             If an error occurred stopping the network engine.
+	 */
+	public abstract void stop () throws IOException;
+
+	/**
+	 * Returns the number of connections of the session.
+	 * 
+	 * @return Connected clients of a server, 1 or 0 for a client.
+	 */
+	protected abstract int getConnections ();
+
+	/**
+	 * Returns the plugin receiving the messages.
+	 * 
+	 * @return The plugin, <code>null</code> if none is loaded.
+	 */
+	public abstract Plugin getPlugin ();
+
+	/**
+	 * Updates the plugin receiving the messages.
+	 * 
+	 * @param plugin
+	 *            The plugin.
+	 */
+	protected abstract void setPlugin (Plugin plugin);
+
+	/**
+	 * Loads the specified plugin from the plugins directory.
+	 * 
+	 * @param jarName
+	 *            Name of the plugin jar.
+	 * @throws Exception
+	 *             If the plugin cannot be loaded.
+	 */
+	public void loadPlugin (final String jarName) throws Exception {
+		this.logger.info("Loading plugin {} for {}", jarName, this.name);
+		setPlugin(PluginManager.getInstance().loadPlugin(jarName, this));
+		this.pluginJar = jarName;
+	}
+
+	/**
+	 * Loads the new version of the plugin of the session if its jar has been
+	 * modified. The new version replaces the previous one at once, the
+	 * session keeps the previous one if the new one cannot be loaded.
+	 * 
+	 * @param jarName
+	 *            Name of the modified jar.
+	 */
+	public void reloadPlugin (final String jarName) {
+		if (!jarName.equals(this.pluginJar)) {
+			return;
+		}
+		try {
+			setPlugin(PluginManager.getInstance().loadPlugin(jarName, this));
+			this.logger.info("Plugin {} of {} reloaded", jarName, this.name);
+		} catch (Exception | LinkageError e) {
+			this.logger.error("Failed to reload plugin {} of {}, keeping the previous version", jarName, this.name,
+					e);
+		}
+	}
+
+	/**
+	 * Exports the metrics and the traffic shaper of the session through JMX,
+	 * if enabled. A failure is only logged.
+	 */
+	public void registerMetrics () {
+		try {
+			SessionFactory.registerMetrics(this.metrics, this.shaper, this.type, this.name);
+		} catch (Exception e) {
+			this.logger.warn("Cannot export the metrics of {} through JMX", this.name, e);
+		}
+	}
+
+	/**
+	 * Removes the metrics and the traffic shaper of the session from JMX.
+	 */
+	public void unregisterMetrics () {
+		try {
+			this.metrics.getRegistry().unregister();
+			this.shaper.unregister();
+		} catch (Exception e) {
+			this.logger.warn("Cannot remove the metrics of {} from JMX", this.name, e);
+		}
+	}
+
+	@Override
+	public void onTimeout (Interface com) {
+		this.metrics.onTimeout();
+		this.logger.warn("*** TIMEOUT occurred on {}", com.getId());
+	}
+
+	@Override
+	public void onException (Interface com, Throwable t) {
+		this.metrics.onError();
+		this.logger.error("An error occurred on interface {}", com.getId(), t);
+	}
+
+	/**
+	 * Creates the stage dispatching the received messages to the plugin.
+	 * 
+	 * @return The new dispatcher.
+	 */
+	protected ReceiveDispatcher<Interface, BufferPluginEvent> createDispatcher () {
+		return SessionFactory.createDispatcher(this.name, new ReceiveDispatcher.Handler<BufferPluginEvent>() {
+
+			@Override
+			public void handle (BufferPluginEvent event) {
+				try {
+					Plugin plugin = getPlugin();
+					if (plugin instanceof BufferPlugin) {
+						((BufferPlugin) plugin).onReceive(event);
+					} else if (plugin != null) {
+						plugin.onReceive(new PluginEvent(event.getSource(), event.getInterface(), event.getMessage()));
+					}
+				} finally {
+					event.release();
+				}
+			}
+
+			@Override
+			public void discard (BufferPluginEvent event) {
+				event.release();
+			}
+		});
+	}
+
+	/**
+	 * Logs the latency percentiles of a stopped session and exports them to a
+	 * CSV file of the latency directory.
+	 * 
+	 * @param tracker
+	 *            The latency tracker of the session, may be <code>null</code>.
+	 */
+	protected void logLatency (final LatencyTracker<Interface> tracker) {
+		if (tracker != null) {
+			for (Interface com : tracker.getConnections()) {
+				this.logger.info("Latency of {}", tracker.format(com));
+			}
+			this.logger.info("Latency of {}", tracker.formatTotal());
+			File file = SessionFactory.getLatencyExportFile(this.name);
+			try {
+				tracker.export(file);
+				this.logger.info("Latencies exported to {}", file.getPath());
+			} catch (IOException e) {
+				this.logger.error("Cannot export latencies to {}", file, e);
+			}
+		}
+	}
+
+	/**
+	 * Returns the metrics of the session.
+	 * 
+	 * @return The metrics.
+	 */
+	public SessionMetrics getMetrics () {
+		return this.metrics;
+	}
+
+	/**
+	 * Returns the name of the session in the configuration.
+	 * 
+	 * @return Name of the session.
+	 */
+	public String getName () {
+		return this.name;
+	}
+}
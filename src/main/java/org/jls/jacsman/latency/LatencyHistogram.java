@@ -0,0 +1,266 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.latency;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of latencies with a high dynamic range, following the layout of
+ * HdrHistogram : the values are counted in buckets whose width doubles with
+ * each power of two, each bucket being split into enough sub-buckets to keep
+ * the requested number of significant decimal digits. The whole range, from
+ * one nanosecond to minutes, is covered by a few thousand counters with a
+ * constant relative precision, and recording a value is a few shifts.
+ * <p>
+ * The histogram is not thread safe, its owner synchronizes the accesses.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class LatencyHistogram {
+
+	private final long highestTrackableValue;
+	private final int significantDigits;
+	private final int subBucketHalfCountMagnitude;
+	private final int subBucketHalfCount;
+	private final long subBucketMask;
+	private final int subBucketCount;
+	private final int leadingZeroCountBase;
+	private final long[] counts;
+
+	private long totalCount;
+	private long sum;
+	private long min;
+	private long max;
+
+	/**
+	 * Instanciates a new histogram.
+	 * 
+	 * @param highestTrackableValue
+	 *            Highest value to record, larger values are recorded as this
+	 *            value.
+	 * @param significantDigits
+	 *            Number of significant decimal digits kept, from 0 to 5.
+	 */
+	public LatencyHistogram (final long highestTrackableValue, final int significantDigits) {
+		if (significantDigits < 0 || significantDigits > 5) {
+			throw new IllegalArgumentException("Invalid number of significant digits : " + significantDigits);
+		}
+		if (highestTrackableValue < 2) {
+			throw new IllegalArgumentException("Invalid highest trackable value : " + highestTrackableValue);
+		}
+		this.highestTrackableValue = highestTrackableValue;
+		this.significantDigits = significantDigits;
+
+		long largestValueWithSingleUnitResolution = 2 * (long) Math.pow(10, significantDigits);
+		int subBucketCountMagnitude = (int) Math.ceil(Math.log(largestValueWithSingleUnitResolution) / Math.log(2));
+		this.subBucketHalfCountMagnitude = Math.max(subBucketCountMagnitude, 1) - 1;
+		this.subBucketCount = 1 << (this.subBucketHalfCountMagnitude + 1);
+		this.subBucketHalfCount = this.subBucketCount / 2;
+		this.subBucketMask = this.subBucketCount - 1;
+		this.leadingZeroCountBase = 64 - this.subBucketHalfCountMagnitude - 1;
+
+		// Number of buckets needed to cover the highest value
+		long smallestUntrackableValue = this.subBucketCount;
+		int bucketCount = 1;
+		while (smallestUntrackableValue <= highestTrackableValue) {
+			if (smallestUntrackableValue > Long.MAX_VALUE / 2) {
+				bucketCount++;
+				break;
+			}
+			smallestUntrackableValue <<= 1;
+			bucketCount++;
+		}
+		this.counts = new long[(bucketCount + 1) * this.subBucketHalfCount];
+		reset();
+	}
+
+	/**
+	 * Records a value.
+	 * 
+	 * @param value
+	 *            The value, negative values are recorded as zero.
+	 */
+	public void recordValue (final long value) {
+		long v = Math.min(Math.max(value, 0), this.highestTrackableValue);
+		this.counts[countsIndex(v)]++;
+		this.totalCount++;
+		this.sum += v;
+		if (v < this.min) {
+			this.min = v;
+		}
+		if (v > this.max) {
+			this.max = v;
+		}
+	}
+
+	/**
+	 * Adds the values of another histogram with the same layout.
+	 * 
+	 * @param other
+	 *            The histogram to add.
+	 */
+	public void add (final LatencyHistogram other) {
+		if (other.counts.length != this.counts.length || other.subBucketCount != this.subBucketCount) {
+			throw new IllegalArgumentException("Histograms have different layouts");
+		}
+		for (int i = 0; i < this.counts.length; i++) {
+			this.counts[i] += other.counts[i];
+		}
+		this.totalCount += other.totalCount;
+		this.sum += other.sum;
+		this.min = Math.min(this.min, other.min);
+		this.max = Math.max(this.max, other.max);
+	}
+
+	/**
+	 * Returns a copy of the histogram.
+	 * 
+	 * @return The copy.
+	 */
+	public LatencyHistogram copy () {
+		LatencyHistogram copy = new LatencyHistogram(this.highestTrackableValue, this.significantDigits);
+		copy.add(this);
+		return copy;
+	}
+
+	/**
+	 * Removes all the values.
+	 */
+	public void reset () {
+		Arrays.fill(this.counts, 0);
+		this.totalCount = 0;
+		this.sum = 0;
+		this.min = Long.MAX_VALUE;
+		this.max = 0;
+	}
+
+	/**
+	 * Returns the value below which a percentage of the recorded values lie.
+	 * The returned value is the highest value of its sub-bucket, so it is
+	 * never lower than the exact percentile.
+	 * 
+	 * @param percentile
+	 *            The percentage, from 0 to 100.
+	 * @return The value at the percentile, zero if no value is recorded.
+	 */
+	public long getValueAtPercentile (final double percentile) {
+		if (this.totalCount == 0) {
+			return 0;
+		}
+		double p = Math.min(Math.max(percentile, 0), 100);
+		long countAtPercentile = Math.max(1, (long) Math.ceil(p / 100 * this.totalCount));
+		long total = 0;
+		for (int i = 0; i < this.counts.length; i++) {
+			total += this.counts[i];
+			if (total >= countAtPercentile) {
+				return Math.min(highestEquivalentValue(valueFromIndex(i)), this.max);
+			}
+		}
+		return this.max;
+	}
+
+	/**
+	 * Returns the number of recorded values.
+	 * 
+	 * @return Number of values.
+	 */
+	public long getTotalCount () {
+		return this.totalCount;
+	}
+
+	/**
+	 * Returns the smallest recorded value.
+	 * 
+	 * @return The minimum, zero if no value is recorded.
+	 */
+	public long getMin () {
+		return this.totalCount == 0 ? 0 : this.min;
+	}
+
+	/**
+	 * Returns the largest recorded value.
+	 * 
+	 * @return The maximum, zero if no value is recorded.
+	 */
+	public long getMax () {
+		return this.max;
+	}
+
+	/**
+	 * Returns the mean of the recorded values.
+	 * 
+	 * @return The mean, zero if no value is recorded.
+	 */
+	public double getMean () {
+		return this.totalCount == 0 ? 0 : (double) this.sum / this.totalCount;
+	}
+
+	/**
+	 * Returns the index of the counter of a value.
+	 * 
+	 * @param value
+	 *            The value.
+	 * @return Index in the counters.
+	 */
+	private int countsIndex (final long value) {
+		int bucketIndex = this.leadingZeroCountBase - Long.numberOfLeadingZeros(value | this.subBucketMask);
+		int subBucketIndex = (int) (value >>> bucketIndex);
+		return ((bucketIndex + 1) << this.subBucketHalfCountMagnitude) + (subBucketIndex - this.subBucketHalfCount);
+	}
+
+	/**
+	 * Returns the lowest value counted by a counter.
+	 * 
+	 * @param index
+	 *            Index in the counters.
+	 * @return The lowest value of the counter.
+	 */
+	private long valueFromIndex (final int index) {
+		int bucketIndex = (index >> this.subBucketHalfCountMagnitude) - 1;
+		int subBucketIndex = (index & (this.subBucketHalfCount - 1)) + this.subBucketHalfCount;
+		if (bucketIndex < 0) {
+			subBucketIndex -= this.subBucketHalfCount;
+			bucketIndex = 0;
+		}
+		return (long) subBucketIndex << bucketIndex;
+	}
+
+	/**
+	 * Returns the highest value counted by the same counter as a value.
+	 * 
+	 * @param value
+	 *            The value.
+	 * @return The highest equivalent value.
+	 */
+	private long highestEquivalentValue (final long value) {
+		int bucketIndex = this.leadingZeroCountBase - Long.numberOfLeadingZeros(value | this.subBucketMask);
+		int subBucketIndex = (int) (value >>> bucketIndex);
+		int adjustedBucket = subBucketIndex >= this.subBucketCount ? bucketIndex + 1 : bucketIndex;
+		long lowest = (long) subBucketIndex << bucketIndex;
+		return lowest + (1L << adjustedBucket) - 1;
+	}
+}
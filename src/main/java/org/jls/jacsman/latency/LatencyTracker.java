@@ -0,0 +1,447 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.latency;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Measures the time between the requests sent on each connection and their
+ * replies. A reply is matched with its request by the identifier read by a
+ * {@link CorrelationIdExtractor}, or without extractor with the oldest
+ * pending request of the connection (FIFO order).
+ * <p>
+ * The latencies are recorded in nanoseconds in a {@link LatencyHistogram} per
+ * connection. The requests still pending after the timeout, or exceeding the
+ * maximum number of pending requests, are counted as lost. The replies
+ * without pending request are counted as unmatched.
+ * </p>
+ * 
+ * @param <K>
+ *            Type of the connection keys.
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class LatencyTracker<K> {
+
+	/**
+	 * Percentiles exported for each connection.
+	 */
+	public static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+	private final CorrelationIdExtractor extractor;
+	private final long highestTrackableValue;
+	private final int significantDigits;
+	private final long timeout;
+	private final int maxPending;
+	private final ConcurrentMap<K, Connection> connections;
+
+	/**
+	 * Instanciates a new tracker.
+	 * 
+	 * @param extractor
+	 *            Reads the correlation identifiers, <code>null</code> to
+	 *            match the replies in FIFO order.
+	 * @param highestTrackableValue
+	 *            Highest latency recorded in nanoseconds.
+	 * @param significantDigits
+	 *            Number of significant decimal digits of the histograms.
+	 * @param timeout
+	 *            Time in nanoseconds after which a pending request is lost,
+	 *            zero to wait forever.
+	 * @param maxPending
+	 *            Maximum number of pending requests of a connection.
+	 */
+	public LatencyTracker (final CorrelationIdExtractor extractor, final long highestTrackableValue,
+			final int significantDigits, final long timeout, final int maxPending) {
+		if (maxPending <= 0) {
+			throw new IllegalArgumentException("Invalid maximum of pending requests : " + maxPending);
+		}
+		this.extractor = extractor;
+		this.highestTrackableValue = highestTrackableValue;
+		this.significantDigits = significantDigits;
+		this.timeout = timeout;
+		this.maxPending = maxPending;
+		this.connections = new ConcurrentHashMap<>();
+		// Checks the histogram parameters now rather than on the first message
+		new LatencyHistogram(highestTrackableValue, significantDigits);
+	}
+
+	/**
+	 * Timestamps a request about to be sent.
+	 * 
+	 * @param key
+	 *            The connection.
+	 * @param msg
+	 *            The request, its position is not modified.
+	 */
+	public void onSend (final K key, final ByteBuffer msg) {
+		long now = System.nanoTime();
+		Object id = null;
+		if (this.extractor != null) {
+			id = this.extractor.getCorrelationId(msg);
+			if (id == null) {
+				return;
+			}
+		}
+		connection(key).sent(id, now);
+	}
+
+	/**
+	 * Matches a received reply with its request and records the latency.
+	 * 
+	 * @param key
+	 *            The connection.
+	 * @param msg
+	 *            The reply, its position is not modified.
+	 */
+	public void onReceive (final K key, final ByteBuffer msg) {
+		long now = System.nanoTime();
+		Object id = null;
+		if (this.extractor != null) {
+			id = this.extractor.getCorrelationId(msg);
+			if (id == null) {
+				return;
+			}
+		}
+		connection(key).received(id, now);
+	}
+
+	/**
+	 * Counts the pending requests of a closed connection as lost. The
+	 * latencies of the connection are kept.
+	 * 
+	 * @param key
+	 *            The connection.
+	 */
+	public void close (final K key) {
+		Connection c = this.connections.get(key);
+		if (c != null) {
+			c.close();
+		}
+	}
+
+	/**
+	 * Returns a copy of the latencies of a connection.
+	 * 
+	 * @param key
+	 *            The connection.
+	 * @return The latencies in nanoseconds, <code>null</code> if nothing has
+	 *         been sent on the connection.
+	 */
+	public LatencyHistogram getHistogram (final K key) {
+		Connection c = this.connections.get(key);
+		return c == null ? null : c.snapshot();
+	}
+
+	/**
+	 * Returns the latencies of all the connections.
+	 * 
+	 * @return The latencies in nanoseconds.
+	 */
+	public LatencyHistogram getTotalHistogram () {
+		LatencyHistogram total = new LatencyHistogram(this.highestTrackableValue, this.significantDigits);
+		for (Connection c : this.connections.values()) {
+			total.add(c.snapshot());
+		}
+		return total;
+	}
+
+	/**
+	 * Writes the latencies of each connection, then of all the connections,
+	 * as CSV lines. The latencies are in microseconds.
+	 * 
+	 * @param out
+	 *            The destination.
+	 * @throws IOException
+	 *             If an error occurred writing.
+	 */
+	public void export (final Appendable out) throws IOException {
+		out.append("connection,count,min_us");
+		for (double p : PERCENTILES) {
+			out.append(",p").append(formatPercentile(p)).append("_us");
+		}
+		out.append(",max_us,mean_us,lost,unmatched,pending\n");
+		LatencyHistogram total = new LatencyHistogram(this.highestTrackableValue, this.significantDigits);
+		long lost = 0;
+		long unmatched = 0;
+		int pending = 0;
+		for (Map.Entry<K, Connection> entry : this.connections.entrySet()) {
+			Connection c = entry.getValue();
+			long[] counters = new long[3];
+			LatencyHistogram h = c.snapshot(counters);
+			exportLine(out, label(entry.getKey()).replace(',', ' '), h, counters[0], counters[1], (int) counters[2]);
+			total.add(h);
+			lost += counters[0];
+			unmatched += counters[1];
+			pending += counters[2];
+		}
+		exportLine(out, "ALL", total, lost, unmatched, pending);
+	}
+
+	/**
+	 * Writes the latencies to a CSV file, see {@link #export(Appendable)}.
+	 * The parent directories are created if needed.
+	 * 
+	 * @param file
+	 *            The destination file, overwritten if it exists.
+	 * @throws IOException
+	 *             If an error occurred writing the file.
+	 */
+	public void export (final File file) throws IOException {
+		File dir = file.getAbsoluteFile().getParentFile();
+		if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("Cannot create directory " + dir);
+		}
+		try (Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			export(out);
+		}
+	}
+
+	/**
+	 * Returns a line describing the latencies of a connection.
+	 * 
+	 * @param key
+	 *            The connection.
+	 * @return Percentiles of the connection, in microseconds.
+	 */
+	public String format (final K key) {
+		Connection c = this.connections.get(key);
+		return label(key) + " : " + (c == null ? "no request" : format(c.snapshot()));
+	}
+
+	/**
+	 * Returns a line describing the latencies of all the connections.
+	 * 
+	 * @return Percentiles of all the connections, in microseconds.
+	 */
+	public String formatTotal () {
+		return "All connections : " + format(getTotalHistogram());
+	}
+
+	/**
+	 * Returns the connections which have sent requests.
+	 * 
+	 * @return The connections.
+	 */
+	public List<K> getConnections () {
+		return new ArrayList<>(this.connections.keySet());
+	}
+
+	/**
+	 * Returns the name of a connection in the exports. Returns
+	 * {@link String#valueOf(Object)} by default.
+	 * 
+	 * @param key
+	 *            The connection.
+	 * @return Name of the connection.
+	 */
+	protected String label (final K key) {
+		return String.valueOf(key);
+	}
+
+	/**
+	 * Returns the state of a connection, created on its first message.
+	 * 
+	 * @param key
+	 *            The connection.
+	 * @return The state of the connection.
+	 */
+	private Connection connection (final K key) {
+		Connection c = this.connections.get(key);
+		if (c == null) {
+			c = new Connection();
+			Connection previous = this.connections.putIfAbsent(key, c);
+			if (previous != null) {
+				c = previous;
+			}
+		}
+		return c;
+	}
+
+	private static String format (final LatencyHistogram h) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(h.getTotalCount()).append(" replies");
+		for (double p : PERCENTILES) {
+			sb.append(", p").append(formatPercentile(p)).append('=').append(micros(h.getValueAtPercentile(p)))
+					.append(" us");
+		}
+		sb.append(", max=").append(micros(h.getMax())).append(" us");
+		return sb.toString();
+	}
+
+	private static void exportLine (final Appendable out, final String name, final LatencyHistogram h,
+			final long lost, final long unmatched, final int pending) throws IOException {
+		out.append(name).append(',').append(Long.toString(h.getTotalCount())).append(',').append(micros(h.getMin()));
+		for (double p : PERCENTILES) {
+			out.append(',').append(micros(h.getValueAtPercentile(p)));
+		}
+		out.append(',').append(micros(h.getMax())).append(',').append(micros((long) h.getMean())).append(',')
+				.append(Long.toString(lost)).append(',').append(Long.toString(unmatched)).append(',')
+				.append(Integer.toString(pending)).append('\n');
+	}
+
+	private static String micros (final long nanos) {
+		return String.format(Locale.ROOT, "%.1f", nanos / 1000.0);
+	}
+
+	private static String formatPercentile (final double p) {
+		return p == Math.rint(p) ? Long.toString((long) p) : Double.toString(p);
+	}
+
+	/**
+	 * Pending requests and latencies of a connection.
+	 * 
+	 * @author Julien LE SAUCE
+	 * @date 17 oct. 2026
+	 */
+	private final class Connection {
+
+		private final LatencyHistogram histogram;
+		// FIFO matching : ring of the send times
+		private final long[] ring;
+		private int head;
+		private int size;
+		// Correlation matching : send times by identifier, oldest first
+		private final LinkedHashMap<Object, Long> pending;
+		private long lost;
+		private long unmatched;
+
+		public Connection () {
+			LatencyTracker<K> tracker = LatencyTracker.this;
+			this.histogram = new LatencyHistogram(tracker.highestTrackableValue, tracker.significantDigits);
+			boolean fifo = tracker.extractor == null;
+			this.ring = fifo ? new long[tracker.maxPending] : null;
+			this.pending = fifo ? null : new LinkedHashMap<Object, Long>();
+			this.head = 0;
+			this.size = 0;
+			this.lost = 0;
+			this.unmatched = 0;
+		}
+
+		public synchronized void sent (final Object id, final long now) {
+			expire(now);
+			if (this.ring != null) {
+				if (this.size == this.ring.length) {
+					poll();
+					this.lost++;
+				}
+				this.ring[(this.head + this.size) % this.ring.length] = now;
+				this.size++;
+			} else {
+				if (this.pending.size() >= LatencyTracker.this.maxPending) {
+					Iterator<Long> it = this.pending.values().iterator();
+					it.next();
+					it.remove();
+					this.lost++;
+				}
+				if (this.pending.put(id, now) != null) {
+					// The previous request with this identifier cannot be matched anymore
+					this.lost++;
+				}
+			}
+		}
+
+		public synchronized void received (final Object id, final long now) {
+			expire(now);
+			if (this.ring != null) {
+				if (this.size > 0) {
+					this.histogram.recordValue(now - poll());
+				} else {
+					this.unmatched++;
+				}
+			} else {
+				Long start = this.pending.remove(id);
+				if (start != null) {
+					this.histogram.recordValue(now - start);
+				} else {
+					this.unmatched++;
+				}
+			}
+		}
+
+		public synchronized void close () {
+			if (this.ring != null) {
+				this.lost += this.size;
+				this.size = 0;
+			} else {
+				this.lost += this.pending.size();
+				this.pending.clear();
+			}
+		}
+
+		public synchronized LatencyHistogram snapshot () {
+			return this.histogram.copy();
+		}
+
+		public synchronized LatencyHistogram snapshot (final long[] counters) {
+			counters[0] = this.lost;
+			counters[1] = this.unmatched;
+			counters[2] = this.ring != null ? this.size : this.pending.size();
+			return this.histogram.copy();
+		}
+
+		/**
+		 * Counts the requests pending for longer than the timeout as lost.
+		 */
+		private void expire (final long now) {
+			long timeout = LatencyTracker.this.timeout;
+			if (timeout <= 0) {
+				return;
+			}
+			if (this.ring != null) {
+				while (this.size > 0 && now - this.ring[this.head] > timeout) {
+					poll();
+					this.lost++;
+				}
+			} else {
+				Iterator<Long> it = this.pending.values().iterator();
+				while (it.hasNext() && now - it.next() > timeout) {
+					it.remove();
+					this.lost++;
+				}
+			}
+		}
+
+		private long poll () {
+			long start = this.ring[this.head];
+			this.head = (this.head + 1) % this.ring.length;
+			this.size--;
+			return start;
+		}
+	}
+}
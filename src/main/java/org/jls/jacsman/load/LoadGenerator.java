@@ -0,0 +1,362 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.load;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.jacsman.net.ClientEngine;
+import org.jls.jacsman.net.EngineListener;
+import org.jls.jacsman.net.SendResult;
+import org.jls.toolbox.net.Interface;
+
+/**
+ * Opens several connections to a server and sends messages on them following
+ * a {@link RateProfile}. The messages are spread over the connections in turn
+ * and sent asynchronously by a single pacing thread, so the achieved rate
+ * does not depend on the write latency.
+ * <p>
+ * The number of messages waiting to be written is bounded : when the server
+ * or the network cannot keep up, the generator waits and the achieved rate
+ * falls below the target instead of queueing without limit.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class LoadGenerator {
+
+	/**
+	 * Creates the connections of a load generator.
+	 * 
+	 * @author Julien LE SAUCE
+	 * @date 17 oct. 2026
+	 */
+	public interface ConnectionFactory {
+
+		/**
+		 * Creates a connection, not started yet.
+		 * 
+		 * @param index
+		 *            Number of the connection, starting at zero.
+		 * @return The new connection.
+		 * @throws IOException
+		 *             If the connection cannot be created.
+		 */
+		public ClientEngine create (int index) throws IOException;
+	}
+
+	/**
+	 * Longest time the pacing thread sleeps between two checks, in
+	 * nanoseconds.
+	 */
+	private static final long MAX_PARK = 1_000_000L;
+	/**
+	 * Longest delay the pacing thread catches up after a stall, in seconds,
+	 * so that a pause is not followed by a burst.
+	 */
+	private static final double MAX_CATCH_UP = 0.1;
+
+	private final String name;
+	private final Logger logger;
+	private final ConnectionFactory factory;
+	private final int nbConnections;
+	private final RateProfile profile;
+	private final PayloadSource payload;
+	private final long duration;
+	private final int maxInFlight;
+	private final List<ClientEngine> clients;
+	private final LongAdder sent;
+	private final LongAdder bytes;
+	private final LongAdder errors;
+	private final LongAdder received;
+	private final AtomicInteger inFlight;
+	private final BiConsumer<SendResult, Throwable> completion;
+	private final EngineListener counter;
+
+	private volatile boolean running;
+	private volatile long startTime;
+	private volatile long endTime;
+	private volatile double targetRate;
+	private Thread thread;
+
+	/**
+	 * Instanciates a new load generator.
+	 * 
+	 * @param name
+	 *            Name of the generator, used to name its thread.
+	 * @param factory
+	 *            Creates the connections.
+	 * @param nbConnections
+	 *            Number of connections to open.
+	 * @param profile
+	 *            Rate of the messages.
+	 * @param payload
+	 *            Provides the messages.
+	 * @param duration
+	 *            Duration of the run in nanoseconds, zero to run until
+	 *            stopped.
+	 * @param maxInFlight
+	 *            Maximum number of messages waiting to be written.
+	 */
+	public LoadGenerator (final String name, final ConnectionFactory factory, final int nbConnections,
+			final RateProfile profile, final PayloadSource payload, final long duration, final int maxInFlight) {
+		if (nbConnections <= 0 || maxInFlight <= 0) {
+			throw new IllegalArgumentException("Invalid load limits : " + nbConnections + ", " + maxInFlight);
+		}
+		this.name = name;
+		this.logger = LogManager.getLogger();
+		this.factory = factory;
+		this.nbConnections = nbConnections;
+		this.profile = profile;
+		this.payload = payload;
+		this.duration = duration;
+		this.maxInFlight = maxInFlight;
+		this.clients = new ArrayList<>(nbConnections);
+		this.sent = new LongAdder();
+		this.bytes = new LongAdder();
+		this.errors = new LongAdder();
+		this.received = new LongAdder();
+		this.inFlight = new AtomicInteger();
+		this.completion = new BiConsumer<SendResult, Throwable>() {
+
+			@Override
+			public void accept (SendResult result, Throwable t) {
+				LoadGenerator.this.inFlight.decrementAndGet();
+				if (t == null) {
+					LoadGenerator.this.sent.increment();
+					LoadGenerator.this.bytes.add(result.getBytes());
+				} else {
+					LoadGenerator.this.errors.increment();
+				}
+			}
+		};
+		this.counter = new CountingListener();
+		this.running = false;
+	}
+
+	/**
+	 * Opens the connections and starts sending. The connections which cannot
+	 * be opened are counted as errors.
+	 * 
+	 * @throws IOException
+	 *             If no connection could be opened.
+	 */
+	public synchronized void start () throws IOException {
+		if (this.running) {
+			throw new IllegalStateException("Load generator already running");
+		}
+		for (int i = 0; i < this.nbConnections; i++) {
+			try {
+				ClientEngine client = this.factory.create(i);
+				client.setListener(this.counter);
+				client.start();
+				if (client.isRunning()) {
+					this.clients.add(client);
+				} else {
+					this.errors.increment();
+				}
+			} catch (IOException e) {
+				this.logger.warn("Load connection {} of {} failed", i, this.name, e);
+				this.errors.increment();
+			}
+		}
+		if (this.clients.isEmpty()) {
+			throw new IOException("None of the " + this.nbConnections + " connections could be opened");
+		}
+		this.logger.info("Load generator {} started on {} connection(s) : {}", this.name, this.clients.size(),
+				this.profile);
+		this.startTime = System.nanoTime();
+		this.endTime = 0;
+		this.running = true;
+		this.thread = new Thread(new Runnable() {
+
+			@Override
+			public void run () {
+				sendLoop();
+			}
+		}, this.name + "-load");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Stops sending and closes the connections.
+	 */
+	public synchronized void stop () {
+		this.running = false;
+		if (this.thread != null) {
+			LockSupport.unpark(this.thread);
+			try {
+				this.thread.join(1000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			this.thread = null;
+		}
+		for (ClientEngine client : this.clients) {
+			try {
+				client.stop();
+			} catch (IOException e) {
+				this.logger.warn("Cannot close load connection {}", client.getInterface().getId(), e);
+			}
+		}
+		this.clients.clear();
+		this.logger.info("Load generator {} stopped", this.name);
+	}
+
+	/**
+	 * Specifies if the generator is sending. It stops by itself at the end of
+	 * its duration or when all its connections are closed.
+	 * 
+	 * @return <code>true</code> if the generator is sending.
+	 */
+	public boolean isRunning () {
+		return this.running;
+	}
+
+	/**
+	 * Returns a snapshot of the counters.
+	 * 
+	 * @return The counters.
+	 */
+	public LoadStats getStats () {
+		long end = this.endTime;
+		long elapsed = this.startTime == 0 ? 0 : (end != 0 ? end : System.nanoTime()) - this.startTime;
+		int connections = 0;
+		synchronized (this) {
+			for (ClientEngine client : this.clients) {
+				if (client.isRunning()) {
+					connections++;
+				}
+			}
+		}
+		return new LoadStats(elapsed, connections, this.sent.sum(), this.bytes.sum(), this.errors.sum(),
+				this.received.sum(), this.inFlight.get(), this.running ? this.targetRate : 0);
+	}
+
+	/**
+	 * Paces the messages. Each loop adds the messages due since the previous
+	 * one, sends them in turn over the connections, then sleeps until the
+	 * next message is due.
+	 */
+	private void sendLoop () {
+		List<ClientEngine> connections = new ArrayList<>(this.clients);
+		long start = this.startTime;
+		long last = start;
+		double credit = 0;
+		long sequence = 0;
+		int next = 0;
+		try {
+			while (this.running) {
+				long now = System.nanoTime();
+				long elapsed = now - start;
+				if (this.duration > 0 && elapsed >= this.duration) {
+					break;
+				}
+				double rate = this.profile.rateAt(elapsed);
+				this.targetRate = rate;
+				credit = Math.min(credit + rate * (now - last) / 1e9, Math.max(1, rate * MAX_CATCH_UP));
+				last = now;
+
+				while (credit >= 1 && this.inFlight.get() < this.maxInFlight && this.running) {
+					ClientEngine client = null;
+					for (int i = 0; i < connections.size() && client == null; i++) {
+						ClientEngine c = connections.get(next);
+						next = (next + 1) % connections.size();
+						if (c.isRunning()) {
+							client = c;
+						}
+					}
+					if (client == null) {
+						this.logger.warn("All the connections of load generator {} are closed", this.name);
+						return;
+					}
+					try {
+						ByteBuffer msg = this.payload.nextPayload(sequence++);
+						this.inFlight.incrementAndGet();
+						client.sendAsync(msg).whenComplete(this.completion);
+					} catch (RuntimeException e) {
+						this.logger.debug("Cannot send load message", e);
+						this.errors.increment();
+					}
+					credit -= 1;
+				}
+
+				long wait = credit < 1 && rate > 0 ? (long) ((1 - credit) * 1e9 / rate) : MAX_PARK;
+				LockSupport.parkNanos(Math.min(Math.max(wait, 1), MAX_PARK));
+			}
+		} finally {
+			this.endTime = System.nanoTime();
+			this.running = false;
+		}
+	}
+
+	/**
+	 * Counts the events of the connections. The received messages are
+	 * released at once.
+	 * 
+	 * @author Julien LE SAUCE
+	 * @date 17 oct. 2026
+	 */
+	private final class CountingListener implements EngineListener {
+
+		@Override
+		public void onReceive (Interface com, PooledBuffer msg) {
+			msg.release();
+			LoadGenerator.this.received.increment();
+		}
+
+		@Override
+		public void onConnect (Interface com) {
+			//
+		}
+
+		@Override
+		public void onDisconnect (Interface com) {
+			LoadGenerator.this.logger.debug("Load connection {} closed", com.getId());
+		}
+
+		@Override
+		public void onTimeout (Interface com) {
+			//
+		}
+
+		@Override
+		public void onException (Interface com, Throwable t) {
+			LoadGenerator.this.logger.debug("Error on load connection {}", com.getId(), t);
+			LoadGenerator.this.errors.increment();
+		}
+	}
+}
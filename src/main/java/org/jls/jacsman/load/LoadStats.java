@@ -0,0 +1,194 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.load;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of the counters of a load generator.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public final class LoadStats {
+
+	private final long elapsed;
+	private final int connections;
+	private final long sent;
+	private final long bytes;
+	private final long errors;
+	private final long received;
+	private final int inFlight;
+	private final double targetRate;
+
+	/**
+	 * Instanciates a new snapshot.
+	 * 
+	 * @param elapsed
+	 *            Time elapsed since the start, in nanoseconds.
+	 * @param connections
+	 *            Number of open connections.
+	 * @param sent
+	 *            Number of messages written.
+	 * @param bytes
+	 *            Number of bytes written.
+	 * @param errors
+	 *            Number of failed sends and connection errors.
+	 * @param received
+	 *            Number of messages received from the server.
+	 * @param inFlight
+	 *            Number of messages waiting to be written.
+	 * @param targetRate
+	 *            Current rate of the profile, in messages per second.
+	 */
+	public LoadStats (final long elapsed, final int connections, final long sent, final long bytes, final long errors,
+			final long received, final int inFlight, final double targetRate) {
+		this.elapsed = elapsed;
+		this.connections = connections;
+		this.sent = sent;
+		this.bytes = bytes;
+		this.errors = errors;
+		this.received = received;
+		this.inFlight = inFlight;
+		this.targetRate = targetRate;
+	}
+
+	/**
+	 * Returns the rate of messages written since a previous snapshot.
+	 * 
+	 * @param previous
+	 *            The previous snapshot, <code>null</code> to compute the
+	 *            average rate since the start.
+	 * @return Rate in messages per second.
+	 */
+	public double rateSince (final LoadStats previous) {
+		long count = previous == null ? this.sent : this.sent - previous.sent;
+		long time = previous == null ? this.elapsed : this.elapsed - previous.elapsed;
+		return time > 0 ? count * 1e9 / time : 0;
+	}
+
+	/**
+	 * Returns the throughput since a previous snapshot.
+	 * 
+	 * @param previous
+	 *            The previous snapshot, <code>null</code> to compute the
+	 *            average throughput since the start.
+	 * @return Throughput in bytes per second.
+	 */
+	public double throughputSince (final LoadStats previous) {
+		long count = previous == null ? this.bytes : this.bytes - previous.bytes;
+		long time = previous == null ? this.elapsed : this.elapsed - previous.elapsed;
+		return time > 0 ? count * 1e9 / time : 0;
+	}
+
+	/**
+	 * Returns the time elapsed since the start.
+	 * 
+	 * @param unit
+	 *            Unit of the returned time.
+	 * @return Elapsed time.
+	 */
+	public long getElapsed (final TimeUnit unit) {
+		return unit.convert(this.elapsed, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Returns the number of open connections.
+	 * 
+	 * @return Number of connections.
+	 */
+	public int getConnections () {
+		return this.connections;
+	}
+
+	/**
+	 * Returns the number of messages written.
+	 * 
+	 * @return Number of messages.
+	 */
+	public long getSent () {
+		return this.sent;
+	}
+
+	/**
+	 * Returns the number of bytes written.
+	 * 
+	 * @return Number of bytes.
+	 */
+	public long getBytes () {
+		return this.bytes;
+	}
+
+	/**
+	 * Returns the number of failed sends and connection errors.
+	 * 
+	 * @return Number of errors.
+	 */
+	public long getErrors () {
+		return this.errors;
+	}
+
+	/**
+	 * Returns the number of messages received from the server.
+	 * 
+	 * @return Number of messages.
+	 */
+	public long getReceived () {
+		return this.received;
+	}
+
+	/**
+	 * Returns the number of messages waiting to be written.
+	 * 
+	 * @return Number of messages.
+	 */
+	public int getInFlight () {
+		return this.inFlight;
+	}
+
+	/**
+	 * Returns the rate of the profile when the snapshot was taken.
+	 * 
+	 * @return Rate in messages per second.
+	 */
+	public double getTargetRate () {
+		return this.targetRate;
+	}
+
+	/**
+	 * Formats the snapshot with the rates measured since a previous one.
+	 * 
+	 * @param previous
+	 *            The previous snapshot, <code>null</code> for the averages
+	 *            since the start.
+	 * @return The text describing the snapshot.
+	 */
+	public String format (final LoadStats previous) {
+		return String.format("%d s, %d connection(s), %.0f msg/s (target %.0f), %.1f kB/s, %d sent, %d received, "
+				+ "%d in flight, %d error(s)", getElapsed(TimeUnit.SECONDS), this.connections, rateSince(previous),
+				this.targetRate, throughputSince(previous) / 1024, this.sent, this.received, this.inFlight,
+				this.errors);
+	}
+}
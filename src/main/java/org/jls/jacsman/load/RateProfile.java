@@ -0,0 +1,167 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.load;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Message rate of a load generator as a function of the time elapsed since
+ * its start.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public final class RateProfile {
+
+	private final LoadProfile type;
+	private final double baseRate;
+	private final double peakRate;
+	private final long period;
+	private final long length;
+
+	/**
+	 * Instanciates a new profile.
+	 * 
+	 * @param type
+	 *            Shape of the profile.
+	 * @param baseRate
+	 *            Start rate of a ramp, or rate between two bursts, in
+	 *            messages per second.
+	 * @param peakRate
+	 *            Target rate, in messages per second.
+	 * @param period
+	 *            Duration of a ramp, or period of the bursts, in nanoseconds.
+	 * @param length
+	 *            Duration of a burst in nanoseconds.
+	 */
+	private RateProfile (final LoadProfile type, final double baseRate, final double peakRate, final long period,
+			final long length) {
+		if (baseRate < 0 || peakRate < 0) {
+			throw new IllegalArgumentException("Negative rate : " + baseRate + ", " + peakRate);
+		}
+		this.type = type;
+		this.baseRate = baseRate;
+		this.peakRate = peakRate;
+		this.period = period;
+		this.length = length;
+	}
+
+	/**
+	 * Creates a constant rate.
+	 * 
+	 * @param rate
+	 *            Rate in messages per second.
+	 * @return The profile.
+	 */
+	public static RateProfile constant (final double rate) {
+		return new RateProfile(LoadProfile.CONSTANT, rate, rate, 0, 0);
+	}
+
+	/**
+	 * Creates a rate rising linearly, then constant.
+	 * 
+	 * @param startRate
+	 *            Rate at the start, in messages per second.
+	 * @param targetRate
+	 *            Rate at the end of the ramp, in messages per second.
+	 * @param duration
+	 *            Duration of the ramp.
+	 * @param unit
+	 *            Unit of the duration.
+	 * @return The profile.
+	 */
+	public static RateProfile ramp (final double startRate, final double targetRate, final long duration,
+			final TimeUnit unit) {
+		return new RateProfile(LoadProfile.RAMP, startRate, targetRate, unit.toNanos(duration), 0);
+	}
+
+	/**
+	 * Creates periodic bursts.
+	 * 
+	 * @param baseRate
+	 *            Rate between the bursts, in messages per second.
+	 * @param burstRate
+	 *            Rate during a burst, in messages per second.
+	 * @param period
+	 *            Time between the starts of two bursts.
+	 * @param length
+	 *            Duration of a burst.
+	 * @param unit
+	 *            Unit of the period and duration.
+	 * @return The profile.
+	 */
+	public static RateProfile burst (final double baseRate, final double burstRate, final long period,
+			final long length, final TimeUnit unit) {
+		if (period <= 0 || length <= 0 || length > period) {
+			throw new IllegalArgumentException("Invalid burst timing : " + length + " every " + period);
+		}
+		return new RateProfile(LoadProfile.BURST, baseRate, burstRate, unit.toNanos(period), unit.toNanos(length));
+	}
+
+	/**
+	 * Returns the rate to send at a given time.
+	 * 
+	 * @param elapsed
+	 *            Time elapsed since the start, in nanoseconds.
+	 * @return Rate in messages per second.
+	 */
+	public double rateAt (final long elapsed) {
+		switch (this.type) {
+			case RAMP:
+				if (elapsed >= this.period) {
+					return this.peakRate;
+				}
+				return this.baseRate + (this.peakRate - this.baseRate) * elapsed / this.period;
+			case BURST:
+				return elapsed % this.period < this.length ? this.peakRate : this.baseRate;
+			default:
+				return this.peakRate;
+		}
+	}
+
+	/**
+	 * Returns the shape of the profile.
+	 * 
+	 * @return The shape.
+	 */
+	public LoadProfile getType () {
+		return this.type;
+	}
+
+	@Override
+	public String toString () {
+		switch (this.type) {
+			case RAMP:
+				return "RAMP " + this.baseRate + " to " + this.peakRate + " msg/s in "
+						+ TimeUnit.NANOSECONDS.toMillis(this.period) + " ms";
+			case BURST:
+				return "BURST " + this.peakRate + " msg/s during " + TimeUnit.NANOSECONDS.toMillis(this.length)
+						+ " ms every " + TimeUnit.NANOSECONDS.toMillis(this.period) + " ms, " + this.baseRate
+						+ " msg/s in between";
+			default:
+				return "CONSTANT " + this.peakRate + " msg/s";
+		}
+	}
+}
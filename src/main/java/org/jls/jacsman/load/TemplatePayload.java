@@ -0,0 +1,138 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.load;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Messages built from a text template. The <code>{seq}</code> token is
+ * replaced by the number of the message and <code>{time}</code> by the
+ * current time in milliseconds.
+ * <p>
+ * The template is parsed once and the messages are written in the same
+ * buffer, so building a message allocates nothing.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class TemplatePayload implements PayloadSource {
+
+	public static final String SEQUENCE_TOKEN = "{seq}";
+	public static final String TIME_TOKEN = "{time}";
+
+	/**
+	 * Maximum number of digits of a long value, sign included.
+	 */
+	private static final int MAX_DIGITS = 20;
+
+	private static final int SEQUENCE = 0;
+	private static final int TIME = 1;
+
+	private final byte[][] literals;
+	private final int[] tokens;
+	private final ByteBuffer buffer;
+
+	/**
+	 * Instanciates a new payload source.
+	 * 
+	 * @param template
+	 *            The text of the messages.
+	 */
+	public TemplatePayload (final String template) {
+		List<byte[]> parts = new ArrayList<>();
+		List<Integer> found = new ArrayList<>();
+		int from = 0;
+		int size = 0;
+		while (true) {
+			int seq = template.indexOf(SEQUENCE_TOKEN, from);
+			int time = template.indexOf(TIME_TOKEN, from);
+			int next = seq < 0 ? time : time < 0 ? seq : Math.min(seq, time);
+			byte[] literal = template.substring(from, next < 0 ? template.length() : next)
+					.getBytes(StandardCharsets.UTF_8);
+			parts.add(literal);
+			size += literal.length;
+			if (next < 0) {
+				break;
+			}
+			found.add(next == seq ? SEQUENCE : TIME);
+			size += MAX_DIGITS;
+			from = next + (next == seq ? SEQUENCE_TOKEN.length() : TIME_TOKEN.length());
+		}
+		this.literals = parts.toArray(new byte[parts.size()][]);
+		this.tokens = new int[found.size()];
+		for (int i = 0; i < this.tokens.length; i++) {
+			this.tokens[i] = found.get(i);
+		}
+		this.buffer = ByteBuffer.allocate(size);
+	}
+
+	@Override
+	public ByteBuffer nextPayload (final long sequence) {
+		ByteBuffer buf = this.buffer;
+		buf.clear();
+		for (int i = 0; i < this.tokens.length; i++) {
+			buf.put(this.literals[i]);
+			putDecimal(buf, this.tokens[i] == SEQUENCE ? sequence : System.currentTimeMillis());
+		}
+		buf.put(this.literals[this.tokens.length]);
+		buf.flip();
+		return buf;
+	}
+
+	/**
+	 * Writes a number as decimal ASCII digits.
+	 * 
+	 * @param buf
+	 *            The destination buffer.
+	 * @param value
+	 *            The number.
+	 */
+	private static void putDecimal (final ByteBuffer buf, final long value) {
+		if (value == Long.MIN_VALUE) {
+			buf.put(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+			return;
+		}
+		long v = value;
+		if (v < 0) {
+			buf.put((byte) '-');
+			v = -v;
+		}
+		int start = buf.position();
+		do {
+			buf.put((byte) ('0' + v % 10));
+			v /= 10;
+		} while (v != 0);
+		// Digits were written least significant first
+		for (int i = start, j = buf.position() - 1; i < j; i++, j--) {
+			byte b = buf.get(i);
+			buf.put(i, buf.get(j));
+			buf.put(j, b);
+		}
+	}
+}
@@ -0,0 +1,71 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counter of events, incremented by any number of threads without lock.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class Counter {
+
+	private final LongAdder count;
+
+	/**
+	 * Instanciates a new counter.
+	 */
+	public Counter () {
+		this.count = new LongAdder();
+	}
+
+	/**
+	 * Counts one event.
+	 */
+	public void increment () {
+		this.count.increment();
+	}
+
+	/**
+	 * Counts the specified number of events.
+	 * 
+	 * @param n
+	 *            Number of events.
+	 */
+	public void add (final long n) {
+		this.count.add(n);
+	}
+
+	/**
+	 * Returns the number of events counted since the counter creation.
+	 * 
+	 * @return Number of events.
+	 */
+	public long getCount () {
+		return this.count.sum();
+	}
+}
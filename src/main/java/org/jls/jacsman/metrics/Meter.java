@@ -0,0 +1,83 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counter of events measuring their rate.
+ * <p>
+ * The network threads only increment the counter. The rate is computed by the
+ * readers : it is the number of events counted between two samples divided by
+ * the time elapsed, the sample being renewed at most once per window whatever
+ * the number of readers.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class Meter extends Counter {
+
+	private final long windowNanos;
+	private long lastCount;
+	private long lastTime;
+	private double rate;
+
+	/**
+	 * Instanciates a new meter.
+	 * 
+	 * @param window
+	 *            Minimum time between two samples of the rate.
+	 * @param unit
+	 *            Unit of the window.
+	 */
+	public Meter (final long window, final TimeUnit unit) {
+		super();
+		if (window <= 0) {
+			throw new IllegalArgumentException("Window must be strictly positive : " + window);
+		}
+		this.windowNanos = unit.toNanos(window);
+		this.lastCount = 0;
+		this.lastTime = System.nanoTime();
+		this.rate = 0;
+	}
+
+	/**
+	 * Returns the rate measured over the last window.
+	 * 
+	 * @return Number of events per second.
+	 */
+	public synchronized double getRate () {
+		long now = System.nanoTime();
+		long elapsed = now - this.lastTime;
+		if (elapsed >= this.windowNanos) {
+			long count = getCount();
+			this.rate = (count - this.lastCount) * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+			this.lastCount = count;
+			this.lastTime = now;
+		}
+		return this.rate;
+	}
+}
@@ -0,0 +1,123 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+
+/**
+ * Read-only MBean exporting the metrics of a {@link MetricsRegistry}. The
+ * attributes are read from the registry on each call, so the metrics created
+ * after the registration are exported too.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+class MetricsMBean implements DynamicMBean {
+
+	private final MetricsRegistry registry;
+
+	/**
+	 * Instanciates the MBean.
+	 * 
+	 * @param registry
+	 *            The exported metrics.
+	 */
+	MetricsMBean (final MetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public Object getAttribute (String attribute) throws AttributeNotFoundException {
+		Object metric = this.registry.getMetric(attribute);
+		if (metric instanceof Counter) {
+			return ((Counter) metric).getCount();
+		} else if (metric instanceof Gauge) {
+			return ((Gauge) metric).getValue();
+		} else if (metric == null && attribute.endsWith(MetricsRegistry.RATE_SUFFIX)) {
+			metric = this.registry.getMetric(
+					attribute.substring(0, attribute.length() - MetricsRegistry.RATE_SUFFIX.length()));
+			if (metric instanceof Meter) {
+				return ((Meter) metric).getRate();
+			}
+		}
+		throw new AttributeNotFoundException("No metric " + attribute);
+	}
+
+	@Override
+	public AttributeList getAttributes (String[] attributes) {
+		AttributeList list = new AttributeList();
+		for (String attribute : attributes) {
+			try {
+				list.add(new Attribute(attribute, getAttribute(attribute)));
+			} catch (AttributeNotFoundException e) {
+				// Skipped, as specified by DynamicMBean
+			}
+		}
+		return list;
+	}
+
+	@Override
+	public void setAttribute (Attribute attribute) throws AttributeNotFoundException {
+		throw new AttributeNotFoundException("Metric " + attribute.getName() + " is read-only");
+	}
+
+	@Override
+	public AttributeList setAttributes (AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke (String actionName, Object[] params, String[] signature) {
+		throw new UnsupportedOperationException("No operation " + actionName);
+	}
+
+	@Override
+	public MBeanInfo getMBeanInfo () {
+		List<MBeanAttributeInfo> attributes = new ArrayList<>();
+		for (String name : this.registry.getNames()) {
+			Object metric = this.registry.getMetric(name);
+			if (metric instanceof Meter) {
+				attributes.add(new MBeanAttributeInfo(name, "long", "Number of " + name, true, false, false));
+				attributes.add(new MBeanAttributeInfo(name + MetricsRegistry.RATE_SUFFIX, "double",
+						"Number of " + name + " per second", true, false, false));
+			} else if (metric instanceof Counter) {
+				attributes.add(new MBeanAttributeInfo(name, "long", "Number of " + name, true, false, false));
+			} else {
+				attributes.add(new MBeanAttributeInfo(name, "long", "Current " + name, true, false, false));
+			}
+		}
+		return new MBeanInfo(MetricsRegistry.class.getName(), "Metrics of a server or client",
+				attributes.toArray(new MBeanAttributeInfo[attributes.size()]), null, new MBeanOperationInfo[0], null);
+	}
+}
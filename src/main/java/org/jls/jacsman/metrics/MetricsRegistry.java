@@ -0,0 +1,202 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Named counters, meters and gauges of a server or client.
+ * <p>
+ * The metrics are created once and kept by the code updating them, so
+ * updating a metric never goes through the registry. The registry is used to
+ * list them, in creation order, for the stats panel of the tabs and for the
+ * JMX export : once registered, each metric is an attribute of an MBean of the
+ * platform MBean server, a meter giving two attributes, its count and its rate
+ * suffixed by {@link #RATE_SUFFIX}.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class MetricsRegistry {
+
+	/**
+	 * Domain of the MBeans.
+	 */
+	public static final String DOMAIN = "org.jls.jacsman";
+	/**
+	 * Suffix of the JMX attribute giving the rate of a meter.
+	 */
+	public static final String RATE_SUFFIX = "Rate";
+
+	private final Map<String, Object> metrics;
+	private final long rateWindow;
+	private final TimeUnit rateUnit;
+	private ObjectName objectName;
+
+	/**
+	 * Instanciates a new registry.
+	 * 
+	 * @param rateWindow
+	 *            Minimum time between two samples of the rate of the meters.
+	 * @param unit
+	 *            Unit of the window.
+	 */
+	public MetricsRegistry (final long rateWindow, final TimeUnit unit) {
+		this.metrics = new LinkedHashMap<>();
+		this.rateWindow = rateWindow;
+		this.rateUnit = unit;
+		this.objectName = null;
+	}
+
+	/**
+	 * Returns the counter of the specified name, created if needed.
+	 * 
+	 * @param name
+	 *            Name of the counter.
+	 * @return The counter.
+	 */
+	public synchronized Counter counter (final String name) {
+		Object metric = this.metrics.get(name);
+		if (metric == null) {
+			metric = new Counter();
+			this.metrics.put(name, metric);
+		} else if (metric.getClass() != Counter.class) {
+			throw new IllegalArgumentException("Metric " + name + " is not a counter");
+		}
+		return (Counter) metric;
+	}
+
+	/**
+	 * Returns the meter of the specified name, created if needed.
+	 * 
+	 * @param name
+	 *            Name of the meter.
+	 * @return The meter.
+	 */
+	public synchronized Meter meter (final String name) {
+		Object metric = this.metrics.get(name);
+		if (metric == null) {
+			metric = new Meter(this.rateWindow, this.rateUnit);
+			this.metrics.put(name, metric);
+		} else if (!(metric instanceof Meter)) {
+			throw new IllegalArgumentException("Metric " + name + " is not a meter");
+		}
+		return (Meter) metric;
+	}
+
+	/**
+	 * Adds a gauge.
+	 * 
+	 * @param name
+	 *            Name of the gauge.
+	 * @param gauge
+	 *            The gauge.
+	 */
+	public synchronized void gauge (final String name, final Gauge gauge) {
+		if (this.metrics.containsKey(name)) {
+			throw new IllegalArgumentException("Metric " + name + " already exists");
+		}
+		this.metrics.put(name, gauge);
+	}
+
+	/**
+	 * Returns the names of the metrics, in creation order.
+	 * 
+	 * @return Names of the metrics.
+	 */
+	public synchronized List<String> getNames () {
+		return new ArrayList<>(this.metrics.keySet());
+	}
+
+	/**
+	 * Returns the metric of the specified name.
+	 * 
+	 * @param name
+	 *            Name of the metric.
+	 * @return A {@link Counter}, a {@link Meter} or a {@link Gauge},
+	 *         <code>null</code> if there is no such metric.
+	 */
+	public synchronized Object getMetric (final String name) {
+		return this.metrics.get(name);
+	}
+
+	/**
+	 * Registers the metrics in the platform MBean server, under the name
+	 * <code>org.jls.jacsman:type=&lt;type&gt;,name=&lt;name&gt;</code>. A
+	 * registry already registered is unregistered first.
+	 * 
+	 * @param type
+	 *            Type of the MBean, such as <code>Server</code>.
+	 * @param name
+	 *            Name of the MBean, such as the tab identifier.
+	 * @throws JMException
+	 *             If the MBean cannot be registered.
+	 */
+	public synchronized void register (final String type, final String name) throws JMException {
+		unregister();
+		ObjectName objectName = new ObjectName(DOMAIN + ":type=" + type + ",name="
+				+ ObjectName.quote(name));
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		if (server.isRegistered(objectName)) {
+			throw new IllegalStateException("MBean " + objectName + " already registered");
+		}
+		server.registerMBean(new MetricsMBean(this), objectName);
+		this.objectName = objectName;
+	}
+
+	/**
+	 * Unregisters the metrics from the platform MBean server. Does nothing if
+	 * they are not registered.
+	 * 
+	 * @throws JMException
+	 *             If the MBean cannot be unregistered.
+	 */
+	public synchronized void unregister () throws JMException {
+		if (this.objectName != null) {
+			ObjectName objectName = this.objectName;
+			this.objectName = null;
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		}
+	}
+
+	/**
+	 * Returns the name of the MBean exporting the metrics.
+	 * 
+	 * @return Name of the MBean, <code>null</code> if not registered.
+	 */
+	public synchronized ObjectName getObjectName () {
+		return this.objectName;
+	}
+}
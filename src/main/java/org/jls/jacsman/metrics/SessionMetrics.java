@@ -0,0 +1,315 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.metrics;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import org.jls.jacsman.net.DatagramStats;
+import org.jls.jacsman.net.SendResult;
+import org.jls.jacsman.net.TlsStats;
+import org.jls.jacsman.pipeline.ReceiveDispatcher;
+import org.jls.jacsman.shaping.TrafficShaper;
+
+/**
+ * Metrics of a server or client : messages and bytes received and sent,
+ * errors, timeouts and connections, the datagrams lost by the UDP engines, the
+ * handshakes of the TLS engines, the delays of the traffic shaper and the
+ * messages queued or dropped on their way to the plugin. Fed by the listener
+ * callbacks and the send methods of the tabs and of the headless sessions,
+ * from any thread.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class SessionMetrics {
+
+	public static final String MESSAGES_IN = "MessagesIn";
+	public static final String BYTES_IN = "BytesIn";
+	public static final String MESSAGES_OUT = "MessagesOut";
+	public static final String BYTES_OUT = "BytesOut";
+	public static final String ERRORS = "Errors";
+	public static final String TIMEOUTS = "Timeouts";
+	public static final String CONNECTIONS = "Connections";
+	public static final String SEQUENCE_GAPS = "SequenceGaps";
+	public static final String KERNEL_DROPS = "KernelDrops";
+	public static final String HANDSHAKES = "Handshakes";
+	public static final String RESUMED_HANDSHAKES = "ResumedHandshakes";
+	public static final String HANDSHAKE_P99 = "HandshakeP99";
+	public static final String SHAPED = "Shaped";
+	public static final String SHAPED_DELAY = "ShapedDelay";
+	public static final String QUEUE_TIME = "QueueTime";
+	public static final String QUEUED = "Queued";
+	public static final String DISPATCH_QUEUE = "DispatchQueue";
+	public static final String DISPATCH_DROPS = "DispatchDrops";
+
+	private final MetricsRegistry registry;
+	private final Meter messagesIn;
+	private final Meter bytesIn;
+	private final Meter messagesOut;
+	private final Meter bytesOut;
+	private final Counter errors;
+	private final Counter timeouts;
+	private volatile DatagramStats datagramStats;
+	private volatile TlsStats tlsStats;
+	private volatile TrafficShaper shaper;
+	private volatile ReceiveDispatcher<?, ?> dispatcher;
+
+	/**
+	 * Instanciates the metrics.
+	 * 
+	 * @param registry
+	 *            Registry holding the metrics.
+	 * @param connections
+	 *            Gauge giving the number of connections : connected clients of
+	 *            a server, 1 or 0 for a client.
+	 */
+	public SessionMetrics (final MetricsRegistry registry, final Gauge connections) {
+		this.registry = registry;
+		this.messagesIn = registry.meter(MESSAGES_IN);
+		this.bytesIn = registry.meter(BYTES_IN);
+		this.errors = registry.counter(ERRORS);
+		registry.gauge(CONNECTIONS, connections);
+		registry.gauge(SEQUENCE_GAPS, new Gauge() {
+
+			@Override
+			public long getValue () {
+				DatagramStats stats = datagramStats;
+				return stats != null ? stats.getSequenceGaps() : 0;
+			}
+		});
+		registry.gauge(HANDSHAKES, new Gauge() {
+
+			@Override
+			public long getValue () {
+				TlsStats stats = tlsStats;
+				return stats != null ? stats.getHandshakes() : 0;
+			}
+		});
+		this.messagesOut = registry.meter(MESSAGES_OUT);
+		this.bytesOut = registry.meter(BYTES_OUT);
+		this.timeouts = registry.counter(TIMEOUTS);
+		registry.gauge(KERNEL_DROPS, new Gauge() {
+
+			@Override
+			public long getValue () {
+				DatagramStats stats = datagramStats;
+				return stats != null ? Math.max(stats.getKernelDrops(), 0) : 0;
+			}
+		});
+		registry.gauge(RESUMED_HANDSHAKES, new Gauge() {
+
+			@Override
+			public long getValue () {
+				TlsStats stats = tlsStats;
+				return stats != null ? stats.getResumedHandshakes() : 0;
+			}
+		});
+		registry.gauge(HANDSHAKE_P99, new Gauge() {
+
+			@Override
+			public long getValue () {
+				// In microseconds, apart from the latency of the messages
+				TlsStats stats = tlsStats;
+				return stats != null ? TimeUnit.NANOSECONDS.toMicros(stats.getHandshakeLatency().getValueAtPercentile(99))
+						: 0;
+			}
+		});
+		registry.gauge(SHAPED, new Gauge() {
+
+			@Override
+			public long getValue () {
+				TrafficShaper s = shaper;
+				return s != null ? s.getShapedMessages() : 0;
+			}
+		});
+		registry.gauge(SHAPED_DELAY, new Gauge() {
+
+			@Override
+			public long getValue () {
+				TrafficShaper s = shaper;
+				return s != null ? TimeUnit.NANOSECONDS.toMicros(s.getShapedDelay()) : 0;
+			}
+		});
+		registry.gauge(QUEUE_TIME, new Gauge() {
+
+			@Override
+			public long getValue () {
+				TrafficShaper s = shaper;
+				return s != null ? TimeUnit.NANOSECONDS.toMicros(s.getQueueTime()) : 0;
+			}
+		});
+		registry.gauge(QUEUED, new Gauge() {
+
+			@Override
+			public long getValue () {
+				TrafficShaper s = shaper;
+				return s != null ? s.getQueuedMessages() : 0;
+			}
+		});
+		registry.gauge(DISPATCH_QUEUE, new Gauge() {
+
+			@Override
+			public long getValue () {
+				ReceiveDispatcher<?, ?> d = dispatcher;
+				return d != null ? d.getQueueDepth() : 0;
+			}
+		});
+		registry.gauge(DISPATCH_DROPS, new Gauge() {
+
+			@Override
+			public long getValue () {
+				ReceiveDispatcher<?, ?> d = dispatcher;
+				return d != null ? d.getDroppedCount() : 0;
+			}
+		});
+		this.datagramStats = null;
+		this.tlsStats = null;
+		this.shaper = null;
+		this.dispatcher = null;
+	}
+
+	/**
+	 * Sets the source of the datagram losses, when the engine of the session
+	 * is a UDP engine. The losses read 0 otherwise.
+	 * 
+	 * @param stats
+	 *            Statistics of the engine, <code>null</code> to detach them.
+	 */
+	public void setDatagramStats (final DatagramStats stats) {
+		this.datagramStats = stats;
+	}
+
+	/**
+	 * Sets the source of the handshake statistics, when the engine of the
+	 * session is a TLS engine. They read 0 otherwise.
+	 * 
+	 * @param stats
+	 *            Statistics of the engine, <code>null</code> to detach them.
+	 */
+	public void setTlsStats (final TlsStats stats) {
+		this.tlsStats = stats;
+	}
+
+	/**
+	 * Sets the shaper of the sent messages, whose delays are reported in
+	 * microseconds. They read 0 without shaper.
+	 * 
+	 * @param shaper
+	 *            Shaper of the session, <code>null</code> to detach it.
+	 */
+	public void setTrafficShaper (final TrafficShaper shaper) {
+		this.shaper = shaper;
+	}
+
+	/**
+	 * Sets the dispatcher passing the received messages to the plugin, whose
+	 * queue depth and dropped messages are reported. They read 0 without
+	 * dispatcher.
+	 * 
+	 * @param dispatcher
+	 *            Dispatcher of the session, <code>null</code> to detach it.
+	 */
+	public void setDispatcher (final ReceiveDispatcher<?, ?> dispatcher) {
+		this.dispatcher = dispatcher;
+	}
+
+	/**
+	 * Counts bytes read from the network.
+	 * 
+	 * @param size
+	 *            Number of bytes.
+	 */
+	public void onReceive (final int size) {
+		this.bytesIn.add(size);
+	}
+
+	/**
+	 * Counts a received message, i.e. a frame passed to the plugin.
+	 */
+	public void onMessage () {
+		this.messagesIn.increment();
+	}
+
+	/**
+	 * Counts a sent message.
+	 * 
+	 * @param size
+	 *            Size of the message in bytes.
+	 */
+	public void onSend (final int size) {
+		this.messagesOut.increment();
+		this.bytesOut.add(size);
+	}
+
+	/**
+	 * Counts an asynchronous send once it completes : as a sent message if it
+	 * succeeds, as an error otherwise.
+	 * 
+	 * @param future
+	 *            Result of the send.
+	 * @param size
+	 *            Size of the message in bytes.
+	 * @return The same future.
+	 */
+	public CompletableFuture<SendResult> onSendAsync (final CompletableFuture<SendResult> future, final int size) {
+		future.whenComplete(new BiConsumer<SendResult, Throwable>() {
+
+			@Override
+			public void accept (SendResult result, Throwable t) {
+				if (t == null) {
+					onSend(size);
+				} else {
+					onError();
+				}
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * Counts an error.
+	 */
+	public void onError () {
+		this.errors.increment();
+	}
+
+	/**
+	 * Counts a timeout.
+	 */
+	public void onTimeout () {
+		this.timeouts.increment();
+	}
+
+	/**
+	 * Returns the registry holding the metrics.
+	 * 
+	 * @return The registry.
+	 */
+	public MetricsRegistry getRegistry () {
+		return this.registry;
+	}
+}
@@ -0,0 +1,263 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.metrics;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.Unbox;
+import org.jls.toolbox.net.Interface;
+
+/**
+ * Logs the traffic of a server or client. Depending on its {@link Mode}, each
+ * message is logged, one message out of a sample rate is logged, or none : in
+ * the last two modes the number of messages and bytes exchanged is logged once
+ * per period instead, so that the log keeps up with any message rate.
+ * <p>
+ * The messages are logged with the parameterized and unboxed calls of the
+ * logger, which allocate nothing when the logger runs garbage-free. The
+ * summaries of all the sessions are written by a single daemon thread.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class TrafficLog {
+
+	/**
+	 * Which messages are logged.
+	 */
+	public enum Mode {
+		/** Every message, without summary */
+		ALL,
+		/** One message out of the sample rate, and the summaries */
+		SAMPLE,
+		/** The summaries only */
+		SUMMARY
+	}
+
+	private static ScheduledExecutorService scheduler;
+
+	private final Logger logger;
+	private final Level level;
+	private final Mode mode;
+	private final int sampleRate;
+	private final long period;
+	private final AtomicLong messagesIn;
+	private final AtomicLong bytesIn;
+	private final AtomicLong messagesOut;
+	private final AtomicLong bytesOut;
+	private ScheduledFuture<?> summary;
+	private String name;
+	private long lastMessagesIn;
+	private long lastBytesIn;
+	private long lastMessagesOut;
+	private long lastBytesOut;
+
+	/**
+	 * Instanciates the traffic log.
+	 * 
+	 * @param logger
+	 *            Logger writing the traffic.
+	 * @param level
+	 *            Level of the messages and of the summaries.
+	 * @param mode
+	 *            Which messages are logged.
+	 * @param sampleRate
+	 *            In {@link Mode#SAMPLE} mode, one message out of this number
+	 *            is logged.
+	 * @param period
+	 *            Period of the summaries in milliseconds.
+	 */
+	public TrafficLog (final Logger logger, final Level level, final Mode mode, final int sampleRate,
+			final long period) {
+		if (sampleRate <= 0) {
+			throw new IllegalArgumentException("Sample rate must be strictly positive : " + sampleRate);
+		}
+		if (period <= 0) {
+			throw new IllegalArgumentException("Period must be strictly positive : " + period);
+		}
+		this.logger = logger;
+		this.level = level;
+		this.mode = mode;
+		this.sampleRate = sampleRate;
+		this.period = period;
+		this.messagesIn = new AtomicLong();
+		this.bytesIn = new AtomicLong();
+		this.messagesOut = new AtomicLong();
+		this.bytesOut = new AtomicLong();
+		this.summary = null;
+		this.name = null;
+	}
+
+	/**
+	 * Starts logging the summaries. Does nothing in {@link Mode#ALL} mode or
+	 * if the summaries are already logged.
+	 * 
+	 * @param sessionName
+	 *            Name of the server or client heading the summaries.
+	 */
+	public synchronized void start (final String sessionName) {
+		this.name = sessionName;
+		if (this.mode != Mode.ALL && this.summary == null) {
+			this.summary = getScheduler().scheduleAtFixedRate(new Runnable() {
+
+				@Override
+				public void run () {
+					logSummary();
+				}
+			}, this.period, this.period, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Stops logging the summaries, after logging the traffic exchanged since
+	 * the last one.
+	 */
+	public synchronized void stop () {
+		if (this.summary != null) {
+			this.summary.cancel(false);
+			this.summary = null;
+			logSummary();
+		}
+	}
+
+	/**
+	 * Counts a received message and logs it if the mode requires it.
+	 * 
+	 * @param com
+	 *            Interface the message is received from.
+	 * @param size
+	 *            Size of the message in bytes.
+	 */
+	public void onReceive (final Interface com, final int size) {
+		long count = this.messagesIn.incrementAndGet();
+		this.bytesIn.addAndGet(size);
+		if (isLogged(count)) {
+			this.logger.log(this.level, "Incoming message from {} ({}:{}), size={} bytes", com.getId(),
+					com.getAddress(), Unbox.box(com.getPort()), Unbox.box(size));
+		}
+	}
+
+	/**
+	 * Counts a message sent to an interface and logs it if the mode requires
+	 * it.
+	 * 
+	 * @param com
+	 *            Interface the message is sent to.
+	 * @param size
+	 *            Size of the message in bytes.
+	 */
+	public void onSend (final Interface com, final int size) {
+		long count = this.messagesOut.incrementAndGet();
+		this.bytesOut.addAndGet(size);
+		if (isLogged(count)) {
+			this.logger.log(this.level, "Sending message to {} ({}:{}), size={} bytes", com.getId(), com.getAddress(),
+					Unbox.box(com.getPort()), Unbox.box(size));
+		}
+	}
+
+	/**
+	 * Counts a message broadcast by a server and logs it if the mode requires
+	 * it. The message counts once whatever the number of clients.
+	 * 
+	 * @param clients
+	 *            Number of clients the message is sent to.
+	 * @param size
+	 *            Size of the message in bytes.
+	 */
+	public void onBroadcast (final int clients, final int size) {
+		long count = this.messagesOut.incrementAndGet();
+		this.bytesOut.addAndGet(size);
+		if (isLogged(count)) {
+			this.logger.log(this.level, "Sending message to {} client(s), size={} bytes", Unbox.box(clients),
+					Unbox.box(size));
+		}
+	}
+
+	/**
+	 * Tells whether the message of the specified rank is logged.
+	 * 
+	 * @param count
+	 *            Rank of the message in its direction, starting at 1.
+	 * @return <code>true</code> if the message is logged.
+	 */
+	boolean isLogged (final long count) {
+		switch (this.mode) {
+			case ALL:
+				return this.logger.isEnabled(this.level);
+			case SAMPLE:
+				return (count - 1) % this.sampleRate == 0 && this.logger.isEnabled(this.level);
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * Logs the traffic exchanged since the last summary, if any.
+	 */
+	private synchronized void logSummary () {
+		long inCount = this.messagesIn.get();
+		long inBytes = this.bytesIn.get();
+		long outCount = this.messagesOut.get();
+		long outBytes = this.bytesOut.get();
+		if (inCount != this.lastMessagesIn || outCount != this.lastMessagesOut) {
+			this.logger.log(this.level, "{} : {} message(s) received ({} bytes), {} message(s) sent ({} bytes)",
+					this.name, Unbox.box(inCount - this.lastMessagesIn), Unbox.box(inBytes - this.lastBytesIn),
+					Unbox.box(outCount - this.lastMessagesOut), Unbox.box(outBytes - this.lastBytesOut));
+		}
+		this.lastMessagesIn = inCount;
+		this.lastBytesIn = inBytes;
+		this.lastMessagesOut = outCount;
+		this.lastBytesOut = outBytes;
+	}
+
+	/**
+	 * Returns the thread logging the summaries of all the sessions, creating
+	 * it on first use.
+	 * 
+	 * @return The scheduler.
+	 */
+	private static synchronized ScheduledExecutorService getScheduler () {
+		if (scheduler == null) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+				@Override
+				public Thread newThread (Runnable r) {
+					Thread thread = new Thread(r, "TrafficLog");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return scheduler;
+	}
+}
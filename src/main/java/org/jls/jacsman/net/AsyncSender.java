@@ -0,0 +1,182 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jls.jacsman.util.Threads;
+
+/**
+ * Sends messages through a blocking sink (e.g. a toolbox client) from a
+ * dedicated thread, so the callers never wait for the network.
+ * <p>
+ * Any number of messages can be in flight : they are queued and written one
+ * after another in their submission order, so they also complete in this
+ * order. The sender thread stops when idle and is restarted by the next
+ * message, so an unused sender holds no thread.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class AsyncSender {
+
+	/**
+	 * Idle time in seconds after which the sender thread stops.
+	 */
+	private static final long KEEP_ALIVE = 30;
+
+	/**
+	 * Blocking write of a message.
+	 */
+	public interface Sink {
+
+		/**
+		 * Writes a message.
+		 * 
+		 * @param msg
+		 *            The message to write, backed by an array holding exactly
+		 *            the message.
+		 * @return Number of bytes written.
+		 * @throws IOException
+		 *             If an error occurred writing the message.
+		 */
+		public int write (ByteBuffer msg) throws IOException;
+	}
+
+	private final Sink sink;
+	private final ThreadPoolExecutor executor;
+	private final AtomicLong submitted;
+	private final AtomicLong completed;
+	private final AtomicInteger inFlight;
+
+	/**
+	 * Instanciates a new sender.
+	 * 
+	 * @param name
+	 *            Name of the sender, used to name its thread.
+	 * @param sink
+	 *            The blocking write.
+	 */
+	public AsyncSender (final String name, final Sink sink) {
+		if (sink == null) {
+			throw new NullPointerException("Sink cannot be null");
+		}
+		this.sink = sink;
+		this.submitted = new AtomicLong();
+		this.completed = new AtomicLong();
+		this.inFlight = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+				Threads.newFactory(name + "-sender-"));
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Queues a message. The remaining bytes of the buffer are copied, so the
+	 * buffer can be reused as soon as the method returns.
+	 * 
+	 * @param msg
+	 *            The message to send.
+	 * @return Future completed once the message has been written, or
+	 *         completed exceptionally with the error of the write.
+	 */
+	public CompletableFuture<SendResult> submit (final ByteBuffer msg) {
+		byte[] copy = new byte[msg.remaining()];
+		msg.duplicate().get(copy);
+		SendTask task = new SendTask(ByteBuffer.wrap(copy), this.submitted.incrementAndGet());
+		this.inFlight.incrementAndGet();
+		this.executor.execute(task);
+		return task.future;
+	}
+
+	/**
+	 * Returns the number of messages queued or being written.
+	 * 
+	 * @return Number of messages in flight.
+	 */
+	public int getInFlight () {
+		return this.inFlight.get();
+	}
+
+	/**
+	 * Fails the queued messages, e.g. when the connection is closed. The
+	 * message being written completes, and the sender remains usable.
+	 */
+	public void cancel () {
+		List<Runnable> queued = new ArrayList<>();
+		this.executor.getQueue().drainTo(queued);
+		for (Runnable r : queued) {
+			((SendTask) r).fail(new IOException("Send cancelled before the message was written"));
+		}
+	}
+
+	/**
+	 * A queued message and its future.
+	 */
+	private final class SendTask implements Runnable {
+
+		private final ByteBuffer data;
+		private final long sequence;
+		private final long start;
+		private final CompletableFuture<SendResult> future;
+
+		public SendTask (final ByteBuffer data, final long sequence) {
+			this.data = data;
+			this.sequence = sequence;
+			this.start = System.nanoTime();
+			this.future = new CompletableFuture<>();
+		}
+
+		@Override
+		public void run () {
+			try {
+				int n = sink.write(this.data);
+				inFlight.decrementAndGet();
+				this.future.complete(new SendResult(this.sequence, n, System.nanoTime() - this.start,
+						completed.incrementAndGet()));
+			} catch (IOException | RuntimeException e) {
+				fail(e);
+			}
+		}
+
+		/**
+		 * Completes the future with an error.
+		 */
+		public void fail (final Throwable t) {
+			inFlight.decrementAndGet();
+			completed.incrementAndGet();
+			this.future.completeExceptionally(t);
+		}
+	}
+}
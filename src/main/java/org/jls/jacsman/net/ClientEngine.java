@@ -0,0 +1,105 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+import org.jls.toolbox.net.Interface;
+
+/**
+ * Network client used by a client tab, whatever its protocol and
+ * implementation.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public interface ClientEngine {
+
+	/**
+	 * Returns the interface describing the remote server.
+	 * 
+	 * @return Client's interface.
+	 */
+	public Interface getInterface ();
+
+	/**
+	 * Sets the listener notified of the client's events. The listener becomes
+	 * the owner of the received messages.
+	 * 
+	 * @param listener
+	 *            The listener.
+	 */
+	public void setListener (EngineListener listener);
+
+	/**
+	 * Starts the client.
+	 * 
+	 * @throws IOException
+	 *             If an error occurred starting the client.
+	 */
+	public void start () throws IOException;
+
+	/**
+	 * Stops the client and closes its connection.
+	 * 
+	 * @throws IOException
+	 *             If an error occurred stopping the client.
+	 */
+	public void stop () throws IOException;
+
+	/**
+	 * Specifies if the client is running.
+	 * 
+	 * @return <code>true</code> if the client is running, <code>false</code>
+	 *         otherwise.
+	 */
+	public boolean isRunning ();
+
+	/**
+	 * Sends a message to the server. The remaining bytes of the buffer are
+	 * sent, its position is not modified and it can be reused as soon as the
+	 * method returns.
+	 * 
+	 * @param msg
+	 *            The message to send.
+	 * @throws IOException
+	 *             If an error occurred sending the message.
+	 */
+	public void send (ByteBuffer msg) throws IOException;
+
+	/**
+	 * Sends a message to the server without waiting for the write. The
+	 * remaining bytes of the buffer are sent, its position is not modified
+	 * and it can be reused as soon as the method returns.
+	 * 
+	 * @param msg
+	 *            The message to send.
+	 * @return Future completed once the message has been written, or
+	 *         completed exceptionally if the write failed.
+	 */
+	public CompletableFuture<SendResult> sendAsync (ByteBuffer msg);
+}
@@ -0,0 +1,70 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.net;
+
+/**
+ * Losses of a datagram engine. UDP does not report the lost datagrams : they
+ * are counted when the kernel drops them because the socket receive buffer is
+ * full, and from the gaps of the sequence numbers the senders write in the
+ * datagrams.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public interface DatagramStats {
+
+	/**
+	 * Returns the number of datagrams received since the engine started.
+	 * 
+	 * @return Number of datagrams.
+	 */
+	public long getReceivedDatagrams ();
+
+	/**
+	 * Returns the number of datagrams missing from the sequence numbers of
+	 * the senders.
+	 * 
+	 * @return Number of missing datagrams, zero if the sequence numbers are
+	 *         not read.
+	 */
+	public long getSequenceGaps ();
+
+	/**
+	 * Returns the number of datagrams received late or twice, i.e. whose
+	 * sequence number is not greater than the last one of their sender.
+	 * 
+	 * @return Number of datagrams out of order.
+	 */
+	public long getOutOfOrder ();
+
+	/**
+	 * Returns the number of datagrams dropped by the kernel on the socket of
+	 * the engine.
+	 * 
+	 * @return Number of dropped datagrams, -1 if the system does not report
+	 *         them.
+	 */
+	public long getKernelDrops ();
+}
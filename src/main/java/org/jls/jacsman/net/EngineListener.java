@@ -0,0 +1,85 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.net;
+
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.toolbox.net.Interface;
+
+/**
+ * Listener notified by a network engine of the events occurring on its
+ * connections.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public interface EngineListener {
+
+	/**
+	 * Notifies that a message has been received. The listener becomes the
+	 * owner of the message buffer and must release it once done.
+	 * 
+	 * @param source
+	 *            Interface of the remote peer that sent the message.
+	 * @param msg
+	 *            The received message.
+	 */
+	public void onReceive (Interface source, PooledBuffer msg);
+
+	/**
+	 * Notifies that a client connected. Only the engines tracking their
+	 * connections call this method.
+	 * 
+	 * @param client
+	 *            Interface of the new client.
+	 */
+	public void onConnect (Interface client);
+
+	/**
+	 * Notifies that a client disconnected. Only the engines tracking their
+	 * connections call this method.
+	 * 
+	 * @param client
+	 *            Interface of the disconnected client.
+	 */
+	public void onDisconnect (Interface client);
+
+	/**
+	 * Notifies that a timeout occurred on an interface.
+	 * 
+	 * @param source
+	 *            Interface on which the timeout occurred.
+	 */
+	public void onTimeout (Interface source);
+
+	/**
+	 * Notifies that an error occurred on an interface.
+	 * 
+	 * @param source
+	 *            Interface on which the error occurred.
+	 * @param t
+	 *            The error.
+	 */
+	public void onException (Interface source, Throwable t);
+}
@@ -0,0 +1,83 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.net;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Reads the number of datagrams dropped by the kernel on the UDP sockets of a
+ * local port. Only Linux reports them, in the last column of
+ * <code>/proc/net/udp</code> and <code>/proc/net/udp6</code>.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+final class KernelDrops {
+
+	private static final File[] TABLES = { new File("/proc/net/udp"), new File("/proc/net/udp6") };
+
+	/**
+	 * Not instanciable.
+	 */
+	private KernelDrops () {
+	}
+
+	/**
+	 * Returns the number of datagrams dropped on the sockets bound to the
+	 * specified port.
+	 * 
+	 * @param port
+	 *            Local port of the sockets.
+	 * @return Number of dropped datagrams, -1 if the system does not report
+	 *         them.
+	 */
+	static long read (final int port) {
+		String hexPort = String.format(":%04X", port);
+		long drops = -1;
+		for (File table : TABLES) {
+			if (!table.canRead()) {
+				continue;
+			}
+			try (BufferedReader reader = Files.newBufferedReader(table.toPath(), StandardCharsets.US_ASCII)) {
+				drops = Math.max(drops, 0);
+				// Skips the header
+				String line = reader.readLine();
+				while ((line = reader.readLine()) != null) {
+					String[] fields = line.trim().split("\\s+");
+					if (fields.length > 12 && fields[1].endsWith(hexPort)) {
+						drops += Long.parseLong(fields[fields.length - 1]);
+					}
+				}
+			} catch (IOException | NumberFormatException e) {
+				// Unreadable table, counted as not reported
+			}
+		}
+		return drops;
+	}
+}
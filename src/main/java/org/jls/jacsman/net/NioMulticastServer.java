@@ -0,0 +1,326 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.net;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.ProtocolFamily;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.toolbox.net.Interface;
+
+/**
+ * Multicast server joining a list of groups on a list of network interfaces.
+ * <p>
+ * Each group has its own channel, bound to the group address so it only
+ * receives the datagrams of this group, and all the channels are served by
+ * the single receive thread of the engine : joining more groups adds no
+ * thread. The received datagrams come from the interface of their group,
+ * named after the group address and port, so the plugins know which feed they
+ * belong to. The sequence numbers are tracked per group.
+ * </p>
+ * <p>
+ * The groups are the clients of the server : they are notified as connected
+ * once joined and as disconnected when the server stops, and the messages
+ * sent by the server are published on them.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class NioMulticastServer extends NioUdpEngine implements ServerEngine {
+
+	private final List<InetSocketAddress> groupAddresses;
+	private final List<String> interfaceNames;
+	private final Map<DatagramChannel, Peer> groupsByChannel;
+	private final Map<Interface, DatagramChannel> channelsByGroup;
+	private final List<Interface> groups;
+
+	/**
+	 * Instanciates a new server.
+	 * 
+	 * @param com
+	 *            Interface of the server.
+	 * @param groups
+	 *            Addresses and ports of the groups to join.
+	 * @param interfaces
+	 *            Names of the network interfaces joining the groups, all the
+	 *            running interfaces supporting multicast if empty.
+	 * @param maxDatagram
+	 *            Size in bytes of the largest datagram received, larger ones
+	 *            are truncated.
+	 * @param pool
+	 *            Pool providing the read buffers.
+	 */
+	public NioMulticastServer (final Interface com, final List<InetSocketAddress> groups,
+			final List<String> interfaces, final int maxDatagram, final BufferPool pool) {
+		super(com, maxDatagram, pool);
+		if (groups.isEmpty()) {
+			throw new IllegalArgumentException("No multicast group to join");
+		}
+		for (InetSocketAddress group : groups) {
+			if (group.isUnresolved() || !group.getAddress().isMulticastAddress()) {
+				throw new IllegalArgumentException("Not a multicast address : " + group);
+			}
+		}
+		this.groupAddresses = new ArrayList<>(groups);
+		this.interfaceNames = new ArrayList<>(interfaces);
+		this.groupsByChannel = new ConcurrentHashMap<>();
+		this.channelsByGroup = new ConcurrentHashMap<>();
+		this.groups = new ArrayList<>();
+	}
+
+	@Override
+	public synchronized void start () throws IOException {
+		if (isRunning()) {
+			return;
+		}
+		super.start();
+		EngineListener l = getListener();
+		for (Interface group : this.groups) {
+			if (l != null) {
+				l.onConnect(group);
+			}
+		}
+	}
+
+	@Override
+	protected List<DatagramChannel> openChannels () throws IOException {
+		List<NetworkInterface> interfaces = getNetworkInterfaces();
+		List<DatagramChannel> channels = new ArrayList<>();
+		try {
+			for (InetSocketAddress group : this.groupAddresses) {
+				DatagramChannel channel = openGroup(group, interfaces);
+				channels.add(channel);
+				Interface com = new Interface(group.getAddress().getHostAddress() + ":" + group.getPort(),
+						group.getAddress().getHostAddress(), group.getPort());
+				this.groupsByChannel.put(channel, new Peer(com, group));
+				this.channelsByGroup.put(com, channel);
+				this.groups.add(com);
+			}
+		} catch (IOException e) {
+			for (DatagramChannel channel : channels) {
+				channel.close();
+			}
+			clearGroups();
+			throw e;
+		}
+		this.logger.info("{} joined {} group(s) on {}", this.com.getId(), channels.size(), interfaces);
+		return channels;
+	}
+
+	/**
+	 * Opens the channel of a group and joins the group on each network
+	 * interface.
+	 * 
+	 * @param group
+	 *            Address and port of the group.
+	 * @param interfaces
+	 *            Network interfaces joining the group.
+	 * @return The channel, in blocking mode.
+	 * @throws IOException
+	 *             If the group cannot be joined.
+	 */
+	private DatagramChannel openGroup (final InetSocketAddress group, final List<NetworkInterface> interfaces)
+			throws IOException {
+		ProtocolFamily family = group.getAddress() instanceof Inet4Address ? StandardProtocolFamily.INET
+				: StandardProtocolFamily.INET6;
+		DatagramChannel channel = DatagramChannel.open(family);
+		try {
+			channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+			try {
+				// Bound to the group, the channel only receives the datagrams sent to it
+				channel.bind(group);
+			} catch (IOException e) {
+				// Not supported by Windows : the groups sharing a port are not told apart
+				this.logger.warn("Cannot bind to group {}, listening on any address of port {}", group,
+						group.getPort());
+				channel.bind(new InetSocketAddress(group.getPort()));
+			}
+			for (NetworkInterface nif : interfaces) {
+				channel.join(group.getAddress(), nif);
+			}
+			channel.setOption(StandardSocketOptions.IP_MULTICAST_IF, interfaces.get(0));
+		} catch (IOException e) {
+			channel.close();
+			throw new IOException("Failed to join group " + group + " : " + e.getMessage(), e);
+		}
+		return channel;
+	}
+
+	/**
+	 * Returns the network interfaces joining the groups.
+	 * 
+	 * @return The configured interfaces, or all the running interfaces
+	 *         supporting multicast if none is configured.
+	 * @throws IOException
+	 *             If a configured interface does not exist, or if no
+	 *             interface supports multicast.
+	 */
+	private List<NetworkInterface> getNetworkInterfaces () throws IOException {
+		List<NetworkInterface> interfaces = new ArrayList<>();
+		for (String name : this.interfaceNames) {
+			NetworkInterface nif = NetworkInterface.getByName(name);
+			if (nif == null) {
+				throw new IOException("Unknown network interface : " + name);
+			}
+			interfaces.add(nif);
+		}
+		if (interfaces.isEmpty()) {
+			Enumeration<NetworkInterface> all = NetworkInterface.getNetworkInterfaces();
+			while (all != null && all.hasMoreElements()) {
+				NetworkInterface nif = all.nextElement();
+				if (nif.isUp() && nif.supportsMulticast()) {
+					interfaces.add(nif);
+				}
+			}
+			if (interfaces.isEmpty()) {
+				throw new IOException("No network interface supporting multicast");
+			}
+		}
+		return interfaces;
+	}
+
+	@Override
+	protected Peer getPeer (final DatagramChannel channel, final SocketAddress source) {
+		return this.groupsByChannel.get(channel);
+	}
+
+	@Override
+	protected void onStop () {
+		EngineListener l = getListener();
+		for (Interface group : this.groups) {
+			if (l != null) {
+				l.onDisconnect(group);
+			}
+		}
+		clearGroups();
+	}
+
+	/**
+	 * Forgets the joined groups.
+	 */
+	private void clearGroups () {
+		this.groupsByChannel.clear();
+		this.channelsByGroup.clear();
+		this.groups.clear();
+	}
+
+	/**
+	 * Returns the joined groups.
+	 * 
+	 * @return Interfaces of the groups, named after their address and port.
+	 */
+	@Override
+	public List<Interface> getClients () {
+		return isRunning() ? Collections.unmodifiableList(new ArrayList<>(this.channelsByGroup.keySet()))
+				: Collections.<Interface> emptyList();
+	}
+
+	/**
+	 * Publishes a message on all the joined groups.
+	 */
+	@Override
+	public void send (final ByteBuffer msg) throws IOException {
+		if (this.groupsByChannel.isEmpty()) {
+			throw new NoClientException("No group joined by " + this.com.getId());
+		}
+		for (Map.Entry<DatagramChannel, Peer> e : this.groupsByChannel.entrySet()) {
+			sendTo(e.getKey(), msg, e.getValue().getAddress());
+		}
+	}
+
+	/**
+	 * Publishes a message on a group.
+	 */
+	@Override
+	public void send (final Interface group, final ByteBuffer msg) throws IOException {
+		sendTo(getChannel(group), msg, new InetSocketAddress(group.getAddress(), group.getPort()));
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (final ByteBuffer msg) {
+		if (this.groupsByChannel.isEmpty()) {
+			CompletableFuture<SendResult> future = new CompletableFuture<>();
+			future.completeExceptionally(new NoClientException("No group joined by " + this.com.getId()));
+			return future;
+		}
+		CompletableFuture<SendResult> result = null;
+		for (Map.Entry<DatagramChannel, Peer> e : this.groupsByChannel.entrySet()) {
+			result = sendAsyncTo(e.getKey(), msg, e.getValue().getAddress());
+			if (result.isCompletedExceptionally()) {
+				break;
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (final Interface group, final ByteBuffer msg) {
+		try {
+			return sendAsyncTo(getChannel(group), msg, new InetSocketAddress(group.getAddress(), group.getPort()));
+		} catch (NoClientException e) {
+			CompletableFuture<SendResult> future = new CompletableFuture<>();
+			future.completeExceptionally(e);
+			return future;
+		}
+	}
+
+	/**
+	 * Returns the channel of a group.
+	 * 
+	 * @param group
+	 *            The group.
+	 * @return The channel of the group.
+	 * @throws NoClientException
+	 *             If the group is not joined by the server.
+	 */
+	private DatagramChannel getChannel (final Interface group) throws NoClientException {
+		DatagramChannel channel = this.channelsByGroup.get(group);
+		if (channel == null) {
+			throw new NoClientException("Group " + group.getId() + " not joined by " + this.com.getId());
+		}
+		return channel;
+	}
+
+	@Override
+	public String toString () {
+		return this.com.getId();
+	}
+}
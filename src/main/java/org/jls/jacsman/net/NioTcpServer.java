@@ -0,0 +1,873 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.toolbox.net.Interface;
+
+/**
+ * Non-blocking TCP server built on {@link Selector}s. A dedicated thread
+ * accepts the incoming connections and hands them in a round-robin way to a
+ * fixed set of event loops. Each event loop serves all its connections with a
+ * single selector, so a few threads are enough to serve thousands of clients.
+ * <p>
+ * Outgoing messages are queued per connection and written by the event loop
+ * owning the connection, so a slow client never blocks the sender nor the
+ * other clients. A message can be broadcast or sent to a single client. When
+ * the bytes queued for a client exceed the lag limit, the
+ * {@link SlowConsumerPolicy} decides whether the new messages are dropped for
+ * this client or the client is disconnected.
+ * </p>
+ * <p>
+ * Buffers come from a {@link BufferPool}. Large reads are handed to the
+ * listener in the buffer they were read into, small ones are copied to a
+ * buffer of their size so the read buffer can be reused. An outgoing message
+ * is copied once into a pooled buffer shared by all the clients.
+ * </p>
+ * <p>
+ * The futures returned by the asynchronous sends complete when the message
+ * has been written to the socket of every recipient, so many messages can be
+ * in flight without any thread waiting for them.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class NioTcpServer implements ServerEngine {
+
+	private static final int BACKLOG = 1024;
+
+	private final Interface com;
+	private final Logger logger;
+	private final BufferPool pool;
+	private final ConcurrentHashMap<Interface, Connection> connections;
+	private final AtomicInteger clientCount;
+	private final AtomicLong dropped;
+	private final AtomicLong sendSequence;
+	private final AtomicLong sendCompletions;
+	private final int nbLoops;
+	private final int bufferSize;
+
+	private volatile boolean noDelay;
+	private volatile long maxLag;
+	private volatile SlowConsumerPolicy slowConsumerPolicy;
+
+	private volatile EngineListener listener;
+	private volatile boolean running;
+	private ServerSocketChannel serverChannel;
+	private Selector acceptSelector;
+	private Thread acceptThread;
+	private EventLoop[] loops;
+	private int nextLoop;
+
+	/**
+	 * Instanciates a new server.
+	 * 
+	 * @param com
+	 *            Server's interface, only the port is used : the server
+	 *            listens on all the local addresses.
+	 * @param nbLoops
+	 *            Number of event loops serving the connections. If lower or
+	 *            equal to zero, the number of available processors is used.
+	 * @param bufferSize
+	 *            Size in bytes of the read buffer of each event loop.
+	 * @param pool
+	 *            Pool providing the read and write buffers.
+	 */
+	public NioTcpServer (final Interface com, final int nbLoops, final int bufferSize, final BufferPool pool) {
+		if (com == null || pool == null) {
+			throw new NullPointerException("Interface and pool cannot be null");
+		}
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("Buffer size must be positive : " + bufferSize);
+		}
+		this.com = com;
+		this.logger = LogManager.getLogger();
+		this.pool = pool;
+		this.listener = null;
+		this.connections = new ConcurrentHashMap<>();
+		this.clientCount = new AtomicInteger();
+		this.dropped = new AtomicLong();
+		this.sendSequence = new AtomicLong();
+		this.sendCompletions = new AtomicLong();
+		this.noDelay = true;
+		this.maxLag = 0;
+		this.slowConsumerPolicy = SlowConsumerPolicy.DROP;
+		this.nbLoops = nbLoops > 0 ? nbLoops : Runtime.getRuntime().availableProcessors();
+		this.bufferSize = bufferSize;
+		this.running = false;
+	}
+
+	@Override
+	public Interface getInterface () {
+		return this.com;
+	}
+
+	@Override
+	public void setListener (final EngineListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Enables or disables Nagle's algorithm on the connections accepted from
+	 * now on.
+	 * 
+	 * @param noDelay
+	 *            <code>true</code> to send the segments without waiting for
+	 *            the acknowledgement of the previous ones (TCP_NODELAY).
+	 */
+	public void setNoDelay (final boolean noDelay) {
+		this.noDelay = noDelay;
+	}
+
+	/**
+	 * Sets the maximum number of bytes queued for a client, and what happens
+	 * to a client exceeding it.
+	 * 
+	 * @param maxLag
+	 *            Maximum number of bytes waiting to be written to a client,
+	 *            lower or equal to zero for no limit.
+	 * @param policy
+	 *            Behaviour when a client exceeds the limit.
+	 */
+	public void setLagLimit (final long maxLag, final SlowConsumerPolicy policy) {
+		if (policy == null) {
+			throw new NullPointerException("Policy cannot be null");
+		}
+		this.maxLag = maxLag;
+		this.slowConsumerPolicy = policy;
+	}
+
+	@Override
+	public synchronized void start () throws IOException {
+		if (this.running) {
+			return;
+		}
+		this.serverChannel = ServerSocketChannel.open();
+		this.serverChannel.configureBlocking(false);
+		this.serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+		this.serverChannel.bind(new InetSocketAddress(this.com.getPort()), BACKLOG);
+		this.acceptSelector = Selector.open();
+		this.serverChannel.register(this.acceptSelector, SelectionKey.OP_ACCEPT);
+
+		this.running = true;
+		this.loops = new EventLoop[this.nbLoops];
+		for (int i = 0; i < this.loops.length; i++) {
+			this.loops[i] = new EventLoop(this.com.getId() + "-loop-" + i);
+			this.loops[i].start();
+		}
+		this.acceptThread = new Thread(new Runnable() {
+
+			@Override
+			public void run () {
+				acceptLoop();
+			}
+		}, this.com.getId() + "-accept");
+		this.acceptThread.setDaemon(true);
+		this.acceptThread.start();
+		this.logger.info("{} listening on port {} with {} event loops", this.com.getId(), this.com.getPort(),
+				this.loops.length);
+	}
+
+	@Override
+	public synchronized void stop () throws IOException {
+		if (!this.running) {
+			return;
+		}
+		this.running = false;
+		this.acceptSelector.wakeup();
+		this.serverChannel.close();
+		for (EventLoop loop : this.loops) {
+			loop.wakeup();
+		}
+		try {
+			this.acceptThread.join(1000);
+			for (EventLoop loop : this.loops) {
+				loop.join(1000);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		// The connections of a loop still running are closed by the loop when it exits
+		for (Connection c : this.connections.values()) {
+			if (c.loop.isTerminated()) {
+				close(c);
+			}
+		}
+		this.acceptSelector.close();
+	}
+
+	@Override
+	public boolean isRunning () {
+		return this.running;
+	}
+
+	@Override
+	public List<Interface> getClients () {
+		return new ArrayList<>(this.connections.keySet());
+	}
+
+	@Override
+	public void send (final ByteBuffer msg) throws IOException {
+		if (this.connections.isEmpty()) {
+			throw new NoClientException("No client connected to " + this.com.getId());
+		}
+		broadcast(msg, null);
+	}
+
+	@Override
+	public void send (final Interface client, final ByteBuffer msg) throws IOException {
+		Connection c = this.connections.get(client);
+		if (c == null) {
+			throw new NoClientException("Client " + client.getId() + " not connected to " + this.com.getId());
+		}
+		c.send(copy(msg), null);
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (final ByteBuffer msg) {
+		Pending pending = new Pending();
+		if (this.connections.isEmpty()) {
+			pending.future.completeExceptionally(new NoClientException("No client connected to " + this.com.getId()));
+			return pending.future;
+		}
+		broadcast(msg, pending);
+		return pending.future;
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (final Interface client, final ByteBuffer msg) {
+		Pending pending = new Pending();
+		Connection c = this.connections.get(client);
+		if (c == null) {
+			pending.future.completeExceptionally(
+					new NoClientException("Client " + client.getId() + " not connected to " + this.com.getId()));
+			return pending.future;
+		}
+		pending.add();
+		c.send(copy(msg), pending);
+		pending.done(0);
+		return pending.future;
+	}
+
+	/**
+	 * Returns the number of connected clients.
+	 * 
+	 * @return Number of connected clients.
+	 */
+	public int getClientCount () {
+		return this.connections.size();
+	}
+
+	/**
+	 * Returns the number of bytes waiting to be written to a client.
+	 * 
+	 * @param client
+	 *            The client.
+	 * @return Lag of the client in bytes, zero if it is not connected.
+	 */
+	public long getLag (final Interface client) {
+		Connection c = this.connections.get(client);
+		return c != null ? c.queuedBytes.get() : 0;
+	}
+
+	/**
+	 * Returns the number of messages dropped for slow clients since the
+	 * creation of the server.
+	 * 
+	 * @return Number of dropped messages.
+	 */
+	public long getDroppedCount () {
+		return this.dropped.get();
+	}
+
+	/**
+	 * Queues a message for all the connected clients.
+	 * 
+	 * @param msg
+	 *            The message, its position is not modified.
+	 * @param pending
+	 *            Tracker of the writes, <code>null</code> if not tracked.
+	 */
+	private void broadcast (final ByteBuffer msg, final Pending pending) {
+		PooledBuffer data = copy(msg);
+		try {
+			for (Connection c : this.connections.values()) {
+				if (pending != null) {
+					pending.add();
+				}
+				c.send(data.retain(), pending);
+			}
+		} finally {
+			data.release();
+			if (pending != null) {
+				// Releases the guard of the tracker
+				pending.done(0);
+			}
+		}
+	}
+
+	/**
+	 * Copies the remaining bytes of a message to a pooled buffer, without
+	 * modifying its position.
+	 */
+	private PooledBuffer copy (final ByteBuffer msg) {
+		int pos = msg.position();
+		PooledBuffer data = this.pool.copyOf(msg);
+		msg.position(pos);
+		return data;
+	}
+
+	/**
+	 * Accepts the incoming connections until the server is stopped.
+	 */
+	private void acceptLoop () {
+		while (this.running) {
+			try {
+				this.acceptSelector.select();
+				this.acceptSelector.selectedKeys().clear();
+				SocketChannel channel;
+				while ((channel = this.serverChannel.accept()) != null) {
+					accept(channel);
+				}
+			} catch (ClosedSelectorException e) {
+				break;
+			} catch (IOException e) {
+				if (this.running) {
+					this.logger.error("An error occurred accepting connection on {}", this.com.getId(), e);
+					fireException(this.com, e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Configures a new connection and hands it to an event loop.
+	 * 
+	 * @param channel
+	 *            The accepted channel.
+	 */
+	private void accept (final SocketChannel channel) {
+		try {
+			channel.configureBlocking(false);
+			channel.setOption(StandardSocketOptions.TCP_NODELAY, this.noDelay);
+			InetSocketAddress remote = (InetSocketAddress) channel.getRemoteAddress();
+			Interface client = new Interface("Client" + this.clientCount.incrementAndGet(),
+					remote.getAddress().getHostAddress(), remote.getPort());
+			EventLoop loop = this.loops[this.nextLoop];
+			this.nextLoop = (this.nextLoop + 1) % this.loops.length;
+			Connection c = new Connection(channel, client, loop);
+			loop.register(c);
+			this.connections.put(client, c);
+			this.logger.debug("Client {} connected to {}", client.getId(), this.com.getId());
+			EngineListener l = this.listener;
+			if (l != null) {
+				l.onConnect(client);
+			}
+		} catch (IOException e) {
+			this.logger.error("An error occurred configuring connection on {}", this.com.getId(), e);
+			try {
+				channel.close();
+			} catch (IOException e1) {
+				this.logger.debug("Failed to close channel", e1);
+			}
+		}
+	}
+
+	/**
+	 * Closes a connection and forgets it.
+	 * 
+	 * @param c
+	 *            The connection to close.
+	 */
+	private void close (final Connection c) {
+		// Stops the senders from queuing new messages
+		c.closing = true;
+		if (this.connections.remove(c.client, c)) {
+			this.logger.debug("Client {} disconnected from {}", c.client.getId(), this.com.getId());
+			EngineListener l = this.listener;
+			if (l != null) {
+				l.onDisconnect(c.client);
+			}
+		}
+		if (c.key != null) {
+			c.key.cancel();
+		}
+		c.discard();
+		try {
+			c.channel.close();
+		} catch (IOException e) {
+			this.logger.debug("Failed to close channel of {}", c.client.getId(), e);
+		}
+	}
+
+	/**
+	 * Notifies the listeners that a message has been received.
+	 * 
+	 * @param source
+	 *            Client that sent the message.
+	 * @param msg
+	 *            The message.
+	 */
+	private void fireReceive (final Interface source, final PooledBuffer msg) {
+		EngineListener l = this.listener;
+		if (l == null) {
+			msg.release();
+			return;
+		}
+		try {
+			l.onReceive(source, msg);
+		} catch (RuntimeException e) {
+			this.logger.error("Listener failed to handle message from {}", source.getId(), e);
+		}
+	}
+
+	/**
+	 * Notifies the listeners that an error occurred.
+	 * 
+	 * @param source
+	 *            Interface on which the error occurred.
+	 * @param t
+	 *            The error.
+	 */
+	private void fireException (final Interface source, final Throwable t) {
+		EngineListener l = this.listener;
+		if (l != null) {
+			l.onException(source, t);
+		}
+	}
+
+	@Override
+	public String toString () {
+		return this.com.getId();
+	}
+
+	/**
+	 * A client connection and its queue of outgoing messages.
+	 */
+	private final class Connection {
+
+		private final SocketChannel channel;
+		private final Interface client;
+		private final EventLoop loop;
+		private final Queue<Write> outbound;
+		private final AtomicBoolean writePending;
+		private final AtomicLong queuedBytes;
+		private final AtomicBoolean lagging;
+		private volatile boolean closing;
+		private SelectionKey key;
+
+		public Connection (final SocketChannel channel, final Interface client, final EventLoop loop) {
+			this.channel = channel;
+			this.client = client;
+			this.loop = loop;
+			this.outbound = new ConcurrentLinkedQueue<>();
+			this.writePending = new AtomicBoolean(false);
+			this.queuedBytes = new AtomicLong();
+			this.lagging = new AtomicBoolean(false);
+			this.closing = false;
+			this.key = null;
+		}
+
+		/**
+		 * Queues a message and asks the event loop to write it. The
+		 * connection becomes an owner of the buffer.
+		 * 
+		 * @param data
+		 *            The message to send, already retained for this
+		 *            connection.
+		 * @param pending
+		 *            Tracker of the write, <code>null</code> if not tracked.
+		 */
+		public void send (final PooledBuffer data, final Pending pending) {
+			if (this.closing) {
+				data.release();
+				if (pending != null) {
+					pending.fail();
+				}
+				return;
+			}
+			long limit = maxLag;
+			if (limit > 0 && this.queuedBytes.get() + data.size() > limit) {
+				data.release();
+				if (pending != null) {
+					pending.fail();
+				}
+				slowConsumer();
+				return;
+			}
+			this.queuedBytes.addAndGet(data.size());
+			this.outbound.add(new Write(data, pending));
+			if (this.closing) {
+				// Closed while queuing, the queue may have been drained already : only the event loop drains it
+				this.loop.scheduleWrite(this);
+			} else if (this.writePending.compareAndSet(false, true)) {
+				this.loop.scheduleWrite(this);
+			}
+		}
+
+		/**
+		 * Releases the queued messages of a closed connection and fails their
+		 * trackers. Called by the event loop of the connection, or once it
+		 * has exited.
+		 */
+		private void discard () {
+			Write w;
+			while ((w = this.outbound.poll()) != null) {
+				this.queuedBytes.addAndGet(-w.size);
+				w.owner.release();
+				if (w.pending != null) {
+					w.pending.fail();
+				}
+			}
+		}
+
+		/**
+		 * Applies the slow consumer policy to this connection.
+		 */
+		private void slowConsumer () {
+			if (slowConsumerPolicy == SlowConsumerPolicy.DISCONNECT) {
+				if (!this.closing) {
+					this.closing = true;
+					logger.warn("Client {} too slow ({} bytes queued), disconnecting it", this.client.getId(),
+							this.queuedBytes.get());
+					// Closed by its event loop, which may be writing to it
+					this.loop.scheduleWrite(this);
+				}
+			} else {
+				dropped.incrementAndGet();
+				if (this.lagging.compareAndSet(false, true)) {
+					logger.warn("Client {} too slow ({} bytes queued), dropping messages until it catches up",
+							this.client.getId(), this.queuedBytes.get());
+				}
+			}
+		}
+	}
+
+	/**
+	 * A message waiting to be written to a connection.
+	 */
+	private static final class Write {
+
+		private final ByteBuffer data;
+		private final PooledBuffer owner;
+		private final int size;
+		private final Pending pending;
+
+		public Write (final PooledBuffer owner, final Pending pending) {
+			this.data = owner.buffer().duplicate();
+			this.owner = owner;
+			this.size = this.data.remaining();
+			this.pending = pending;
+		}
+	}
+
+	/**
+	 * Tracker of an asynchronous send, completing its future once every
+	 * recipient has written or discarded the message.
+	 */
+	private final class Pending {
+
+		private final CompletableFuture<SendResult> future;
+		private final long sequence;
+		private final long start;
+		/**
+		 * Writes not done yet, plus a guard released once all the writes are
+		 * queued.
+		 */
+		private final AtomicInteger remaining;
+		private final AtomicInteger failed;
+		private final AtomicInteger targets;
+		private final AtomicLong bytes;
+
+		public Pending () {
+			this.future = new CompletableFuture<>();
+			this.sequence = sendSequence.incrementAndGet();
+			this.start = System.nanoTime();
+			this.remaining = new AtomicInteger(1);
+			this.failed = new AtomicInteger();
+			this.targets = new AtomicInteger();
+			this.bytes = new AtomicLong();
+		}
+
+		/**
+		 * Adds a recipient.
+		 */
+		public void add () {
+			this.targets.incrementAndGet();
+			this.remaining.incrementAndGet();
+		}
+
+		/**
+		 * Notifies that the message has been written to a recipient.
+		 */
+		public void done (final int size) {
+			this.bytes.addAndGet(size);
+			if (this.remaining.decrementAndGet() == 0) {
+				long latency = System.nanoTime() - this.start;
+				if (this.failed.get() == this.targets.get()) {
+					this.future.completeExceptionally(new IOException("Message not written to any client"));
+				} else {
+					this.future.complete(
+							new SendResult(this.sequence, this.bytes.get(), latency, sendCompletions.incrementAndGet()));
+				}
+			}
+		}
+
+		/**
+		 * Notifies that the message has been discarded for a recipient.
+		 */
+		public void fail () {
+			this.failed.incrementAndGet();
+			done(0);
+		}
+	}
+
+	/**
+	 * Thread serving a set of connections with a single selector.
+	 */
+	private final class EventLoop implements Runnable {
+
+		private final Selector selector;
+		private final Queue<Connection> registrations;
+		private final Queue<Connection> writes;
+		private final Thread thread;
+		private volatile boolean terminated;
+		private PooledBuffer readBuffer;
+
+		public EventLoop (final String name) throws IOException {
+			this.selector = Selector.open();
+			this.registrations = new ConcurrentLinkedQueue<>();
+			this.writes = new ConcurrentLinkedQueue<>();
+			this.readBuffer = pool.acquire(bufferSize);
+			this.thread = new Thread(this, name);
+			this.thread.setDaemon(true);
+			this.terminated = false;
+		}
+
+		public void start () {
+			this.thread.start();
+		}
+
+		public void wakeup () {
+			this.selector.wakeup();
+		}
+
+		public void join (final long millis) throws InterruptedException {
+			this.thread.join(millis);
+		}
+
+		/**
+		 * Tells whether the loop has exited : its connections are no longer
+		 * written, so their queues can be drained by any thread.
+		 */
+		public boolean isTerminated () {
+			return this.terminated;
+		}
+
+		public void register (final Connection c) {
+			this.registrations.add(c);
+			this.selector.wakeup();
+		}
+
+		public void scheduleWrite (final Connection c) {
+			if (Thread.currentThread() == this.thread) {
+				flush(c);
+			} else {
+				this.writes.add(c);
+				this.selector.wakeup();
+				if (this.terminated) {
+					// Scheduled after the loop exited
+					closeScheduled();
+				}
+			}
+		}
+
+		/**
+		 * Closes the connections waiting for a write, once the loop has
+		 * exited.
+		 */
+		private void closeScheduled () {
+			Connection c;
+			while ((c = this.writes.poll()) != null) {
+				close(c);
+			}
+		}
+
+		@Override
+		public void run () {
+			while (running) {
+				try {
+					this.selector.select();
+					Connection c;
+					while ((c = this.registrations.poll()) != null) {
+						try {
+							c.key = c.channel.register(this.selector, SelectionKey.OP_READ, c);
+						} catch (IOException e) {
+							logger.debug("Failed to register {}", c.client.getId(), e);
+							close(c);
+						}
+					}
+					// Only drains the writes already queued, a flush may queue again
+					for (int i = this.writes.size(); i > 0 && (c = this.writes.poll()) != null; i--) {
+						flush(c);
+					}
+					Iterator<SelectionKey> it = this.selector.selectedKeys().iterator();
+					while (it.hasNext()) {
+						SelectionKey key = it.next();
+						it.remove();
+						c = (Connection) key.attachment();
+						if (key.isValid() && key.isReadable()) {
+							read(c);
+						}
+						if (key.isValid() && key.isWritable()) {
+							flush(c);
+						}
+					}
+				} catch (ClosedSelectorException e) {
+					break;
+				} catch (IOException e) {
+					logger.error("An error occurred in event loop {}", this.thread.getName(), e);
+					fireException(com, e);
+				}
+			}
+			// No more flushes : the queues of the connections can now be drained by any thread
+			this.terminated = true;
+			closeScheduled();
+			for (Connection c : connections.values()) {
+				if (c.loop == this) {
+					close(c);
+				}
+			}
+			Connection c;
+			while ((c = this.registrations.poll()) != null) {
+				close(c);
+			}
+			this.readBuffer.release();
+			try {
+				this.selector.close();
+			} catch (IOException e) {
+				logger.debug("Failed to close selector", e);
+			}
+		}
+
+		/**
+		 * Reads the available bytes of a connection and notifies the
+		 * listeners.
+		 */
+		private void read (final Connection c) {
+			ByteBuffer buf = this.readBuffer.buffer();
+			buf.clear();
+			int n;
+			try {
+				n = c.channel.read(buf);
+			} catch (IOException e) {
+				logger.debug("Read failed on {}", c.client.getId(), e);
+				n = -1;
+			}
+			if (n < 0) {
+				close(c);
+			} else if (n > 0) {
+				buf.flip();
+				PooledBuffer msg;
+				if (n >= bufferSize / 2) {
+					// Hands over the read buffer itself
+					msg = this.readBuffer;
+					this.readBuffer = pool.acquire(bufferSize);
+				} else {
+					msg = pool.copyOf(buf);
+				}
+				fireReceive(c.client, msg);
+			}
+		}
+
+		/**
+		 * Writes the queued messages of a connection until the queue is
+		 * empty or the socket buffer is full.
+		 */
+		private void flush (final Connection c) {
+			if (c.closing || !c.channel.isOpen()) {
+				close(c);
+				return;
+			}
+			if (c.key == null || !c.key.isValid()) {
+				// Not registered yet : the write will be retried later
+				if (c.channel.isOpen()) {
+					this.writes.add(c);
+				}
+				return;
+			}
+			try {
+				do {
+					Write w;
+					while ((w = c.outbound.peek()) != null) {
+						c.channel.write(w.data);
+						if (w.data.hasRemaining()) {
+							c.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+							return;
+						}
+						c.outbound.poll();
+						c.queuedBytes.addAndGet(-w.size);
+						w.owner.release();
+						if (w.pending != null) {
+							w.pending.done(w.size);
+						}
+					}
+					if (c.lagging.compareAndSet(true, false)) {
+						logger.info("Client {} caught up", c.client.getId());
+					}
+					c.key.interestOps(SelectionKey.OP_READ);
+					c.writePending.set(false);
+				} while (!c.outbound.isEmpty() && c.writePending.compareAndSet(false, true));
+			} catch (IOException e) {
+				logger.debug("Write failed on {}", c.client.getId(), e);
+				close(c);
+			}
+		}
+	}
+}
@@ -0,0 +1,212 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLParameters;
+
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.toolbox.net.Interface;
+
+/**
+ * TLS client served by the thread of its selector. {@link #start()} returns
+ * once the handshake has completed : a client reconnecting to the same
+ * server with the same {@link SSLContext} resumes its previous session.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class NioTlsClient extends NioTlsEngine implements ClientEngine {
+
+	private long handshakeTimeout;
+	private boolean noDelay;
+	private boolean verifyHost;
+	private volatile Connection connection;
+	private volatile CompletableFuture<Void> handshake;
+
+	/**
+	 * Instanciates a new client, waiting 10 seconds at most for the
+	 * handshake.
+	 * 
+	 * @param com
+	 *            Address and port of the server.
+	 * @param context
+	 *            Context holding the trusted certificates and caching the
+	 *            sessions.
+	 * @param pool
+	 *            Pool providing the buffers of the received messages.
+	 */
+	public NioTlsClient (final Interface com, final SSLContext context, final BufferPool pool) {
+		super(com, context, pool);
+		this.handshakeTimeout = 10000;
+		this.noDelay = true;
+		this.verifyHost = true;
+		this.connection = null;
+		this.handshake = null;
+	}
+
+	/**
+	 * Specifies how long {@link #start()} waits for the handshake. Takes
+	 * effect at the next start.
+	 * 
+	 * @param timeout
+	 *            Timeout in milliseconds.
+	 */
+	public synchronized void setHandshakeTimeout (final long timeout) {
+		if (timeout <= 0) {
+			throw new IllegalArgumentException("Handshake timeout must be positive : " + timeout);
+		}
+		this.handshakeTimeout = timeout;
+	}
+
+	/**
+	 * Enables or disables the check that the certificate of the server
+	 * matches its configured host name. Takes effect at the next start.
+	 * 
+	 * @param verifyHost
+	 *            <code>true</code> to reject a certificate issued to another
+	 *            host.
+	 */
+	public synchronized void setVerifyHost (final boolean verifyHost) {
+		this.verifyHost = verifyHost;
+	}
+
+	/**
+	 * Enables or disables Nagle's algorithm. Takes effect at the next start.
+	 * 
+	 * @param noDelay
+	 *            <code>true</code> to send the segments without waiting.
+	 */
+	public synchronized void setNoDelay (final boolean noDelay) {
+		this.noDelay = noDelay;
+	}
+
+	@Override
+	public synchronized void start () throws IOException {
+		if (isRunning()) {
+			return;
+		}
+		super.start();
+		try {
+			this.handshake.get(this.handshakeTimeout, TimeUnit.MILLISECONDS);
+		} catch (ExecutionException e) {
+			stop();
+			throw new IOException("Handshake with " + this.com.getId() + " failed : " + e.getCause().getMessage(),
+					e.getCause());
+		} catch (TimeoutException e) {
+			stop();
+			throw new IOException("Handshake with " + this.com.getId() + " timed out after "
+					+ this.handshakeTimeout + " ms");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			stop();
+			throw new IOException("Interrupted during handshake with " + this.com.getId());
+		}
+	}
+
+	@Override
+	protected void open (final Selector selector) throws IOException {
+		SocketChannel channel = SocketChannel.open();
+		try {
+			channel.connect(new InetSocketAddress(this.com.getAddress(), this.com.getPort()));
+			this.handshake = new CompletableFuture<>();
+			// The host name as configured, checked against the certificate and finding the session to resume
+			String host = new InetSocketAddress(this.com.getAddress(), this.com.getPort()).getHostString();
+			SSLEngine engine = createEngine(true, host, this.com.getPort());
+			if (this.verifyHost) {
+				SSLParameters params = engine.getSSLParameters();
+				params.setEndpointIdentificationAlgorithm("HTTPS");
+				engine.setSSLParameters(params);
+			}
+			this.connection = register(channel, engine, this.com, this.noDelay);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	@Override
+	public void send (final ByteBuffer msg) throws IOException {
+		Connection c = this.connection;
+		if (!isRunning() || c == null || c.isClosed()) {
+			throw new IOException(this.com.getId() + " is not connected");
+		}
+		enqueue(c, copy(msg), null);
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (final ByteBuffer msg) {
+		Connection c = this.connection;
+		if (!isRunning() || c == null || c.isClosed()) {
+			return failed(new IOException(this.com.getId() + " is not connected"));
+		}
+		ByteBuffer data = copy(msg);
+		Pending pending = newPending(data.remaining(), 1);
+		enqueue(c, data, pending);
+		return pending.getFuture();
+	}
+
+	@Override
+	protected void onHandshake (final Connection c) {
+		this.handshake.complete(null);
+	}
+
+	@Override
+	protected void onClose (final Connection c, final Throwable cause) {
+		CompletableFuture<Void> h = this.handshake;
+		if (!h.isDone()) {
+			h.completeExceptionally(cause != null ? cause : new IOException("Connection closed by the server"));
+			return;
+		}
+		if (isRunning()) {
+			this.logger.info("Connection to {} closed by the server", this.com.getId());
+			try {
+				stop();
+			} catch (IOException e) {
+				this.logger.debug("Failed to stop {}", this.com.getId(), e);
+			}
+			EngineListener l = getListener();
+			if (l != null) {
+				l.onDisconnect(this.com);
+			}
+		}
+	}
+
+	@Override
+	public String toString () {
+		return this.com.getId();
+	}
+}
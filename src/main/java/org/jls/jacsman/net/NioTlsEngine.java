@@ -0,0 +1,701 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.net;
+
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.jacsman.latency.LatencyHistogram;
+import org.jls.toolbox.net.Interface;
+
+/**
+ * Base of the TLS engines, built on {@link SSLEngine}s over non-blocking
+ * {@link SocketChannel}s.
+ * <p>
+ * A single thread serves all the connections of the engine through one
+ * selector : it runs the handshakes, decrypts the received bytes and
+ * encrypts the queued messages, so no thread ever waits for a peer. The
+ * messages sent by the other threads are queued per connection and written
+ * by this thread once the handshake of the connection has completed.
+ * </p>
+ * <p>
+ * The sessions are cached by the {@link SSLContext} shared by the engines :
+ * a client reconnecting to the same server resumes its session with an
+ * abbreviated handshake. The handshakes are counted and their latency is
+ * measured apart from the messages ({@link TlsStats}).
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public abstract class NioTlsEngine implements TlsStats {
+
+	/**
+	 * Highest handshake latency recorded, larger ones are recorded as this
+	 * value.
+	 */
+	private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toNanos(1);
+
+	protected final Interface com;
+	protected final Logger logger;
+	private final SSLContext context;
+	private final BufferPool pool;
+	private final ConcurrentLinkedQueue<Connection> flushes;
+	private final AtomicBoolean wakeupPending;
+	private final AtomicLong sendSequence;
+	private final AtomicLong sendCompletions;
+	private final AtomicLong handshakes;
+	private final AtomicLong resumedHandshakes;
+	private final AtomicLong failedHandshakes;
+	private final LatencyHistogram handshakeLatency;
+
+	private volatile EngineListener listener;
+	private volatile boolean running;
+	private Selector selector;
+	private Thread thread;
+
+	/**
+	 * Instanciates a new engine.
+	 * 
+	 * @param com
+	 *            Interface of the engine.
+	 * @param context
+	 *            Context creating the {@link SSLEngine}s and caching the
+	 *            sessions.
+	 * @param pool
+	 *            Pool providing the buffers of the received messages.
+	 */
+	protected NioTlsEngine (final Interface com, final SSLContext context, final BufferPool pool) {
+		if (com == null || context == null || pool == null) {
+			throw new NullPointerException("Interface, context and pool cannot be null");
+		}
+		this.com = com;
+		this.logger = LogManager.getLogger();
+		this.context = context;
+		this.pool = pool;
+		this.flushes = new ConcurrentLinkedQueue<>();
+		this.wakeupPending = new AtomicBoolean();
+		this.sendSequence = new AtomicLong();
+		this.sendCompletions = new AtomicLong();
+		this.handshakes = new AtomicLong();
+		this.resumedHandshakes = new AtomicLong();
+		this.failedHandshakes = new AtomicLong();
+		this.handshakeLatency = new LatencyHistogram(HIGHEST_LATENCY, 3);
+		this.listener = null;
+		this.running = false;
+	}
+
+	/**
+	 * Opens the channels of the engine and registers them to the selector.
+	 * Called by {@link #start()} before the thread of the engine starts.
+	 * 
+	 * @param selector
+	 *            Selector of the engine.
+	 * @throws IOException
+	 *             If the channels cannot be opened.
+	 */
+	protected abstract void open (Selector selector) throws IOException;
+
+	/**
+	 * Called by the thread of the engine when the handshake of a connection
+	 * has completed : messages can be exchanged from now on.
+	 * 
+	 * @param c
+	 *            The connection.
+	 */
+	protected abstract void onHandshake (Connection c);
+
+	/**
+	 * Called by the thread of the engine when a connection is closed, by the
+	 * peer, after an error or because the engine stops.
+	 * 
+	 * @param c
+	 *            The closed connection.
+	 * @param cause
+	 *            The error closing the connection, <code>null</code> if it is
+	 *            closed normally.
+	 */
+	protected abstract void onClose (Connection c, Throwable cause);
+
+	/**
+	 * Called by the thread of the engine when a channel registered for
+	 * {@link SelectionKey#OP_ACCEPT} is ready. Does nothing by default.
+	 * 
+	 * @param key
+	 *            Key of the channel.
+	 */
+	protected void onAccept (final SelectionKey key) {
+	}
+
+	public Interface getInterface () {
+		return this.com;
+	}
+
+	public void setListener (final EngineListener listener) {
+		this.listener = listener;
+	}
+
+	public synchronized void start () throws IOException {
+		if (this.running) {
+			return;
+		}
+		this.selector = Selector.open();
+		try {
+			open(this.selector);
+		} catch (IOException e) {
+			this.selector.close();
+			throw e;
+		}
+		this.running = true;
+		this.thread = new Thread(new Runnable() {
+
+			@Override
+			public void run () {
+				ioLoop();
+			}
+		}, this.com.getId() + "-tls");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	public void stop () throws IOException {
+		Thread t;
+		synchronized (this) {
+			if (!this.running) {
+				return;
+			}
+			this.running = false;
+			this.selector.wakeup();
+			t = this.thread;
+		}
+		if (t != Thread.currentThread()) {
+			try {
+				t.join(1000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		this.logger.info("Handshakes of {} : {}", this.com.getId(), formatHandshakes());
+	}
+
+	public boolean isRunning () {
+		return this.running;
+	}
+
+	@Override
+	public long getHandshakes () {
+		return this.handshakes.get();
+	}
+
+	@Override
+	public long getResumedHandshakes () {
+		return this.resumedHandshakes.get();
+	}
+
+	@Override
+	public long getFailedHandshakes () {
+		return this.failedHandshakes.get();
+	}
+
+	@Override
+	public LatencyHistogram getHandshakeLatency () {
+		synchronized (this.handshakeLatency) {
+			return this.handshakeLatency.copy();
+		}
+	}
+
+	/**
+	 * Formats the handshake statistics.
+	 * 
+	 * @return The number of handshakes and their latency percentiles in
+	 *         microseconds.
+	 */
+	public String formatHandshakes () {
+		LatencyHistogram h = getHandshakeLatency();
+		return String.format(Locale.ROOT, "%d completed, %d resumed, %d failed, p50=%.1f us, p99=%.1f us, max=%.1f us",
+				getHandshakes(), getResumedHandshakes(), getFailedHandshakes(), h.getValueAtPercentile(50) / 1000.0,
+				h.getValueAtPercentile(99) / 1000.0, h.getMax() / 1000.0);
+	}
+
+	/**
+	 * Creates the engine of a new connection.
+	 * 
+	 * @param client
+	 *            <code>true</code> for the client side of the connection.
+	 * @param host
+	 *            Host of the peer, used by the client to find its session in
+	 *            the cache.
+	 * @param port
+	 *            Port of the peer.
+	 * @return The new engine.
+	 */
+	protected SSLEngine createEngine (final boolean client, final String host, final int port) {
+		SSLEngine engine = client ? this.context.createSSLEngine(host, port) : this.context.createSSLEngine();
+		engine.setUseClientMode(client);
+		return engine;
+	}
+
+	/**
+	 * Registers a connected channel and begins its handshake.
+	 * 
+	 * @param channel
+	 *            The connected channel.
+	 * @param engine
+	 *            Engine of the connection.
+	 * @param peer
+	 *            Interface of the peer.
+	 * @param noDelay
+	 *            <code>true</code> to disable Nagle's algorithm.
+	 * @return The new connection.
+	 * @throws IOException
+	 *             If the channel cannot be configured.
+	 */
+	protected Connection register (final SocketChannel channel, final SSLEngine engine, final Interface peer,
+			final boolean noDelay) throws IOException {
+		channel.configureBlocking(false);
+		channel.setOption(StandardSocketOptions.TCP_NODELAY, noDelay);
+		Connection c = new Connection(channel, new TlsChannel(channel, engine), peer);
+		c.key = channel.register(this.selector, SelectionKey.OP_READ, c);
+		// Sends the first message of the handshake of a client
+		c.tls.process();
+		updateInterest(c);
+		return c;
+	}
+
+	/**
+	 * Queues a message to a connection. Called from any thread.
+	 * 
+	 * @param c
+	 *            The recipient.
+	 * @param data
+	 *            The message, not modified.
+	 * @param pending
+	 *            The asynchronous send completed once the message is
+	 *            written, <code>null</code> if none.
+	 */
+	protected void enqueue (final Connection c, final ByteBuffer data, final Pending pending) {
+		Write w = new Write(data.duplicate(), pending);
+		c.outbound.add(w);
+		if (c.closed) {
+			// The connection closed meanwhile : whoever removes the write fails it
+			if (c.outbound.remove(w) && pending != null) {
+				pending.fail(new IOException("Connection " + c.peer.getId() + " closed"));
+			}
+			return;
+		}
+		this.flushes.add(c);
+		if (this.wakeupPending.compareAndSet(false, true)) {
+			this.selector.wakeup();
+		}
+	}
+
+	/**
+	 * Creates an asynchronous send.
+	 * 
+	 * @param size
+	 *            Size of the message in bytes.
+	 * @param recipients
+	 *            Number of connections the message is written to.
+	 * @return The new send.
+	 */
+	protected Pending newPending (final int size, final int recipients) {
+		return new Pending(size, recipients);
+	}
+
+	/**
+	 * Returns a failed future.
+	 * 
+	 * @param t
+	 *            The error.
+	 * @return The future.
+	 */
+	protected static CompletableFuture<SendResult> failed (final Throwable t) {
+		CompletableFuture<SendResult> future = new CompletableFuture<>();
+		future.completeExceptionally(t);
+		return future;
+	}
+
+	/**
+	 * Copies the remaining bytes of a message, so the caller can reuse it.
+	 * 
+	 * @param msg
+	 *            The message.
+	 * @return The copy.
+	 */
+	protected static ByteBuffer copy (final ByteBuffer msg) {
+		ByteBuffer copy = ByteBuffer.allocate(msg.remaining());
+		copy.put(msg.duplicate());
+		copy.flip();
+		return copy;
+	}
+
+	/**
+	 * Notifies the listener that an error occurred.
+	 */
+	protected void fireException (final Interface source, final Throwable t) {
+		EngineListener l = this.listener;
+		if (l != null) {
+			l.onException(source, t);
+		}
+	}
+
+	/**
+	 * Returns the listener of the engine.
+	 * 
+	 * @return The listener, <code>null</code> if none.
+	 */
+	protected EngineListener getListener () {
+		return this.listener;
+	}
+
+	/**
+	 * Serves the connections until the engine is stopped, then closes them.
+	 */
+	private void ioLoop () {
+		try {
+			while (this.running) {
+				this.selector.select();
+				this.wakeupPending.set(false);
+				Connection c;
+				while ((c = this.flushes.poll()) != null) {
+					if (!c.closed) {
+						try {
+							writeOutbound(c);
+						} catch (IOException e) {
+							failed(c, e);
+						}
+					}
+				}
+				Iterator<SelectionKey> it = this.selector.selectedKeys().iterator();
+				while (it.hasNext()) {
+					SelectionKey key = it.next();
+					it.remove();
+					if (!key.isValid()) {
+						continue;
+					} else if (!(key.attachment() instanceof Connection)) {
+						onAccept(key);
+						continue;
+					}
+					c = (Connection) key.attachment();
+					try {
+						if (key.isReadable()) {
+							readInbound(c);
+						}
+						if (!c.closed && key.isWritable()) {
+							writeOutbound(c);
+						}
+					} catch (IOException | RuntimeException e) {
+						failed(c, e);
+					}
+				}
+			}
+		} catch (IOException | ClosedSelectorException e) {
+			if (this.running) {
+				this.logger.error("Selector of {} failed", this.com.getId(), e);
+				fireException(this.com, e);
+				this.running = false;
+			}
+		}
+		List<Connection> open = new ArrayList<>();
+		for (SelectionKey key : this.selector.keys()) {
+			if (key.attachment() instanceof Connection) {
+				open.add((Connection) key.attachment());
+			}
+		}
+		for (Connection c : open) {
+			close(c, null);
+		}
+		try {
+			this.selector.close();
+		} catch (IOException e) {
+			this.logger.debug("Failed to close selector of {}", this.com.getId(), e);
+		}
+	}
+
+	/**
+	 * Reads and decrypts the available bytes of a connection.
+	 */
+	private void readInbound (final Connection c) throws IOException {
+		boolean handshaking = !c.tls.isHandshakeFinished();
+		int n = c.tls.read();
+		if (handshaking && c.tls.isHandshakeFinished()) {
+			handshakeCompleted(c);
+		}
+		ByteBuffer app = c.tls.getApplicationBuffer();
+		if (app.position() > 0) {
+			app.flip();
+			PooledBuffer msg = this.pool.copyOf(app);
+			app.clear();
+			fireReceive(c.peer, msg);
+		}
+		if (n < 0) {
+			close(c, null);
+		} else {
+			writeOutbound(c);
+		}
+	}
+
+	/**
+	 * Writes the queued messages of a connection until its channel is full.
+	 */
+	private void writeOutbound (final Connection c) throws IOException {
+		if (!c.tls.isHandshakeFinished()) {
+			c.tls.process();
+			if (c.tls.isHandshakeFinished()) {
+				handshakeCompleted(c);
+			}
+		}
+		// The messages wait for the end of the handshake
+		if (c.tls.isHandshakeFinished()) {
+			while (true) {
+				Write w = c.current != null ? c.current : c.outbound.poll();
+				if (w == null) {
+					break;
+				}
+				c.current = w;
+				if (!c.tls.write(w.data)) {
+					break;
+				}
+				c.current = null;
+				if (w.pending != null) {
+					w.pending.complete();
+				}
+			}
+		} else {
+			c.tls.flush();
+		}
+		updateInterest(c);
+	}
+
+	/**
+	 * Selects the writability of a connection only while bytes are waiting.
+	 */
+	private void updateInterest (final Connection c) {
+		if (c.key.isValid()) {
+			int ops = c.current != null || c.tls.hasPendingOutput() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+					: SelectionKey.OP_READ;
+			if (c.key.interestOps() != ops) {
+				c.key.interestOps(ops);
+			}
+		}
+	}
+
+	/**
+	 * Records a completed handshake.
+	 */
+	private void handshakeCompleted (final Connection c) {
+		long time = c.tls.getHandshakeTime();
+		this.handshakes.incrementAndGet();
+		if (c.tls.isResumed()) {
+			this.resumedHandshakes.incrementAndGet();
+		}
+		synchronized (this.handshakeLatency) {
+			this.handshakeLatency.recordValue(time);
+		}
+		if (this.logger.isDebugEnabled()) {
+			this.logger.debug("{} handshake with {} in {} us", c.tls.isResumed() ? "Resumed" : "Full",
+					c.peer.getId(), TimeUnit.NANOSECONDS.toMicros(time));
+		}
+		onHandshake(c);
+	}
+
+	/**
+	 * Closes a connection after an error.
+	 */
+	private void failed (final Connection c, final Throwable t) {
+		if (!c.tls.isHandshakeFinished()) {
+			this.failedHandshakes.incrementAndGet();
+			this.logger.warn("Handshake with {} failed : {}", c.peer.getId(), t.getMessage());
+		} else if (this.running) {
+			this.logger.error("An error occurred on connection {}", c.peer.getId(), t);
+		}
+		fireException(c.peer, t);
+		close(c, t);
+	}
+
+	/**
+	 * Closes a connection, fails its queued messages and notifies the
+	 * subclass.
+	 */
+	private void close (final Connection c, final Throwable cause) {
+		if (c.closed) {
+			return;
+		}
+		c.closed = true;
+		c.key.cancel();
+		c.tls.close();
+		IOException closed = new IOException("Connection " + c.peer.getId() + " closed");
+		if (c.current != null && c.current.pending != null) {
+			c.current.pending.fail(closed);
+		}
+		c.current = null;
+		Write w;
+		while ((w = c.outbound.poll()) != null) {
+			if (w.pending != null) {
+				w.pending.fail(closed);
+			}
+		}
+		onClose(c, cause);
+	}
+
+	/**
+	 * Notifies the listener that a message has been received.
+	 */
+	private void fireReceive (final Interface source, final PooledBuffer msg) {
+		EngineListener l = this.listener;
+		if (l == null) {
+			msg.release();
+			return;
+		}
+		try {
+			l.onReceive(source, msg);
+		} catch (RuntimeException e) {
+			this.logger.error("Listener failed to handle message from {}", source.getId(), e);
+		}
+	}
+
+	/**
+	 * A TLS connection of the engine.
+	 */
+	protected final class Connection {
+
+		private final SocketChannel channel;
+		private final TlsChannel tls;
+		private final Interface peer;
+		private final ConcurrentLinkedQueue<Write> outbound;
+		private SelectionKey key;
+		private Write current;
+		private volatile boolean closed;
+
+		private Connection (final SocketChannel channel, final TlsChannel tls, final Interface peer) {
+			this.channel = channel;
+			this.tls = tls;
+			this.peer = peer;
+			this.outbound = new ConcurrentLinkedQueue<>();
+			this.current = null;
+			this.closed = false;
+		}
+
+		/**
+		 * Returns the interface of the peer.
+		 * 
+		 * @return The peer.
+		 */
+		public Interface getPeer () {
+			return this.peer;
+		}
+
+		/**
+		 * Tells whether the connection is closed.
+		 * 
+		 * @return <code>true</code> once closed.
+		 */
+		public boolean isClosed () {
+			return this.closed;
+		}
+
+		@Override
+		public String toString () {
+			return this.peer.getId() + " (" + this.channel + ")";
+		}
+	}
+
+	/**
+	 * A message queued to a connection.
+	 */
+	private static final class Write {
+
+		private final ByteBuffer data;
+		private final Pending pending;
+
+		public Write (final ByteBuffer data, final Pending pending) {
+			this.data = data;
+			this.pending = pending;
+		}
+	}
+
+	/**
+	 * An asynchronous send, completed once its message has been written to
+	 * all its recipients.
+	 */
+	protected final class Pending {
+
+		private final CompletableFuture<SendResult> future;
+		private final AtomicInteger remaining;
+		private final long sequence;
+		private final long start;
+		private final int size;
+
+		private Pending (final int size, final int recipients) {
+			this.future = new CompletableFuture<>();
+			this.remaining = new AtomicInteger(recipients);
+			this.sequence = sendSequence.incrementAndGet();
+			this.start = System.nanoTime();
+			this.size = size;
+		}
+
+		/**
+		 * Returns the future of the send.
+		 * 
+		 * @return The future.
+		 */
+		public CompletableFuture<SendResult> getFuture () {
+			return this.future;
+		}
+
+		private void complete () {
+			if (this.remaining.decrementAndGet() == 0) {
+				this.future.complete(new SendResult(this.sequence, this.size, System.nanoTime() - this.start,
+						sendCompletions.incrementAndGet()));
+			}
+		}
+
+		private void fail (final Throwable t) {
+			this.future.completeExceptionally(t);
+		}
+	}
+}
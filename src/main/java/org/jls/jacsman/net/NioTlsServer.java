@@ -0,0 +1,233 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLContext;
+
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.toolbox.net.Interface;
+
+/**
+ * TLS server accepting and serving its clients on the thread of its
+ * selector. A client is reported connected once its handshake has completed.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class NioTlsServer extends NioTlsEngine implements ServerEngine {
+
+	private static final int BACKLOG = 1024;
+
+	private final ConcurrentHashMap<Interface, Connection> clients;
+	private final AtomicInteger clientCount;
+	private ServerSocketChannel serverChannel;
+	private boolean noDelay;
+
+	/**
+	 * Instanciates a new server.
+	 * 
+	 * @param com
+	 *            Interface of the server, 0 as port binds an ephemeral port.
+	 * @param context
+	 *            Context holding the certificate of the server and caching
+	 *            the sessions.
+	 * @param pool
+	 *            Pool providing the buffers of the received messages.
+	 */
+	public NioTlsServer (final Interface com, final SSLContext context, final BufferPool pool) {
+		super(com, context, pool);
+		this.clients = new ConcurrentHashMap<>();
+		this.clientCount = new AtomicInteger();
+		this.noDelay = true;
+	}
+
+	/**
+	 * Specifies whether Nagle's algorithm is disabled on the accepted
+	 * connections. Must be called before {@link #start()}.
+	 * 
+	 * @param noDelay
+	 *            <code>true</code> to send the segments without waiting.
+	 */
+	public void setNoDelay (final boolean noDelay) {
+		this.noDelay = noDelay;
+	}
+
+	@Override
+	protected void open (final Selector selector) throws IOException {
+		this.serverChannel = ServerSocketChannel.open();
+		try {
+			this.serverChannel.configureBlocking(false);
+			this.serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+			this.serverChannel.bind(new InetSocketAddress(this.com.getPort()), BACKLOG);
+			this.serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+		} catch (IOException e) {
+			this.serverChannel.close();
+			throw e;
+		}
+		this.logger.info("{} listening for TLS on port {}", this.com.getId(), getLocalPort());
+	}
+
+	@Override
+	public void stop () throws IOException {
+		super.stop();
+		ServerSocketChannel channel = this.serverChannel;
+		if (channel != null) {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Returns the port the server listens to.
+	 * 
+	 * @return The local port, -1 if the server is not started.
+	 */
+	public int getLocalPort () {
+		ServerSocketChannel channel = this.serverChannel;
+		return channel != null && channel.socket().isBound() ? channel.socket().getLocalPort() : -1;
+	}
+
+	@Override
+	public List<Interface> getClients () {
+		return new ArrayList<>(this.clients.keySet());
+	}
+
+	@Override
+	public void send (final ByteBuffer msg) throws IOException {
+		if (this.clients.isEmpty()) {
+			throw new NoClientException("No client connected to " + this.com.getId());
+		}
+		ByteBuffer data = copy(msg);
+		for (Connection c : this.clients.values()) {
+			enqueue(c, data, null);
+		}
+	}
+
+	@Override
+	public void send (final Interface client, final ByteBuffer msg) throws IOException {
+		Connection c = this.clients.get(client);
+		if (c == null) {
+			throw new NoClientException("Client " + client.getId() + " not connected to " + this.com.getId());
+		}
+		enqueue(c, copy(msg), null);
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (final ByteBuffer msg) {
+		List<Connection> recipients = new ArrayList<>(this.clients.values());
+		if (recipients.isEmpty()) {
+			return failed(new NoClientException("No client connected to " + this.com.getId()));
+		}
+		ByteBuffer data = copy(msg);
+		Pending pending = newPending(data.remaining(), recipients.size());
+		for (Connection c : recipients) {
+			enqueue(c, data, pending);
+		}
+		return pending.getFuture();
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (final Interface client, final ByteBuffer msg) {
+		Connection c = this.clients.get(client);
+		if (c == null) {
+			return failed(new NoClientException("Client " + client.getId() + " not connected to " + this.com.getId()));
+		}
+		ByteBuffer data = copy(msg);
+		Pending pending = newPending(data.remaining(), 1);
+		enqueue(c, data, pending);
+		return pending.getFuture();
+	}
+
+	@Override
+	protected void onAccept (final SelectionKey key) {
+		SocketChannel channel;
+		while (true) {
+			try {
+				channel = this.serverChannel.accept();
+			} catch (IOException e) {
+				if (isRunning()) {
+					this.logger.error("An error occurred accepting connection on {}", this.com.getId(), e);
+					fireException(this.com, e);
+				}
+				return;
+			}
+			if (channel == null) {
+				return;
+			}
+			try {
+				InetSocketAddress remote = (InetSocketAddress) channel.getRemoteAddress();
+				Interface client = new Interface("Client" + this.clientCount.incrementAndGet(),
+						remote.getAddress().getHostAddress(), remote.getPort());
+				register(channel, createEngine(false, null, -1), client, this.noDelay);
+			} catch (IOException | RuntimeException e) {
+				this.logger.error("An error occurred configuring connection on {}", this.com.getId(), e);
+				try {
+					channel.close();
+				} catch (IOException e1) {
+					this.logger.debug("Failed to close channel", e1);
+				}
+			}
+		}
+	}
+
+	@Override
+	protected void onHandshake (final Connection c) {
+		this.clients.put(c.getPeer(), c);
+		this.logger.debug("Client {} connected to {}", c.getPeer().getId(), this.com.getId());
+		EngineListener l = getListener();
+		if (l != null) {
+			l.onConnect(c.getPeer());
+		}
+	}
+
+	@Override
+	protected void onClose (final Connection c, final Throwable cause) {
+		if (this.clients.remove(c.getPeer()) != null) {
+			this.logger.debug("Client {} disconnected from {}", c.getPeer().getId(), this.com.getId());
+			EngineListener l = getListener();
+			if (l != null) {
+				l.onDisconnect(c.getPeer());
+			}
+		}
+	}
+
+	@Override
+	public String toString () {
+		return this.com.getId();
+	}
+}
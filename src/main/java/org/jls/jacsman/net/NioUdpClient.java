@@ -0,0 +1,106 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.toolbox.net.Interface;
+
+/**
+ * UDP client sending to a single server and receiving its datagrams in
+ * batches on a non-blocking connected channel.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class NioUdpClient extends NioUdpEngine implements ClientEngine {
+
+	private volatile Peer server;
+
+	/**
+	 * Instanciates a new client.
+	 * 
+	 * @param com
+	 *            Interface of the client, its address and port are the ones of
+	 *            the server.
+	 * @param maxDatagram
+	 *            Size in bytes of the largest datagram received, larger ones
+	 *            are truncated.
+	 * @param pool
+	 *            Pool providing the read buffers.
+	 */
+	public NioUdpClient (final Interface com, final int maxDatagram, final BufferPool pool) {
+		super(com, maxDatagram, pool);
+		this.server = null;
+	}
+
+	@Override
+	protected List<DatagramChannel> openChannels () throws IOException {
+		InetSocketAddress address = new InetSocketAddress(this.com.getAddress(), this.com.getPort());
+		DatagramChannel channel = DatagramChannel.open();
+		try {
+			channel.connect(address);
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		this.server = new Peer(this.com, address);
+		return Collections.singletonList(channel);
+	}
+
+	@Override
+	protected Peer getPeer (final DatagramChannel channel, final SocketAddress source) {
+		// A connected channel only receives from the server
+		return this.server;
+	}
+
+	@Override
+	protected void onStop () {
+		this.server = null;
+	}
+
+	@Override
+	public void send (final ByteBuffer msg) throws IOException {
+		sendTo(msg, null);
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (final ByteBuffer msg) {
+		return sendAsyncTo(msg, null);
+	}
+
+	@Override
+	public String toString () {
+		return this.com.getId();
+	}
+}
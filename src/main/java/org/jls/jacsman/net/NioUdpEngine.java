@@ -0,0 +1,615 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.PortUnreachableException;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.toolbox.net.Interface;
+
+/**
+ * Base of the UDP engines built on non-blocking {@link DatagramChannel}s.
+ * <p>
+ * A single thread receives the datagrams of all the channels of the engine
+ * through one selector. Each time the selector wakes it up, it reads up to a
+ * batch of datagrams from each ready channel before selecting again, so a burst costs
+ * one wakeup instead of one per datagram. The datagrams are read into a pooled
+ * buffer : large ones are handed to the listener in this buffer, small ones
+ * are copied to a buffer of their size so the read buffer can be reused.
+ * </p>
+ * <p>
+ * The receive buffer of the socket (SO_RCVBUF) absorbs the bursts the thread
+ * cannot keep up with, beyond it the kernel drops the datagrams. These drops
+ * are read from the system, and if the senders write a sequence number in the
+ * datagrams, the gaps and the datagrams out of order are counted per sender.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public abstract class NioUdpEngine implements DatagramStats {
+
+	/**
+	 * Time spent retrying a datagram while the socket send buffer is full.
+	 */
+	private static final long SEND_TIMEOUT = TimeUnit.MILLISECONDS.toNanos(100);
+	private static final long SEND_RETRY = TimeUnit.MICROSECONDS.toNanos(20);
+
+	protected final Interface com;
+	protected final Logger logger;
+	private final BufferPool pool;
+	private final int maxDatagram;
+	private final LongAdder received;
+	private final AtomicLong gaps;
+	private final AtomicLong outOfOrder;
+	private final AtomicLong sendSequence;
+	private final AtomicLong sendCompletions;
+
+	private volatile int receiveBufferSize;
+	private volatile int batchSize;
+	private volatile int sequenceOffset;
+	private volatile int sequenceLength;
+
+	private volatile EngineListener listener;
+	private volatile boolean running;
+	private List<DatagramChannel> channels;
+	private Selector selector;
+	private Thread thread;
+	private PooledBuffer readBuffer;
+	private volatile int localPort;
+
+	/**
+	 * Instanciates a new engine.
+	 * 
+	 * @param com
+	 *            Interface of the engine.
+	 * @param maxDatagram
+	 *            Size in bytes of the largest datagram received, larger ones
+	 *            are truncated.
+	 * @param pool
+	 *            Pool providing the read buffers.
+	 */
+	protected NioUdpEngine (final Interface com, final int maxDatagram, final BufferPool pool) {
+		if (com == null || pool == null) {
+			throw new NullPointerException("Interface and pool cannot be null");
+		}
+		if (maxDatagram <= 0) {
+			throw new IllegalArgumentException("Datagram size must be positive : " + maxDatagram);
+		}
+		this.com = com;
+		this.logger = LogManager.getLogger();
+		this.pool = pool;
+		this.maxDatagram = maxDatagram;
+		this.received = new LongAdder();
+		this.gaps = new AtomicLong();
+		this.outOfOrder = new AtomicLong();
+		this.sendSequence = new AtomicLong();
+		this.sendCompletions = new AtomicLong();
+		this.receiveBufferSize = 0;
+		this.batchSize = 64;
+		this.sequenceOffset = -1;
+		this.sequenceLength = 4;
+		this.listener = null;
+		this.running = false;
+	}
+
+	/**
+	 * Opens the channels, bound or connected by the engine. They are all
+	 * served by the receive thread, the first one sends the datagrams unless
+	 * another one is given.
+	 * 
+	 * @return The configured channels, in blocking mode.
+	 * @throws IOException
+	 *             If a channel cannot be opened, the channels already opened
+	 *             are closed.
+	 */
+	protected abstract List<DatagramChannel> openChannels () throws IOException;
+
+	/**
+	 * Returns the sender of a datagram.
+	 * 
+	 * @param channel
+	 *            Channel which received the datagram.
+	 * @param source
+	 *            Address of the sender.
+	 * @return The sender.
+	 */
+	protected abstract Peer getPeer (DatagramChannel channel, SocketAddress source);
+
+	/**
+	 * Called when the engine is stopped, after the receive thread ended.
+	 */
+	protected abstract void onStop ();
+
+	public Interface getInterface () {
+		return this.com;
+	}
+
+	public void setListener (final EngineListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Sets the size of the socket receive buffer, applied when the engine is
+	 * started. The system may grant a smaller size (net.core.rmem_max on
+	 * Linux), the granted size is logged.
+	 * 
+	 * @param size
+	 *            Size in bytes, lower or equal to zero for the system default.
+	 */
+	public void setReceiveBufferSize (final int size) {
+		this.receiveBufferSize = size;
+	}
+
+	/**
+	 * Sets the maximum number of datagrams read per wakeup of the receive
+	 * thread.
+	 * 
+	 * @param batchSize
+	 *            Number of datagrams, strictly positive.
+	 */
+	public void setBatchSize (final int batchSize) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("Batch size must be positive : " + batchSize);
+		}
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Sets the location of the sequence number the senders write in their
+	 * datagrams, big endian.
+	 * 
+	 * @param offset
+	 *            Offset of the number in the datagram, negative to not read
+	 *            the sequence numbers.
+	 * @param length
+	 *            Size of the number, 4 or 8 bytes.
+	 */
+	public void setSequenceField (final int offset, final int length) {
+		if (length != 4 && length != 8) {
+			throw new IllegalArgumentException("Sequence number must be on 4 or 8 bytes : " + length);
+		}
+		this.sequenceOffset = offset;
+		this.sequenceLength = length;
+	}
+
+	public synchronized void start () throws IOException {
+		if (this.running) {
+			return;
+		}
+		this.channels = openChannels();
+		try {
+			this.selector = Selector.open();
+			for (DatagramChannel channel : this.channels) {
+				if (this.receiveBufferSize > 0) {
+					channel.setOption(StandardSocketOptions.SO_RCVBUF, this.receiveBufferSize);
+				}
+				channel.configureBlocking(false);
+				channel.register(this.selector, SelectionKey.OP_READ);
+			}
+		} catch (IOException e) {
+			closeChannels();
+			if (this.selector != null) {
+				this.selector.close();
+			}
+			throw e;
+		}
+		DatagramChannel first = this.channels.get(0);
+		this.localPort = ((InetSocketAddress) first.getLocalAddress()).getPort();
+		this.readBuffer = this.pool.acquire(this.maxDatagram);
+		this.running = true;
+		this.thread = new Thread(new Runnable() {
+
+			@Override
+			public void run () {
+				receiveLoop();
+			}
+		}, this.com.getId() + "-receive");
+		this.thread.setDaemon(true);
+		this.thread.start();
+		this.logger.info("{} bound to port {} with {} channel(s), receive buffer of {} bytes, batches of {} datagrams",
+				this.com.getId(), this.localPort, this.channels.size(),
+				first.getOption(StandardSocketOptions.SO_RCVBUF), this.batchSize);
+	}
+
+	public synchronized void stop () throws IOException {
+		if (!this.running) {
+			return;
+		}
+		this.running = false;
+		this.selector.wakeup();
+		try {
+			this.thread.join(1000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		closeChannels();
+		onStop();
+	}
+
+	public boolean isRunning () {
+		return this.running;
+	}
+
+	/**
+	 * Closes the channels of the engine.
+	 */
+	private void closeChannels () {
+		for (DatagramChannel channel : this.channels) {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				this.logger.debug("Failed to close channel of {}", this.com.getId(), e);
+			}
+		}
+	}
+
+	/**
+	 * Returns the local port of the socket, chosen by the system if the port
+	 * of the interface is 0.
+	 * 
+	 * @return The local port, 0 if the engine has never been started.
+	 */
+	public int getLocalPort () {
+		return this.localPort;
+	}
+
+	@Override
+	public long getReceivedDatagrams () {
+		return this.received.sum();
+	}
+
+	@Override
+	public long getSequenceGaps () {
+		return this.gaps.get();
+	}
+
+	@Override
+	public long getOutOfOrder () {
+		return this.outOfOrder.get();
+	}
+
+	@Override
+	public long getKernelDrops () {
+		List<DatagramChannel> channels = this.channels;
+		if (channels == null) {
+			return -1;
+		}
+		// The drops are summed by port, count each port once
+		Set<Integer> ports = new HashSet<>();
+		long drops = 0;
+		for (DatagramChannel channel : channels) {
+			try {
+				SocketAddress address = channel.getLocalAddress();
+				if (address != null && ports.add(((InetSocketAddress) address).getPort())) {
+					long portDrops = KernelDrops.read(((InetSocketAddress) address).getPort());
+					if (portDrops < 0) {
+						return -1;
+					}
+					drops += portDrops;
+				}
+			} catch (IOException e) {
+				// Closed channel, its drops are not known anymore
+			}
+		}
+		return drops;
+	}
+
+	/**
+	 * Sends a datagram. If the socket send buffer is full, the datagram is
+	 * retried during a short time before failing.
+	 * 
+	 * @param msg
+	 *            The datagram, its position is not modified.
+	 * @param target
+	 *            Recipient, <code>null</code> on a connected channel.
+	 * @return Size of the datagram.
+	 * @throws IOException
+	 *             If the datagram cannot be sent.
+	 */
+	protected int sendTo (final ByteBuffer msg, final SocketAddress target) throws IOException {
+		List<DatagramChannel> channels = this.channels;
+		if (!this.running || channels == null) {
+			throw new IOException(this.com.getId() + " not started");
+		}
+		return sendTo(channels.get(0), msg, target);
+	}
+
+	/**
+	 * Sends a datagram through one of the channels of the engine. If the
+	 * socket send buffer is full, the datagram is retried during a short time
+	 * before failing.
+	 * 
+	 * @param channel
+	 *            The channel sending the datagram.
+	 * @param msg
+	 *            The datagram, its position is not modified.
+	 * @param target
+	 *            Recipient, <code>null</code> on a connected channel.
+	 * @return Size of the datagram.
+	 * @throws IOException
+	 *             If the datagram cannot be sent.
+	 */
+	protected int sendTo (final DatagramChannel channel, final ByteBuffer msg, final SocketAddress target)
+			throws IOException {
+		if (!this.running) {
+			throw new IOException(this.com.getId() + " not started");
+		}
+		int position = msg.position();
+		int size = msg.remaining();
+		try {
+			long deadline = 0;
+			while ((target != null ? channel.send(msg, target) : channel.write(msg)) == 0 && size > 0) {
+				long now = System.nanoTime();
+				if (deadline == 0) {
+					deadline = now + SEND_TIMEOUT;
+				} else if (now - deadline > 0) {
+					throw new IOException("Send buffer of " + this.com.getId() + " full, datagram dropped");
+				}
+				LockSupport.parkNanos(SEND_RETRY);
+			}
+		} finally {
+			msg.position(position);
+		}
+		return size;
+	}
+
+	/**
+	 * Sends a datagram and returns the completed result : a datagram is
+	 * written at once.
+	 * 
+	 * @param msg
+	 *            The datagram.
+	 * @param target
+	 *            Recipient, <code>null</code> on a connected channel.
+	 * @return The result of the send.
+	 */
+	protected CompletableFuture<SendResult> sendAsyncTo (final ByteBuffer msg, final SocketAddress target) {
+		return sendAsyncTo(null, msg, target);
+	}
+
+	/**
+	 * Sends a datagram through one of the channels of the engine and returns
+	 * the completed result.
+	 * 
+	 * @param channel
+	 *            The channel sending the datagram, <code>null</code> for the
+	 *            first channel.
+	 * @param msg
+	 *            The datagram.
+	 * @param target
+	 *            Recipient, <code>null</code> on a connected channel.
+	 * @return The result of the send.
+	 */
+	protected CompletableFuture<SendResult> sendAsyncTo (final DatagramChannel channel, final ByteBuffer msg,
+			final SocketAddress target) {
+		CompletableFuture<SendResult> future = new CompletableFuture<>();
+		long sequence = this.sendSequence.incrementAndGet();
+		long start = System.nanoTime();
+		try {
+			int size = channel != null ? sendTo(channel, msg, target) : sendTo(msg, target);
+			future.complete(new SendResult(sequence, size, System.nanoTime() - start,
+					this.sendCompletions.incrementAndGet()));
+		} catch (IOException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * Notifies the listeners that a datagram has been received.
+	 * 
+	 * @param source
+	 *            Sender of the datagram.
+	 * @param msg
+	 *            The datagram.
+	 */
+	private void fireReceive (final Interface source, final PooledBuffer msg) {
+		EngineListener l = this.listener;
+		if (l == null) {
+			msg.release();
+			return;
+		}
+		try {
+			l.onReceive(source, msg);
+		} catch (RuntimeException e) {
+			this.logger.error("Listener failed to handle datagram from {}", source.getId(), e);
+		}
+	}
+
+	/**
+	 * Notifies the listeners that an error occurred.
+	 * 
+	 * @param source
+	 *            Interface on which the error occurred.
+	 * @param t
+	 *            The error.
+	 */
+	protected void fireException (final Interface source, final Throwable t) {
+		EngineListener l = this.listener;
+		if (l != null) {
+			l.onException(source, t);
+		}
+	}
+
+	/**
+	 * Returns the listener of the engine.
+	 * 
+	 * @return The listener, <code>null</code> if none.
+	 */
+	protected EngineListener getListener () {
+		return this.listener;
+	}
+
+	/**
+	 * Receives the datagrams until the engine is stopped.
+	 */
+	private void receiveLoop () {
+		while (this.running) {
+			try {
+				this.selector.select();
+				Iterator<SelectionKey> keys = this.selector.selectedKeys().iterator();
+				while (keys.hasNext()) {
+					DatagramChannel channel = (DatagramChannel) keys.next().channel();
+					keys.remove();
+					// Level triggered : the datagrams left after a batch wake up the next select
+					for (int i = this.batchSize; i > 0 && this.running; i--) {
+						if (!receive(channel)) {
+							break;
+						}
+					}
+				}
+			} catch (ClosedSelectorException | ClosedChannelException e) {
+				break;
+			} catch (PortUnreachableException e) {
+				// Answer of a previous send on a connected channel, no one is listening yet
+				this.logger.debug("Port unreachable on {}", this.com.getId(), e);
+			} catch (IOException e) {
+				if (this.running) {
+					this.logger.error("An error occurred receiving on {}", this.com.getId(), e);
+					fireException(this.com, e);
+				}
+			}
+		}
+		this.readBuffer.release();
+		try {
+			this.selector.close();
+		} catch (IOException e) {
+			this.logger.debug("Failed to close selector", e);
+		}
+	}
+
+	/**
+	 * Reads one datagram and notifies the listener.
+	 * 
+	 * @param channel
+	 *            The channel to read.
+	 * @return <code>false</code> if no datagram was waiting.
+	 * @throws IOException
+	 *             If the channel cannot be read.
+	 */
+	private boolean receive (final DatagramChannel channel) throws IOException {
+		ByteBuffer buf = this.readBuffer.buffer();
+		buf.clear();
+		buf.limit(this.maxDatagram);
+		SocketAddress source = channel.receive(buf);
+		if (source == null) {
+			return false;
+		}
+		buf.flip();
+		this.received.increment();
+		PooledBuffer msg;
+		if (buf.remaining() >= this.maxDatagram / 2) {
+			// Hands over the read buffer itself
+			msg = this.readBuffer;
+			this.readBuffer = this.pool.acquire(this.maxDatagram);
+		} else {
+			msg = this.pool.copyOf(buf);
+		}
+		Peer peer = getPeer(channel, source);
+		if (this.sequenceOffset >= 0) {
+			trackSequence(peer, msg.buffer());
+		}
+		fireReceive(peer.com, msg);
+		return true;
+	}
+
+	/**
+	 * Reads the sequence number of a datagram and counts the gaps.
+	 * 
+	 * @param peer
+	 *            Sender of the datagram.
+	 * @param msg
+	 *            The datagram.
+	 */
+	private void trackSequence (final Peer peer, final ByteBuffer msg) {
+		int offset = this.sequenceOffset;
+		int length = this.sequenceLength;
+		if (msg.remaining() < offset + length) {
+			return;
+		}
+		int index = msg.position() + offset;
+		long sequence = length == 4 ? msg.getInt(index) & 0xFFFFFFFFL : msg.getLong(index);
+		long last = peer.lastSequence;
+		if (last < 0) {
+			peer.lastSequence = sequence;
+		} else if (sequence > last) {
+			if (sequence > last + 1) {
+				long missing = sequence - last - 1;
+				this.gaps.addAndGet(missing);
+				this.logger.debug("{} datagram(s) missing from {} after {}", missing, peer.com.getId(), last);
+			}
+			peer.lastSequence = sequence;
+		} else {
+			this.outOfOrder.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Sender of datagrams, only accessed by the receive thread.
+	 */
+	protected static final class Peer {
+
+		private final Interface com;
+		private final SocketAddress address;
+		private long lastSequence;
+
+		public Peer (final Interface com, final SocketAddress address) {
+			this.com = com;
+			this.address = address;
+			this.lastSequence = -1;
+		}
+
+		public Interface getInterface () {
+			return this.com;
+		}
+
+		public SocketAddress getAddress () {
+			return this.address;
+		}
+	}
+}
@@ -0,0 +1,197 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.toolbox.net.Interface;
+
+/**
+ * UDP server receiving the datagrams in batches on a non-blocking channel.
+ * <p>
+ * UDP has no connection : a client is known from its first datagram, it is
+ * then notified as connected and the messages sent by the server are sent to
+ * every known client. The clients are forgotten when the server is stopped.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class NioUdpServer extends NioUdpEngine implements ServerEngine {
+
+	private final ConcurrentHashMap<SocketAddress, Peer> peers;
+	private final ConcurrentHashMap<Interface, Peer> clients;
+	private final AtomicInteger clientCount;
+
+	/**
+	 * Instanciates a new server.
+	 * 
+	 * @param com
+	 *            Interface of the server, its port is the port listened to.
+	 * @param maxDatagram
+	 *            Size in bytes of the largest datagram received, larger ones
+	 *            are truncated.
+	 * @param pool
+	 *            Pool providing the read buffers.
+	 */
+	public NioUdpServer (final Interface com, final int maxDatagram, final BufferPool pool) {
+		super(com, maxDatagram, pool);
+		this.peers = new ConcurrentHashMap<>();
+		this.clients = new ConcurrentHashMap<>();
+		this.clientCount = new AtomicInteger();
+	}
+
+	@Override
+	protected List<DatagramChannel> openChannels () throws IOException {
+		DatagramChannel channel = DatagramChannel.open();
+		try {
+			channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+			channel.bind(new InetSocketAddress(this.com.getPort()));
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		return Collections.singletonList(channel);
+	}
+
+	@Override
+	protected Peer getPeer (final DatagramChannel channel, final SocketAddress source) {
+		Peer peer = this.peers.get(source);
+		if (peer == null) {
+			InetSocketAddress remote = (InetSocketAddress) source;
+			Interface client;
+			try {
+				client = new Interface("Client" + this.clientCount.incrementAndGet(),
+						remote.getAddress().getHostAddress(), remote.getPort());
+			} catch (IOException e) {
+				// Numeric address, never resolved
+				throw new IllegalStateException(e);
+			}
+			peer = new Peer(client, source);
+			this.peers.put(source, peer);
+			this.clients.put(client, peer);
+			this.logger.debug("Client {} known by {}", client.getId(), this.com.getId());
+			EngineListener l = getListener();
+			if (l != null) {
+				l.onConnect(client);
+			}
+		}
+		return peer;
+	}
+
+	@Override
+	protected void onStop () {
+		EngineListener l = getListener();
+		for (Interface client : this.clients.keySet()) {
+			if (l != null) {
+				l.onDisconnect(client);
+			}
+		}
+		this.peers.clear();
+		this.clients.clear();
+	}
+
+	@Override
+	public List<Interface> getClients () {
+		return new ArrayList<>(this.clients.keySet());
+	}
+
+	@Override
+	public void send (final ByteBuffer msg) throws IOException {
+		if (this.clients.isEmpty()) {
+			throw new NoClientException("No client known by " + this.com.getId());
+		}
+		for (Peer peer : this.clients.values()) {
+			sendTo(msg, peer.getAddress());
+		}
+	}
+
+	@Override
+	public void send (final Interface client, final ByteBuffer msg) throws IOException {
+		sendTo(msg, getAddress(client));
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (final ByteBuffer msg) {
+		if (this.clients.isEmpty()) {
+			CompletableFuture<SendResult> future = new CompletableFuture<>();
+			future.completeExceptionally(new NoClientException("No client known by " + this.com.getId()));
+			return future;
+		}
+		CompletableFuture<SendResult> result = null;
+		for (Peer peer : this.clients.values()) {
+			result = sendAsyncTo(msg, peer.getAddress());
+			if (result.isCompletedExceptionally()) {
+				break;
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (final Interface client, final ByteBuffer msg) {
+		try {
+			return sendAsyncTo(msg, getAddress(client));
+		} catch (NoClientException e) {
+			CompletableFuture<SendResult> future = new CompletableFuture<>();
+			future.completeExceptionally(e);
+			return future;
+		}
+	}
+
+	/**
+	 * Returns the address of a client.
+	 * 
+	 * @param client
+	 *            The client.
+	 * @return Address of the client.
+	 * @throws NoClientException
+	 *             If the client is not known by the server.
+	 */
+	private SocketAddress getAddress (final Interface client) throws NoClientException {
+		Peer peer = this.clients.get(client);
+		if (peer == null) {
+			throw new NoClientException("Client " + client.getId() + " not known by " + this.com.getId());
+		}
+		return peer.getAddress();
+	}
+
+	@Override
+	public String toString () {
+		return this.com.getId();
+	}
+}
@@ -0,0 +1,545 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.toolbox.net.Interface;
+
+/**
+ * Client keeping a pool of connections to the same server and spreading its
+ * messages over them.
+ * <p>
+ * All the connections are opened by {@link #start()}, before the first
+ * message is sent. Each message is sent through one connection, chosen in
+ * turn or as the one with the fewest messages in flight. A connection closed
+ * by the server, or failing to send, is taken out of the pool and reopened in
+ * the background after a delay doubling at each failed attempt, with a random
+ * part so the clients of a restarted server do not all reconnect at once. The
+ * messages go through the other connections meanwhile.
+ * </p>
+ * <p>
+ * The connections are reported to the listener with their own interface,
+ * named after the interface of the pool followed by their number.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class PooledClientEngine implements ClientEngine {
+
+	/**
+	 * Choice of the connection sending a message.
+	 */
+	public enum Selection {
+		/** Each connection in turn */
+		ROUND_ROBIN,
+		/** The connection with the fewest messages in flight */
+		LEAST_LOADED;
+	}
+
+	/**
+	 * Creates the engines of the connections of a pool.
+	 */
+	public interface Factory {
+
+		/**
+		 * Creates the engine of a connection, not started yet.
+		 * 
+		 * @param com
+		 *            Address and port of the server, named after the
+		 *            connection.
+		 * @return The new engine.
+		 * @throws IOException
+		 *             If the engine cannot be created.
+		 */
+		public ClientEngine create (Interface com) throws IOException;
+	}
+
+	/**
+	 * Period of the check of the connections whose engine does not report
+	 * its disconnection, in milliseconds.
+	 */
+	private static final long CHECK_PERIOD = 1000;
+
+	private final Interface com;
+	private final Logger logger;
+	private final Member[] members;
+	private final Selection selection;
+	private final Factory factory;
+	private final AtomicInteger next;
+
+	private volatile EngineListener listener;
+	private volatile boolean running;
+	private long initialBackoff;
+	private long maxBackoff;
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * Instanciates a new pool, reopening its connections after 100
+	 * milliseconds at first and 30 seconds at most.
+	 * 
+	 * @param com
+	 *            Address and port of the server.
+	 * @param size
+	 *            Number of connections.
+	 * @param selection
+	 *            Choice of the connection sending a message.
+	 * @param factory
+	 *            Creates the engines of the connections.
+	 */
+	public PooledClientEngine (final Interface com, final int size, final Selection selection, final Factory factory) {
+		if (com == null || selection == null || factory == null) {
+			throw new NullPointerException("Interface, selection and factory cannot be null");
+		}
+		if (size <= 0) {
+			throw new IllegalArgumentException("Pool size must be positive : " + size);
+		}
+		this.com = com;
+		this.logger = LogManager.getLogger();
+		this.members = new Member[size];
+		for (int i = 0; i < size; i++) {
+			this.members[i] = new Member(i + 1);
+		}
+		this.selection = selection;
+		this.factory = factory;
+		this.next = new AtomicInteger();
+		this.listener = null;
+		this.running = false;
+		this.initialBackoff = 100;
+		this.maxBackoff = 30000;
+	}
+
+	/**
+	 * Configures the delay before reopening a connection, doubled at each
+	 * failed attempt. Takes effect at the next start.
+	 * 
+	 * @param initial
+	 *            Delay of the first attempt in milliseconds.
+	 * @param max
+	 *            Maximum delay in milliseconds.
+	 */
+	public synchronized void setBackoff (final long initial, final long max) {
+		if (initial <= 0 || max < initial) {
+			throw new IllegalArgumentException("Invalid backoff : " + initial + " to " + max + " ms");
+		}
+		this.initialBackoff = initial;
+		this.maxBackoff = max;
+	}
+
+	@Override
+	public Interface getInterface () {
+		return this.com;
+	}
+
+	@Override
+	public void setListener (final EngineListener listener) {
+		this.listener = listener;
+	}
+
+	@Override
+	public synchronized void start () throws IOException {
+		if (this.running) {
+			return;
+		}
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+			@Override
+			public Thread newThread (Runnable r) {
+				Thread thread = new Thread(r, com.getId() + "-pool");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.running = true;
+		// Opens all the connections before the first message
+		IOException error = null;
+		int connected = 0;
+		for (Member m : this.members) {
+			try {
+				m.connect();
+				connected++;
+			} catch (IOException e) {
+				this.logger.warn("Connection {} of {} failed : {}", m.com.getId(), this.com.getId(), e.getMessage());
+				error = e;
+				scheduleReconnect(m);
+			}
+		}
+		if (connected == 0) {
+			stop();
+			throw error;
+		}
+		this.scheduler.scheduleWithFixedDelay(new Runnable() {
+
+			@Override
+			public void run () {
+				checkConnections();
+			}
+		}, CHECK_PERIOD, CHECK_PERIOD, TimeUnit.MILLISECONDS);
+		this.logger.info("{} connected with {} of {} connections", this.com.getId(), connected, this.members.length);
+	}
+
+	@Override
+	public void stop () throws IOException {
+		synchronized (this) {
+			if (!this.running) {
+				return;
+			}
+			this.running = false;
+			this.scheduler.shutdownNow();
+		}
+		for (Member m : this.members) {
+			m.close();
+		}
+	}
+
+	@Override
+	public boolean isRunning () {
+		return this.running;
+	}
+
+	/**
+	 * Returns the number of open connections.
+	 * 
+	 * @return Connections able to send.
+	 */
+	public int getConnectedCount () {
+		int count = 0;
+		for (Member m : this.members) {
+			if (m.isUp()) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the number of connections of the pool.
+	 * 
+	 * @return Size of the pool.
+	 */
+	public int getSize () {
+		return this.members.length;
+	}
+
+	@Override
+	public void send (final ByteBuffer msg) throws IOException {
+		IOException error = null;
+		// Tries the other connections if the chosen one fails
+		for (int attempt = 0; attempt < this.members.length; attempt++) {
+			Member m = select();
+			if (m == null) {
+				break;
+			}
+			ClientEngine engine = m.engine;
+			m.inFlight.incrementAndGet();
+			try {
+				engine.send(msg.duplicate());
+				return;
+			} catch (IOException e) {
+				error = e;
+				failed(m, engine, e);
+			} finally {
+				m.inFlight.decrementAndGet();
+			}
+		}
+		throw error != null ? error : new IOException("No connection of " + this.com.getId() + " is open");
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (final ByteBuffer msg) {
+		final Member m = select();
+		if (m == null) {
+			CompletableFuture<SendResult> future = new CompletableFuture<>();
+			future.completeExceptionally(new IOException("No connection of " + this.com.getId() + " is open"));
+			return future;
+		}
+		final ClientEngine engine = m.engine;
+		m.inFlight.incrementAndGet();
+		CompletableFuture<SendResult> future = engine.sendAsync(msg);
+		future.whenComplete(new BiConsumer<SendResult, Throwable>() {
+
+			@Override
+			public void accept (SendResult result, Throwable t) {
+				m.inFlight.decrementAndGet();
+				if (t != null) {
+					failed(m, engine, t);
+				}
+			}
+		});
+		return future;
+	}
+
+	@Override
+	public String toString () {
+		return this.com.getId();
+	}
+
+	/**
+	 * Chooses the connection sending a message.
+	 * 
+	 * @return An open connection, <code>null</code> if none is open.
+	 */
+	private Member select () {
+		int n = this.members.length;
+		int start = (this.next.getAndIncrement() & Integer.MAX_VALUE) % n;
+		Member best = null;
+		for (int i = 0; i < n; i++) {
+			Member m = this.members[(start + i) % n];
+			if (!m.isUp()) {
+				continue;
+			} else if (this.selection == Selection.ROUND_ROBIN) {
+				return m;
+			} else if (best == null || m.inFlight.get() < best.inFlight.get()) {
+				best = m;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Takes a connection out of the pool after an error, and reopens it.
+	 * 
+	 * @param m
+	 *            The connection.
+	 * @param engine
+	 *            The engine which failed, the connection may have been
+	 *            reopened since.
+	 * @param t
+	 *            The error.
+	 */
+	private void failed (final Member m, final ClientEngine engine, final Throwable t) {
+		if (this.running && m.markDown(engine)) {
+			this.logger.warn("Connection {} of {} failed, reconnecting : {}", m.com.getId(), this.com.getId(),
+					t.getMessage());
+			scheduleReconnect(m);
+		}
+	}
+
+	/**
+	 * Reopens the connections whose engine stopped without reporting it.
+	 */
+	private void checkConnections () {
+		for (Member m : this.members) {
+			ClientEngine engine = m.engine;
+			if (engine != null && !engine.isRunning() && m.markDown(engine)) {
+				this.logger.warn("Connection {} of {} lost, reconnecting", m.com.getId(), this.com.getId());
+				scheduleReconnect(m);
+			}
+		}
+	}
+
+	/**
+	 * Schedules the next attempt to reopen a connection, after a delay
+	 * doubled at each failed attempt : half of it fixed and half random.
+	 * 
+	 * @param m
+	 *            The closed connection.
+	 */
+	private void scheduleReconnect (final Member m) {
+		long delay;
+		synchronized (this) {
+			if (!this.running) {
+				return;
+			}
+			int attempt = Math.min(m.attempts++, 30);
+			long backoff = Math.min(this.maxBackoff, this.initialBackoff << attempt);
+			delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+			this.scheduler.schedule(new Runnable() {
+
+				@Override
+				public void run () {
+					reconnect(m);
+				}
+			}, delay, TimeUnit.MILLISECONDS);
+		}
+		this.logger.debug("Reconnecting {} in {} ms", m.com.getId(), delay);
+	}
+
+	/**
+	 * Tries to reopen a connection, scheduling another attempt on failure.
+	 * 
+	 * @param m
+	 *            The closed connection.
+	 */
+	private void reconnect (final Member m) {
+		if (!this.running) {
+			return;
+		}
+		try {
+			m.connect();
+			synchronized (this) {
+				this.logger.info("Connection {} of {} reopened after {} attempt(s)", m.com.getId(), this.com.getId(),
+						m.attempts);
+				m.attempts = 0;
+			}
+		} catch (IOException e) {
+			this.logger.debug("Connection {} of {} failed : {}", m.com.getId(), this.com.getId(), e.getMessage());
+			scheduleReconnect(m);
+		}
+	}
+
+	/**
+	 * A connection of the pool.
+	 */
+	private final class Member implements EngineListener {
+
+		private final Interface com;
+		private final AtomicInteger inFlight;
+		private volatile ClientEngine engine;
+		private volatile boolean up;
+		/** Attempts to reopen the connection, guarded by the pool */
+		private int attempts;
+
+		public Member (final int number) {
+			try {
+				this.com = new Interface(PooledClientEngine.this.com.getId() + "-" + number,
+						PooledClientEngine.this.com.getAddress().getHostAddress(), PooledClientEngine.this.com.getPort());
+			} catch (IOException e) {
+				throw new IllegalArgumentException("Invalid address : " + PooledClientEngine.this.com.getAddress(), e);
+			}
+			this.inFlight = new AtomicInteger();
+			this.engine = null;
+			this.up = false;
+			this.attempts = 0;
+		}
+
+		/**
+		 * Opens the connection with a new engine.
+		 */
+		public void connect () throws IOException {
+			ClientEngine e = factory.create(this.com);
+			e.setListener(this);
+			e.start();
+			if (!e.isRunning()) {
+				throw new IOException("Cannot connect " + this.com.getId());
+			}
+			synchronized (this) {
+				this.engine = e;
+				this.up = true;
+			}
+			if (!running) {
+				// Stopped meanwhile
+				close();
+			}
+		}
+
+		/**
+		 * Takes the connection out of the pool if its engine is still the
+		 * given one.
+		 * 
+		 * @return <code>true</code> if the connection was up.
+		 */
+		public synchronized boolean markDown (final ClientEngine failed) {
+			if (!this.up || this.engine != failed) {
+				return false;
+			}
+			this.up = false;
+			try {
+				failed.stop();
+			} catch (IOException e) {
+				logger.debug("Failed to stop {}", this.com.getId(), e);
+			}
+			return true;
+		}
+
+		public boolean isUp () {
+			return this.up;
+		}
+
+		/**
+		 * Closes the connection.
+		 */
+		public void close () {
+			ClientEngine e;
+			synchronized (this) {
+				e = this.engine;
+				this.up = false;
+			}
+			if (e != null) {
+				try {
+					e.stop();
+				} catch (IOException ex) {
+					logger.debug("Failed to stop {}", this.com.getId(), ex);
+				}
+			}
+		}
+
+		@Override
+		public void onReceive (final Interface source, final PooledBuffer msg) {
+			EngineListener l = listener;
+			if (l != null) {
+				l.onReceive(source, msg);
+			} else {
+				msg.release();
+			}
+		}
+
+		@Override
+		public void onConnect (final Interface client) {
+			EngineListener l = listener;
+			if (l != null) {
+				l.onConnect(client);
+			}
+		}
+
+		@Override
+		public void onDisconnect (final Interface client) {
+			failed(this, this.engine, new IOException("Connection closed by the server"));
+			EngineListener l = listener;
+			if (l != null) {
+				l.onDisconnect(client);
+			}
+		}
+
+		@Override
+		public void onTimeout (final Interface source) {
+			EngineListener l = listener;
+			if (l != null) {
+				l.onTimeout(source);
+			}
+		}
+
+		@Override
+		public void onException (final Interface source, final Throwable t) {
+			EngineListener l = listener;
+			if (l != null) {
+				l.onException(source, t);
+			}
+		}
+	}
+}
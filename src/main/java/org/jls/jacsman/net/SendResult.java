@@ -0,0 +1,119 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.net;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of an asynchronous send.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public final class SendResult {
+
+	private final long sequence;
+	private final long bytes;
+	private final long latency;
+	private final long completionOrder;
+
+	/**
+	 * Instanciates a new result.
+	 * 
+	 * @param sequence
+	 *            Submission number of the message, starting at 1.
+	 * @param bytes
+	 *            Number of bytes written, summed over all the recipients.
+	 * @param latency
+	 *            Time in nanoseconds between the submission and the end of
+	 *            the write.
+	 * @param completionOrder
+	 *            Completion number of the message, starting at 1.
+	 */
+	public SendResult (final long sequence, final long bytes, final long latency, final long completionOrder) {
+		this.sequence = sequence;
+		this.bytes = bytes;
+		this.latency = latency;
+		this.completionOrder = completionOrder;
+	}
+
+	/**
+	 * Returns the submission number of the message.
+	 * 
+	 * @return Sequence number, starting at 1.
+	 */
+	public long getSequence () {
+		return this.sequence;
+	}
+
+	/**
+	 * Returns the number of bytes written. A broadcast message counts the
+	 * bytes written to each client.
+	 * 
+	 * @return Number of bytes written.
+	 */
+	public long getBytes () {
+		return this.bytes;
+	}
+
+	/**
+	 * Returns the time between the submission of the message and the end of
+	 * its write, i.e. when the last byte has been handed to the operating
+	 * system.
+	 * 
+	 * @return Latency in nanoseconds.
+	 */
+	public long getLatency () {
+		return this.latency;
+	}
+
+	/**
+	 * Returns the latency in the specified unit.
+	 * 
+	 * @param unit
+	 *            Time unit.
+	 * @return Latency, truncated to the unit.
+	 */
+	public long getLatency (final TimeUnit unit) {
+		return unit.convert(this.latency, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Returns the position of the message in the completion order. Messages
+	 * sent to different clients may complete in a different order than they
+	 * were submitted.
+	 * 
+	 * @return Completion number, starting at 1.
+	 */
+	public long getCompletionOrder () {
+		return this.completionOrder;
+	}
+
+	@Override
+	public String toString () {
+		return "SendResult[seq=" + this.sequence + ", bytes=" + this.bytes + ", latency=" + this.latency
+				+ "ns, completion=" + this.completionOrder + "]";
+	}
+}
@@ -0,0 +1,530 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.net;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.jacsman.util.Threads;
+import org.jls.toolbox.net.Interface;
+
+/**
+ * TCP client built on a blocking {@link SocketChannel}, a dedicated thread
+ * reading the incoming messages.
+ * <p>
+ * Small messages sent in a burst can be coalesced : they are gathered in a
+ * batch which is written with a single system call once it is full, or once
+ * its oldest message has waited for the coalescing delay. Coalescing adds no
+ * framing, the server receives the same stream of bytes.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class TcpClientEngine implements ClientEngine {
+
+	private final Interface com;
+	private final Logger logger;
+	private final BufferPool pool;
+	private final int bufferSize;
+	private final AsyncSender sender;
+	private final ReentrantLock writeLock;
+	private final AtomicLong sendSequence;
+	private final AtomicLong sendCompletions;
+
+	private volatile EngineListener listener;
+	private volatile boolean running;
+	private boolean noDelay;
+	private int coalesceBytes;
+	private long coalesceDelay;
+	private SocketChannel channel;
+	private Thread readThread;
+	private volatile Coalescer coalescer;
+
+	/**
+	 * Instanciates a new client, with TCP_NODELAY enabled and without
+	 * coalescing.
+	 * 
+	 * @param com
+	 *            Address and port of the server.
+	 * @param bufferSize
+	 *            Size in bytes of the read buffer.
+	 * @param pool
+	 *            Pool providing the read buffers.
+	 */
+	public TcpClientEngine (final Interface com, final int bufferSize, final BufferPool pool) {
+		if (com == null || pool == null) {
+			throw new NullPointerException("Interface and pool cannot be null");
+		}
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("Buffer size must be positive : " + bufferSize);
+		}
+		this.com = com;
+		this.logger = LogManager.getLogger();
+		this.pool = pool;
+		this.bufferSize = bufferSize;
+		this.writeLock = new ReentrantLock();
+		this.sendSequence = new AtomicLong();
+		this.sendCompletions = new AtomicLong();
+		this.sender = new AsyncSender(com.getId(), new AsyncSender.Sink() {
+
+			@Override
+			public int write (ByteBuffer msg) throws IOException {
+				int size = msg.remaining();
+				writeFully(msg);
+				return size;
+			}
+		});
+		this.listener = null;
+		this.running = false;
+		this.noDelay = true;
+		this.coalesceBytes = 0;
+		this.coalesceDelay = 0;
+	}
+
+	/**
+	 * Enables or disables Nagle's algorithm. Takes effect at the next start.
+	 * 
+	 * @param noDelay
+	 *            <code>true</code> to send the segments without waiting for
+	 *            the acknowledgement of the previous ones (TCP_NODELAY).
+	 */
+	public synchronized void setNoDelay (final boolean noDelay) {
+		this.noDelay = noDelay;
+	}
+
+	/**
+	 * Configures the coalescing of the outgoing messages. Takes effect at the
+	 * next start.
+	 * 
+	 * @param maxBytes
+	 *            Size in bytes of a batch, written as soon as it is full.
+	 *            Messages of this size or larger are written as is. Lower or
+	 *            equal to zero to disable coalescing.
+	 * @param delay
+	 *            Maximum time in microseconds a message waits in a batch.
+	 */
+	public synchronized void setCoalescing (final int maxBytes, final long delay) {
+		this.coalesceBytes = maxBytes;
+		this.coalesceDelay = TimeUnit.MICROSECONDS.toNanos(Math.max(0, delay));
+	}
+
+	@Override
+	public Interface getInterface () {
+		return this.com;
+	}
+
+	@Override
+	public void setListener (final EngineListener listener) {
+		this.listener = listener;
+	}
+
+	@Override
+	public synchronized void start () throws IOException {
+		if (this.running) {
+			return;
+		}
+		this.channel = SocketChannel.open();
+		try {
+			this.channel.setOption(StandardSocketOptions.TCP_NODELAY, this.noDelay);
+			this.channel.connect(new InetSocketAddress(this.com.getAddress(), this.com.getPort()));
+		} catch (IOException e) {
+			this.channel.close();
+			throw e;
+		}
+		this.running = true;
+		this.coalescer = this.coalesceBytes > 0 ? new Coalescer(this.coalesceBytes, this.coalesceDelay) : null;
+		this.readThread = Threads.newThread(this.com.getId() + "-reader", new Runnable() {
+
+			@Override
+			public void run () {
+				readLoop();
+			}
+		});
+		this.readThread.start();
+	}
+
+	@Override
+	public void stop () throws IOException {
+		Thread reader;
+		synchronized (this) {
+			if (!this.running) {
+				return;
+			}
+			this.running = false;
+			Coalescer c = this.coalescer;
+			if (c != null) {
+				// Writes the last batch
+				c.stop();
+			}
+			this.sender.cancel();
+			this.channel.close();
+			reader = this.readThread;
+		}
+		if (reader != Thread.currentThread()) {
+			try {
+				reader.join(1000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	@Override
+	public boolean isRunning () {
+		return this.running;
+	}
+
+	@Override
+	public void send (final ByteBuffer msg) throws IOException {
+		if (!this.running) {
+			throw new IOException(this.com.getId() + " is not connected");
+		}
+		Coalescer c = this.coalescer;
+		if (c != null) {
+			c.add(msg, null);
+		} else if (this.sender.getInFlight() > 0) {
+			// Queued behind the asynchronous sends not yet written, so the messages keep their order
+			await(this.sender.submit(msg));
+		} else {
+			writeFully(msg.duplicate());
+		}
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (final ByteBuffer msg) {
+		Coalescer c = this.coalescer;
+		if (!this.running) {
+			CompletableFuture<SendResult> future = new CompletableFuture<>();
+			future.completeExceptionally(new IOException(this.com.getId() + " is not connected"));
+			return future;
+		} else if (c == null) {
+			return this.sender.submit(msg);
+		}
+		Pending pending = new Pending(msg.remaining());
+		try {
+			c.add(msg, pending);
+		} catch (IOException e) {
+			pending.future.completeExceptionally(e);
+		}
+		return pending.future;
+	}
+
+	@Override
+	public String toString () {
+		return this.com.getId();
+	}
+
+	/**
+	 * Waits until a queued message has been written.
+	 * 
+	 * @param future
+	 *            Future of the queued message.
+	 * @throws IOException
+	 *             If the message could not be written.
+	 */
+	private void await (final CompletableFuture<SendResult> future) throws IOException {
+		try {
+			future.get();
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new IOException("Failed to send to " + this.com.getId() + " : " + cause.getMessage(), cause);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while sending to " + this.com.getId());
+		}
+	}
+
+	/**
+	 * Writes all the remaining bytes of a buffer.
+	 * 
+	 * @param buf
+	 *            The bytes to write.
+	 * @throws IOException
+	 *             If an error occurred writing the bytes.
+	 */
+	private void writeFully (final ByteBuffer buf) throws IOException {
+		// Not a monitor : a virtual thread blocked in a write must not pin its carrier thread
+		this.writeLock.lock();
+		try {
+			while (buf.hasRemaining()) {
+				this.channel.write(buf);
+			}
+		} finally {
+			this.writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Reads the incoming messages until the connection is closed.
+	 */
+	private void readLoop () {
+		PooledBuffer readBuffer = this.pool.acquire(this.bufferSize);
+		try {
+			while (this.running) {
+				ByteBuffer buf = readBuffer.buffer();
+				buf.clear();
+				int n = this.channel.read(buf);
+				if (n < 0) {
+					break;
+				} else if (n > 0) {
+					buf.flip();
+					PooledBuffer msg;
+					if (n >= this.bufferSize / 2) {
+						// Hands over the read buffer itself
+						msg = readBuffer;
+						readBuffer = this.pool.acquire(this.bufferSize);
+					} else {
+						msg = this.pool.copyOf(buf);
+					}
+					fireReceive(msg);
+				}
+			}
+		} catch (IOException e) {
+			if (this.running) {
+				this.logger.error("An error occurred reading from {}", this.com.getId(), e);
+				fireException(e);
+			}
+		} finally {
+			readBuffer.release();
+		}
+		if (this.running) {
+			this.logger.info("Connection to {} closed by the server", this.com.getId());
+			try {
+				stop();
+			} catch (IOException e) {
+				this.logger.debug("Failed to close channel of {}", this.com.getId(), e);
+			}
+			EngineListener l = this.listener;
+			if (l != null) {
+				l.onDisconnect(this.com);
+			}
+		}
+	}
+
+	/**
+	 * Notifies the listener that a message has been received.
+	 */
+	private void fireReceive (final PooledBuffer msg) {
+		EngineListener l = this.listener;
+		if (l == null) {
+			msg.release();
+			return;
+		}
+		try {
+			l.onReceive(this.com, msg);
+		} catch (RuntimeException e) {
+			this.logger.error("Listener failed to handle message from {}", this.com.getId(), e);
+		}
+	}
+
+	/**
+	 * Notifies the listener that an error occurred.
+	 */
+	private void fireException (final Throwable t) {
+		EngineListener l = this.listener;
+		if (l != null) {
+			l.onException(this.com, t);
+		}
+	}
+
+	/**
+	 * An asynchronous send waiting for its batch to be written.
+	 */
+	private final class Pending {
+
+		private final CompletableFuture<SendResult> future;
+		private final long sequence;
+		private final long start;
+		private final int size;
+
+		public Pending (final int size) {
+			this.future = new CompletableFuture<>();
+			this.sequence = sendSequence.incrementAndGet();
+			this.start = System.nanoTime();
+			this.size = size;
+		}
+
+		public void complete () {
+			this.future.complete(new SendResult(this.sequence, this.size, System.nanoTime() - this.start,
+					sendCompletions.incrementAndGet()));
+		}
+	}
+
+	/**
+	 * Gathers the outgoing messages in batches, written when full or by a
+	 * flusher thread once the delay of their oldest message has elapsed.
+	 */
+	private final class Coalescer implements Runnable {
+
+		private final ReentrantLock lock;
+		private final Condition batchStarted;
+		private final ByteBuffer batch;
+		private final List<Pending> waiting;
+		private final long delay;
+		private final Thread thread;
+		private long deadline;
+		private boolean stopped;
+
+		public Coalescer (final int maxBytes, final long delay) {
+			this.lock = new ReentrantLock();
+			this.batchStarted = this.lock.newCondition();
+			this.batch = ByteBuffer.allocateDirect(maxBytes);
+			this.waiting = new ArrayList<>();
+			this.delay = delay;
+			this.deadline = 0;
+			this.stopped = false;
+			this.thread = Threads.newThread(com.getId() + "-flusher", this);
+			this.thread.start();
+		}
+
+		/**
+		 * Adds a message to the current batch. The batch is written by the
+		 * calling thread if the message fills it.
+		 */
+		public void add (final ByteBuffer msg, final Pending pending) throws IOException {
+			int size = msg.remaining();
+			this.lock.lock();
+			try {
+				if (this.stopped) {
+					throw new IOException(com.getId() + " is not connected");
+				}
+				if (size > this.batch.remaining()) {
+					flush();
+				}
+				if (size >= this.batch.capacity()) {
+					// Too large to be batched
+					writeFully(msg.duplicate());
+					if (pending != null) {
+						pending.complete();
+					}
+					return;
+				}
+				if (this.batch.position() == 0) {
+					this.deadline = System.nanoTime() + this.delay;
+					this.batchStarted.signal();
+				}
+				this.batch.put(msg.duplicate());
+				if (pending != null) {
+					this.waiting.add(pending);
+				}
+				if (!this.batch.hasRemaining()) {
+					flush();
+				}
+			} finally {
+				this.lock.unlock();
+			}
+		}
+
+		/**
+		 * Writes the current batch. Called with the lock held.
+		 */
+		private void flush () throws IOException {
+			if (this.batch.position() == 0) {
+				return;
+			}
+			this.batch.flip();
+			try {
+				writeFully(this.batch);
+				for (Pending p : this.waiting) {
+					p.complete();
+				}
+			} catch (IOException e) {
+				for (Pending p : this.waiting) {
+					p.future.completeExceptionally(e);
+				}
+				throw e;
+			} finally {
+				this.batch.clear();
+				this.waiting.clear();
+			}
+		}
+
+		@Override
+		public void run () {
+			this.lock.lock();
+			try {
+				while (!this.stopped) {
+					if (this.batch.position() == 0) {
+						this.batchStarted.await();
+						continue;
+					}
+					long wait = this.deadline - System.nanoTime();
+					if (wait > 0) {
+						this.batchStarted.awaitNanos(wait);
+					} else {
+						try {
+							flush();
+						} catch (IOException e) {
+							logger.error("An error occurred writing to {}", com.getId(), e);
+							fireException(e);
+						}
+					}
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				this.lock.unlock();
+			}
+		}
+
+		/**
+		 * Writes the last batch and stops the flusher thread.
+		 */
+		public void stop () {
+			this.lock.lock();
+			try {
+				this.stopped = true;
+				try {
+					flush();
+				} catch (IOException e) {
+					logger.debug("Failed to write the last batch to {}", com.getId(), e);
+				}
+				this.batchStarted.signal();
+			} finally {
+				this.lock.unlock();
+			}
+		}
+	}
+}
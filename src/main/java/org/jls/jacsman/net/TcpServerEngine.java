@@ -0,0 +1,419 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.jacsman.util.Threads;
+import org.jls.toolbox.net.Interface;
+
+/**
+ * TCP server built on blocking channels, each connection being read by its own
+ * thread.
+ * <p>
+ * This is the model of the toolbox server, but its threads are created by
+ * {@link Threads} : with virtual threads enabled, a connection waiting for
+ * data costs a few kilobytes instead of a thread stack, so the server can hold
+ * tens of thousands of mostly idle connections. The writes are done by the
+ * sending thread, the asynchronous sends of each client by its own
+ * {@link AsyncSender}.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class TcpServerEngine implements ServerEngine {
+
+	private static final int BACKLOG = 1024;
+
+	private final Interface com;
+	private final Logger logger;
+	private final BufferPool pool;
+	private final int bufferSize;
+	private final ConcurrentHashMap<Interface, Connection> connections;
+	private final AtomicInteger clientCount;
+	private final AsyncSender broadcaster;
+
+	private volatile boolean noDelay;
+	private volatile EngineListener listener;
+	private volatile boolean running;
+	private ServerSocketChannel serverChannel;
+	private Thread acceptThread;
+
+	/**
+	 * Instanciates a new server.
+	 * 
+	 * @param com
+	 *            Server's interface, only the port is used : the server
+	 *            listens on all the local addresses.
+	 * @param bufferSize
+	 *            Size in bytes of the read buffer of each connection.
+	 * @param pool
+	 *            Pool providing the read buffers.
+	 */
+	public TcpServerEngine (final Interface com, final int bufferSize, final BufferPool pool) {
+		if (com == null || pool == null) {
+			throw new NullPointerException("Interface and pool cannot be null");
+		}
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("Buffer size must be positive : " + bufferSize);
+		}
+		this.com = com;
+		this.logger = LogManager.getLogger();
+		this.pool = pool;
+		this.bufferSize = bufferSize;
+		this.connections = new ConcurrentHashMap<>();
+		this.clientCount = new AtomicInteger();
+		this.broadcaster = new AsyncSender(com.getId(), new AsyncSender.Sink() {
+
+			@Override
+			public int write (ByteBuffer msg) throws IOException {
+				int size = msg.remaining();
+				send(msg);
+				return size;
+			}
+		});
+		this.noDelay = true;
+		this.listener = null;
+		this.running = false;
+	}
+
+	@Override
+	public Interface getInterface () {
+		return this.com;
+	}
+
+	@Override
+	public void setListener (final EngineListener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * Enables or disables Nagle's algorithm on the connections accepted from
+	 * now on.
+	 * 
+	 * @param noDelay
+	 *            <code>true</code> to send the segments without waiting for
+	 *            the acknowledgement of the previous ones (TCP_NODELAY).
+	 */
+	public void setNoDelay (final boolean noDelay) {
+		this.noDelay = noDelay;
+	}
+
+	@Override
+	public synchronized void start () throws IOException {
+		if (this.running) {
+			return;
+		}
+		this.serverChannel = ServerSocketChannel.open();
+		this.serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+		this.serverChannel.bind(new InetSocketAddress(this.com.getPort()), BACKLOG);
+		this.running = true;
+		this.acceptThread = Threads.newThread(this.com.getId() + "-accept", new Runnable() {
+
+			@Override
+			public void run () {
+				acceptLoop();
+			}
+		});
+		this.acceptThread.start();
+		this.logger.info("{} listening on port {} with {} threads", this.com.getId(), this.com.getPort(),
+				Threads.isVirtual() ? "virtual" : "platform");
+	}
+
+	@Override
+	public synchronized void stop () throws IOException {
+		if (!this.running) {
+			return;
+		}
+		this.running = false;
+		this.broadcaster.cancel();
+		this.serverChannel.close();
+		try {
+			this.acceptThread.join(1000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		for (Connection c : this.connections.values()) {
+			close(c);
+		}
+	}
+
+	@Override
+	public boolean isRunning () {
+		return this.running;
+	}
+
+	@Override
+	public List<Interface> getClients () {
+		return new ArrayList<>(this.connections.keySet());
+	}
+
+	@Override
+	public void send (final ByteBuffer msg) throws IOException {
+		if (this.connections.isEmpty()) {
+			throw new NoClientException("No client connected to " + this.com.getId());
+		}
+		for (Connection c : this.connections.values()) {
+			try {
+				c.write(msg.duplicate());
+			} catch (IOException e) {
+				// A broken client does not prevent the others from receiving the message
+				this.logger.error("An error occurred writing to {}", c.client.getId(), e);
+				close(c);
+			}
+		}
+	}
+
+	@Override
+	public void send (final Interface client, final ByteBuffer msg) throws IOException {
+		Connection c = this.connections.get(client);
+		if (c == null) {
+			throw new NoClientException("Client " + client.getId() + " not connected to " + this.com.getId());
+		}
+		c.write(msg.duplicate());
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (final ByteBuffer msg) {
+		if (this.connections.isEmpty()) {
+			CompletableFuture<SendResult> future = new CompletableFuture<>();
+			future.completeExceptionally(new NoClientException("No client connected to " + this.com.getId()));
+			return future;
+		}
+		return this.broadcaster.submit(msg);
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (final Interface client, final ByteBuffer msg) {
+		Connection c = this.connections.get(client);
+		if (c == null) {
+			CompletableFuture<SendResult> future = new CompletableFuture<>();
+			future.completeExceptionally(
+					new NoClientException("Client " + client.getId() + " not connected to " + this.com.getId()));
+			return future;
+		}
+		return c.sender.submit(msg);
+	}
+
+	@Override
+	public String toString () {
+		return this.com.getId();
+	}
+
+	/**
+	 * Accepts the connections until the server is stopped.
+	 */
+	private void acceptLoop () {
+		while (this.running) {
+			SocketChannel channel;
+			try {
+				channel = this.serverChannel.accept();
+			} catch (IOException e) {
+				if (this.running) {
+					this.logger.error("An error occurred accepting connection on {}", this.com.getId(), e);
+					EngineListener l = this.listener;
+					if (l != null) {
+						l.onException(this.com, e);
+					}
+				}
+				continue;
+			}
+			accept(channel);
+		}
+	}
+
+	/**
+	 * Configures a new connection and starts its thread.
+	 * 
+	 * @param channel
+	 *            The accepted channel.
+	 */
+	private void accept (final SocketChannel channel) {
+		try {
+			channel.setOption(StandardSocketOptions.TCP_NODELAY, this.noDelay);
+			InetSocketAddress remote = (InetSocketAddress) channel.getRemoteAddress();
+			Interface client = new Interface("Client" + this.clientCount.incrementAndGet(),
+					remote.getAddress().getHostAddress(), remote.getPort());
+			final Connection c = new Connection(channel, client);
+			this.connections.put(client, c);
+			this.logger.debug("Client {} connected to {}", client.getId(), this.com.getId());
+			EngineListener l = this.listener;
+			if (l != null) {
+				l.onConnect(client);
+			}
+			Threads.newThread(this.com.getId() + "-" + client.getId(), new Runnable() {
+
+				@Override
+				public void run () {
+					readLoop(c);
+				}
+			}).start();
+		} catch (IOException e) {
+			this.logger.error("An error occurred configuring connection on {}", this.com.getId(), e);
+			try {
+				channel.close();
+			} catch (IOException e1) {
+				this.logger.debug("Failed to close channel", e1);
+			}
+		}
+	}
+
+	/**
+	 * Reads the incoming messages of a connection until it is closed.
+	 * 
+	 * @param c
+	 *            The connection.
+	 */
+	private void readLoop (final Connection c) {
+		PooledBuffer readBuffer = this.pool.acquire(this.bufferSize);
+		try {
+			while (this.running) {
+				ByteBuffer buf = readBuffer.buffer();
+				buf.clear();
+				int n = c.channel.read(buf);
+				if (n < 0) {
+					break;
+				} else if (n > 0) {
+					buf.flip();
+					PooledBuffer msg;
+					if (n >= this.bufferSize / 2) {
+						// Hands over the read buffer itself
+						msg = readBuffer;
+						readBuffer = this.pool.acquire(this.bufferSize);
+					} else {
+						msg = this.pool.copyOf(buf);
+					}
+					fireReceive(c.client, msg);
+				}
+			}
+		} catch (IOException e) {
+			if (this.running && c.channel.isOpen()) {
+				this.logger.error("An error occurred reading from {}", c.client.getId(), e);
+				EngineListener l = this.listener;
+				if (l != null) {
+					l.onException(c.client, e);
+				}
+			}
+		} finally {
+			readBuffer.release();
+		}
+		close(c);
+	}
+
+	/**
+	 * Closes a connection and forgets it.
+	 * 
+	 * @param c
+	 *            The connection to close.
+	 */
+	private void close (final Connection c) {
+		if (this.connections.remove(c.client, c)) {
+			this.logger.debug("Client {} disconnected from {}", c.client.getId(), this.com.getId());
+			EngineListener l = this.listener;
+			if (l != null) {
+				l.onDisconnect(c.client);
+			}
+		}
+		c.sender.cancel();
+		try {
+			c.channel.close();
+		} catch (IOException e) {
+			this.logger.debug("Failed to close channel of {}", c.client.getId(), e);
+		}
+	}
+
+	/**
+	 * Notifies the listener that a message has been received.
+	 */
+	private void fireReceive (final Interface client, final PooledBuffer msg) {
+		EngineListener l = this.listener;
+		if (l == null) {
+			msg.release();
+			return;
+		}
+		try {
+			l.onReceive(client, msg);
+		} catch (RuntimeException e) {
+			this.logger.error("Listener failed to handle message from {}", client.getId(), e);
+		}
+	}
+
+	/**
+	 * A connected client.
+	 */
+	private static final class Connection {
+
+		private final SocketChannel channel;
+		private final Interface client;
+		private final ReentrantLock writeLock;
+		private final AsyncSender sender;
+
+		public Connection (final SocketChannel channel, final Interface client) {
+			this.channel = channel;
+			this.client = client;
+			this.writeLock = new ReentrantLock();
+			this.sender = new AsyncSender(client.getId(), new AsyncSender.Sink() {
+
+				@Override
+				public int write (ByteBuffer msg) throws IOException {
+					int size = msg.remaining();
+					Connection.this.write(msg);
+					return size;
+				}
+			});
+		}
+
+		/**
+		 * Writes all the remaining bytes of a buffer. Not a monitor : a
+		 * virtual thread blocked in a write must not pin its carrier thread.
+		 */
+		public void write (final ByteBuffer buf) throws IOException {
+			this.writeLock.lock();
+			try {
+				while (buf.hasRemaining()) {
+					this.channel.write(buf);
+				}
+			} finally {
+				this.writeLock.unlock();
+			}
+		}
+	}
+}
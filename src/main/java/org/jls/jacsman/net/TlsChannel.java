@@ -0,0 +1,325 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+
+/**
+ * TLS over a non-blocking {@link SocketChannel}, driven by an
+ * {@link SSLEngine}. Used by a single thread : the reads, the writes and the
+ * handshake only progress as far as the channel allows without waiting.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+final class TlsChannel {
+
+	private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+	private final SocketChannel channel;
+	private final SSLEngine engine;
+	private final long handshakeStart;
+	private final long handshakeStartMillis;
+	/** Encrypted bytes read, in write mode */
+	private ByteBuffer netIn;
+	/** Encrypted bytes waiting to be written, in read mode */
+	private ByteBuffer netOut;
+	/** Decrypted bytes, in write mode */
+	private ByteBuffer appIn;
+	private long handshakeTime;
+	private boolean resumed;
+
+	/**
+	 * Instanciates the channel and begins the handshake.
+	 * 
+	 * @param channel
+	 *            Connected channel in non-blocking mode.
+	 * @param engine
+	 *            Engine of the connection, in client or server mode.
+	 * @throws IOException
+	 *             If the handshake cannot begin.
+	 */
+	public TlsChannel (final SocketChannel channel, final SSLEngine engine) throws IOException {
+		this.channel = channel;
+		this.engine = engine;
+		SSLSession session = engine.getSession();
+		this.netIn = ByteBuffer.allocate(session.getPacketBufferSize());
+		this.netOut = ByteBuffer.allocate(session.getPacketBufferSize());
+		this.netOut.flip();
+		this.appIn = ByteBuffer.allocate(session.getApplicationBufferSize());
+		this.handshakeTime = -1;
+		this.resumed = false;
+		this.handshakeStartMillis = System.currentTimeMillis();
+		this.handshakeStart = System.nanoTime();
+		engine.beginHandshake();
+	}
+
+	/**
+	 * Reads the available bytes and processes them : the handshake messages
+	 * are answered and the application bytes are decrypted into
+	 * {@link #getApplicationBuffer()}.
+	 * 
+	 * @return Number of bytes read from the channel, -1 if the peer closed
+	 *         the connection.
+	 * @throws IOException
+	 *             If an error occurred reading, or if the handshake failed.
+	 */
+	public int read () throws IOException {
+		int n = this.channel.read(this.netIn);
+		if (n < 0) {
+			try {
+				this.engine.closeInbound();
+			} catch (SSLException e) {
+				// The peer did not send close_notify, nothing more to read anyway
+			}
+			return -1;
+		}
+		process();
+		return n;
+	}
+
+	/**
+	 * Makes the handshake progress as far as possible without reading the
+	 * channel, e.g. to send the first message of a client.
+	 * 
+	 * @throws IOException
+	 *             If an error occurred writing, or if the handshake failed.
+	 */
+	public void process () throws IOException {
+		while (true) {
+			HandshakeStatus status = this.engine.getHandshakeStatus();
+			if (status == HandshakeStatus.NEED_TASK) {
+				Runnable task;
+				while ((task = this.engine.getDelegatedTask()) != null) {
+					task.run();
+				}
+			} else if (status == HandshakeStatus.NEED_WRAP) {
+				if (!flush()) {
+					// Waits for the channel to be writable
+					break;
+				}
+				wrap(EMPTY);
+			} else if (!unwrap()) {
+				break;
+			}
+		}
+		if (this.handshakeTime < 0 && this.engine.getHandshakeStatus() == HandshakeStatus.NOT_HANDSHAKING
+				&& !this.engine.isInboundDone()) {
+			handshakeFinished();
+		}
+		flush();
+	}
+
+	/**
+	 * Encrypts and writes application bytes.
+	 * 
+	 * @param src
+	 *            The bytes to write.
+	 * @return <code>true</code> if all the bytes have been written,
+	 *         <code>false</code> if the channel is full : the call must be
+	 *         repeated with the same buffer once it is writable.
+	 * @throws IOException
+	 *             If an error occurred writing.
+	 */
+	public boolean write (final ByteBuffer src) throws IOException {
+		while (true) {
+			if (!flush()) {
+				return false;
+			} else if (!src.hasRemaining()) {
+				return true;
+			}
+			wrap(src);
+		}
+	}
+
+	/**
+	 * Writes the encrypted bytes waiting in the output buffer.
+	 * 
+	 * @return <code>true</code> if no byte is waiting anymore.
+	 * @throws IOException
+	 *             If an error occurred writing.
+	 */
+	public boolean flush () throws IOException {
+		while (this.netOut.hasRemaining()) {
+			if (this.channel.write(this.netOut) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Tells whether encrypted bytes are waiting for the channel to be
+	 * writable.
+	 * 
+	 * @return <code>true</code> if bytes are waiting.
+	 */
+	public boolean hasPendingOutput () {
+		return this.netOut.hasRemaining();
+	}
+
+	/**
+	 * Returns the decrypted bytes, in write mode : the bytes read are between
+	 * 0 and the position. The reader must clear it once consumed.
+	 * 
+	 * @return The application buffer.
+	 */
+	public ByteBuffer getApplicationBuffer () {
+		return this.appIn;
+	}
+
+	/**
+	 * Tells whether the handshake has completed.
+	 * 
+	 * @return <code>true</code> once the application bytes can be exchanged.
+	 */
+	public boolean isHandshakeFinished () {
+		return this.handshakeTime >= 0;
+	}
+
+	/**
+	 * Returns the duration of the handshake.
+	 * 
+	 * @return Duration in nanoseconds, -1 if the handshake has not completed.
+	 */
+	public long getHandshakeTime () {
+		return this.handshakeTime;
+	}
+
+	/**
+	 * Tells whether the handshake resumed a session negotiated by a previous
+	 * connection.
+	 * 
+	 * @return <code>true</code> if the session has been resumed.
+	 */
+	public boolean isResumed () {
+		return this.resumed;
+	}
+
+	/**
+	 * Sends close_notify if possible and closes the channel.
+	 */
+	public void close () {
+		try {
+			this.engine.closeOutbound();
+			if (flush()) {
+				wrap(EMPTY);
+				flush();
+			}
+		} catch (IOException e) {
+			// Closing anyway
+		}
+		try {
+			this.channel.close();
+		} catch (IOException e) {
+			// Already closed
+		}
+	}
+
+	/**
+	 * Encrypts bytes into the output buffer, which must be empty or have room
+	 * for a record.
+	 */
+	private void wrap (final ByteBuffer src) throws IOException {
+		this.netOut.compact();
+		try {
+			SSLEngineResult result = this.engine.wrap(src, this.netOut);
+			if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+				this.netOut = enlarge(this.netOut, this.engine.getSession().getPacketBufferSize());
+			}
+			if (result.getHandshakeStatus() == HandshakeStatus.FINISHED) {
+				handshakeFinished();
+			}
+		} finally {
+			this.netOut.flip();
+		}
+	}
+
+	/**
+	 * Decrypts the bytes read.
+	 * 
+	 * @return <code>true</code> if some bytes have been processed and the
+	 *         processing can go on, <code>false</code> if more bytes must be
+	 *         read.
+	 */
+	private boolean unwrap () throws IOException {
+		this.netIn.flip();
+		SSLEngineResult result;
+		try {
+			result = this.engine.unwrap(this.netIn, this.appIn);
+		} finally {
+			this.netIn.compact();
+		}
+		if (result.getHandshakeStatus() == HandshakeStatus.FINISHED) {
+			handshakeFinished();
+		}
+		switch (result.getStatus()) {
+			case BUFFER_UNDERFLOW:
+				if (this.netIn.position() == this.netIn.capacity()) {
+					this.netIn = enlarge(this.netIn, this.engine.getSession().getPacketBufferSize());
+					return true;
+				}
+				return false;
+			case BUFFER_OVERFLOW:
+				this.appIn = enlarge(this.appIn, this.engine.getSession().getApplicationBufferSize());
+				return true;
+			case CLOSED:
+				return false;
+			default:
+				return result.bytesConsumed() > 0 || result.bytesProduced() > 0
+						|| result.getHandshakeStatus() == HandshakeStatus.NEED_TASK
+						|| result.getHandshakeStatus() == HandshakeStatus.NEED_WRAP;
+		}
+	}
+
+	/**
+	 * Records the end of the handshake.
+	 */
+	private void handshakeFinished () {
+		if (this.handshakeTime < 0) {
+			this.handshakeTime = System.nanoTime() - this.handshakeStart;
+			// A resumed session keeps the creation time of the connection which negotiated it
+			this.resumed = this.engine.getSession().getCreationTime() < this.handshakeStartMillis;
+		}
+	}
+
+	/**
+	 * Returns a larger buffer holding the bytes of a buffer in write mode.
+	 */
+	private static ByteBuffer enlarge (final ByteBuffer buf, final int size) {
+		ByteBuffer larger = ByteBuffer.allocate(buf.position() + Math.max(size, buf.capacity()));
+		buf.flip();
+		larger.put(buf);
+		return larger;
+	}
+}
@@ -0,0 +1,68 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.net;
+
+import org.jls.jacsman.latency.LatencyHistogram;
+
+/**
+ * Handshakes of a TLS engine. Their latency is measured from the start of the
+ * handshake to its end, apart from the latency of the messages, so the cost
+ * of the full handshakes and the gain of the resumed ones can be read.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public interface TlsStats {
+
+	/**
+	 * Returns the number of handshakes completed since the engine started.
+	 * 
+	 * @return Number of handshakes, full or resumed.
+	 */
+	public long getHandshakes ();
+
+	/**
+	 * Returns the number of handshakes which resumed a cached session instead
+	 * of negotiating a new one.
+	 * 
+	 * @return Number of resumed handshakes.
+	 */
+	public long getResumedHandshakes ();
+
+	/**
+	 * Returns the number of handshakes which failed, e.g. because the peer
+	 * certificate is not trusted.
+	 * 
+	 * @return Number of failed handshakes.
+	 */
+	public long getFailedHandshakes ();
+
+	/**
+	 * Returns the latencies of the completed handshakes.
+	 * 
+	 * @return Copy of the histogram, in nanoseconds.
+	 */
+	public LatencyHistogram getHandshakeLatency ();
+}
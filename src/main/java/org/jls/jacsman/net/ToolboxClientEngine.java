@@ -0,0 +1,149 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.toolbox.net.Client;
+import org.jls.toolbox.net.Interface;
+import org.jls.toolbox.net.InterfaceEvent;
+import org.jls.toolbox.net.InterfaceListener;
+
+/**
+ * Adapts a toolbox {@link Client} (TCP, UDP, multicast) to the
+ * {@link ClientEngine} interface. The arrays of the toolbox are wrapped
+ * without copy. The toolbox writes are blocking, the asynchronous sends are
+ * written by an {@link AsyncSender}.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class ToolboxClientEngine implements ClientEngine, InterfaceListener {
+
+	private final Client client;
+	private final AsyncSender sender;
+	private volatile EngineListener listener;
+
+	/**
+	 * Instanciates a new engine.
+	 * 
+	 * @param client
+	 *            The toolbox client to adapt.
+	 */
+	public ToolboxClientEngine (final Client client) {
+		if (client == null) {
+			throw new NullPointerException("Client cannot be null");
+		}
+		this.client = client;
+		this.sender = new AsyncSender(client.getInterface().getId(), new AsyncSender.Sink() {
+
+			@Override
+			public int write (ByteBuffer msg) throws IOException {
+				send(msg);
+				return msg.remaining();
+			}
+		});
+		this.listener = null;
+		this.client.addListener(this);
+	}
+
+	@Override
+	public Interface getInterface () {
+		return this.client.getInterface();
+	}
+
+	@Override
+	public void setListener (final EngineListener listener) {
+		this.listener = listener;
+	}
+
+	@Override
+	public void start () throws IOException {
+		this.client.start();
+	}
+
+	@Override
+	public void stop () throws IOException {
+		this.sender.cancel();
+		this.client.stop();
+	}
+
+	@Override
+	public boolean isRunning () {
+		return this.client.isRunning();
+	}
+
+	@Override
+	public void send (final ByteBuffer msg) throws IOException {
+		this.client.send(PooledBuffer.toArray(msg));
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (final ByteBuffer msg) {
+		return this.sender.submit(msg);
+	}
+
+	@Override
+	public void onReceive (final InterfaceEvent event) {
+		EngineListener l = this.listener;
+		if (l != null) {
+			byte[] msg = event.getMessage();
+			l.onReceive(event.getInterface(), PooledBuffer.wrap(msg != null ? msg : new byte[0]));
+		}
+	}
+
+	@Override
+	public void onTimeout (final InterfaceEvent event) {
+		EngineListener l = this.listener;
+		if (l != null) {
+			l.onTimeout(event.getInterface());
+		}
+	}
+
+	@Override
+	public void onException (final InterfaceEvent event, final Throwable t) {
+		EngineListener l = this.listener;
+		if (l != null) {
+			l.onException(event.getInterface(), t);
+		}
+	}
+
+	/**
+	 * Returns the adapted toolbox client.
+	 * 
+	 * @return The toolbox client.
+	 */
+	public Client getClient () {
+		return this.client;
+	}
+
+	@Override
+	public String toString () {
+		return this.client.toString();
+	}
+}
@@ -0,0 +1,184 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.toolbox.net.Interface;
+import org.jls.toolbox.net.InterfaceEvent;
+import org.jls.toolbox.net.InterfaceListener;
+import org.jls.toolbox.net.NoClientConnectedException;
+import org.jls.toolbox.net.Server;
+
+/**
+ * Adapts a toolbox {@link Server} (TCP, UDP, multicast) to the
+ * {@link ServerEngine} interface. The arrays of the toolbox are wrapped
+ * without copy. The toolbox writes are blocking, the asynchronous sends are
+ * written by an {@link AsyncSender}.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class ToolboxServerEngine implements ServerEngine, InterfaceListener {
+
+	private final Server server;
+	private final AsyncSender sender;
+	private volatile EngineListener listener;
+
+	/**
+	 * Instanciates a new engine.
+	 * 
+	 * @param server
+	 *            The toolbox server to adapt.
+	 */
+	public ToolboxServerEngine (final Server server) {
+		if (server == null) {
+			throw new NullPointerException("Server cannot be null");
+		}
+		this.server = server;
+		this.sender = new AsyncSender(server.getInterface().getId(), new AsyncSender.Sink() {
+
+			@Override
+			public int write (ByteBuffer msg) throws IOException {
+				send(msg);
+				return msg.remaining();
+			}
+		});
+		this.listener = null;
+		this.server.addListener(this);
+	}
+
+	@Override
+	public Interface getInterface () {
+		return this.server.getInterface();
+	}
+
+	@Override
+	public void setListener (final EngineListener listener) {
+		this.listener = listener;
+	}
+
+	@Override
+	public void start () throws IOException {
+		this.server.start();
+	}
+
+	@Override
+	public void stop () throws IOException {
+		this.sender.cancel();
+		this.server.stop();
+	}
+
+	@Override
+	public boolean isRunning () {
+		return this.server.isRunning();
+	}
+
+	@Override
+	public List<Interface> getClients () {
+		List<Interface> clients = new ArrayList<>();
+		for (Interface client : this.server.getClients()) {
+			clients.add(client);
+		}
+		return clients;
+	}
+
+	@Override
+	public void send (final ByteBuffer msg) throws IOException {
+		try {
+			this.server.send(PooledBuffer.toArray(msg));
+		} catch (NoClientConnectedException e) {
+			throw new NoClientException("No client connected to " + getInterface().getId(), e);
+		}
+	}
+
+	/**
+	 * Not supported : the toolbox servers only broadcast.
+	 */
+	@Override
+	public void send (final Interface client, final ByteBuffer msg) throws IOException {
+		throw new UnsupportedOperationException(getInterface().getId() + " cannot send to a single client");
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (final ByteBuffer msg) {
+		return this.sender.submit(msg);
+	}
+
+	/**
+	 * Not supported : the toolbox servers only broadcast.
+	 */
+	@Override
+	public CompletableFuture<SendResult> sendAsync (final Interface client, final ByteBuffer msg) {
+		CompletableFuture<SendResult> future = new CompletableFuture<>();
+		future.completeExceptionally(
+				new UnsupportedOperationException(getInterface().getId() + " cannot send to a single client"));
+		return future;
+	}
+
+	@Override
+	public void onReceive (final InterfaceEvent event) {
+		EngineListener l = this.listener;
+		if (l != null) {
+			byte[] msg = event.getMessage();
+			l.onReceive(event.getInterface(), PooledBuffer.wrap(msg != null ? msg : new byte[0]));
+		}
+	}
+
+	@Override
+	public void onTimeout (final InterfaceEvent event) {
+		EngineListener l = this.listener;
+		if (l != null) {
+			l.onTimeout(event.getInterface());
+		}
+	}
+
+	@Override
+	public void onException (final InterfaceEvent event, final Throwable t) {
+		EngineListener l = this.listener;
+		if (l != null) {
+			l.onException(event.getInterface(), t);
+		}
+	}
+
+	/**
+	 * Returns the adapted toolbox server.
+	 * 
+	 * @return The toolbox server.
+	 */
+	public Server getServer () {
+		return this.server;
+	}
+
+	@Override
+	public String toString () {
+		return this.server.toString();
+	}
+}
@@ -0,0 +1,120 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.pipeline;
+
+import java.nio.ByteBuffer;
+
+import org.jls.jacsman.buffer.BufferPool;
+
+/**
+ * Decodes the frames ending with a delimiter, e.g. a line feed. The
+ * delimiter is not part of the payload.
+ * <p>
+ * The bytes already searched are remembered, so a frame received in many
+ * chunks is scanned only once.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class DelimiterFrameDecoder extends FrameDecoder {
+
+	private final byte[] delimiter;
+	/**
+	 * Number of bytes of the pending frame known not to start a delimiter.
+	 */
+	private int scanned;
+
+	/**
+	 * Instanciates a new decoder.
+	 * 
+	 * @param delimiter
+	 *            Bytes ending a frame.
+	 * @param maxFrameLength
+	 *            Maximum size in bytes of a payload.
+	 * @param pool
+	 *            Pool of the cumulation buffers.
+	 * @param listener
+	 *            Receives the decoded frames.
+	 */
+	public DelimiterFrameDecoder (final byte[] delimiter, final int maxFrameLength, final BufferPool pool,
+			final Listener listener) {
+		super(maxFrameLength, pool, listener);
+		if (delimiter == null || delimiter.length == 0) {
+			throw new IllegalArgumentException("Delimiter cannot be null or empty");
+		}
+		this.delimiter = delimiter.clone();
+		this.scanned = 0;
+	}
+
+	@Override
+	protected int findFrame (final ByteBuffer in) throws FramingException {
+		int pos = in.position();
+		int available = in.remaining();
+		int last = available - this.delimiter.length;
+		for (int i = this.scanned; i <= last; i++) {
+			if (matches(in, pos + i)) {
+				if (i > this.maxFrameLength) {
+					throw new FramingException("Frame of " + i + " bytes exceeds the limit of " + this.maxFrameLength);
+				}
+				this.payloadOffset = 0;
+				this.payloadLength = i;
+				this.scanned = 0;
+				return i + this.delimiter.length;
+			}
+		}
+		this.scanned = Math.max(0, last + 1);
+		if (this.scanned > this.maxFrameLength) {
+			throw new FramingException("No delimiter found in the last " + this.scanned + " bytes, limit is "
+					+ this.maxFrameLength);
+		}
+		this.needed = 0;
+		return -1;
+	}
+
+	@Override
+	protected void resetState () {
+		super.resetState();
+		this.scanned = 0;
+	}
+
+	/**
+	 * Specifies if the delimiter is found at the specified index.
+	 * 
+	 * @param in
+	 *            The received bytes.
+	 * @param index
+	 *            Absolute index in the buffer.
+	 * @return <code>true</code> if the delimiter starts at this index.
+	 */
+	private boolean matches (final ByteBuffer in, final int index) {
+		for (int j = 0; j < this.delimiter.length; j++) {
+			if (in.get(index + j) != this.delimiter[j]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,68 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.pipeline;
+
+import java.nio.ByteBuffer;
+
+import org.jls.jacsman.buffer.BufferPool;
+
+/**
+ * Decodes frames of a fixed size, without header.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class FixedLengthFrameDecoder extends FrameDecoder {
+
+	private final int frameLength;
+
+	/**
+	 * Instanciates a new decoder.
+	 * 
+	 * @param frameLength
+	 *            Size in bytes of a frame.
+	 * @param pool
+	 *            Pool of the cumulation buffers.
+	 * @param listener
+	 *            Receives the decoded frames.
+	 */
+	public FixedLengthFrameDecoder (final int frameLength, final BufferPool pool, final Listener listener) {
+		super(frameLength, pool, listener);
+		this.frameLength = frameLength;
+	}
+
+	@Override
+	protected int findFrame (final ByteBuffer in) {
+		int available = in.remaining();
+		if (available < this.frameLength) {
+			this.needed = this.frameLength - available;
+			return -1;
+		}
+		this.payloadOffset = 0;
+		this.payloadLength = this.frameLength;
+		this.needed = 0;
+		return this.frameLength;
+	}
+}
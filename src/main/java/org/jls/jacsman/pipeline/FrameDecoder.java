@@ -0,0 +1,260 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.pipeline;
+
+import java.nio.ByteBuffer;
+
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.jacsman.buffer.PooledBuffer;
+
+/**
+ * Splits the byte stream of a connection into frames. The decoder is fed with
+ * the chunks read from the network and emits each complete frame as soon as
+ * its last byte is received.
+ * <p>
+ * The frames lying entirely in a chunk are emitted as slices of the chunk,
+ * without copying them. Only the bytes of a frame split over several chunks
+ * are copied once, into a cumulation buffer borrowed from the pool, and the
+ * frame is then sliced out of the cumulation.
+ * </p>
+ * <p>
+ * A decoder keeps the state of one connection and must not be shared.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public abstract class FrameDecoder {
+
+	/**
+	 * Receives the frames emitted by a decoder.
+	 * 
+	 * @author Julien LE SAUCE
+	 * @date 17 oct. 2026
+	 */
+	public interface Listener {
+
+		/**
+		 * Invoked for each complete frame. The listener owns the frame and
+		 * has to release it.
+		 * 
+		 * @param frame
+		 *            The payload of the frame.
+		 */
+		public void onFrame (PooledBuffer frame);
+	}
+
+	private static final int MIN_CUMULATION = 256;
+
+	protected final int maxFrameLength;
+	private final BufferPool pool;
+	private final Listener listener;
+	private PooledBuffer cumulation;
+
+	/**
+	 * Offset of the payload from the start of the frame, set by
+	 * {@link #findFrame(ByteBuffer)}.
+	 */
+	protected int payloadOffset;
+	/**
+	 * Size in bytes of the payload, set by {@link #findFrame(ByteBuffer)}.
+	 */
+	protected int payloadLength;
+	/**
+	 * Number of bytes still missing to complete the frame, set by
+	 * {@link #findFrame(ByteBuffer)} when the frame is incomplete. Zero if
+	 * unknown.
+	 */
+	protected int needed;
+
+	/**
+	 * Instanciates a new decoder.
+	 * 
+	 * @param maxFrameLength
+	 *            Maximum size in bytes of a payload.
+	 * @param pool
+	 *            Pool of the cumulation buffers.
+	 * @param listener
+	 *            Receives the decoded frames.
+	 */
+	protected FrameDecoder (final int maxFrameLength, final BufferPool pool, final Listener listener) {
+		if (maxFrameLength <= 0) {
+			throw new IllegalArgumentException("Invalid maximum frame length : " + maxFrameLength);
+		}
+		this.maxFrameLength = maxFrameLength;
+		this.pool = pool;
+		this.listener = listener;
+		this.cumulation = null;
+	}
+
+	/**
+	 * Looks for a complete frame at the position of the buffer, without
+	 * moving the position. On success, the location of the payload is stored
+	 * in {@link #payloadOffset} and {@link #payloadLength}, otherwise
+	 * {@link #needed} is updated.
+	 * 
+	 * @param in
+	 *            The received bytes, between the position and the limit.
+	 * @return Size in bytes of the whole frame, or <code>-1</code> if the
+	 *         frame is not complete yet.
+	 * @throws FramingException
+	 *             If the bytes do not make a valid frame.
+	 */
+	protected abstract int findFrame (ByteBuffer in) throws FramingException;
+
+	/**
+	 * Clears the state kept about an incomplete frame.
+	 */
+	protected void resetState () {
+		this.needed = 0;
+	}
+
+	/**
+	 * Decodes a chunk read from the network. The decoder takes the ownership
+	 * of the chunk, which is released once decoded.
+	 * 
+	 * @param chunk
+	 *            The received bytes.
+	 * @throws FramingException
+	 *             If the stream is corrupted. The pending bytes are
+	 *             discarded.
+	 */
+	public synchronized void decode (final PooledBuffer chunk) throws FramingException {
+		try {
+			ByteBuffer in = chunk.buffer();
+			// Completes the pending frame first
+			if (this.cumulation != null && !decodeCumulation(in)) {
+				return;
+			}
+			// Slices the complete frames out of the chunk
+			while (in.hasRemaining()) {
+				int start = in.position();
+				int length = findFrame(in);
+				if (length < 0) {
+					cumulate(in);
+					break;
+				}
+				this.listener.onFrame(chunk.slice(start + this.payloadOffset, this.payloadLength));
+				in.position(start + length);
+			}
+		} catch (FramingException e) {
+			reset();
+			throw e;
+		} finally {
+			chunk.release();
+		}
+	}
+
+	/**
+	 * Discards the bytes of the pending frame, e.g. when the connection is
+	 * closed.
+	 */
+	public synchronized void reset () {
+		if (this.cumulation != null) {
+			this.cumulation.release();
+			this.cumulation = null;
+		}
+		resetState();
+	}
+
+	/**
+	 * Appends the received bytes to the cumulation until its frame is
+	 * complete. The bytes appended after the end of the frame are given back
+	 * to the chunk, so that the following frames are sliced out of it.
+	 * 
+	 * @param in
+	 *            The received bytes.
+	 * @return <code>true</code> if the pending frame has been emitted,
+	 *         <code>false</code> if it still waits for bytes.
+	 * @throws FramingException
+	 *             If the stream is corrupted.
+	 */
+	private boolean decodeCumulation (final ByteBuffer in) throws FramingException {
+		while (in.hasRemaining()) {
+			append(in, this.needed > 0 ? Math.min(this.needed, in.remaining()) : in.remaining());
+			ByteBuffer acc = this.cumulation.buffer();
+			int start = acc.position();
+			int length = findFrame(acc);
+			if (length >= 0) {
+				this.listener.onFrame(this.cumulation.slice(start + this.payloadOffset, this.payloadLength));
+				// The cumulation held no complete frame, so the extra bytes all come from the chunk
+				in.position(in.position() - (acc.remaining() - length));
+				this.cumulation.release();
+				this.cumulation = null;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Copies the bytes of an incomplete frame into a new cumulation.
+	 * 
+	 * @param in
+	 *            The received bytes.
+	 */
+	private void cumulate (final ByteBuffer in) {
+		PooledBuffer buf = this.pool.acquire(Math.max(in.remaining() + this.needed, MIN_CUMULATION));
+		ByteBuffer acc = buf.buffer();
+		acc.clear();
+		acc.put(in);
+		acc.flip();
+		this.cumulation = buf;
+	}
+
+	/**
+	 * Appends received bytes to the cumulation. The decoded frames may still
+	 * be in use, so the cumulation is never compacted : a larger buffer is
+	 * borrowed when it is full.
+	 * 
+	 * @param in
+	 *            The received bytes.
+	 * @param length
+	 *            Number of bytes to append.
+	 */
+	private void append (final ByteBuffer in, final int length) {
+		ByteBuffer acc = this.cumulation.buffer();
+		if (acc.capacity() - acc.limit() < length) {
+			int size = acc.remaining() + length;
+			PooledBuffer buf = this.pool.acquire(Math.max(size, Math.min(2 * acc.remaining(), this.maxFrameLength)));
+			ByteBuffer grown = buf.buffer();
+			grown.clear();
+			grown.put(acc);
+			grown.flip();
+			this.cumulation.release();
+			this.cumulation = buf;
+			acc = grown;
+		}
+		int pos = acc.position();
+		int lim = acc.limit();
+		int inLimit = in.limit();
+		acc.limit(lim + length);
+		acc.position(lim);
+		in.limit(in.position() + length);
+		acc.put(in);
+		in.limit(inLimit);
+		acc.position(pos);
+	}
+}
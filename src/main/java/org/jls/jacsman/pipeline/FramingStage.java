@@ -0,0 +1,215 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.pipeline;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.jacsman.util.Framing;
+
+/**
+ * Stage splitting the bytes received on each connection into whole frames
+ * before they are dispatched to the plugin. Each connection has its own
+ * {@link FrameDecoder}, created when its first bytes are received.
+ * 
+ * @param <K>
+ *            Type of the connection keys.
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class FramingStage<K> {
+
+	/**
+	 * Receives the frames decoded by the stage.
+	 * 
+	 * @param <K>
+	 *            Type of the connection keys.
+	 * @author Julien LE SAUCE
+	 * @date 17 oct. 2026
+	 */
+	public interface Listener<K> {
+
+		/**
+		 * Invoked for each complete frame. The listener owns the frame and
+		 * has to release it.
+		 * 
+		 * @param key
+		 *            The connection which received the frame.
+		 * @param frame
+		 *            The payload of the frame.
+		 */
+		public void onFrame (K key, PooledBuffer frame);
+	}
+
+	private final Framing framing;
+	private final byte[] delimiter;
+	private final int fixedLength;
+	private final int maxFrameLength;
+	private final Listener<K> listener;
+	private final BufferPool pool;
+	private final ConcurrentMap<K, FrameDecoder> decoders;
+
+	/**
+	 * Instanciates a new stage.
+	 * 
+	 * @param framing
+	 *            The framing of the received bytes.
+	 * @param delimiter
+	 *            Bytes ending a frame, used by {@link Framing#DELIMITER}.
+	 * @param fixedLength
+	 *            Size in bytes of a frame, used by
+	 *            {@link Framing#FIXED_LENGTH}.
+	 * @param maxFrameLength
+	 *            Maximum size in bytes of a payload.
+	 * @param listener
+	 *            Receives the frames.
+	 */
+	public FramingStage (final Framing framing, final byte[] delimiter, final int fixedLength,
+			final int maxFrameLength, final Listener<K> listener) {
+		this.framing = framing;
+		this.delimiter = delimiter;
+		this.fixedLength = fixedLength;
+		this.maxFrameLength = maxFrameLength;
+		this.listener = listener;
+		// Heap buffers, the cumulations are read by the plugins and never written to a channel
+		this.pool = framing == Framing.NONE ? null : new BufferPool(false, maxFrameLength, 64);
+		this.decoders = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * Decodes the bytes received on a connection. The stage takes the
+	 * ownership of the chunk. Without framing, the chunk is passed as is to
+	 * the listener.
+	 * 
+	 * @param key
+	 *            The connection which received the bytes.
+	 * @param chunk
+	 *            The received bytes.
+	 * @throws FramingException
+	 *             If the stream of the connection is corrupted. The pending
+	 *             bytes of the connection are discarded.
+	 */
+	public void decode (final K key, final PooledBuffer chunk) throws FramingException {
+		if (this.framing == Framing.NONE) {
+			this.listener.onFrame(key, chunk);
+			return;
+		}
+		FrameDecoder decoder = this.decoders.get(key);
+		if (decoder == null) {
+			decoder = createDecoder(key);
+			FrameDecoder previous = this.decoders.putIfAbsent(key, decoder);
+			if (previous != null) {
+				decoder = previous;
+			}
+		}
+		decoder.decode(chunk);
+	}
+
+	/**
+	 * Discards the state of a connection, e.g. when it is closed.
+	 * 
+	 * @param key
+	 *            The connection.
+	 */
+	public void remove (final K key) {
+		FrameDecoder decoder = this.decoders.remove(key);
+		if (decoder != null) {
+			decoder.reset();
+		}
+	}
+
+	/**
+	 * Discards the state of all the connections.
+	 */
+	public void shutdown () {
+		for (K key : this.decoders.keySet()) {
+			remove(key);
+		}
+	}
+
+	/**
+	 * Returns the framing of the received bytes.
+	 * 
+	 * @return The framing.
+	 */
+	public Framing getFraming () {
+		return this.framing;
+	}
+
+	/**
+	 * Parses a delimiter written as hexadecimal digits, e.g. <code>0D0A</code>
+	 * for CR LF.
+	 * 
+	 * @param hex
+	 *            The hexadecimal digits.
+	 * @return The delimiter's bytes.
+	 */
+	public static byte[] parseDelimiter (final String hex) {
+		String digits = hex.trim();
+		if (digits.isEmpty() || digits.length() % 2 != 0) {
+			throw new IllegalArgumentException("Invalid delimiter : " + hex);
+		}
+		byte[] bytes = new byte[digits.length() / 2];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte) Integer.parseInt(digits.substring(2 * i, 2 * i + 2), 16);
+		}
+		return bytes;
+	}
+
+	/**
+	 * Creates the decoder of a connection.
+	 * 
+	 * @param key
+	 *            The connection.
+	 * @return The new decoder.
+	 */
+	private FrameDecoder createDecoder (final K key) {
+		FrameDecoder.Listener out = new FrameDecoder.Listener() {
+
+			@Override
+			public void onFrame (PooledBuffer frame) {
+				FramingStage.this.listener.onFrame(key, frame);
+			}
+		};
+		switch (this.framing) {
+			case LENGTH_8:
+				return new LengthFieldFrameDecoder(1, this.maxFrameLength, this.pool, out);
+			case LENGTH_16:
+				return new LengthFieldFrameDecoder(2, this.maxFrameLength, this.pool, out);
+			case LENGTH_32:
+				return new LengthFieldFrameDecoder(4, this.maxFrameLength, this.pool, out);
+			case LENGTH_VARINT:
+				return new VarintFrameDecoder(this.maxFrameLength, this.pool, out);
+			case DELIMITER:
+				return new DelimiterFrameDecoder(this.delimiter, this.maxFrameLength, this.pool, out);
+			case FIXED_LENGTH:
+				return new FixedLengthFrameDecoder(this.fixedLength, this.pool, out);
+			default:
+				throw new IllegalArgumentException("Unknown framing : " + this.framing.toString());
+		}
+	}
+}
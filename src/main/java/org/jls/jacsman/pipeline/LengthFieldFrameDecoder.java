@@ -0,0 +1,96 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.pipeline;
+
+import java.nio.ByteBuffer;
+
+import org.jls.jacsman.buffer.BufferPool;
+
+/**
+ * Decodes the frames preceded by the size of their payload, written on 1, 2
+ * or 4 bytes in big endian order.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class LengthFieldFrameDecoder extends FrameDecoder {
+
+	private final int fieldLength;
+
+	/**
+	 * Instanciates a new decoder.
+	 * 
+	 * @param fieldLength
+	 *            Size in bytes of the length field : 1, 2 or 4.
+	 * @param maxFrameLength
+	 *            Maximum size in bytes of a payload.
+	 * @param pool
+	 *            Pool of the cumulation buffers.
+	 * @param listener
+	 *            Receives the decoded frames.
+	 */
+	public LengthFieldFrameDecoder (final int fieldLength, final int maxFrameLength, final BufferPool pool,
+			final Listener listener) {
+		super(maxFrameLength, pool, listener);
+		if (fieldLength != 1 && fieldLength != 2 && fieldLength != 4) {
+			throw new IllegalArgumentException("Invalid length field size : " + fieldLength);
+		}
+		this.fieldLength = fieldLength;
+	}
+
+	@Override
+	protected int findFrame (final ByteBuffer in) throws FramingException {
+		int available = in.remaining();
+		if (available < this.fieldLength) {
+			this.needed = this.fieldLength - available;
+			return -1;
+		}
+		int pos = in.position();
+		long length;
+		switch (this.fieldLength) {
+			case 1:
+				length = in.get(pos) & 0xFF;
+				break;
+			case 2:
+				length = in.getShort(pos) & 0xFFFF;
+				break;
+			default:
+				length = in.getInt(pos) & 0xFFFFFFFFL;
+				break;
+		}
+		if (length > this.maxFrameLength) {
+			throw new FramingException("Frame of " + length + " bytes exceeds the limit of " + this.maxFrameLength);
+		}
+		int frameLength = this.fieldLength + (int) length;
+		if (available < frameLength) {
+			this.needed = frameLength - available;
+			return -1;
+		}
+		this.payloadOffset = this.fieldLength;
+		this.payloadLength = (int) length;
+		this.needed = 0;
+		return frameLength;
+	}
+}
@@ -0,0 +1,347 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.pipeline;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jls.jacsman.util.Threads;
+
+/**
+ * Dispatch stage decoupling the network threads from the event handlers (i.e.
+ * the plugins).
+ * <p>
+ * Each connection owns a bounded queue. Events are handled by a fixed pool of
+ * workers, one connection being served by at most one worker at a time so the
+ * events of a connection are handled in their arrival order. When the queue of
+ * a connection is full, the {@link BackpressurePolicy} decides whether the
+ * network thread waits or an event is dropped.
+ * </p>
+ * <p>
+ * When the virtual threads are enabled ({@link Threads}), the pool is replaced
+ * by a virtual thread per batch : a handler blocking on a connection no longer
+ * holds one of the few workers.
+ * </p>
+ * 
+ * @param <K>
+ *            Type of the connection keys.
+ * @param <E>
+ *            Type of the dispatched events.
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class ReceiveDispatcher<K, E> {
+
+	/**
+	 * Maximum number of events handled in a row for one connection before the
+	 * worker serves another connection.
+	 */
+	private static final int BATCH_SIZE = 64;
+	/**
+	 * Minimum delay between two warnings about dropped events.
+	 */
+	private static final long WARN_PERIOD = TimeUnit.SECONDS.toNanos(1);
+
+	/**
+	 * Handles the dispatched events.
+	 * 
+	 * @param <E>
+	 *            Type of the events.
+	 */
+	public interface Handler<E> {
+
+		/**
+		 * Handles an event. Called by a worker thread.
+		 * 
+		 * @param event
+		 *            The event to handle.
+		 */
+		public void handle (E event);
+
+		/**
+		 * Notifies that an event is dropped and will never be handled, e.g.
+		 * to release its resources. Called by the thread dropping the event.
+		 * 
+		 * @param event
+		 *            The dropped event.
+		 */
+		public void discard (E event);
+	}
+
+	private final String name;
+	private final Logger logger;
+	private final Handler<E> handler;
+	private final int capacity;
+	private final BackpressurePolicy policy;
+	private final ExecutorService workers;
+	private final ConcurrentHashMap<K, Mailbox> mailboxes;
+	private final AtomicLong dropped;
+	private volatile long lastWarn;
+
+	/**
+	 * Instanciates a new dispatcher.
+	 * 
+	 * @param name
+	 *            Name of the dispatcher, used to name the worker threads.
+	 * @param nbWorkers
+	 *            Number of worker threads, unused with virtual threads.
+	 * @param capacity
+	 *            Capacity of the queue of each connection.
+	 * @param policy
+	 *            Behaviour when the queue of a connection is full.
+	 * @param handler
+	 *            Handler of the events.
+	 */
+	public ReceiveDispatcher (final String name, final int nbWorkers, final int capacity,
+			final BackpressurePolicy policy, final Handler<E> handler) {
+		if (nbWorkers <= 0 || capacity <= 0) {
+			throw new IllegalArgumentException("Number of workers and capacity must be positive");
+		}
+		if (policy == null || handler == null) {
+			throw new NullPointerException("Policy and handler cannot be null");
+		}
+		this.name = name;
+		this.logger = LogManager.getLogger();
+		this.handler = handler;
+		this.capacity = capacity;
+		this.policy = policy;
+		this.mailboxes = new ConcurrentHashMap<>();
+		this.dropped = new AtomicLong();
+		this.lastWarn = System.nanoTime() - WARN_PERIOD;
+		// With virtual threads each batch of a connection runs on its own thread, instead of a fixed pool
+		ExecutorService virtualWorkers = Threads.newVirtualPerTaskExecutor(name + "-dispatch-");
+		this.workers = virtualWorkers != null ? virtualWorkers
+				: new ThreadPoolExecutor(nbWorkers, nbWorkers, 0L, TimeUnit.MILLISECONDS,
+						new LinkedBlockingQueue<Runnable>(), Threads.newFactory(name + "-dispatch-"));
+	}
+
+	/**
+	 * Queues an event of a connection.
+	 * 
+	 * @param key
+	 *            Key of the connection.
+	 * @param event
+	 *            The event.
+	 * @return <code>true</code> if the event has been queued,
+	 *         <code>false</code> if it has been dropped.
+	 */
+	public boolean dispatch (final K key, final E event) {
+		Mailbox mb = this.mailboxes.get(key);
+		if (mb == null) {
+			mb = new Mailbox();
+			Mailbox prev = this.mailboxes.putIfAbsent(key, mb);
+			if (prev != null) {
+				mb = prev;
+			}
+		}
+		boolean queued = mb.offer(event);
+		mb.schedule();
+		return queued;
+	}
+
+	/**
+	 * Forgets a connection. The events already queued are still handled.
+	 * 
+	 * @param key
+	 *            Key of the connection.
+	 */
+	public void remove (final K key) {
+		this.mailboxes.remove(key);
+	}
+
+	/**
+	 * Stops the workers. The events still queued are discarded.
+	 */
+	public void shutdown () {
+		this.workers.shutdownNow();
+		for (Mailbox mb : this.mailboxes.values()) {
+			mb.clear();
+		}
+		this.mailboxes.clear();
+	}
+
+	/**
+	 * Returns the total number of events waiting to be handled.
+	 * 
+	 * @return Queue depth of all the connections.
+	 */
+	public int getQueueDepth () {
+		int depth = 0;
+		for (Mailbox mb : this.mailboxes.values()) {
+			depth += mb.queue.size();
+		}
+		return depth;
+	}
+
+	/**
+	 * Returns the number of dropped events since the creation of the
+	 * dispatcher.
+	 * 
+	 * @return Number of dropped events.
+	 */
+	public long getDroppedCount () {
+		return this.dropped.get();
+	}
+
+	/**
+	 * Returns the capacity of the queue of each connection.
+	 * 
+	 * @return Queue capacity.
+	 */
+	public int getCapacity () {
+		return this.capacity;
+	}
+
+	/**
+	 * Returns the behaviour of the dispatcher when a queue is full.
+	 * 
+	 * @return Backpressure policy.
+	 */
+	public BackpressurePolicy getPolicy () {
+		return this.policy;
+	}
+
+	/**
+	 * Discards a dropped event, counts it and warns that the handler is too
+	 * slow.
+	 */
+	private void drop (final E event) {
+		discard(event);
+		long total = this.dropped.incrementAndGet();
+		long now = System.nanoTime();
+		if (now - this.lastWarn >= WARN_PERIOD) {
+			this.lastWarn = now;
+			this.logger.warn("{} : handler too slow, {} event(s) dropped so far, queue depth {}", this.name, total,
+					getQueueDepth());
+		}
+	}
+
+	/**
+	 * Notifies the handler that an event will never be handled.
+	 */
+	private void discard (final E event) {
+		try {
+			this.handler.discard(event);
+		} catch (RuntimeException e) {
+			this.logger.error("{} : handler failed to discard event", this.name, e);
+		}
+	}
+
+	/**
+	 * Queue of a connection.
+	 */
+	private final class Mailbox implements Runnable {
+
+		private final BlockingQueue<E> queue;
+		private final AtomicBoolean scheduled;
+
+		public Mailbox () {
+			this.queue = new ArrayBlockingQueue<>(capacity);
+			this.scheduled = new AtomicBoolean(false);
+		}
+
+		/**
+		 * Queues an event according to the backpressure policy.
+		 */
+		public boolean offer (final E event) {
+			switch (policy) {
+				case BLOCK:
+					// Waits on the network thread : a selector thread stops reading all its connections
+					try {
+						this.queue.put(event);
+						return true;
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						drop(event);
+						return false;
+					}
+				case DROP_OLDEST:
+					while (!this.queue.offer(event)) {
+						E oldest = this.queue.poll();
+						if (oldest != null) {
+							drop(oldest);
+						}
+					}
+					return true;
+				case DROP_NEWEST:
+				default:
+					if (this.queue.offer(event)) {
+						return true;
+					}
+					drop(event);
+					return false;
+			}
+		}
+
+		/**
+		 * Submits the mailbox to the workers if it is not already.
+		 */
+		public void schedule () {
+			if (!this.queue.isEmpty() && this.scheduled.compareAndSet(false, true)) {
+				try {
+					workers.execute(this);
+				} catch (RejectedExecutionException e) {
+					// Dispatcher is shut down
+					clear();
+				}
+			}
+		}
+
+		/**
+		 * Discards all the queued events.
+		 */
+		public void clear () {
+			E event;
+			while ((event = this.queue.poll()) != null) {
+				discard(event);
+			}
+		}
+
+		@Override
+		public void run () {
+			E event;
+			for (int i = 0; i < BATCH_SIZE && (event = this.queue.poll()) != null; i++) {
+				try {
+					handler.handle(event);
+				} catch (RuntimeException e) {
+					logger.error("{} : handler failed to handle event", name, e);
+				}
+			}
+			this.scheduled.set(false);
+			// Events queued meanwhile, or batch limit reached
+			schedule();
+		}
+	}
+}
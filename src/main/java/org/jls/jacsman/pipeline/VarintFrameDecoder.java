@@ -0,0 +1,94 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.pipeline;
+
+import java.nio.ByteBuffer;
+
+import org.jls.jacsman.buffer.BufferPool;
+
+/**
+ * Decodes the frames preceded by the size of their payload written as an
+ * unsigned varint : 7 bits per byte, least significant group first, the most
+ * significant bit of a byte being set when another byte follows.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class VarintFrameDecoder extends FrameDecoder {
+
+	/**
+	 * Maximum size in bytes of a varint holding a 32 bits value.
+	 */
+	private static final int MAX_VARINT_LENGTH = 5;
+
+	/**
+	 * Instanciates a new decoder.
+	 * 
+	 * @param maxFrameLength
+	 *            Maximum size in bytes of a payload.
+	 * @param pool
+	 *            Pool of the cumulation buffers.
+	 * @param listener
+	 *            Receives the decoded frames.
+	 */
+	public VarintFrameDecoder (final int maxFrameLength, final BufferPool pool, final Listener listener) {
+		super(maxFrameLength, pool, listener);
+	}
+
+	@Override
+	protected int findFrame (final ByteBuffer in) throws FramingException {
+		int pos = in.position();
+		int available = in.remaining();
+		long length = 0;
+		int fieldLength = 0;
+		while (true) {
+			if (fieldLength == available) {
+				this.needed = 1;
+				return -1;
+			}
+			if (fieldLength == MAX_VARINT_LENGTH) {
+				throw new FramingException("Malformed varint length field");
+			}
+			byte b = in.get(pos + fieldLength);
+			length |= (long) (b & 0x7F) << (7 * fieldLength);
+			fieldLength++;
+			if (b >= 0) {
+				break;
+			}
+		}
+		if (length > this.maxFrameLength) {
+			throw new FramingException("Frame of " + length + " bytes exceeds the limit of " + this.maxFrameLength);
+		}
+		int frameLength = fieldLength + (int) length;
+		if (available < frameLength) {
+			this.needed = frameLength - available;
+			return -1;
+		}
+		this.payloadOffset = fieldLength;
+		this.payloadLength = (int) length;
+		this.needed = 0;
+		return frameLength;
+	}
+}
@@ -0,0 +1,49 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.plugin.buffer;
+
+import org.jls.jacsman.plugin.Plugin;
+
+/**
+ * Plugin receiving the messages as {@link java.nio.ByteBuffer}s instead of
+ * arrays. The application detects this interface and notifies the plugin with
+ * {@link #onReceive(BufferPluginEvent)} rather than
+ * {@link Plugin#onReceive(org.jls.jacsman.plugin.PluginEvent)}, which avoids
+ * copying large messages.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public interface BufferPlugin extends Plugin {
+
+	/**
+	 * Notifies that a message has been received. The buffer of the event is
+	 * released when this method returns.
+	 * 
+	 * @param event
+	 *            The received message.
+	 */
+	public void onReceive (BufferPluginEvent event);
+}
@@ -0,0 +1,166 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.plugin.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.EventObject;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.toolbox.net.Interface;
+
+/**
+ * Event notifying a {@link BufferPlugin} of a received message, giving access
+ * to the network buffer without copying it.
+ * <p>
+ * The buffer is only lent for the duration of
+ * {@link BufferPlugin#onReceive(BufferPluginEvent)} : it goes back to its pool
+ * when the method returns, so a plugin keeping the message must copy it.
+ * </p>
+ * <p>
+ * The events obtained with {@link #obtain(Object, Interface, PooledBuffer)}
+ * are recycled as well once released, so the event itself must not be kept
+ * either.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class BufferPluginEvent extends EventObject {
+
+	private static final long serialVersionUID = 4405893637286553081L;
+
+	/**
+	 * Maximum number of released events kept for reuse.
+	 */
+	private static final int RECYCLER_CAPACITY = 1024;
+	private static final BlockingQueue<BufferPluginEvent> RECYCLER = new ArrayBlockingQueue<>(RECYCLER_CAPACITY);
+
+	private transient Interface com;
+	private transient PooledBuffer message;
+	private final transient boolean recyclable;
+
+	/**
+	 * Instanciates a new event.
+	 * 
+	 * @param source
+	 *            The object on which the event occurred.
+	 * @param com
+	 *            Interface which received the message.
+	 * @param message
+	 *            The received message.
+	 */
+	public BufferPluginEvent (final Object source, final Interface com, final PooledBuffer message) {
+		this(source, com, message, false);
+	}
+
+	/**
+	 * Instanciates a new event.
+	 */
+	private BufferPluginEvent (final Object source, final Interface com, final PooledBuffer message,
+			final boolean recyclable) {
+		super(source);
+		this.com = com;
+		this.message = message;
+		this.recyclable = recyclable;
+	}
+
+	/**
+	 * Returns an event, reusing a released one if possible. The event is
+	 * recycled by {@link #release()}.
+	 * 
+	 * @param source
+	 *            The object on which the event occurred.
+	 * @param com
+	 *            Interface which received the message.
+	 * @param message
+	 *            The received message.
+	 * @return The event.
+	 */
+	public static BufferPluginEvent obtain (final Object source, final Interface com, final PooledBuffer message) {
+		BufferPluginEvent event = RECYCLER.poll();
+		if (event == null) {
+			return new BufferPluginEvent(source, com, message, true);
+		}
+		event.source = source;
+		event.com = com;
+		event.message = message;
+		return event;
+	}
+
+	/**
+	 * Returns the interface which received the message.
+	 * 
+	 * @return Network interface.
+	 */
+	public Interface getInterface () {
+		return this.com;
+	}
+
+	/**
+	 * Returns the received message. The message lies between the position and
+	 * the limit of the buffer, which may be a direct buffer.
+	 * 
+	 * @return The message buffer, only valid during the notification.
+	 */
+	public ByteBuffer getBuffer () {
+		return this.message.buffer();
+	}
+
+	/**
+	 * Returns the received message as an array. The message is copied unless
+	 * it is already backed by an array of its exact size.
+	 * 
+	 * @return The message.
+	 */
+	public byte[] getMessage () {
+		return this.message.toArray();
+	}
+
+	/**
+	 * Returns the size of the received message.
+	 * 
+	 * @return Size in bytes.
+	 */
+	public int getSize () {
+		return this.message.size();
+	}
+
+	/**
+	 * Gives the message buffer back to its pool, and the event to the
+	 * recycler if it has been obtained from it. Called by the application
+	 * once the plugin has been notified.
+	 */
+	public void release () {
+		PooledBuffer msg = this.message;
+		if (this.recyclable) {
+			this.message = null;
+			this.com = null;
+			RECYCLER.offer(this);
+		}
+		msg.release();
+	}
+}
@@ -0,0 +1,71 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.plugin.buffer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+import org.jls.jacsman.net.SendResult;
+import org.jls.jacsman.plugin.PluginInterface;
+
+/**
+ * Interface between the plugins and the application accepting
+ * {@link ByteBuffer}s, direct or not. The interfaces given to the plugins
+ * implement it, so a plugin can check for it and avoid building arrays.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public interface BufferPluginInterface extends PluginInterface {
+
+	/**
+	 * Sends the remaining bytes of the specified buffer. The position of the
+	 * buffer is not modified, and the buffer can be reused as soon as the
+	 * method returns.
+	 * 
+	 * @param msg
+	 *            The message to send.
+	 * @return Number of bytes sent, or <code>-1</code> if the message could
+	 *         not be sent.
+	 * @throws IOException
+	 *             If an error occurred sending the message.
+	 */
+	public int send (ByteBuffer msg) throws IOException;
+
+	/**
+	 * Sends the remaining bytes of the specified buffer without waiting for
+	 * the write. The position of the buffer is not modified, and the buffer
+	 * can be reused as soon as the method returns. Any number of messages can
+	 * be in flight.
+	 * 
+	 * @param msg
+	 *            The message to send.
+	 * @return Future completed with the number of bytes written and the
+	 *         latency of the write, or completed exceptionally if the message
+	 *         could not be sent.
+	 */
+	public CompletableFuture<SendResult> sendAsync (ByteBuffer msg);
+}
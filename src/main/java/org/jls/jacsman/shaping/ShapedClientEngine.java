@@ -0,0 +1,132 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.shaping;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+import org.jls.jacsman.net.ClientEngine;
+import org.jls.jacsman.net.EngineListener;
+import org.jls.jacsman.net.SendResult;
+import org.jls.toolbox.net.Interface;
+
+/**
+ * Client engine sending its messages through a {@link TrafficShaper} : the
+ * synchronous sends over the limits wait in the calling thread, the
+ * asynchronous ones are queued by the shaper. The limits of the tab and of
+ * the connection both apply to the single connection of the client.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class ShapedClientEngine implements ClientEngine {
+
+	private final ClientEngine engine;
+	private final TrafficShaper shaper;
+
+	/**
+	 * Instanciates a new shaped client.
+	 * 
+	 * @param engine
+	 *            The shaped engine.
+	 * @param shaper
+	 *            Shaper of the tab.
+	 */
+	public ShapedClientEngine (final ClientEngine engine, final TrafficShaper shaper) {
+		if (engine == null || shaper == null) {
+			throw new NullPointerException("Engine and shaper cannot be null");
+		}
+		this.engine = engine;
+		this.shaper = shaper;
+	}
+
+	/**
+	 * Returns the shaped engine.
+	 * 
+	 * @return The engine.
+	 */
+	public ClientEngine getEngine () {
+		return this.engine;
+	}
+
+	@Override
+	public Interface getInterface () {
+		return this.engine.getInterface();
+	}
+
+	@Override
+	public void setListener (final EngineListener listener) {
+		this.engine.setListener(listener);
+	}
+
+	@Override
+	public void start () throws IOException {
+		this.engine.start();
+	}
+
+	@Override
+	public void stop () throws IOException {
+		this.engine.stop();
+		this.shaper.remove(this.engine.getInterface());
+	}
+
+	@Override
+	public boolean isRunning () {
+		return this.engine.isRunning();
+	}
+
+	@Override
+	public void send (final ByteBuffer msg) throws IOException {
+		if (this.shaper.isLimited()) {
+			this.shaper.await(this.shaper.reserve(this.engine.getInterface(), msg.remaining()));
+		}
+		this.engine.send(msg);
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (final ByteBuffer msg) {
+		if (this.shaper.isLimited()) {
+			long wait = this.shaper.reserve(this.engine.getInterface(), msg.remaining());
+			if (wait > 0) {
+				final ByteBuffer copy = ShapedServerEngine.copy(msg);
+				return this.shaper.schedule(wait, new Callable<CompletableFuture<SendResult>>() {
+
+					@Override
+					public CompletableFuture<SendResult> call () {
+						return engine.sendAsync(copy);
+					}
+				});
+			}
+		}
+		return this.engine.sendAsync(msg);
+	}
+
+	@Override
+	public String toString () {
+		return this.engine.toString();
+	}
+}
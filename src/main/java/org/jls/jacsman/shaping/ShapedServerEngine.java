@@ -0,0 +1,224 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.shaping;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.jacsman.net.EngineListener;
+import org.jls.jacsman.net.SendResult;
+import org.jls.jacsman.net.ServerEngine;
+import org.jls.toolbox.net.Interface;
+
+/**
+ * Server engine sending its messages through a {@link TrafficShaper} : the
+ * synchronous sends over the limits wait in the calling thread, the
+ * asynchronous ones are queued by the shaper. The other calls are passed to
+ * the shaped engine as is.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class ShapedServerEngine implements ServerEngine {
+
+	private final ServerEngine engine;
+	private final TrafficShaper shaper;
+
+	/**
+	 * Instanciates a new shaped server.
+	 * 
+	 * @param engine
+	 *            The shaped engine.
+	 * @param shaper
+	 *            Shaper of the tab.
+	 */
+	public ShapedServerEngine (final ServerEngine engine, final TrafficShaper shaper) {
+		if (engine == null || shaper == null) {
+			throw new NullPointerException("Engine and shaper cannot be null");
+		}
+		this.engine = engine;
+		this.shaper = shaper;
+	}
+
+	/**
+	 * Returns the shaped engine.
+	 * 
+	 * @return The engine.
+	 */
+	public ServerEngine getEngine () {
+		return this.engine;
+	}
+
+	@Override
+	public Interface getInterface () {
+		return this.engine.getInterface();
+	}
+
+	@Override
+	public void setListener (final EngineListener listener) {
+		this.engine.setListener(listener != null ? new ShapedListener(listener, this.shaper) : null);
+	}
+
+	@Override
+	public void start () throws IOException {
+		this.engine.start();
+	}
+
+	@Override
+	public void stop () throws IOException {
+		this.engine.stop();
+	}
+
+	@Override
+	public boolean isRunning () {
+		return this.engine.isRunning();
+	}
+
+	@Override
+	public List<Interface> getClients () {
+		return this.engine.getClients();
+	}
+
+	@Override
+	public void send (final ByteBuffer msg) throws IOException {
+		if (this.shaper.isLimited()) {
+			List<Interface> clients = this.engine.getClients();
+			if (!clients.isEmpty()) {
+				this.shaper.await(this.shaper.reserve(clients, msg.remaining()));
+			}
+		}
+		this.engine.send(msg);
+	}
+
+	@Override
+	public void send (final Interface client, final ByteBuffer msg) throws IOException {
+		if (this.shaper.isLimited()) {
+			this.shaper.await(this.shaper.reserve(client, msg.remaining()));
+		}
+		this.engine.send(client, msg);
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (final ByteBuffer msg) {
+		if (this.shaper.isLimited()) {
+			List<Interface> clients = this.engine.getClients();
+			long wait = clients.isEmpty() ? 0 : this.shaper.reserve(clients, msg.remaining());
+			if (wait > 0) {
+				final ByteBuffer copy = copy(msg);
+				return this.shaper.schedule(wait, new Callable<CompletableFuture<SendResult>>() {
+
+					@Override
+					public CompletableFuture<SendResult> call () {
+						return engine.sendAsync(copy);
+					}
+				});
+			}
+		}
+		return this.engine.sendAsync(msg);
+	}
+
+	@Override
+	public CompletableFuture<SendResult> sendAsync (final Interface client, final ByteBuffer msg) {
+		if (this.shaper.isLimited()) {
+			long wait = this.shaper.reserve(client, msg.remaining());
+			if (wait > 0) {
+				final ByteBuffer copy = copy(msg);
+				return this.shaper.schedule(wait, new Callable<CompletableFuture<SendResult>>() {
+
+					@Override
+					public CompletableFuture<SendResult> call () {
+						return engine.sendAsync(client, copy);
+					}
+				});
+			}
+		}
+		return this.engine.sendAsync(client, msg);
+	}
+
+	@Override
+	public String toString () {
+		return this.engine.toString();
+	}
+
+	/**
+	 * Copies the remaining bytes of a queued message, so the caller can reuse
+	 * it.
+	 * 
+	 * @param msg
+	 *            The message.
+	 * @return The copy.
+	 */
+	static ByteBuffer copy (final ByteBuffer msg) {
+		ByteBuffer copy = ByteBuffer.allocate(msg.remaining());
+		copy.put(msg.duplicate());
+		copy.flip();
+		return copy;
+	}
+
+	/**
+	 * Forwards the events of the engine, forgetting the limits of the
+	 * disconnected clients.
+	 */
+	private static final class ShapedListener implements EngineListener {
+
+		private final EngineListener listener;
+		private final TrafficShaper shaper;
+
+		public ShapedListener (final EngineListener listener, final TrafficShaper shaper) {
+			this.listener = listener;
+			this.shaper = shaper;
+		}
+
+		@Override
+		public void onReceive (final Interface source, final PooledBuffer msg) {
+			this.listener.onReceive(source, msg);
+		}
+
+		@Override
+		public void onConnect (final Interface client) {
+			this.listener.onConnect(client);
+		}
+
+		@Override
+		public void onDisconnect (final Interface client) {
+			this.shaper.remove(client);
+			this.listener.onDisconnect(client);
+		}
+
+		@Override
+		public void onTimeout (final Interface source) {
+			this.listener.onTimeout(source);
+		}
+
+		@Override
+		public void onException (final Interface source, final Throwable t) {
+			this.listener.onException(source, t);
+		}
+	}
+}
@@ -0,0 +1,162 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.shaping;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket limiting a rate of units (messages or bytes) with a burst
+ * allowance, without lock.
+ * <p>
+ * The bucket is kept as the time at which it would be full again if nothing
+ * else was taken (generic cell rate algorithm) : taking units pushes this time
+ * forward by their cost at the limited rate, with a single compare and set,
+ * and the caller must wait until it is at most one burst ahead of the current
+ * time. Units are always granted, the caller being told how long to wait
+ * before using them, so the waiting callers are served in the order of their
+ * reservations.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public final class TokenBucket {
+
+	private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+	private final AtomicLong fullTime;
+	private volatile Limit limit;
+
+	/**
+	 * Instanciates a new bucket.
+	 * 
+	 * @param rate
+	 *            Units per second, lower or equal to zero for no limit.
+	 * @param burst
+	 *            Units which can be taken at once by an idle bucket, lower or
+	 *            equal to zero for one second at the rate.
+	 */
+	public TokenBucket (final long rate, final long burst) {
+		this.fullTime = new AtomicLong(Long.MIN_VALUE);
+		setLimit(rate, burst);
+	}
+
+	/**
+	 * Changes the limit, taking effect at the next reservation. The units
+	 * already reserved keep their cost.
+	 * 
+	 * @param rate
+	 *            Units per second, lower or equal to zero for no limit.
+	 * @param burst
+	 *            Units which can be taken at once by an idle bucket, lower or
+	 *            equal to zero for one second at the rate.
+	 */
+	public void setLimit (final long rate, final long burst) {
+		this.limit = rate > 0 ? new Limit(rate, burst > 0 ? burst : rate) : null;
+	}
+
+	/**
+	 * Returns the limited rate.
+	 * 
+	 * @return Units per second, 0 if not limited.
+	 */
+	public long getRate () {
+		Limit l = this.limit;
+		return l != null ? l.rate : 0;
+	}
+
+	/**
+	 * Returns the burst allowance.
+	 * 
+	 * @return Units which can be taken at once, 0 if not limited.
+	 */
+	public long getBurst () {
+		Limit l = this.limit;
+		return l != null ? l.burst : 0;
+	}
+
+	/**
+	 * Tells whether the bucket limits the rate.
+	 * 
+	 * @return <code>true</code> if a rate is set.
+	 */
+	public boolean isLimited () {
+		return this.limit != null;
+	}
+
+	/**
+	 * Takes units from the bucket.
+	 * 
+	 * @param units
+	 *            Number of units taken.
+	 * @param now
+	 *            Current time, from {@link System#nanoTime()}.
+	 * @return Time in nanoseconds the caller must wait before using the
+	 *         units, 0 if they can be used at once.
+	 */
+	public long reserve (final long units, final long now) {
+		Limit l = this.limit;
+		if (l == null || units <= 0) {
+			return 0;
+		}
+		long cost = (long) (units * l.interval);
+		while (true) {
+			long full = this.fullTime.get();
+			// An idle bucket is full from now on
+			long next = (full == Long.MIN_VALUE || full - now < 0 ? now : full) + cost;
+			if (this.fullTime.compareAndSet(full, next)) {
+				long wait = next - l.tolerance - now;
+				return wait > 0 ? wait : 0;
+			}
+		}
+	}
+
+	@Override
+	public String toString () {
+		Limit l = this.limit;
+		return l != null ? l.rate + "/s (burst " + l.burst + ")" : "unlimited";
+	}
+
+	/**
+	 * Rate and burst of a bucket, replaced as a whole when changed.
+	 */
+	private static final class Limit {
+
+		private final long rate;
+		private final long burst;
+		/** Nanoseconds per unit */
+		private final double interval;
+		/** Nanoseconds the bucket can be ahead of the current time */
+		private final long tolerance;
+
+		public Limit (final long rate, final long burst) {
+			this.rate = rate;
+			this.burst = burst;
+			this.interval = (double) NANOS_PER_SECOND / rate;
+			this.tolerance = (long) (burst * this.interval);
+		}
+	}
+}
@@ -0,0 +1,490 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.shaping;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.jls.jacsman.metrics.MetricsRegistry;
+import org.jls.jacsman.net.SendResult;
+import org.jls.toolbox.net.Interface;
+
+/**
+ * Shapes the messages sent by a server or client tab : limits the messages
+ * and bytes per second of the whole tab and of each of its connections, with
+ * a burst allowance.
+ * <p>
+ * A message over the limits is delayed rather than dropped : a synchronous
+ * send waits in the calling thread, an asynchronous send is queued and handed
+ * to the network engine once due by a shared scheduler thread. The
+ * reservations are made with {@link TokenBucket}s, so the senders never take
+ * a lock. The limits can be changed while the tab runs, through JMX.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class TrafficShaper implements TrafficShaperMBean {
+
+	/**
+	 * Scheduler of the queued messages of all the shapers, created at the
+	 * first use.
+	 */
+	private static ScheduledExecutorService scheduler;
+
+	private final TokenBucket messages;
+	private final TokenBucket bytes;
+	private final ConcurrentHashMap<Interface, Buckets> connections;
+	private final AtomicLong shapedMessages;
+	private final AtomicLong delayedSends;
+	private final AtomicLong delayNanos;
+	private final AtomicLong queuedSends;
+	private final AtomicLong queueNanos;
+	private final AtomicLong queued;
+	private volatile long messageRate;
+	private volatile long messageBurst;
+	private volatile long byteRate;
+	private volatile long byteBurst;
+	private volatile long connectionMessageRate;
+	private volatile long connectionMessageBurst;
+	private volatile long connectionByteRate;
+	private volatile long connectionByteBurst;
+	private ObjectName objectName;
+
+	/**
+	 * Instanciates a shaper without limit.
+	 */
+	public TrafficShaper () {
+		this.messages = new TokenBucket(0, 0);
+		this.bytes = new TokenBucket(0, 0);
+		this.connections = new ConcurrentHashMap<>();
+		this.shapedMessages = new AtomicLong();
+		this.delayedSends = new AtomicLong();
+		this.delayNanos = new AtomicLong();
+		this.queuedSends = new AtomicLong();
+		this.queueNanos = new AtomicLong();
+		this.queued = new AtomicLong();
+		this.messageRate = 0;
+		this.messageBurst = 0;
+		this.byteRate = 0;
+		this.byteBurst = 0;
+		this.connectionMessageRate = 0;
+		this.connectionMessageBurst = 0;
+		this.connectionByteRate = 0;
+		this.connectionByteBurst = 0;
+		this.objectName = null;
+	}
+
+	/**
+	 * Tells whether the messages are limited, by the limits of the tab or of
+	 * the connections.
+	 * 
+	 * @return <code>true</code> if a rate is set.
+	 */
+	public boolean isLimited () {
+		return this.messages.isLimited() || this.bytes.isLimited() || isConnectionLimited();
+	}
+
+	/**
+	 * Reserves the sending of a message to one connection.
+	 * 
+	 * @param connection
+	 *            The recipient.
+	 * @param size
+	 *            Size of the message in bytes.
+	 * @return Time in nanoseconds to wait before sending the message.
+	 */
+	public long reserve (final Interface connection, final int size) {
+		long now = System.nanoTime();
+		long wait = Math.max(this.messages.reserve(1, now), this.bytes.reserve(size, now));
+		Buckets b = getBuckets(connection);
+		if (b != null) {
+			wait = Math.max(wait, b.reserve(size, now));
+		}
+		return wait;
+	}
+
+	/**
+	 * Reserves the sending of a message to several connections : the tab
+	 * sends one copy of the message to each.
+	 * 
+	 * @param recipients
+	 *            The recipients.
+	 * @param size
+	 *            Size of the message in bytes.
+	 * @return Time in nanoseconds to wait before sending the message, the
+	 *         longest of the recipients.
+	 */
+	public long reserve (final List<Interface> recipients, final int size) {
+		int count = recipients.size();
+		long now = System.nanoTime();
+		long wait = Math.max(this.messages.reserve(count, now), this.bytes.reserve((long) count * size, now));
+		if (isConnectionLimited()) {
+			for (Interface connection : recipients) {
+				wait = Math.max(wait, getBuckets(connection).reserve(size, now));
+			}
+		}
+		return wait;
+	}
+
+	/**
+	 * Waits in the calling thread until a reserved message can be sent.
+	 * 
+	 * @param wait
+	 *            Time in nanoseconds returned by the reservation.
+	 */
+	public void await (final long wait) {
+		if (wait <= 0) {
+			return;
+		}
+		long start = System.nanoTime();
+		long deadline = start + wait;
+		long remaining = wait;
+		while (remaining > 0) {
+			LockSupport.parkNanos(remaining);
+			remaining = deadline - System.nanoTime();
+		}
+		this.shapedMessages.incrementAndGet();
+		this.delayedSends.incrementAndGet();
+		this.delayNanos.addAndGet(System.nanoTime() - start);
+	}
+
+	/**
+	 * Queues a reserved asynchronous send until it can be handed to the
+	 * network engine.
+	 * 
+	 * @param wait
+	 *            Time in nanoseconds returned by the reservation.
+	 * @param send
+	 *            Sends the message through the network engine.
+	 * @return The future of the send, completed by the future returned by
+	 *         the engine.
+	 */
+	public CompletableFuture<SendResult> schedule (final long wait,
+			final Callable<CompletableFuture<SendResult>> send) {
+		final CompletableFuture<SendResult> future = new CompletableFuture<>();
+		final long start = System.nanoTime();
+		this.shapedMessages.incrementAndGet();
+		this.queued.incrementAndGet();
+		getScheduler().schedule(new Runnable() {
+
+			@Override
+			public void run () {
+				queued.decrementAndGet();
+				queuedSends.incrementAndGet();
+				queueNanos.addAndGet(System.nanoTime() - start);
+				try {
+					send.call().whenComplete(new BiConsumer<SendResult, Throwable>() {
+
+						@Override
+						public void accept (SendResult result, Throwable t) {
+							if (t != null) {
+								future.completeExceptionally(t);
+							} else {
+								future.complete(result);
+							}
+						}
+					});
+				} catch (Exception e) {
+					future.completeExceptionally(e);
+				}
+			}
+		}, wait, TimeUnit.NANOSECONDS);
+		return future;
+	}
+
+	/**
+	 * Forgets the limits of a closed connection.
+	 * 
+	 * @param connection
+	 *            The closed connection.
+	 */
+	public void remove (final Interface connection) {
+		this.connections.remove(connection);
+	}
+
+	@Override
+	public long getMessageRate () {
+		return this.messageRate;
+	}
+
+	@Override
+	public synchronized void setMessageRate (final long rate) {
+		this.messageRate = Math.max(rate, 0);
+		this.messages.setLimit(this.messageRate, this.messageBurst);
+	}
+
+	@Override
+	public long getMessageBurst () {
+		return this.messageBurst;
+	}
+
+	@Override
+	public synchronized void setMessageBurst (final long burst) {
+		this.messageBurst = Math.max(burst, 0);
+		this.messages.setLimit(this.messageRate, this.messageBurst);
+	}
+
+	@Override
+	public long getByteRate () {
+		return this.byteRate;
+	}
+
+	@Override
+	public synchronized void setByteRate (final long rate) {
+		this.byteRate = Math.max(rate, 0);
+		this.bytes.setLimit(this.byteRate, this.byteBurst);
+	}
+
+	@Override
+	public long getByteBurst () {
+		return this.byteBurst;
+	}
+
+	@Override
+	public synchronized void setByteBurst (final long burst) {
+		this.byteBurst = Math.max(burst, 0);
+		this.bytes.setLimit(this.byteRate, this.byteBurst);
+	}
+
+	@Override
+	public long getConnectionMessageRate () {
+		return this.connectionMessageRate;
+	}
+
+	@Override
+	public synchronized void setConnectionMessageRate (final long rate) {
+		this.connectionMessageRate = Math.max(rate, 0);
+		updateConnections();
+	}
+
+	@Override
+	public long getConnectionMessageBurst () {
+		return this.connectionMessageBurst;
+	}
+
+	@Override
+	public synchronized void setConnectionMessageBurst (final long burst) {
+		this.connectionMessageBurst = Math.max(burst, 0);
+		updateConnections();
+	}
+
+	@Override
+	public long getConnectionByteRate () {
+		return this.connectionByteRate;
+	}
+
+	@Override
+	public synchronized void setConnectionByteRate (final long rate) {
+		this.connectionByteRate = Math.max(rate, 0);
+		updateConnections();
+	}
+
+	@Override
+	public long getConnectionByteBurst () {
+		return this.connectionByteBurst;
+	}
+
+	@Override
+	public synchronized void setConnectionByteBurst (final long burst) {
+		this.connectionByteBurst = Math.max(burst, 0);
+		updateConnections();
+	}
+
+	@Override
+	public long getShapedMessages () {
+		return this.shapedMessages.get();
+	}
+
+	@Override
+	public long getQueuedMessages () {
+		return this.queued.get();
+	}
+
+	/**
+	 * Returns the mean time the delayed synchronous sends waited.
+	 * 
+	 * @return Mean delay in nanoseconds, 0 if no send was delayed.
+	 */
+	public long getShapedDelay () {
+		long count = this.delayedSends.get();
+		return count > 0 ? this.delayNanos.get() / count : 0;
+	}
+
+	/**
+	 * Returns the mean time the delayed asynchronous sends were queued.
+	 * 
+	 * @return Mean queue time in nanoseconds, 0 if no send was queued.
+	 */
+	public long getQueueTime () {
+		long count = this.queuedSends.get();
+		return count > 0 ? this.queueNanos.get() / count : 0;
+	}
+
+	/**
+	 * Formats the limits and the statistics of the shaper.
+	 * 
+	 * @return The rates (0 : not limited), the number of delayed messages and
+	 *         their mean delay in microseconds.
+	 */
+	public String formatStats () {
+		return String.format(Locale.ROOT,
+				"%d msg/s, %d bytes/s, per connection %d msg/s, %d bytes/s : %d shaped, delay=%.1f us, queue time=%.1f us",
+				getMessageRate(), getByteRate(), getConnectionMessageRate(), getConnectionByteRate(), getShapedMessages(),
+				getShapedDelay() / 1000.0, getQueueTime() / 1000.0);
+	}
+
+	/**
+	 * Registers the shaper in the platform MBean server, under the name
+	 * <code>org.jls.jacsman:type=&lt;type&gt;Shaper,name=&lt;name&gt;</code>,
+	 * so its limits can be adjusted with JConsole. A shaper already
+	 * registered is unregistered first.
+	 * 
+	 * @param type
+	 *            Type of the session, such as <code>Server</code>.
+	 * @param name
+	 *            Name of the session, such as the tab identifier.
+	 * @throws JMException
+	 *             If the MBean cannot be registered.
+	 */
+	public synchronized void register (final String type, final String name) throws JMException {
+		unregister();
+		ObjectName objectName = new ObjectName(
+				MetricsRegistry.DOMAIN + ":type=" + type + "Shaper,name=" + ObjectName.quote(name));
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		if (server.isRegistered(objectName)) {
+			throw new IllegalStateException("MBean " + objectName + " already registered");
+		}
+		server.registerMBean(this, objectName);
+		this.objectName = objectName;
+	}
+
+	/**
+	 * Unregisters the shaper from the platform MBean server. Does nothing if
+	 * it is not registered.
+	 * 
+	 * @throws JMException
+	 *             If the MBean cannot be unregistered.
+	 */
+	public synchronized void unregister () throws JMException {
+		if (this.objectName != null) {
+			ObjectName objectName = this.objectName;
+			this.objectName = null;
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		}
+	}
+
+	/**
+	 * Tells whether the connections have their own limits.
+	 */
+	private boolean isConnectionLimited () {
+		return this.connectionMessageRate > 0 || this.connectionByteRate > 0;
+	}
+
+	/**
+	 * Returns the buckets of a connection, created at its first message.
+	 * 
+	 * @return The buckets, <code>null</code> if the connections are not
+	 *         limited.
+	 */
+	private Buckets getBuckets (final Interface connection) {
+		if (!isConnectionLimited()) {
+			return null;
+		}
+		Buckets b = this.connections.get(connection);
+		if (b == null) {
+			b = new Buckets(this.connectionMessageRate, this.connectionMessageBurst, this.connectionByteRate,
+					this.connectionByteBurst);
+			Buckets previous = this.connections.putIfAbsent(connection, b);
+			if (previous != null) {
+				b = previous;
+			}
+		}
+		return b;
+	}
+
+	/**
+	 * Applies the limits of the connections to the existing ones.
+	 */
+	private void updateConnections () {
+		for (Buckets b : this.connections.values()) {
+			b.messages.setLimit(this.connectionMessageRate, this.connectionMessageBurst);
+			b.bytes.setLimit(this.connectionByteRate, this.connectionByteBurst);
+		}
+	}
+
+	/**
+	 * Returns the shared scheduler, creating it at the first call.
+	 * 
+	 * @return The scheduler.
+	 */
+	private static synchronized ScheduledExecutorService getScheduler () {
+		if (scheduler == null) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+				@Override
+				public Thread newThread (Runnable r) {
+					Thread thread = new Thread(r, "TrafficShaper");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return scheduler;
+	}
+
+	/**
+	 * Limits of a connection.
+	 */
+	private static final class Buckets {
+
+		private final TokenBucket messages;
+		private final TokenBucket bytes;
+
+		public Buckets (final long messageRate, final long messageBurst, final long byteRate, final long byteBurst) {
+			this.messages = new TokenBucket(messageRate, messageBurst);
+			this.bytes = new TokenBucket(byteRate, byteBurst);
+		}
+
+		public long reserve (final int size, final long now) {
+			return Math.max(this.messages.reserve(1, now), this.bytes.reserve(size, now));
+		}
+	}
+}
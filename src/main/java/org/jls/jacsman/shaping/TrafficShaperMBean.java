@@ -0,0 +1,72 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.shaping;
+
+/**
+ * Limits of a {@link TrafficShaper} exported through JMX, so they can be
+ * adjusted while the session runs. A rate of 0 disables the limit, a burst of
+ * 0 allows one second at the rate.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public interface TrafficShaperMBean {
+
+	public long getMessageRate ();
+
+	public void setMessageRate (long rate);
+
+	public long getMessageBurst ();
+
+	public void setMessageBurst (long burst);
+
+	public long getByteRate ();
+
+	public void setByteRate (long rate);
+
+	public long getByteBurst ();
+
+	public void setByteBurst (long burst);
+
+	public long getConnectionMessageRate ();
+
+	public void setConnectionMessageRate (long rate);
+
+	public long getConnectionMessageBurst ();
+
+	public void setConnectionMessageBurst (long burst);
+
+	public long getConnectionByteRate ();
+
+	public void setConnectionByteRate (long rate);
+
+	public long getConnectionByteBurst ();
+
+	public void setConnectionByteBurst (long burst);
+
+	public long getShapedMessages ();
+
+	public long getQueuedMessages ();
+}
@@ -0,0 +1,63 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.util;
+
+/**
+ * Enumerates the ways the received byte stream is split into messages.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public enum Framing {
+	/**
+	 * No framing, the plugin receives the bytes as they are read.
+	 */
+	NONE,
+	/**
+	 * Each message is preceded by its size on one unsigned byte.
+	 */
+	LENGTH_8,
+	/**
+	 * Each message is preceded by its size on two unsigned bytes, big endian.
+	 */
+	LENGTH_16,
+	/**
+	 * Each message is preceded by its size on four bytes, big endian.
+	 */
+	LENGTH_32,
+	/**
+	 * Each message is preceded by its size as an unsigned varint (7 bits per
+	 * byte, least significant group first).
+	 */
+	LENGTH_VARINT,
+	/**
+	 * Each message ends with a delimiter, which is not passed to the plugin.
+	 */
+	DELIMITER,
+	/**
+	 * All the messages have the same size.
+	 */
+	FIXED_LENGTH;
+}
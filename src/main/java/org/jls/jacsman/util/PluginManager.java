@@ -2,10 +2,17 @@ package org.jls.jacsman.util;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -15,6 +22,18 @@ import org.jls.toolbox.util.file.FileFilter;
 
 /**
  * Singleton managing the plugins of the application.
+ * <p>
+ * The class loader and the constructor of each plugin jar are cached, keyed
+ * by the path of the jar and checked against its modification time and size :
+ * loading a plugin already loaded only instanciates it. A jar modified on disk
+ * gets a new class loader, and the previous one is closed once all the plugin
+ * instances it created have been garbage collected.
+ * </p>
+ * <p>
+ * The {@link #getWatcher() watcher} of the plugins directory reports the jars
+ * added, modified or removed while the application runs, so the tabs can load
+ * the new version of their plugin.
+ * </p>
  * 
  * @author Julien LE SAUCE
  * @date 1 mars 2016
@@ -30,12 +49,20 @@ public class PluginManager {
 	private static PluginManager UNIQUE_INSTANCE = null;
 
 	private final Logger logger;
+	private final Map<String, PluginJar> jars;
+	private final Set<Instance> instances;
+	private final ReferenceQueue<Plugin> collected;
+	private PluginWatcher watcher;
 
 	/**
 	 * Instanciates the plugin manager.
 	 */
 	private PluginManager () {
 		this.logger = LogManager.getLogger();
+		this.jars = new HashMap<>();
+		this.instances = new HashSet<>();
+		this.collected = new ReferenceQueue<>();
+		this.watcher = null;
 	}
 
 	/**
@@ -61,9 +88,25 @@ public class PluginManager {
 		return dir.listFiles(new FileFilter(FileFilter.ONLY_FILES, "jar"));
 	}
 
+	/**
+	 * Returns the names of the plugin jars detected in the
+	 * {@link PluginManager#PLUGINS_PATH plugin path}.
+	 * 
+	 * @return Names of the detected jars.
+	 */
+	public static String[] listPluginNames () {
+		File[] plugins = listPlugins();
+		String[] names = new String[plugins != null ? plugins.length : 0];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = plugins[i].getName();
+		}
+		return names;
+	}
+
 	/**
 	 * Loads the specified plugin from the plugin path specified by
-	 * {@link PluginManager#PLUGINS_PATH}.
+	 * {@link PluginManager#PLUGINS_PATH}. The class of the plugin is loaded
+	 * once per version of the jar, each call creates a new instance.
 	 * 
 	 * @param jarName
 	 *            The jar name.
@@ -92,7 +135,6 @@ public class PluginManager {
 	 *             If the number of parameters specified to the main plugin
 	 *             class constructor is invalid.
 	 */
-	@SuppressWarnings("resource")
 	public Plugin loadPlugin (final String jarName, final PluginInterface pluginInt) throws MalformedURLException,
 			ClassNotFoundException, InstantiationException, IllegalAccessException, FileNotFoundException,
 			NoSuchMethodException, SecurityException, IllegalArgumentException, InvocationTargetException {
@@ -104,20 +146,222 @@ public class PluginManager {
 		}
 
 		File myJar = new File(PLUGINS_PATH + slash + jarName);
-		String className = jarName.substring(0, jarName.lastIndexOf("."));
 		if (myJar.exists()) {
-			this.logger.info("Loading plugin : {}", myJar.getPath());
-			URL jarPath = myJar.toURI().toURL();
-			URL[] urls = new URL[] {jarPath};
-			UrlClassLoader loader = new UrlClassLoader(urls);
+			PluginJar jar = getJar(myJar, jarName.substring(0, jarName.lastIndexOf(".")));
+			Plugin plugin = jar.constructor.newInstance(pluginInt);
+			track(plugin, jar);
+			return plugin;
+		} else {
+			throw new FileNotFoundException("Plugin jar not found : " + myJar.getPath());
+		}
+	}
+
+	/**
+	 * Removes a plugin jar from the cache : the next load reads the jar again.
+	 * Its class loader is closed once all its plugin instances have been
+	 * garbage collected.
+	 * 
+	 * @param jarName
+	 *            The jar name.
+	 * @return <code>true</code> if the jar was cached.
+	 */
+	public synchronized boolean evict (final String jarName) {
+		PluginJar jar = this.jars.remove(new File(PLUGINS_PATH + slash + jarName).getAbsolutePath());
+		if (jar != null) {
+			retire(jar);
+		}
+		return jar != null;
+	}
+
+	/**
+	 * Returns the watcher of the plugins directory, not started. The jars
+	 * removed from the directory are evicted from the cache.
+	 * 
+	 * @return The watcher, shared by the application.
+	 */
+	public synchronized PluginWatcher getWatcher () {
+		if (this.watcher == null) {
+			this.watcher = new PluginWatcher(new File(PLUGINS_PATH),
+					ResourceManager.getInstance().getInt("plugins.watch.delay"));
+			this.watcher.addListener(new PluginWatcher.Listener() {
+
+				@Override
+				public void onPluginAdded (String jarName) {
+					// Loaded when selected
+				}
+
+				@Override
+				public void onPluginChanged (String jarName) {
+					// Reloaded on the next load, the cache checks the modification time
+				}
+
+				@Override
+				public void onPluginRemoved (String jarName) {
+					evict(jarName);
+				}
+			});
+		}
+		return this.watcher;
+	}
+
+	/**
+	 * Returns the number of class loaders not closed yet, cached or waiting
+	 * for their plugin instances to be garbage collected.
+	 * 
+	 * @return Number of open class loaders.
+	 */
+	public synchronized int getOpenLoaderCount () {
+		closeUnused();
+		Set<PluginJar> open = new HashSet<>(this.jars.values());
+		for (Instance instance : this.instances) {
+			open.add(instance.jar);
+		}
+		return open.size();
+	}
+
+	/**
+	 * Returns the cached version of a plugin jar, loading it if it is not
+	 * cached or if it has been modified since.
+	 * 
+	 * @param file
+	 *            The jar.
+	 * @param className
+	 *            Simple name of the main plugin class.
+	 * @return The loaded jar.
+	 */
+	private synchronized PluginJar getJar (final File file, final String className) throws MalformedURLException,
+			ClassNotFoundException, NoSuchMethodException {
+		closeUnused();
+		String key = file.getAbsolutePath();
+		long lastModified = file.lastModified();
+		long length = file.length();
+		PluginJar cached = this.jars.get(key);
+		if (cached != null && cached.lastModified == lastModified && cached.length == length) {
+			return cached;
+		}
 
+		this.logger.info("Loading plugin : {}", file.getPath());
+		UrlClassLoader loader = new UrlClassLoader(new URL[] {file.toURI().toURL()});
+		boolean loaded = false;
+		try {
 			// Retrieves the class
 			Class<?> pluginClass = Class.forName(PLUGIN_PACKAGE + "." + className, true, loader);
 			Class<? extends Plugin> clazz = pluginClass.asSubclass(Plugin.class);
-			Constructor<?> plugin = clazz.getConstructor(PluginInterface.class);
-			return (Plugin) plugin.newInstance(pluginInt);
-		} else {
-			throw new FileNotFoundException("Plugin jar not found : " + myJar.getPath());
+			PluginJar jar = new PluginJar(file, lastModified, length, loader,
+					clazz.getConstructor(PluginInterface.class));
+			loaded = true;
+			// The previous version is replaced only once the new one is loaded
+			this.jars.put(key, jar);
+			if (cached != null) {
+				this.logger.info("Plugin {} modified, replacing its class loader", file.getName());
+				retire(cached);
+			}
+			return jar;
+		} finally {
+			if (!loaded) {
+				close(loader, file);
+			}
+		}
+	}
+
+	/**
+	 * Records a plugin instance, keeping the class loader of its jar open
+	 * until it is garbage collected.
+	 * 
+	 * @param plugin
+	 *            The new instance.
+	 * @param jar
+	 *            The jar of the plugin.
+	 */
+	private synchronized void track (final Plugin plugin, final PluginJar jar) {
+		this.instances.add(new Instance(plugin, jar, this.collected));
+		jar.instances++;
+	}
+
+	/**
+	 * Marks a jar as no longer cached, and closes its class loader if no
+	 * plugin instance uses it.
+	 * 
+	 * @param jar
+	 *            The jar removed from the cache.
+	 */
+	private void retire (final PluginJar jar) {
+		jar.retired = true;
+		if (jar.instances == 0) {
+			close(jar.loader, jar.file);
+		}
+	}
+
+	/**
+	 * Forgets the plugin instances garbage collected, closing the class
+	 * loaders of the retired jars which are no longer used.
+	 */
+	private void closeUnused () {
+		Instance instance;
+		while ((instance = (Instance) this.collected.poll()) != null) {
+			this.instances.remove(instance);
+			PluginJar jar = instance.jar;
+			jar.instances--;
+			if (jar.retired && jar.instances == 0) {
+				close(jar.loader, jar.file);
+			}
+		}
+	}
+
+	/**
+	 * Closes a class loader.
+	 * 
+	 * @param loader
+	 *            The class loader.
+	 * @param file
+	 *            The jar it loads.
+	 */
+	private void close (final UrlClassLoader loader, final File file) {
+		try {
+			loader.close();
+			this.logger.debug("Class loader of {} closed", file.getPath());
+		} catch (IOException e) {
+			this.logger.warn("Failed to close the class loader of {}", file.getPath(), e);
+		}
+	}
+
+	/**
+	 * A version of a plugin jar : its class loader and the constructor of its
+	 * main class.
+	 */
+	private static final class PluginJar {
+
+		private final File file;
+		private final long lastModified;
+		private final long length;
+		private final UrlClassLoader loader;
+		private final Constructor<? extends Plugin> constructor;
+		private int instances;
+		private boolean retired;
+
+		public PluginJar (final File file, final long lastModified, final long length, final UrlClassLoader loader,
+				final Constructor<? extends Plugin> constructor) {
+			this.file = file;
+			this.lastModified = lastModified;
+			this.length = length;
+			this.loader = loader;
+			this.constructor = constructor;
+			this.instances = 0;
+			this.retired = false;
+		}
+	}
+
+	/**
+	 * Reference to a plugin instance, queued once it has been garbage
+	 * collected.
+	 */
+	private static final class Instance extends WeakReference<Plugin> {
+
+		private final PluginJar jar;
+
+		public Instance (final Plugin plugin, final PluginJar jar, final ReferenceQueue<Plugin> queue) {
+			super(plugin, queue);
+			this.jar = jar;
 		}
 	}
-}
\ No newline at end of file
+}
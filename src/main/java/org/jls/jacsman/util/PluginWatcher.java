@@ -0,0 +1,347 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Watches the plugins directory and notifies the plugin jars added, modified
+ * or removed.
+ * <p>
+ * A jar is usually written in several steps, so the events of the directory
+ * are not reported as they come : once the directory has been quiet for a
+ * delay, it is listed again and compared with its previous content, by the
+ * modification time and size of each jar. A copy still in progress when the
+ * delay expires is reported again as modified when it completes.
+ * </p>
+ * <p>
+ * The listeners are called by the thread of the watcher, one change at a
+ * time.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public class PluginWatcher {
+
+	/**
+	 * Listener of the changes of the plugins directory.
+	 */
+	public interface Listener {
+
+		/**
+		 * Called when a jar is added to the plugins directory.
+		 * 
+		 * @param jarName
+		 *            Name of the jar.
+		 */
+		public void onPluginAdded (String jarName);
+
+		/**
+		 * Called when a jar of the plugins directory is modified.
+		 * 
+		 * @param jarName
+		 *            Name of the jar.
+		 */
+		public void onPluginChanged (String jarName);
+
+		/**
+		 * Called when a jar is removed from the plugins directory.
+		 * 
+		 * @param jarName
+		 *            Name of the jar.
+		 */
+		public void onPluginRemoved (String jarName);
+	}
+
+	private final Logger logger;
+	private final File dir;
+	private final long delay;
+	private final List<Listener> listeners;
+	private final Map<String, Version> jars;
+
+	private volatile boolean running;
+	private WatchService watchService;
+	private Thread thread;
+
+	/**
+	 * Instanciates a new watcher.
+	 * 
+	 * @param dir
+	 *            The plugins directory.
+	 * @param delay
+	 *            Time in milliseconds the directory must be quiet before its
+	 *            changes are reported.
+	 */
+	public PluginWatcher (final File dir, final long delay) {
+		this.logger = LogManager.getLogger();
+		this.dir = dir;
+		this.delay = delay;
+		this.listeners = new CopyOnWriteArrayList<>();
+		this.jars = new HashMap<>();
+		this.running = false;
+	}
+
+	/**
+	 * Adds a listener of the changes.
+	 * 
+	 * @param listener
+	 *            The listener.
+	 */
+	public void addListener (final Listener listener) {
+		this.listeners.add(listener);
+	}
+
+	/**
+	 * Removes a listener of the changes.
+	 * 
+	 * @param listener
+	 *            The listener.
+	 */
+	public void removeListener (final Listener listener) {
+		this.listeners.remove(listener);
+	}
+
+	/**
+	 * Starts watching the directory. The jars present are the reference of
+	 * the next changes.
+	 * 
+	 * @throws IOException
+	 *             If the directory cannot be watched.
+	 */
+	public synchronized void start () throws IOException {
+		if (this.running) {
+			return;
+		}
+		this.watchService = FileSystems.getDefault().newWatchService();
+		try {
+			this.dir.toPath().register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+		} catch (IOException e) {
+			this.watchService.close();
+			throw e;
+		}
+		this.jars.clear();
+		this.jars.putAll(scan());
+		this.running = true;
+		this.thread = new Thread(new Runnable() {
+
+			@Override
+			public void run () {
+				watch();
+			}
+		}, "PluginWatcher");
+		this.thread.setDaemon(true);
+		this.thread.start();
+		this.logger.info("Watching plugins directory {}", this.dir.getPath());
+	}
+
+	/**
+	 * Stops watching the directory.
+	 */
+	public synchronized void stop () {
+		if (!this.running) {
+			return;
+		}
+		this.running = false;
+		try {
+			this.watchService.close();
+		} catch (IOException e) {
+			this.logger.debug("Failed to close the watch service", e);
+		}
+		try {
+			this.thread.join(1000);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Returns whether the directory is watched.
+	 * 
+	 * @return <code>true</code> if the watcher is started.
+	 */
+	public boolean isRunning () {
+		return this.running;
+	}
+
+	/**
+	 * Waits for the events of the directory, and reports the changes once it
+	 * has been quiet for the delay.
+	 */
+	private void watch () {
+		boolean pending = false;
+		while (this.running) {
+			try {
+				WatchKey key = pending ? this.watchService.poll(this.delay, TimeUnit.MILLISECONDS)
+						: this.watchService.take();
+				if (key == null) {
+					// Quiet for the delay
+					pending = false;
+					reportChanges();
+					continue;
+				}
+				for (WatchEvent<?> event : key.pollEvents()) {
+					this.logger.trace("Plugins directory event : {} {}", event.kind(), event.context());
+				}
+				pending = true;
+				if (!key.reset()) {
+					this.logger.warn("Plugins directory {} no longer watched", this.dir.getPath());
+					break;
+				}
+			} catch (ClosedWatchServiceException e) {
+				break;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+		}
+		this.running = false;
+	}
+
+	/**
+	 * Lists the directory again and notifies the differences with its
+	 * previous content.
+	 */
+	private void reportChanges () {
+		Map<String, Version> current = scan();
+		for (Map.Entry<String, Version> e : current.entrySet()) {
+			Version previous = this.jars.get(e.getKey());
+			if (previous == null) {
+				this.logger.info("Plugin {} added", e.getKey());
+				fire(e.getKey(), Change.ADDED);
+			} else if (!previous.equals(e.getValue())) {
+				this.logger.info("Plugin {} modified", e.getKey());
+				fire(e.getKey(), Change.MODIFIED);
+			}
+		}
+		for (String name : this.jars.keySet()) {
+			if (!current.containsKey(name)) {
+				this.logger.info("Plugin {} removed", name);
+				fire(name, Change.REMOVED);
+			}
+		}
+		this.jars.clear();
+		this.jars.putAll(current);
+	}
+
+	/**
+	 * Notifies the listeners of a change.
+	 * 
+	 * @param jarName
+	 *            Name of the jar.
+	 * @param change
+	 *            The change.
+	 */
+	private void fire (final String jarName, final Change change) {
+		for (Listener l : this.listeners) {
+			try {
+				switch (change) {
+					case ADDED:
+						l.onPluginAdded(jarName);
+						break;
+					case MODIFIED:
+						l.onPluginChanged(jarName);
+						break;
+					default:
+						l.onPluginRemoved(jarName);
+						break;
+				}
+			} catch (RuntimeException e) {
+				this.logger.error("Plugin listener failed to handle the change of {}", jarName, e);
+			}
+		}
+	}
+
+	/**
+	 * Lists the jars of the directory.
+	 * 
+	 * @return The version of each jar, by name.
+	 */
+	private Map<String, Version> scan () {
+		Map<String, Version> jars = new HashMap<>();
+		File[] files = this.dir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (file.isFile() && file.getName().toLowerCase().endsWith(".jar")) {
+					jars.put(file.getName(), new Version(file.lastModified(), file.length()));
+				}
+			}
+		}
+		return jars;
+	}
+
+	/**
+	 * Changes of a jar.
+	 */
+	private enum Change {
+		ADDED,
+		MODIFIED,
+		REMOVED;
+	}
+
+	/**
+	 * Modification time and size of a jar.
+	 */
+	private static final class Version {
+
+		private final long lastModified;
+		private final long length;
+
+		public Version (final long lastModified, final long length) {
+			this.lastModified = lastModified;
+			this.length = length;
+		}
+
+		@Override
+		public boolean equals (final Object obj) {
+			if (!(obj instanceof Version)) {
+				return false;
+			}
+			Version other = (Version) obj;
+			return this.lastModified == other.lastModified && this.length == other.length;
+		}
+
+		@Override
+		public int hashCode () {
+			return (int) (this.lastModified ^ (this.lastModified >>> 32)) * 31 + (int) this.length;
+		}
+	}
+}
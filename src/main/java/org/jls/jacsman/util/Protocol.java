@@ -8,6 +8,10 @@ package org.jls.jacsman.util;
  */
 public enum Protocol {
 	TCP,
+	TCP_NIO,
 	UDP,
-	UDP_MULTICAST;
+	UDP_NIO,
+	UDP_MULTICAST,
+	UDP_MULTICAST_NIO,
+	TLS;
 }
\ No newline at end of file
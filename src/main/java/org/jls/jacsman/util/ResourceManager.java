@@ -200,6 +200,26 @@ public class ResourceManager {
 		throw new IllegalStateException("Empty value");
 	}
 
+	/**
+	 * Get a boolean associated with the given configuration key. If the key
+	 * does not exist, an {@link IllegalArgumentException} is thrown. If the
+	 * value is neither <code>true</code> nor <code>false</code>, an
+	 * {@link IllegalArgumentException} is thrown.
+	 * 
+	 * @param key
+	 *            The configuration key.
+	 * @return The associated value.
+	 */
+	public boolean getBoolean (final String key) {
+		String str = getString(key).trim();
+		if (str.equalsIgnoreCase("true")) {
+			return true;
+		} else if (str.equalsIgnoreCase("false")) {
+			return false;
+		}
+		throw new IllegalArgumentException("Cannot parse value to boolean : " + str);
+	}
+
 	/**
 	 * Get a color associated with the given configuration key. If the key does
 	 * not exist, an {@link IllegalArgumentException} is thrown. If the value
@@ -241,12 +261,35 @@ public class ResourceManager {
 			if (stream == null) {
 				throw new IllegalArgumentException("Resource not found : " + path);
 			}
-			BufferedImage bi = ImageIO.read(stream);
-			ImageIcon icon = new ImageIcon(bi);
-			return icon;
+			return Icons.read(stream);
 		} catch (IOException e) {
 			this.logger.error("An error occurred retrieving icon : {}", path, e);
 			return null;
 		}
 	}
+
+	/**
+	 * Decodes the icons. Kept out of {@link ResourceManager} so that loading
+	 * the resource manager does not load the AWT image classes, which the
+	 * headless runtime does not use.
+	 * 
+	 * @author Julien LE SAUCE
+	 * @date 17 oct. 2026
+	 */
+	private static final class Icons {
+
+		/**
+		 * Creates an icon from the specified stream.
+		 * 
+		 * @param stream
+		 *            Stream of the image.
+		 * @return The new icon.
+		 * @throws IOException
+		 *             If the image cannot be decoded.
+		 */
+		public static ImageIcon read (final InputStream stream) throws IOException {
+			BufferedImage bi = ImageIO.read(stream);
+			return new ImageIcon(bi);
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,722 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.Logger;
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.jacsman.capture.CaptureReader;
+import org.jls.jacsman.capture.CaptureReplayer;
+import org.jls.jacsman.capture.CaptureWriter;
+import org.jls.jacsman.capture.Direction;
+import org.jls.jacsman.latency.CorrelationIdExtractor;
+import org.jls.jacsman.latency.LatencyTracker;
+import org.jls.jacsman.load.LoadProfile;
+import org.jls.jacsman.load.RateProfile;
+import org.jls.jacsman.metrics.Gauge;
+import org.jls.jacsman.metrics.MetricsRegistry;
+import org.jls.jacsman.metrics.SessionMetrics;
+import org.jls.jacsman.metrics.TrafficLog;
+import org.jls.jacsman.net.ClientEngine;
+import org.jls.jacsman.net.NioMulticastServer;
+import org.jls.jacsman.net.NioTcpServer;
+import org.jls.jacsman.net.NioTlsClient;
+import org.jls.jacsman.net.NioTlsServer;
+import org.jls.jacsman.net.NioUdpClient;
+import org.jls.jacsman.net.NioUdpEngine;
+import org.jls.jacsman.net.NioUdpServer;
+import org.jls.jacsman.net.PooledClientEngine;
+import org.jls.jacsman.net.ServerEngine;
+import org.jls.jacsman.net.SlowConsumerPolicy;
+import org.jls.jacsman.net.TcpClientEngine;
+import org.jls.jacsman.net.TcpServerEngine;
+import org.jls.jacsman.net.ToolboxClientEngine;
+import org.jls.jacsman.net.ToolboxServerEngine;
+import org.jls.jacsman.pipeline.BackpressurePolicy;
+import org.jls.jacsman.pipeline.FramingStage;
+import org.jls.jacsman.pipeline.ReceiveDispatcher;
+import org.jls.jacsman.plugin.buffer.BufferPluginEvent;
+import org.jls.jacsman.plugin.buffer.BufferPluginInterface;
+import org.jls.jacsman.shaping.ShapedClientEngine;
+import org.jls.jacsman.shaping.TrafficShaper;
+import org.jls.toolbox.net.Interface;
+import org.jls.toolbox.net.TCPClient;
+import org.jls.toolbox.net.TCPServer;
+import org.jls.toolbox.net.UDPClient;
+import org.jls.toolbox.net.UDPMulticastClient;
+import org.jls.toolbox.net.UDPMulticastServer;
+import org.jls.toolbox.net.UDPServer;
+
+/**
+ * Builds the network engines and the receive stages of the servers and
+ * clients, configured by the application properties. Used by the tabs of the
+ * graphical interface and by the headless runtime, it does not use any
+ * graphical class.
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public final class SessionFactory {
+
+	/**
+	 * Address of the servers listening on all the network interfaces.
+	 */
+	public static final String ANY_ADDRESS = "0.0.0.0";
+
+	/**
+	 * Context of the TLS engines, created at the first use.
+	 */
+	private static SSLContext tlsContext = null;
+
+	/**
+	 * Not instanciable.
+	 */
+	private SessionFactory () {
+	}
+
+	/**
+	 * Creates a network server of the specified protocol.
+	 * 
+	 * @param serverType
+	 *            Protocol of the server.
+	 * @param com
+	 *            Network interface descriptor.
+	 * @return The new server, not started yet.
+	 * @throws IOException
+	 *             If an error occurred creating the server.
+	 */
+	public static ServerEngine createServer (final Protocol serverType, final Interface com) throws IOException {
+		switch (serverType) {
+			case TCP:
+				if (Threads.isVirtual()) {
+					// The toolbox server runs its connections on platform threads
+					TcpServerEngine tcpServer = new TcpServerEngine(com,
+							ResourceManager.getInstance().getInt("network.nio.bufferSize"), createBufferPool());
+					tcpServer.setNoDelay(ResourceManager.getInstance().getBoolean("network.tcp.noDelay"));
+					return tcpServer;
+				}
+				return new ToolboxServerEngine(new TCPServer(com));
+			case TCP_NIO:
+				ResourceManager props = ResourceManager.getInstance();
+				NioTcpServer nioServer = new NioTcpServer(com, props.getInt("network.nio.eventLoops"),
+						props.getInt("network.nio.bufferSize"), createBufferPool());
+				nioServer.setNoDelay(props.getBoolean("network.tcp.noDelay"));
+				nioServer.setLagLimit(props.getInt("network.fanout.maxLag"),
+						SlowConsumerPolicy.valueOf(props.getString("network.fanout.slowConsumer")));
+				return nioServer;
+			case UDP:
+				return new ToolboxServerEngine(new UDPServer(com));
+			case UDP_NIO:
+				NioUdpServer udpServer = new NioUdpServer(com,
+						ResourceManager.getInstance().getInt("network.udp.maxDatagram"), createBufferPool());
+				configureUdpEngine(udpServer);
+				return udpServer;
+			case UDP_MULTICAST:
+				return new ToolboxServerEngine(new UDPMulticastServer(com));
+			case UDP_MULTICAST_NIO:
+				return createMulticastServer(com, com.getAddress().getHostAddress(),
+						ResourceManager.getInstance().getString("network.multicast.interfaces"));
+			case TLS:
+				NioTlsServer tlsServer = new NioTlsServer(com, getTlsContext(true), createBufferPool());
+				tlsServer.setNoDelay(ResourceManager.getInstance().getBoolean("network.tcp.noDelay"));
+				return tlsServer;
+			default:
+				throw new IllegalArgumentException("Unknown server type : " + serverType.toString());
+		}
+	}
+
+	/**
+	 * Creates a network client of the specified protocol : a pool of
+	 * connections if <code>network.pool.size</code> is larger than 1,
+	 * otherwise a single connection.
+	 * 
+	 * @param clientType
+	 *            Protocol of the client.
+	 * @param com
+	 *            Network interface descriptor.
+	 * @return The new client, not started yet.
+	 * @throws IOException
+	 *             If an error occurred creating the client.
+	 */
+	public static ClientEngine createClient (final Protocol clientType, final Interface com) throws IOException {
+		ResourceManager props = ResourceManager.getInstance();
+		int poolSize = props.getInt("network.pool.size");
+		if (poolSize <= 1) {
+			return createConnection(clientType, com);
+		}
+		PooledClientEngine pool = new PooledClientEngine(com, poolSize,
+				PooledClientEngine.Selection.valueOf(props.getString("network.pool.selection")),
+				new PooledClientEngine.Factory() {
+
+					@Override
+					public ClientEngine create (Interface member) throws IOException {
+						// The application's TCP client reports the connections closed by the server
+						return clientType == Protocol.TCP ? createTcpClient(member) : createConnection(clientType, member);
+					}
+				});
+		pool.setBackoff(props.getInt("network.pool.backoff.initial"), props.getInt("network.pool.backoff.max"));
+		return pool;
+	}
+
+	/**
+	 * Returns the number of open connections of a client.
+	 * 
+	 * @param client
+	 *            The client, <code>null</code> if not created.
+	 * @return The open connections of a pool, otherwise 1 if the client is
+	 *         running and 0 if not.
+	 */
+	public static int getConnections (final ClientEngine client) {
+		ClientEngine engine = client instanceof ShapedClientEngine ? ((ShapedClientEngine) client).getEngine() : client;
+		if (engine instanceof PooledClientEngine) {
+			return engine.isRunning() ? ((PooledClientEngine) engine).getConnectedCount() : 0;
+		}
+		return engine != null && engine.isRunning() ? 1 : 0;
+	}
+
+	/**
+	 * Creates the engine of a single connection of the specified protocol.
+	 * 
+	 * @param clientType
+	 *            Protocol of the client.
+	 * @param com
+	 *            Network interface descriptor.
+	 * @return The new engine, not started yet.
+	 * @throws IOException
+	 *             If an error occurred creating the engine.
+	 */
+	private static ClientEngine createConnection (final Protocol clientType, final Interface com) throws IOException {
+		switch (clientType) {
+			case TCP:
+				if (ResourceManager.getInstance().getBoolean("network.tcp.coalesce.enabled") || Threads.isVirtual()) {
+					return createTcpClient(com);
+				}
+				return new ToolboxClientEngine(new TCPClient(com, null));
+			case TCP_NIO:
+				return createTcpClient(com);
+			case UDP:
+				return new ToolboxClientEngine(
+						new UDPClient(com, ResourceManager.getInstance().getInt("network.udp.timeout")));
+			case UDP_NIO:
+				NioUdpClient udpClient = new NioUdpClient(com,
+						ResourceManager.getInstance().getInt("network.udp.maxDatagram"), createBufferPool());
+				configureUdpEngine(udpClient);
+				return udpClient;
+			case UDP_MULTICAST:
+				return new ToolboxClientEngine(
+						new UDPMulticastClient(com, ResourceManager.getInstance().getInt("network.udp.timeout")));
+			case UDP_MULTICAST_NIO:
+				// Publishes to the group of the interface
+				NioUdpClient publisher = new NioUdpClient(com,
+						ResourceManager.getInstance().getInt("network.udp.maxDatagram"), createBufferPool());
+				configureUdpEngine(publisher);
+				return publisher;
+			case TLS:
+				NioTlsClient tlsClient = new NioTlsClient(com, getTlsContext(false), createBufferPool());
+				tlsClient.setNoDelay(ResourceManager.getInstance().getBoolean("network.tcp.noDelay"));
+				tlsClient.setHandshakeTimeout(ResourceManager.getInstance().getInt("network.tls.handshakeTimeout"));
+				// Trusting any certificate, the host name is not checked either
+				tlsClient.setVerifyHost(!ResourceManager.getInstance().getBoolean("network.tls.trustAll"));
+				return tlsClient;
+			default:
+				throw new IllegalArgumentException("Unknown client type : " + clientType.toString());
+		}
+	}
+
+	/**
+	 * Creates a {@link Protocol#UDP_MULTICAST_NIO} server joining a list of
+	 * groups.
+	 * 
+	 * @param com
+	 *            Interface of the server, its port is the port of the groups
+	 *            given without port.
+	 * @param groups
+	 *            Groups separated by commas, each one as
+	 *            <code>address[:port]</code>, or <code>[address]:port</code>
+	 *            for an IPv6 address with a port.
+	 * @param interfaces
+	 *            Names of the network interfaces joining the groups separated
+	 *            by commas, empty for all the interfaces supporting multicast.
+	 * @return The new server, not started yet.
+	 * @throws IOException
+	 *             If a group address cannot be resolved.
+	 * @throws IllegalArgumentException
+	 *             If no group is given, or if an address is not a multicast
+	 *             address.
+	 */
+	public static NioMulticastServer createMulticastServer (final Interface com, final String groups,
+			final String interfaces) throws IOException {
+		List<InetSocketAddress> groupAddresses = new ArrayList<>();
+		for (String group : groups.split(",")) {
+			group = group.trim();
+			if (!group.isEmpty()) {
+				groupAddresses.add(parseGroup(group, com.getPort()));
+			}
+		}
+		List<String> interfaceNames = new ArrayList<>();
+		for (String name : interfaces.split(",")) {
+			if (!name.trim().isEmpty()) {
+				interfaceNames.add(name.trim());
+			}
+		}
+		NioMulticastServer server = new NioMulticastServer(com, groupAddresses, interfaceNames,
+				ResourceManager.getInstance().getInt("network.udp.maxDatagram"), createBufferPool());
+		configureUdpEngine(server);
+		return server;
+	}
+
+	/**
+	 * Parses the address and port of a multicast group.
+	 * 
+	 * @param group
+	 *            The group, as <code>address[:port]</code> or
+	 *            <code>[address]:port</code>.
+	 * @param defaultPort
+	 *            Port of the group if not given.
+	 * @return The resolved address of the group.
+	 * @throws IOException
+	 *             If the address cannot be resolved.
+	 */
+	private static InetSocketAddress parseGroup (final String group, final int defaultPort) throws IOException {
+		String host = group;
+		int port = defaultPort;
+		if (group.startsWith("[")) {
+			int end = group.indexOf(']');
+			if (end < 0) {
+				throw new IllegalArgumentException("Invalid group : " + group);
+			}
+			host = group.substring(1, end);
+			if (group.length() > end + 1) {
+				port = Integer.parseInt(group.substring(end + 2));
+			}
+		} else if (group.indexOf(':') > 0 && group.indexOf(':') == group.lastIndexOf(':')) {
+			host = group.substring(0, group.indexOf(':'));
+			port = Integer.parseInt(group.substring(group.indexOf(':') + 1));
+		}
+		return new InetSocketAddress(InetAddress.getByName(host), port);
+	}
+
+	/**
+	 * Creates the stage dispatching the received messages to the plugin,
+	 * configured by the network properties.
+	 * 
+	 * @param name
+	 *            Name of the dispatcher.
+	 * @param handler
+	 *            Passes the messages to the plugin.
+	 * @return The new dispatcher.
+	 */
+	public static ReceiveDispatcher<Interface, BufferPluginEvent> createDispatcher (final String name,
+			final ReceiveDispatcher.Handler<BufferPluginEvent> handler) {
+		ResourceManager props = ResourceManager.getInstance();
+		return new ReceiveDispatcher<>(name, props.getInt("network.dispatch.workers"),
+				props.getInt("network.dispatch.queueCapacity"),
+				BackpressurePolicy.valueOf(props.getString("network.dispatch.policy")), handler);
+	}
+
+	/**
+	 * Creates the stage splitting the received bytes into frames, configured
+	 * by the network properties.
+	 * 
+	 * @param framing
+	 *            Framing of the messages.
+	 * @param listener
+	 *            Receives the frames.
+	 * @return The new framing stage.
+	 */
+	public static FramingStage<Interface> createFramingStage (final Framing framing,
+			final FramingStage.Listener<Interface> listener) {
+		ResourceManager props = ResourceManager.getInstance();
+		return new FramingStage<>(framing, FramingStage.parseDelimiter(props.getString("network.framing.delimiter")),
+				props.getInt("network.framing.fixedLength"), props.getInt("network.framing.maxFrameLength"), listener);
+	}
+
+	/**
+	 * Creates the tracker measuring the latency of the replies, if enabled by
+	 * the network properties.
+	 * 
+	 * @param extractor
+	 *            Reads the correlation identifiers of the messages,
+	 *            <code>null</code> to match the replies in FIFO order.
+	 * @return The new latency tracker, <code>null</code> if the latency is
+	 *         not measured.
+	 */
+	public static LatencyTracker<Interface> createLatencyTracker (final CorrelationIdExtractor extractor) {
+		ResourceManager props = ResourceManager.getInstance();
+		if (!props.getBoolean("latency.enabled")) {
+			return null;
+		}
+		return new LatencyTracker<Interface>(extractor,
+				TimeUnit.MILLISECONDS.toNanos(props.getInt("latency.highestValue")),
+				props.getInt("latency.significantDigits"), TimeUnit.MILLISECONDS.toNanos(props.getInt("latency.timeout")),
+				props.getInt("latency.maxPending")) {
+
+			@Override
+			protected String label (Interface key) {
+				return key.getId() + " (" + key.getAddress() + ":" + key.getPort() + ")";
+			}
+		};
+	}
+
+	/**
+	 * Returns the CSV file the latencies of a server or client are exported
+	 * to, in the latency directory.
+	 * 
+	 * @param name
+	 *            Name of the server or client.
+	 * @return The export file, named after the current date.
+	 */
+	public static File getLatencyExportFile (final String name) {
+		ResourceManager props = ResourceManager.getInstance();
+		String date = new SimpleDateFormat(props.getString("pattern.format.date.file")).format(new Date());
+		return new File(new File(ResourceManager.USER_DIR, props.getString("latency.export.dir")),
+				name + "_" + date + ".csv");
+	}
+
+	/**
+	 * Creates a new capture of the traffic of a server or client, in a
+	 * directory of the capture directory named after the current date.
+	 * 
+	 * @param name
+	 *            Name of the server or client, used to name the directory.
+	 * @return The new capture.
+	 * @throws IOException
+	 *             If the capture files cannot be created.
+	 */
+	public static CaptureWriter createCaptureWriter (final String name) throws IOException {
+		ResourceManager props = ResourceManager.getInstance();
+		String date = new SimpleDateFormat(props.getString("pattern.format.date.file")).format(new Date());
+		File parent = new File(ResourceManager.USER_DIR, props.getString("capture.dir"));
+		File dir = new File(parent, name + "_" + date);
+		// Several captures started within the same minute
+		for (int i = 2; dir.exists(); i++) {
+			dir = new File(parent, name + "_" + date + "_" + i);
+		}
+		return new CaptureWriter(dir, props.getInt("capture.segment.size"), props.getInt("capture.index.interval"),
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Creates the replayer of a capture, replaying the messages of the
+	 * direction configured by the capture properties.
+	 * 
+	 * @param name
+	 *            Name of the replayer.
+	 * @param dir
+	 *            Capture directory.
+	 * @param target
+	 *            Server or client sending the messages.
+	 * @param speed
+	 *            Speed factor, or {@link CaptureReplayer#MAXIMUM_SPEED}.
+	 * @param listener
+	 *            Notified at the end of the replay, may be <code>null</code>.
+	 * @return The new replayer.
+	 * @throws IOException
+	 *             If the capture cannot be opened.
+	 */
+	public static CaptureReplayer createCaptureReplayer (final String name, final File dir,
+			final BufferPluginInterface target, final double speed, final CaptureReplayer.Listener listener)
+			throws IOException {
+		Direction direction = Direction.valueOf(ResourceManager.getInstance().getString("capture.replay.direction"));
+		return new CaptureReplayer(name, new CaptureReader(dir), target, direction, speed, listener);
+	}
+
+	/**
+	 * Parses a replay speed.
+	 * 
+	 * @param speed
+	 *            Speed factor, or <code>MAX</code> for the maximum speed.
+	 * @return The speed factor, {@link CaptureReplayer#MAXIMUM_SPEED} for the
+	 *         maximum speed.
+	 * @throws NumberFormatException
+	 *             If the speed is neither a strictly positive number nor
+	 *             <code>MAX</code>.
+	 */
+	public static double parseReplaySpeed (final String speed) {
+		if ("MAX".equalsIgnoreCase(speed.trim())) {
+			return CaptureReplayer.MAXIMUM_SPEED;
+		}
+		double value = Double.parseDouble(speed.trim());
+		if (!(value > 0) || Double.isInfinite(value)) {
+			throw new NumberFormatException("Invalid replay speed : " + speed);
+		}
+		return value;
+	}
+
+	/**
+	 * Creates the metrics of a server or client, configured by the metrics
+	 * properties.
+	 * 
+	 * @param connections
+	 *            Gauge giving the number of connections of the server or
+	 *            client.
+	 * @return The new metrics.
+	 */
+	public static SessionMetrics createMetrics (final Gauge connections) {
+		ResourceManager props = ResourceManager.getInstance();
+		return new SessionMetrics(new MetricsRegistry(props.getInt("metrics.rate.window"), TimeUnit.MILLISECONDS),
+				connections);
+	}
+
+	/**
+	 * Creates the traffic log of a server or client, configured by the
+	 * application properties.
+	 * 
+	 * @param logger
+	 *            Logger of the server or client.
+	 * @param level
+	 *            Level of the messages and of the summaries.
+	 * @return The new traffic log.
+	 */
+	public static TrafficLog createTrafficLog (final Logger logger, final Level level) {
+		ResourceManager props = ResourceManager.getInstance();
+		return new TrafficLog(logger, level, TrafficLog.Mode.valueOf(props.getString("logging.traffic.mode")),
+				props.getInt("logging.traffic.sampleRate"), props.getInt("logging.traffic.period"));
+	}
+
+	/**
+	 * Creates the traffic shaper of a server or client, with the limits of
+	 * the network properties.
+	 * 
+	 * @return The new shaper.
+	 */
+	public static TrafficShaper createTrafficShaper () {
+		ResourceManager props = ResourceManager.getInstance();
+		TrafficShaper shaper = new TrafficShaper();
+		shaper.setMessageBurst(props.getInt("network.shaping.messageBurst"));
+		shaper.setMessageRate(props.getInt("network.shaping.messageRate"));
+		shaper.setByteBurst(props.getInt("network.shaping.byteBurst"));
+		shaper.setByteRate(props.getInt("network.shaping.byteRate"));
+		shaper.setConnectionMessageBurst(props.getInt("network.shaping.connection.messageBurst"));
+		shaper.setConnectionMessageRate(props.getInt("network.shaping.connection.messageRate"));
+		shaper.setConnectionByteBurst(props.getInt("network.shaping.connection.byteBurst"));
+		shaper.setConnectionByteRate(props.getInt("network.shaping.connection.byteRate"));
+		return shaper;
+	}
+
+	/**
+	 * Exports the metrics and the traffic shaper of a server or client
+	 * through JMX, if enabled by the metrics properties.
+	 * 
+	 * @param metrics
+	 *            The metrics.
+	 * @param shaper
+	 *            The traffic shaper, whose limits can be changed through JMX.
+	 * @param type
+	 *            Type of the MBean, <code>Server</code> or <code>Client</code>.
+	 * @param name
+	 *            Name of the server or client.
+	 * @throws JMException
+	 *             If an MBean cannot be registered.
+	 */
+	public static void registerMetrics (final SessionMetrics metrics, final TrafficShaper shaper, final String type,
+			final String name) throws JMException {
+		if (ResourceManager.getInstance().getBoolean("metrics.jmx.enabled")) {
+			metrics.getRegistry().register(type, name);
+			shaper.register(type, name);
+		}
+	}
+
+	/**
+	 * Creates the rate profile of a load generator, configured by the load
+	 * properties.
+	 * 
+	 * @param type
+	 *            Shape of the rate.
+	 * @param rate
+	 *            Target rate in messages per second.
+	 * @return The new rate profile.
+	 */
+	public static RateProfile createRateProfile (final LoadProfile type, final int rate) {
+		ResourceManager props = ResourceManager.getInstance();
+		switch (type) {
+			case RAMP:
+				return RateProfile.ramp(props.getInt("load.ramp.startRate"), rate, props.getInt("load.ramp.duration"),
+						TimeUnit.SECONDS);
+			case BURST:
+				return RateProfile.burst(props.getInt("load.burst.baseRate"), rate, props.getInt("load.burst.period"),
+						props.getInt("load.burst.length"), TimeUnit.MILLISECONDS);
+			default:
+				return RateProfile.constant(rate);
+		}
+	}
+
+	/**
+	 * Returns the context of the {@link Protocol#TLS} servers and clients,
+	 * created from the network properties at the first call. It is shared by
+	 * all the tabs so its session caches let a client reconnecting to a
+	 * server resume its session.
+	 * 
+	 * @param server
+	 *            <code>true</code> if the context is used by a server, which
+	 *            requires a key store.
+	 * @return The context.
+	 * @throws IOException
+	 *             If the key store or the trust store cannot be loaded.
+	 */
+	public static synchronized SSLContext getTlsContext (final boolean server) throws IOException {
+		ResourceManager props = ResourceManager.getInstance();
+		String keyStore = props.getString("network.tls.keyStore").trim();
+		if (server && keyStore.isEmpty()) {
+			throw new IOException("A key store is required by the TLS servers (network.tls.keyStore)");
+		}
+		if (tlsContext != null) {
+			return tlsContext;
+		}
+		try {
+			KeyManager[] keyManagers = null;
+			if (!keyStore.isEmpty()) {
+				char[] password = props.getString("network.tls.keyStore.password").toCharArray();
+				KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+				kmf.init(loadKeyStore(keyStore, password), password);
+				keyManagers = kmf.getKeyManagers();
+			}
+			TrustManager[] trustManagers = null;
+			String trustStore = props.getString("network.tls.trustStore").trim();
+			if (props.getBoolean("network.tls.trustAll")) {
+				trustManagers = new TrustManager[] {new TrustAllManager()};
+			} else if (!trustStore.isEmpty()) {
+				TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+				tmf.init(loadKeyStore(trustStore, props.getString("network.tls.trustStore.password").toCharArray()));
+				trustManagers = tmf.getTrustManagers();
+			}
+			SSLContext context = SSLContext.getInstance(props.getString("network.tls.protocol"));
+			context.init(keyManagers, trustManagers, null);
+			int cacheSize = props.getInt("network.tls.sessionCache.size");
+			int cacheTimeout = props.getInt("network.tls.sessionCache.timeout");
+			for (SSLSessionContext sessions : new SSLSessionContext[] {context.getClientSessionContext(),
+					context.getServerSessionContext()}) {
+				sessions.setSessionCacheSize(cacheSize);
+				sessions.setSessionTimeout(cacheTimeout);
+			}
+			tlsContext = context;
+			return context;
+		} catch (GeneralSecurityException e) {
+			throw new IOException("Cannot create the TLS context : " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Loads a key store of the type given by the network properties.
+	 */
+	private static KeyStore loadKeyStore (final String path, final char[] password)
+			throws IOException, GeneralSecurityException {
+		KeyStore store = KeyStore.getInstance(ResourceManager.getInstance().getString("network.tls.keyStore.type"));
+		try (InputStream in = new FileInputStream(path)) {
+			store.load(in, password);
+		}
+		return store;
+	}
+
+	/**
+	 * Creates a TCP client of the application's network stack, configured by
+	 * the network properties.
+	 * 
+	 * @param com
+	 *            Address and port of the server.
+	 * @return The new client.
+	 */
+	private static TcpClientEngine createTcpClient (final Interface com) {
+		ResourceManager props = ResourceManager.getInstance();
+		TcpClientEngine client = new TcpClientEngine(com, props.getInt("network.nio.bufferSize"), createBufferPool());
+		client.setNoDelay(props.getBoolean("network.tcp.noDelay"));
+		if (props.getBoolean("network.tcp.coalesce.enabled")) {
+			client.setCoalescing(props.getInt("network.tcp.coalesce.maxBytes"),
+					props.getInt("network.tcp.coalesce.delay"));
+		}
+		return client;
+	}
+
+	/**
+	 * Configures the socket and the receive thread of a UDP engine from the
+	 * network properties.
+	 * 
+	 * @param engine
+	 *            The engine, not started yet.
+	 */
+	private static void configureUdpEngine (final NioUdpEngine engine) {
+		ResourceManager props = ResourceManager.getInstance();
+		engine.setReceiveBufferSize(props.getInt("network.udp.receiveBuffer"));
+		engine.setBatchSize(props.getInt("network.udp.batchSize"));
+		engine.setSequenceField(props.getInt("network.udp.sequence.offset"),
+				props.getInt("network.udp.sequence.length"));
+	}
+
+	/**
+	 * Creates the pool of the receive buffers of a server or client,
+	 * configured by the network properties.
+	 * 
+	 * @return The new buffer pool.
+	 */
+	private static BufferPool createBufferPool () {
+		ResourceManager props = ResourceManager.getInstance();
+		return new BufferPool(props.getBoolean("network.buffer.direct"), props.getInt("network.buffer.maxCapacity"),
+				props.getInt("network.buffer.maxFree"), props.getBoolean("network.buffer.leakDetection"));
+	}
+
+	/**
+	 * Trusts any certificate, to test a server with a self-signed certificate
+	 * without importing it. Never to be used in production.
+	 */
+	private static final class TrustAllManager implements X509TrustManager {
+
+		@Override
+		public void checkClientTrusted (final X509Certificate[] chain, final String authType) {
+		}
+
+		@Override
+		public void checkServerTrusted (final X509Certificate[] chain, final String authType) {
+		}
+
+		@Override
+		public X509Certificate[] getAcceptedIssuers () {
+			return new X509Certificate[0];
+		}
+	}
+}
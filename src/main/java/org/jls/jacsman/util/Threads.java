@@ -0,0 +1,196 @@
+/*#
+ * The MIT License (MIT)
+ * 
+ * Copyright (c) 2016 LE SAUCE Julien
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ #*/
+
+package org.jls.jacsman.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Creates the threads running the connections : the blocking read loops, the
+ * senders and the dispatch of the messages to the plugins.
+ * <p>
+ * When <code>network.threads.virtual</code> is enabled and the runtime
+ * supports them (Java 21 or later), these threads are virtual threads : a
+ * blocked connection then costs a few kilobytes of heap instead of a thread
+ * stack, so tens of thousands of mostly idle connections can be held. The
+ * virtual threads are created by reflection so the application still builds
+ * and runs on Java 8, with platform threads.
+ * </p>
+ * 
+ * @author Julien LE SAUCE
+ * @date 17 oct. 2026
+ */
+public final class Threads {
+
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	private static Method ofVirtual;
+	private static Method builderName;
+	private static Method builderNameCounter;
+	private static Method builderUnstarted;
+	private static Method builderFactory;
+	private static Method newThreadPerTaskExecutor;
+	private static volatile Boolean virtual;
+
+	static {
+		try {
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			ofVirtual = Thread.class.getMethod("ofVirtual");
+			builderName = builderClass.getMethod("name", String.class);
+			builderNameCounter = builderClass.getMethod("name", String.class, long.class);
+			builderUnstarted = builderClass.getMethod("unstarted", Runnable.class);
+			builderFactory = builderClass.getMethod("factory");
+			newThreadPerTaskExecutor = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+			// Fails on the runtimes where they are a preview feature not enabled
+			ofVirtual.invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			ofVirtual = null;
+		}
+	}
+
+	/**
+	 * Not instanciable.
+	 */
+	private Threads () {
+	}
+
+	/**
+	 * Tells whether the runtime supports virtual threads.
+	 * 
+	 * @return <code>true</code> on Java 21 or later.
+	 */
+	public static boolean isVirtualSupported () {
+		return ofVirtual != null;
+	}
+
+	/**
+	 * Tells whether the threads of the connections are virtual threads.
+	 * 
+	 * @return <code>true</code> if the virtual threads are enabled and
+	 *         supported.
+	 */
+	public static boolean isVirtual () {
+		Boolean v = virtual;
+		if (v == null) {
+			setVirtual(ResourceManager.getInstance().getBoolean("network.threads.virtual"));
+			v = virtual;
+		}
+		return v.booleanValue();
+	}
+
+	/**
+	 * Enables or disables the virtual threads. Applies to the threads created
+	 * from now on. If the runtime does not support them, a warning is logged
+	 * and platform threads are used.
+	 * 
+	 * @param enabled
+	 *            <code>true</code> to run the connections on virtual threads.
+	 */
+	public static synchronized void setVirtual (final boolean enabled) {
+		if (enabled && !isVirtualSupported()) {
+			LOGGER.warn("Virtual threads require Java 21 or later (running {}), platform threads are used",
+					System.getProperty("java.version"));
+		}
+		virtual = Boolean.valueOf(enabled && isVirtualSupported());
+	}
+
+	/**
+	 * Creates a thread, not started. Platform threads are daemon threads, as
+	 * virtual threads always are.
+	 * 
+	 * @param name
+	 *            Name of the thread.
+	 * @param task
+	 *            Task run by the thread.
+	 * @return The new thread.
+	 */
+	public static Thread newThread (final String name, final Runnable task) {
+		if (isVirtual()) {
+			try {
+				return (Thread) builderUnstarted.invoke(builderName.invoke(ofVirtual.invoke(null), name), task);
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException("Cannot create virtual thread " + name, e);
+			}
+		}
+		Thread t = new Thread(task, name);
+		t.setDaemon(true);
+		return t;
+	}
+
+	/**
+	 * Creates a factory of threads named after a prefix followed by a counter
+	 * starting at 0.
+	 * 
+	 * @param prefix
+	 *            Prefix of the thread names.
+	 * @return The new factory.
+	 */
+	public static ThreadFactory newFactory (final String prefix) {
+		if (isVirtual()) {
+			try {
+				return (ThreadFactory) builderFactory
+						.invoke(builderNameCounter.invoke(ofVirtual.invoke(null), prefix, Long.valueOf(0)));
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException("Cannot create virtual thread factory " + prefix, e);
+			}
+		}
+		return new ThreadFactory() {
+
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread (Runnable r) {
+				Thread t = new Thread(r, prefix + this.count.getAndIncrement());
+				t.setDaemon(true);
+				return t;
+			}
+		};
+	}
+
+	/**
+	 * Creates an executor starting a new virtual thread for each task.
+	 * 
+	 * @param prefix
+	 *            Prefix of the thread names.
+	 * @return The new executor, <code>null</code> if the virtual threads are
+	 *         disabled or not supported.
+	 */
+	public static ExecutorService newVirtualPerTaskExecutor (final String prefix) {
+		if (!isVirtual()) {
+			return null;
+		}
+		try {
+			return (ExecutorService) newThreadPerTaskExecutor.invoke(null, newFactory(prefix));
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Cannot create virtual thread executor " + prefix, e);
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package org.jls.jacsman.buffer;
+
+import java.nio.ByteBuffer;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of {@link BufferPool}.
+ */
+public class BufferPoolTest extends TestCase {
+
+	/**
+	 * A released buffer is lent again to the next request of its size class.
+	 */
+	public void testReuse () {
+		BufferPool pool = new BufferPool(false, 2 * BufferPool.SLAB_SIZE, 16);
+		PooledBuffer a = pool.acquire(BufferPool.SLAB_SIZE + 1);
+		assertEquals(BufferPool.SLAB_SIZE + 1, a.buffer().limit());
+		assertEquals(2 * BufferPool.SLAB_SIZE, a.buffer().capacity());
+		a.release();
+		PooledBuffer b = pool.acquire(500 + BufferPool.SLAB_SIZE);
+		assertSame(a, b);
+		assertEquals(0, b.buffer().position());
+		assertEquals(500 + BufferPool.SLAB_SIZE, b.buffer().limit());
+		assertEquals(1, b.refCount());
+		b.release();
+		try {
+			b.release();
+			fail("Double release not detected");
+		} catch (IllegalStateException e) {
+			// Expected
+		}
+	}
+
+	/**
+	 * Small buffers are carved out of one slab, without overlapping.
+	 */
+	public void testSlab () {
+		BufferPool pool = new BufferPool(true, 4096, 1024);
+		PooledBuffer a = pool.acquire(10);
+		assertEquals(BufferPool.SLAB_SIZE / BufferPool.MIN_CAPACITY - 1, pool.getFreeCount());
+		PooledBuffer b = pool.acquire(10);
+		a.buffer().put(0, (byte) 1);
+		b.buffer().put(0, (byte) 2);
+		assertEquals(1, a.buffer().get(0));
+		assertEquals(BufferPool.MIN_CAPACITY, b.buffer().capacity());
+		// Larger than the pool, not pooled
+		PooledBuffer c = pool.acquire(8192);
+		assertFalse(c.isPooled());
+		PooledBuffer d = pool.copyOf(ByteBuffer.wrap(new byte[] {1, 2, 3}));
+		assertEquals(3, d.size());
+		assertEquals(3, d.toArray()[2]);
+	}
+
+	/**
+	 * A buffer garbage collected without having been released is reported in
+	 * debug mode.
+	 */
+	public void testLeakDetection () throws Exception {
+		BufferPool pool = new BufferPool(false, 4096, 16, true);
+		pool.acquire(100).release();
+		pool.acquire(100);
+		int leaks = 0;
+		for (int i = 0; i < 50 && leaks == 0; i++) {
+			System.gc();
+			Thread.sleep(20);
+			leaks = pool.checkLeaks();
+		}
+		assertEquals(1, leaks);
+		assertEquals(1, pool.getLeakCount());
+	}
+}
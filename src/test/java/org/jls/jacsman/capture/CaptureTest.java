@@ -0,0 +1,146 @@
+package org.jls.jacsman.capture;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jls.jacsman.net.SendResult;
+import org.jls.jacsman.plugin.buffer.BufferPluginInterface;
+import org.jls.toolbox.net.Interface;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of {@link CaptureWriter}, {@link CaptureReader} and
+ * {@link CaptureReplayer}.
+ */
+public class CaptureTest extends TestCase {
+
+	private File dir;
+
+	@Override
+	protected void setUp () throws IOException {
+		this.dir = new File(Files.createTempDirectory("capture").toFile(), "test");
+	}
+
+	@Override
+	protected void tearDown () {
+		File parent = this.dir.getParentFile();
+		File[] files = this.dir.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		this.dir.delete();
+		parent.delete();
+	}
+
+	public void testSegmentsAndSeek () throws Exception {
+		// 4 records of 13 + 20 bytes per segment
+		CaptureWriter writer = new CaptureWriter(this.dir, 12 + 4 * 33, 0, TimeUnit.MILLISECONDS);
+		for (int i = 0; i < 10; i++) {
+			ByteBuffer msg = message(i);
+			writer.append(i % 2 == 0 ? Direction.IN : Direction.OUT, msg);
+			assertEquals(0, msg.position());
+		}
+		writer.append(Direction.IN, ByteBuffer.allocate(0));
+		try {
+			writer.append(Direction.IN, ByteBuffer.allocate(4 * 33));
+			fail("A message larger than a segment is rejected");
+		} catch (IOException e) {
+			// Expected
+		}
+		writer.close();
+		assertEquals(10, writer.getRecords());
+		assertEquals(3, CaptureFormat.listSegments(this.dir).length);
+
+		CaptureReader reader = new CaptureReader(this.dir);
+		List<Long> times = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			assertTrue(reader.next());
+			assertEquals(i % 2 == 0 ? Direction.IN : Direction.OUT, reader.getDirection());
+			assertEquals(text(i), StandardCharsets.US_ASCII.decode(reader.getMessage()).toString());
+			times.add(reader.getTime());
+		}
+		assertFalse(reader.next());
+
+		// Every record is indexed with an interval of zero
+		for (int i = 9; i >= 0; i--) {
+			reader.seek(times.get(i));
+			assertTrue(reader.next());
+			assertEquals(times.get(i).longValue(), reader.getTime());
+		}
+		reader.seek(times.get(9) + 1);
+		assertFalse(reader.next());
+		reader.close();
+	}
+
+	public void testReplay () throws Exception {
+		CaptureWriter writer = new CaptureWriter(this.dir, 1 << 16, 1, TimeUnit.SECONDS);
+		for (int i = 0; i < 100; i++) {
+			writer.append(i < 50 ? Direction.IN : Direction.OUT, message(i));
+		}
+		writer.close();
+
+		final List<String> sent = new ArrayList<>();
+		final CountDownLatch finished = new CountDownLatch(1);
+		CaptureReplayer replayer = new CaptureReplayer("test", new CaptureReader(this.dir),
+				new BufferPluginInterface() {
+
+					@Override
+					public int send (ByteBuffer msg) {
+						sent.add(StandardCharsets.US_ASCII.decode(msg).toString());
+						return 0;
+					}
+
+					@Override
+					public int send (byte[] msg) {
+						return send(ByteBuffer.wrap(msg));
+					}
+
+					@Override
+					public CompletableFuture<SendResult> sendAsync (ByteBuffer msg) {
+						throw new UnsupportedOperationException();
+					}
+
+					@Override
+					public Interface getInterface () {
+						return null;
+					}
+
+					@Override
+					public boolean isRunning () {
+						return true;
+					}
+				}, Direction.IN, CaptureReplayer.MAXIMUM_SPEED, new CaptureReplayer.Listener() {
+
+					@Override
+					public void onFinished (long messages, Throwable error) {
+						assertNull(error);
+						finished.countDown();
+					}
+				});
+		replayer.start();
+		assertTrue(finished.await(10, TimeUnit.SECONDS));
+		assertEquals(50, replayer.getSent());
+		assertEquals(50, sent.size());
+		assertEquals(text(0), sent.get(0));
+		assertEquals(text(49), sent.get(49));
+	}
+
+	private static ByteBuffer message (final int i) {
+		return ByteBuffer.wrap(text(i).getBytes(StandardCharsets.US_ASCII));
+	}
+
+	private static String text (final int i) {
+		return String.format("message number %05d", i);
+	}
+}
@@ -0,0 +1,147 @@
+package org.jls.jacsman.headless;
+
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JPanel;
+
+import org.jls.jacsman.gui.client.ClientModel;
+import org.jls.jacsman.plugin.PluginEvent;
+import org.jls.jacsman.plugin.buffer.BufferPlugin;
+import org.jls.jacsman.plugin.buffer.BufferPluginEvent;
+import org.jls.jacsman.util.Framing;
+import org.jls.jacsman.util.Protocol;
+import org.jls.jacsman.util.ResourceManager;
+import org.jls.toolbox.net.Interface;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of {@link HeadlessClient}.
+ */
+public class HeadlessClientTest extends TestCase {
+
+	/**
+	 * The connections of a pool receiving the parts of their frames in turn :
+	 * each connection is decoded on its own, so the plugin receives the whole
+	 * frames from the connection which sent them.
+	 */
+	public void testPoolInterleavedFrames () throws Exception {
+		ResourceManager props = ResourceManager.getInstance();
+		String poolSize = props.setProperty("network.pool.size", "2");
+		try (ServerSocket server = new ServerSocket(0)) {
+			server.setSoTimeout(5000);
+			ClientModel model = new ClientModel();
+			model.setClientType(Protocol.TCP_NIO);
+			model.setFraming(Framing.LENGTH_32);
+			HeadlessClient client = new HeadlessClient("Pool", model, "127.0.0.1", server.getLocalPort());
+			final BlockingQueue<String> frames = new LinkedBlockingQueue<>();
+			final Map<String, Interface> sources = new HashMap<>();
+			client.setPlugin(new Collector() {
+
+				@Override
+				public void onReceive (BufferPluginEvent event) {
+					byte[] data = new byte[event.getSize()];
+					event.getBuffer().duplicate().get(data);
+					String frame = new String(data);
+					synchronized (sources) {
+						sources.put(frame, event.getInterface());
+					}
+					frames.add(frame);
+				}
+			});
+			client.start();
+			// Closed in the middle of the test, so not managed by the try
+			Socket a = null;
+			try {
+				a = server.accept();
+				try (Socket b = server.accept()) {
+					byte[] alpha = frame("alpha");
+					byte[] bravo = frame("bravo");
+					// Header of the first frame split, then the bodies split
+					write(a.getOutputStream(), alpha, 0, 2);
+					write(b.getOutputStream(), bravo, 0, 6);
+					write(a.getOutputStream(), alpha, 2, 5);
+					write(b.getOutputStream(), bravo, 6, bravo.length - 6);
+					write(a.getOutputStream(), alpha, 7, alpha.length - 7);
+					String first = frames.poll(5, TimeUnit.SECONDS);
+					String second = frames.poll(5, TimeUnit.SECONDS);
+					assertEquals("bravo", first);
+					assertEquals("alpha", second);
+					assertNull(frames.poll(100, TimeUnit.MILLISECONDS));
+					synchronized (sources) {
+						assertNotSame(sources.get("alpha"), sources.get("bravo"));
+					}
+
+					// The partial frame of a closed connection is dropped, the reopened one starts a new stream
+					write(a.getOutputStream(), frame("charlie"), 0, 6);
+					a.close();
+					try (Socket reopened = server.accept()) {
+						write(reopened.getOutputStream(), frame("delta"), 0, 9);
+						assertEquals("delta", frames.poll(5, TimeUnit.SECONDS));
+					}
+				}
+			} finally {
+				if (a != null) {
+					a.close();
+				}
+				client.stop();
+			}
+		} finally {
+			props.setProperty("network.pool.size", poolSize);
+		}
+	}
+
+	/**
+	 * Returns the frame of a text, prefixed with its length on 4 bytes.
+	 */
+	private static byte[] frame (final String text) {
+		byte[] data = text.getBytes();
+		return ByteBuffer.allocate(4 + data.length).putInt(data.length).put(data).array();
+	}
+
+	/**
+	 * Writes a part of a frame, then leaves time to the client to read it.
+	 */
+	private static void write (final OutputStream out, final byte[] data, final int offset, final int length)
+			throws Exception {
+		out.write(data, offset, length);
+		out.flush();
+		Thread.sleep(50);
+	}
+
+	/**
+	 * Plugin ignoring the events.
+	 */
+	private abstract static class Collector implements BufferPlugin {
+
+		@Override
+		public String getName () {
+			return "Collector";
+		}
+
+		@Override
+		public void onReceive (PluginEvent e) {
+		}
+
+		@Override
+		public void onTimeout (PluginEvent e) {
+		}
+
+		@Override
+		public void onException (PluginEvent e, Throwable t) {
+		}
+
+		@Override
+		public JPanel getView () {
+			return null;
+		}
+	}
+}
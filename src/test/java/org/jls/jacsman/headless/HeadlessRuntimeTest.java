@@ -0,0 +1,55 @@
+package org.jls.jacsman.headless;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of the arguments of {@link HeadlessRuntime}.
+ */
+public class HeadlessRuntimeTest extends TestCase {
+
+	public void testIsHeadless () {
+		assertTrue(HeadlessRuntime.isHeadless(new String[] {"servers=s", "--headless"}));
+		assertFalse(HeadlessRuntime.isHeadless(new String[0]));
+	}
+
+	public void testArgumentsOverrideFile () throws IOException {
+		File file = File.createTempFile("headless", ".properties");
+		file.deleteOnExit();
+		Properties content = new Properties();
+		content.setProperty("servers", "echo");
+		content.setProperty("server.echo.type", "TCP");
+		content.setProperty("server.echo.port", "5000");
+		try (OutputStream out = new FileOutputStream(file)) {
+			content.store(out, null);
+		}
+
+		Properties config = HeadlessRuntime.parseArguments(new String[] {"--headless", "server.echo.port=6000",
+				"--config", file.getPath(), "server.echo.framing = LENGTH_32"});
+		assertEquals("echo", config.getProperty("servers"));
+		assertEquals("TCP", config.getProperty("server.echo.type"));
+		assertEquals("6000", config.getProperty("server.echo.port"));
+		assertEquals("LENGTH_32", config.getProperty("server.echo.framing"));
+		assertNull(config.getProperty("--headless"));
+	}
+
+	public void testInvalidArguments () throws IOException {
+		try {
+			HeadlessRuntime.parseArguments(new String[] {"--headless", "servers"});
+			fail("key=value expected");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+		try {
+			HeadlessRuntime.parseArguments(new String[] {"--config"});
+			fail("Configuration file expected");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+	}
+}
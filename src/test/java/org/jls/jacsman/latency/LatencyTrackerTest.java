@@ -0,0 +1,81 @@
+package org.jls.jacsman.latency;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of {@link LatencyHistogram} and {@link LatencyTracker}.
+ */
+public class LatencyTrackerTest extends TestCase {
+
+	/**
+	 * The percentiles stay within the requested precision over the whole
+	 * range.
+	 */
+	public void testHistogramPrecision () {
+		LatencyHistogram h = new LatencyHistogram(TimeUnit.MINUTES.toNanos(1), 3);
+		Random random = new Random(42);
+		long[] values = new long[100000];
+		for (int i = 0; i < values.length; i++) {
+			// Log-uniform from 1 us to 10 s
+			values[i] = (long) Math.pow(10, 3 + 7 * random.nextDouble());
+			h.recordValue(values[i]);
+		}
+		Arrays.sort(values);
+		for (double p : new double[] {50, 90, 99, 99.9, 100}) {
+			long exact = values[(int) Math.ceil(p / 100 * values.length) - 1];
+			long value = h.getValueAtPercentile(p);
+			assertTrue("p" + p + " " + value + " < " + exact, value >= exact);
+			assertTrue("p" + p + " " + value + " vs " + exact, value - exact <= exact / 1000 + 1);
+		}
+		assertEquals(values[values.length - 1], h.getMax());
+		assertEquals(values[0], h.getMin());
+		assertEquals(values.length, h.getTotalCount());
+	}
+
+	public void testFifo () throws Exception {
+		LatencyTracker<String> tracker = new LatencyTracker<>(null, TimeUnit.SECONDS.toNanos(10), 3, 0, 2);
+		ByteBuffer msg = ByteBuffer.wrap(new byte[] {1});
+		tracker.onSend("a", msg);
+		tracker.onSend("a", msg);
+		// Exceeds the pending limit, the oldest request is lost
+		tracker.onSend("a", msg);
+		tracker.onReceive("a", msg);
+		tracker.onReceive("a", msg);
+		tracker.onReceive("a", msg);
+		assertEquals(2, tracker.getHistogram("a").getTotalCount());
+		StringBuilder csv = new StringBuilder();
+		tracker.export(csv);
+		String[] lines = csv.toString().split("\n");
+		assertEquals(3, lines.length);
+		assertTrue(lines[0], lines[0].startsWith("connection,count,min_us,p50_us,p90_us,p99_us,p99.9_us,max_us"));
+		assertTrue(lines[1], lines[1].startsWith("a,2,"));
+		assertTrue(lines[1], lines[1].endsWith(",1,1,0"));
+		assertTrue(lines[2], lines[2].startsWith("ALL,2,"));
+	}
+
+	public void testCorrelation () {
+		CorrelationIdExtractor extractor = new CorrelationIdExtractor() {
+
+			@Override
+			public Object getCorrelationId (ByteBuffer msg) {
+				return msg.remaining() > 0 ? Byte.valueOf(msg.get(msg.position())) : null;
+			}
+		};
+		LatencyTracker<String> tracker = new LatencyTracker<>(extractor, TimeUnit.SECONDS.toNanos(10), 3, 0, 16);
+		tracker.onSend("a", ByteBuffer.wrap(new byte[] {1}));
+		tracker.onSend("a", ByteBuffer.wrap(new byte[] {2}));
+		// Replies out of order, one unknown, one without identifier
+		tracker.onReceive("a", ByteBuffer.wrap(new byte[] {2}));
+		tracker.onReceive("a", ByteBuffer.wrap(new byte[] {7}));
+		tracker.onReceive("a", ByteBuffer.allocate(0));
+		tracker.onReceive("a", ByteBuffer.wrap(new byte[] {1}));
+		assertEquals(2, tracker.getHistogram("a").getTotalCount());
+		assertEquals(2, tracker.getTotalHistogram().getTotalCount());
+		assertNull(tracker.getHistogram("b"));
+	}
+}
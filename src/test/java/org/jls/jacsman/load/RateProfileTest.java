@@ -0,0 +1,36 @@
+package org.jls.jacsman.load;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of {@link RateProfile} and {@link TemplatePayload}.
+ */
+public class RateProfileTest extends TestCase {
+
+	public void testRamp () {
+		RateProfile ramp = RateProfile.ramp(100, 1100, 10, TimeUnit.SECONDS);
+		assertEquals(100.0, ramp.rateAt(0), 1e-9);
+		assertEquals(600.0, ramp.rateAt(TimeUnit.SECONDS.toNanos(5)), 1e-9);
+		assertEquals(1100.0, ramp.rateAt(TimeUnit.SECONDS.toNanos(60)), 1e-9);
+	}
+
+	public void testBurst () {
+		RateProfile burst = RateProfile.burst(10, 1000, 1000, 100, TimeUnit.MILLISECONDS);
+		assertEquals(1000.0, burst.rateAt(TimeUnit.MILLISECONDS.toNanos(50)), 1e-9);
+		assertEquals(10.0, burst.rateAt(TimeUnit.MILLISECONDS.toNanos(500)), 1e-9);
+		assertEquals(1000.0, burst.rateAt(TimeUnit.MILLISECONDS.toNanos(3050)), 1e-9);
+	}
+
+	public void testTemplate () {
+		TemplatePayload payload = new TemplatePayload("id={seq};{seq}!");
+		ByteBuffer msg = payload.nextPayload(1234567890123L);
+		assertEquals("id=1234567890123;1234567890123!", StandardCharsets.UTF_8.decode(msg).toString());
+		msg = payload.nextPayload(0);
+		assertEquals("id=0;0!", StandardCharsets.UTF_8.decode(msg).toString());
+		assertEquals("plain", StandardCharsets.UTF_8.decode(new TemplatePayload("plain").nextPayload(5)).toString());
+	}
+}
@@ -0,0 +1,119 @@
+package org.jls.jacsman.metrics;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.jls.jacsman.net.SendResult;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of {@link MetricsRegistry} and {@link SessionMetrics}.
+ */
+public class MetricsRegistryTest extends TestCase {
+
+	public void testMetrics () throws Exception {
+		MetricsRegistry registry = new MetricsRegistry(1, TimeUnit.MILLISECONDS);
+		Counter counter = registry.counter("Errors");
+		counter.increment();
+		counter.add(2);
+		assertSame(counter, registry.counter("Errors"));
+		assertEquals(3, registry.counter("Errors").getCount());
+
+		Meter meter = registry.meter("Messages");
+		meter.add(1000);
+		Thread.sleep(5);
+		assertTrue(meter.getRate() > 0);
+		assertEquals(1000, meter.getCount());
+
+		registry.gauge("Connections", new Gauge() {
+
+			@Override
+			public long getValue () {
+				return 7;
+			}
+		});
+		assertEquals(Arrays.asList("Errors", "Messages", "Connections"), registry.getNames());
+
+		try {
+			registry.meter("Errors");
+			fail("A counter is not a meter");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+		try {
+			registry.counter("Messages");
+			fail("A meter is not a counter");
+		} catch (IllegalArgumentException e) {
+			// Expected
+		}
+	}
+
+	public void testJmx () throws Exception {
+		MetricsRegistry registry = new MetricsRegistry(1, TimeUnit.SECONDS);
+		SessionMetrics metrics = new SessionMetrics(registry, new Gauge() {
+
+			@Override
+			public long getValue () {
+				return 2;
+			}
+		});
+		metrics.onReceive(100);
+		metrics.onMessage();
+		metrics.onSend(10);
+		metrics.onSend(20);
+		metrics.onError();
+		metrics.onTimeout();
+
+		registry.register("Server", "Server 1");
+		ObjectName name = registry.getObjectName();
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			assertTrue(server.isRegistered(name));
+			assertEquals(1L, server.getAttribute(name, SessionMetrics.MESSAGES_IN));
+			assertEquals(100L, server.getAttribute(name, SessionMetrics.BYTES_IN));
+			assertEquals(2L, server.getAttribute(name, SessionMetrics.MESSAGES_OUT));
+			assertEquals(30L, server.getAttribute(name, SessionMetrics.BYTES_OUT));
+			assertEquals(1L, server.getAttribute(name, SessionMetrics.ERRORS));
+			assertEquals(1L, server.getAttribute(name, SessionMetrics.TIMEOUTS));
+			assertEquals(2L, server.getAttribute(name, SessionMetrics.CONNECTIONS));
+			assertTrue(server.getAttribute(name, SessionMetrics.MESSAGES_IN + MetricsRegistry.RATE_SUFFIX) instanceof Double);
+			assertEquals(4 * 2 + 14, server.getMBeanInfo(name).getAttributes().length);
+		} finally {
+			registry.unregister();
+		}
+		assertFalse(server.isRegistered(name));
+		assertNull(registry.getObjectName());
+	}
+
+	/**
+	 * An asynchronous send is counted once completed, as an error if it
+	 * failed.
+	 */
+	public void testSendAsync () {
+		SessionMetrics metrics = new SessionMetrics(new MetricsRegistry(1, TimeUnit.SECONDS), new Gauge() {
+
+			@Override
+			public long getValue () {
+				return 0;
+			}
+		});
+		MetricsRegistry registry = metrics.getRegistry();
+		CompletableFuture<SendResult> sent = new CompletableFuture<>();
+		CompletableFuture<SendResult> failed = new CompletableFuture<>();
+		assertSame(sent, metrics.onSendAsync(sent, 10));
+		metrics.onSendAsync(failed, 20);
+		assertEquals(0, registry.meter(SessionMetrics.MESSAGES_OUT).getCount());
+		sent.complete(new SendResult(1, 10, 0, 1));
+		failed.completeExceptionally(new IOException("Not connected"));
+		assertEquals(1, registry.meter(SessionMetrics.MESSAGES_OUT).getCount());
+		assertEquals(10, registry.meter(SessionMetrics.BYTES_OUT).getCount());
+		assertEquals(1, registry.counter(SessionMetrics.ERRORS).getCount());
+	}
+}
@@ -0,0 +1,106 @@
+package org.jls.jacsman.metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Properties;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.simple.SimpleLogger;
+import org.apache.logging.log4j.util.PropertiesUtil;
+import org.jls.jacsman.metrics.TrafficLog.Mode;
+import org.jls.toolbox.net.Interface;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of {@link TrafficLog}, logging to a buffer.
+ */
+public class TrafficLogTest extends TestCase {
+
+	private ByteArrayOutputStream out;
+
+	@Override
+	protected void setUp () throws Exception {
+		this.out = new ByteArrayOutputStream();
+	}
+
+	/**
+	 * In sample mode, the first message and then one out of the sample rate
+	 * are logged, as long as the level is enabled.
+	 */
+	public void testSampleRate () throws Exception {
+		TrafficLog log = new TrafficLog(newLogger(Level.INFO), Level.INFO, Mode.SAMPLE, 3, 60000);
+		boolean[] expected = {true, false, false, true, false, false, true};
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals("Message " + (i + 1), expected[i], log.isLogged(i + 1));
+		}
+		TrafficLog disabled = new TrafficLog(newLogger(Level.WARN), Level.INFO, Mode.SAMPLE, 3, 60000);
+		assertFalse(disabled.isLogged(1));
+
+		Interface com = new Interface("Peer", "127.0.0.1", 1000);
+		for (int i = 0; i < 7; i++) {
+			log.onReceive(com, 10);
+		}
+		assertEquals(3, lines().length);
+	}
+
+	/**
+	 * In summary mode no message is logged, only the traffic once stopped.
+	 */
+	public void testSummaryLogsNoMessage () throws Exception {
+		TrafficLog log = new TrafficLog(newLogger(Level.INFO), Level.INFO, Mode.SUMMARY, 1, 60000);
+		assertFalse(log.isLogged(1));
+		Interface com = new Interface("Peer", "127.0.0.1", 1000);
+		for (int i = 0; i < 100; i++) {
+			log.onReceive(com, 10);
+			log.onSend(com, 10);
+			log.onBroadcast(2, 10);
+		}
+		assertEquals("", this.out.toString());
+	}
+
+	/**
+	 * Each summary logs the traffic exchanged since the previous one, and
+	 * nothing when there was none.
+	 */
+	public void testSummaryDeltas () throws Exception {
+		TrafficLog log = new TrafficLog(newLogger(Level.INFO), Level.INFO, Mode.SUMMARY, 1, 60000);
+		Interface com = new Interface("Peer", "127.0.0.1", 1000);
+		log.start("Tab");
+		log.onReceive(com, 10);
+		log.onReceive(com, 20);
+		log.onSend(com, 5);
+		log.stop();
+		String[] lines = lines();
+		assertEquals(1, lines.length);
+		assertTrue(lines[0], lines[0].endsWith("Tab : 2 message(s) received (30 bytes), 1 message(s) sent (5 bytes)"));
+
+		log.start("Tab");
+		log.onBroadcast(3, 7);
+		log.stop();
+		lines = lines();
+		assertEquals(2, lines.length);
+		assertTrue(lines[1], lines[1].endsWith("Tab : 0 message(s) received (0 bytes), 1 message(s) sent (7 bytes)"));
+
+		// No traffic since the last summary
+		log.start("Tab");
+		log.stop();
+		assertEquals(2, lines().length);
+	}
+
+	/**
+	 * Returns a logger writing to the buffer of the test.
+	 */
+	private SimpleLogger newLogger (final Level level) {
+		return new SimpleLogger("Traffic", level, false, false, false, false, null, null,
+				new PropertiesUtil(new Properties()), new PrintStream(this.out, true));
+	}
+
+	/**
+	 * Returns the lines logged so far.
+	 */
+	private String[] lines () {
+		String text = this.out.toString().trim();
+		return text.isEmpty() ? new String[0] : text.split("\\r?\\n");
+	}
+}
@@ -0,0 +1,82 @@
+package org.jls.jacsman.net;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of {@link AsyncSender}.
+ */
+public class AsyncSenderTest extends TestCase {
+
+	/**
+	 * Pipelined messages are written and completed in their submission order,
+	 * with their own copy of the buffer.
+	 */
+	public void testPipelining () throws Exception {
+		final List<Byte> written = new ArrayList<>();
+		AsyncSender sender = new AsyncSender("test", new AsyncSender.Sink() {
+
+			@Override
+			public int write (ByteBuffer msg) throws IOException {
+				written.add(msg.get(0));
+				return msg.remaining();
+			}
+		});
+		ByteBuffer msg = ByteBuffer.allocate(10);
+		List<CompletableFuture<SendResult>> futures = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			msg.put(0, (byte) i);
+			futures.add(sender.submit(msg));
+		}
+		for (int i = 0; i < 100; i++) {
+			SendResult r = futures.get(i).get(5, TimeUnit.SECONDS);
+			assertEquals(i + 1, r.getSequence());
+			assertEquals(i + 1, r.getCompletionOrder());
+			assertEquals(10, r.getBytes());
+			assertTrue(r.getLatency() >= 0);
+			assertEquals(i, written.get(i).intValue());
+		}
+		assertEquals(0, msg.position());
+		assertEquals(0, sender.getInFlight());
+	}
+
+	/**
+	 * Cancelled and failed messages complete exceptionally.
+	 */
+	public void testFailure () throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		AsyncSender sender = new AsyncSender("test", new AsyncSender.Sink() {
+
+			@Override
+			public int write (ByteBuffer msg) throws IOException {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				throw new IOException("Broken pipe");
+			}
+		});
+		CompletableFuture<SendResult> first = sender.submit(ByteBuffer.allocate(1));
+		CompletableFuture<SendResult> second = sender.submit(ByteBuffer.allocate(1));
+		Thread.sleep(50);
+		sender.cancel();
+		assertTrue(second.isCompletedExceptionally());
+		release.countDown();
+		try {
+			first.get(5, TimeUnit.SECONDS);
+			fail("Write error not reported");
+		} catch (ExecutionException e) {
+			assertEquals("Broken pipe", e.getCause().getMessage());
+		}
+		assertEquals(0, sender.getInFlight());
+	}
+}
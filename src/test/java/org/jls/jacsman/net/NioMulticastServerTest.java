@@ -0,0 +1,165 @@
+package org.jls.jacsman.net;
+
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.toolbox.net.Interface;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of {@link NioMulticastServer}. Skipped when no network interface
+ * supports multicast.
+ */
+public class NioMulticastServerTest extends TestCase {
+
+	/**
+	 * Two groups joined on all the multicast interfaces : each group is a
+	 * client of the server, and a message published on a group is received
+	 * from this group only.
+	 */
+	public void testGroups () throws Exception {
+		List<String> interfaces = getMulticastInterfaces();
+		if (interfaces.isEmpty()) {
+			return;
+		}
+		int port = freePort();
+		InetSocketAddress groupA = new InetSocketAddress(InetAddress.getByName("239.255.42.1"), port);
+		InetSocketAddress groupB = new InetSocketAddress(InetAddress.getByName("239.255.42.2"), port);
+		BufferPool pool = new BufferPool(false, 65536, 16);
+		NioMulticastServer server = new NioMulticastServer(new Interface("Server", "0.0.0.0", port),
+				Arrays.asList(groupA, groupB), interfaces, 1024, pool);
+		final BlockingQueue<Interface> connected = new LinkedBlockingQueue<>();
+		final BlockingQueue<Interface> received = new LinkedBlockingQueue<>();
+		final List<Interface> disconnected = Collections.synchronizedList(new ArrayList<Interface>());
+		server.setListener(new Listener() {
+
+			@Override
+			public void onReceive (Interface source, PooledBuffer msg) {
+				msg.release();
+				received.add(source);
+			}
+
+			@Override
+			public void onConnect (Interface client) {
+				connected.add(client);
+			}
+
+			@Override
+			public void onDisconnect (Interface client) {
+				disconnected.add(client);
+			}
+		});
+		server.start();
+		try {
+			assertEquals(2, connected.size());
+			assertEquals(2, server.getClients().size());
+			Interface a = null;
+			for (Interface group : server.getClients()) {
+				if (group.getId().equals("239.255.42.1:" + port)) {
+					a = group;
+				}
+			}
+			assertNotNull(a);
+			// Looped back to the channel of the group
+			server.send(a, ByteBuffer.wrap("feed A".getBytes("UTF-8")));
+			Interface source = received.poll(5, TimeUnit.SECONDS);
+			assertNotNull(source);
+			assertEquals(a, source);
+			assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+		} finally {
+			server.stop();
+		}
+		assertEquals(2, disconnected.size());
+		assertTrue(server.getClients().isEmpty());
+	}
+
+	/**
+	 * Joining a group on an unknown interface fails at start.
+	 */
+	public void testUnknownInterface () throws Exception {
+		if (getMulticastInterfaces().isEmpty()) {
+			return;
+		}
+		int port = freePort();
+		NioMulticastServer server = new NioMulticastServer(new Interface("Server", "0.0.0.0", port),
+				Arrays.asList(new InetSocketAddress(InetAddress.getByName("239.255.42.1"), port)),
+				Arrays.asList("no-such-interface"), 1024, new BufferPool(false, 65536, 16));
+		try {
+			server.start();
+			fail("Unknown interface accepted");
+		} catch (IOException e) {
+			// Expected
+		}
+		assertFalse(server.isRunning());
+	}
+
+	/**
+	 * Returns the names of the running network interfaces supporting IPv4
+	 * multicast.
+	 */
+	private static List<String> getMulticastInterfaces () throws IOException {
+		List<String> names = new ArrayList<>();
+		for (NetworkInterface nif : Collections.list(NetworkInterface.getNetworkInterfaces())) {
+			if (nif.isUp() && nif.supportsMulticast()) {
+				for (InetAddress address : Collections.list(nif.getInetAddresses())) {
+					if (address instanceof Inet4Address) {
+						names.add(nif.getName());
+						break;
+					}
+				}
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Returns a free local port.
+	 */
+	private static int freePort () throws IOException {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	/**
+	 * Listener ignoring the events.
+	 */
+	private static class Listener implements EngineListener {
+
+		@Override
+		public void onReceive (Interface source, PooledBuffer msg) {
+			msg.release();
+		}
+
+		@Override
+		public void onConnect (Interface client) {
+		}
+
+		@Override
+		public void onDisconnect (Interface client) {
+		}
+
+		@Override
+		public void onTimeout (Interface source) {
+		}
+
+		@Override
+		public void onException (Interface source, Throwable t) {
+		}
+	}
+}
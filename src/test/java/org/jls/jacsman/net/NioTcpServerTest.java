@@ -0,0 +1,392 @@
+package org.jls.jacsman.net;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.toolbox.net.Interface;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of {@link NioTcpServer}.
+ */
+public class NioTcpServerTest extends TestCase {
+
+	/**
+	 * Maximum number of messages sent to fill the buffers of a slow client.
+	 */
+	private static final int MAX_MESSAGES = 100000;
+
+	/**
+	 * A message of a client is received, the reply reaches the client, and
+	 * all the buffers are given back to the pool once the server is stopped.
+	 */
+	public void testEcho () throws Exception {
+		BufferPool pool = new BufferPool(false, 65536, 64, true);
+		final NioTcpServer server = new NioTcpServer(new Interface("Server", "127.0.0.1", freePort()), 2, 4096,
+				pool);
+		final CountDownLatch connected = new CountDownLatch(1);
+		final CountDownLatch disconnected = new CountDownLatch(1);
+		server.setListener(new Listener() {
+
+			@Override
+			public void onReceive (Interface source, PooledBuffer msg) {
+				try {
+					server.send(source, msg.buffer());
+				} catch (Exception e) {
+					fail(e.getMessage());
+				} finally {
+					msg.release();
+				}
+			}
+
+			@Override
+			public void onConnect (Interface client) {
+				connected.countDown();
+			}
+
+			@Override
+			public void onDisconnect (Interface client) {
+				disconnected.countDown();
+			}
+		});
+		server.start();
+		try (Socket socket = new Socket("127.0.0.1", server.getInterface().getPort())) {
+			assertTrue(connected.await(5, TimeUnit.SECONDS));
+			assertEquals(1, server.getClientCount());
+			socket.getOutputStream().write("hello".getBytes("UTF-8"));
+			byte[] reply = new byte[5];
+			new DataInputStream(socket.getInputStream()).readFully(reply);
+			assertEquals("hello", new String(reply, "UTF-8"));
+			// Broadcast, completed once written to the only client
+			SendResult result = server.sendAsync(ByteBuffer.wrap("world".getBytes("UTF-8"))).get(5,
+					TimeUnit.SECONDS);
+			assertEquals(5, result.getBytes());
+			new DataInputStream(socket.getInputStream()).readFully(reply);
+			assertEquals("world", new String(reply, "UTF-8"));
+		}
+		assertTrue(disconnected.await(5, TimeUnit.SECONDS));
+		assertEquals(0, server.getClientCount());
+		server.stop();
+		assertEquals(0, pool.getBorrowedCount());
+	}
+
+	/**
+	 * Clients leaving while messages are being queued for them by several
+	 * threads : every future completes and no buffer stays borrowed.
+	 */
+	public void testDisconnectWhileSending () throws Exception {
+		BufferPool pool = new BufferPool(false, 65536, 64, true);
+		final NioTcpServer server = new NioTcpServer(new Interface("Server", "127.0.0.1", freePort()), 1, 4096,
+				pool);
+		final BlockingQueue<Interface> clients = new LinkedBlockingQueue<>();
+		server.setListener(new Listener() {
+
+			@Override
+			public void onConnect (Interface client) {
+				clients.add(client);
+			}
+		});
+		// Bounds the queue of the client, the messages above are discarded
+		server.setLagLimit(64 * 1024, SlowConsumerPolicy.DROP);
+		server.start();
+		final Queue<CompletableFuture<SendResult>> futures = new ConcurrentLinkedQueue<>();
+		try {
+			for (int round = 0; round < 20; round++) {
+				Socket socket = new Socket();
+				socket.setReceiveBufferSize(4096);
+				socket.connect(new InetSocketAddress("127.0.0.1", server.getInterface().getPort()));
+				final Interface client = clients.poll(5, TimeUnit.SECONDS);
+				assertNotNull(client);
+				// Never read by the client : the writes pile up in the queue
+				final AtomicBoolean sending = new AtomicBoolean(true);
+				Thread[] senders = new Thread[4];
+				for (int i = 0; i < senders.length; i++) {
+					senders[i] = new Thread(new Runnable() {
+
+						@Override
+						public void run () {
+							ByteBuffer msg = ByteBuffer.allocate(1024);
+							while (sending.get()) {
+								futures.add(server.sendAsync(client, msg));
+							}
+						}
+					});
+					senders[i].start();
+				}
+				Thread.sleep(5);
+				// Resets the connection instead of closing it gracefully
+				socket.setSoLinger(true, 0);
+				socket.close();
+				long deadline = System.currentTimeMillis() + 5000;
+				while (server.getClientCount() > 0 && System.currentTimeMillis() < deadline) {
+					Thread.sleep(1);
+				}
+				Thread.sleep(5);
+				sending.set(false);
+				for (Thread t : senders) {
+					t.join();
+				}
+			}
+			int failed = 0;
+			for (CompletableFuture<SendResult> f : futures) {
+				try {
+					f.get(5, TimeUnit.SECONDS);
+				} catch (ExecutionException e) {
+					failed++;
+				}
+			}
+			assertTrue(failed > 0);
+		} finally {
+			server.stop();
+		}
+		assertEquals(0, pool.getBorrowedCount());
+	}
+
+	/**
+	 * With {@link SlowConsumerPolicy#DROP}, the messages broadcast to a client
+	 * which does not read are dropped for it once over the lag limit, while a
+	 * client reading them receives them all.
+	 */
+	public void testSlowConsumerDrop () throws Exception {
+		BufferPool pool = new BufferPool(false, 65536, 64, true);
+		NioTcpServer server = new NioTcpServer(new Interface("Server", "127.0.0.1", freePort()), 2, 4096, pool);
+		final BlockingQueue<Interface> clients = new LinkedBlockingQueue<>();
+		server.setListener(new Listener() {
+
+			@Override
+			public void onConnect (Interface client) {
+				clients.add(client);
+			}
+		});
+		server.setLagLimit(32 * 1024, SlowConsumerPolicy.DROP);
+		server.start();
+		Socket fast = new Socket("127.0.0.1", server.getInterface().getPort());
+		assertNotNull(clients.poll(5, TimeUnit.SECONDS));
+		Socket slow = new Socket();
+		slow.setReceiveBufferSize(4096);
+		slow.connect(new InetSocketAddress("127.0.0.1", server.getInterface().getPort()));
+		Interface slowClient = clients.poll(5, TimeUnit.SECONDS);
+		assertNotNull(slowClient);
+		try {
+			ByteBuffer msg = ByteBuffer.allocate(1024);
+			DataInputStream in = new DataInputStream(fast.getInputStream());
+			byte[] data = new byte[msg.capacity()];
+			// Until the socket buffers of the slow client are full and its queue reaches the limit
+			for (int i = 0; i < MAX_MESSAGES && server.getDroppedCount() == 0; i++) {
+				server.send(msg);
+				// The fast client keeps up with all the messages
+				in.readFully(data);
+				assertTrue(server.getLag(slowClient) <= 32 * 1024);
+			}
+			assertTrue(server.getDroppedCount() > 0);
+			assertEquals(2, server.getClientCount());
+		} finally {
+			fast.close();
+			slow.close();
+			server.stop();
+		}
+		assertEquals(0, pool.getBorrowedCount());
+	}
+
+	/**
+	 * With {@link SlowConsumerPolicy#DISCONNECT}, a client which does not read
+	 * is disconnected once over the lag limit, the other clients stay
+	 * connected.
+	 */
+	public void testSlowConsumerDisconnect () throws Exception {
+		BufferPool pool = new BufferPool(false, 65536, 64, true);
+		NioTcpServer server = new NioTcpServer(new Interface("Server", "127.0.0.1", freePort()), 1, 4096, pool);
+		final BlockingQueue<Interface> clients = new LinkedBlockingQueue<>();
+		final BlockingQueue<Interface> disconnected = new LinkedBlockingQueue<>();
+		server.setListener(new Listener() {
+
+			@Override
+			public void onConnect (Interface client) {
+				clients.add(client);
+			}
+
+			@Override
+			public void onDisconnect (Interface client) {
+				disconnected.add(client);
+			}
+		});
+		server.setLagLimit(32 * 1024, SlowConsumerPolicy.DISCONNECT);
+		server.start();
+		Socket fast = new Socket("127.0.0.1", server.getInterface().getPort());
+		Interface fastClient = clients.poll(5, TimeUnit.SECONDS);
+		Socket slow = new Socket();
+		slow.setReceiveBufferSize(4096);
+		slow.connect(new InetSocketAddress("127.0.0.1", server.getInterface().getPort()));
+		Interface slowClient = clients.poll(5, TimeUnit.SECONDS);
+		assertNotNull(slowClient);
+		try {
+			ByteBuffer msg = ByteBuffer.allocate(1024);
+			DataInputStream in = new DataInputStream(fast.getInputStream());
+			byte[] data = new byte[msg.capacity()];
+			for (int i = 0; i < MAX_MESSAGES && disconnected.isEmpty(); i++) {
+				server.send(msg);
+				in.readFully(data);
+			}
+			assertEquals(slowClient, disconnected.poll(5, TimeUnit.SECONDS));
+			assertEquals(1, server.getClientCount());
+			assertEquals(fastClient, server.getClients().get(0));
+			// The slow client reads what was written before its connection was closed
+			slow.setSoTimeout(5000);
+			try {
+				while (slow.getInputStream().read(data) >= 0) {
+					continue;
+				}
+			} catch (SocketTimeoutException e) {
+				fail("Connection of the slow client not closed");
+			} catch (IOException e) {
+				// Reset by the server
+			}
+		} finally {
+			fast.close();
+			slow.close();
+			server.stop();
+		}
+		assertEquals(0, pool.getBorrowedCount());
+	}
+
+	/**
+	 * Several threads broadcasting while a slow client is disconnected by
+	 * {@link SlowConsumerPolicy#DISCONNECT} : every future completes and the
+	 * shared buffers are all given back to the pool.
+	 */
+	public void testBroadcastWhileDisconnecting () throws Exception {
+		BufferPool pool = new BufferPool(false, 65536, 64, true);
+		final NioTcpServer server = new NioTcpServer(new Interface("Server", "127.0.0.1", freePort()), 2, 4096,
+				pool);
+		final BlockingQueue<Interface> clients = new LinkedBlockingQueue<>();
+		final BlockingQueue<Interface> disconnected = new LinkedBlockingQueue<>();
+		server.setListener(new Listener() {
+
+			@Override
+			public void onConnect (Interface client) {
+				clients.add(client);
+			}
+
+			@Override
+			public void onDisconnect (Interface client) {
+				disconnected.add(client);
+			}
+		});
+		server.setLagLimit(32 * 1024, SlowConsumerPolicy.DISCONNECT);
+		server.start();
+		final Queue<CompletableFuture<SendResult>> futures = new ConcurrentLinkedQueue<>();
+		try {
+			for (int round = 0; round < 10; round++) {
+				// Reads everything until closed
+				final Socket fast = new Socket("127.0.0.1", server.getInterface().getPort());
+				assertNotNull(clients.poll(5, TimeUnit.SECONDS));
+				Thread reader = new Thread(new Runnable() {
+
+					@Override
+					public void run () {
+						byte[] data = new byte[4096];
+						try {
+							while (fast.getInputStream().read(data) >= 0) {
+								continue;
+							}
+						} catch (IOException e) {
+							// Closed
+						}
+					}
+				});
+				reader.start();
+				Socket slow = new Socket();
+				slow.setReceiveBufferSize(4096);
+				slow.connect(new InetSocketAddress("127.0.0.1", server.getInterface().getPort()));
+				assertNotNull(clients.poll(5, TimeUnit.SECONDS));
+				final AtomicBoolean sending = new AtomicBoolean(true);
+				Thread[] senders = new Thread[4];
+				for (int i = 0; i < senders.length; i++) {
+					senders[i] = new Thread(new Runnable() {
+
+						@Override
+						public void run () {
+							ByteBuffer msg = ByteBuffer.allocate(1024);
+							for (int n = 0; n < MAX_MESSAGES && sending.get(); n++) {
+								futures.add(server.sendAsync(msg));
+							}
+						}
+					});
+					senders[i].start();
+				}
+				assertNotNull(disconnected.poll(10, TimeUnit.SECONDS));
+				sending.set(false);
+				for (Thread t : senders) {
+					t.join();
+				}
+				slow.close();
+				fast.close();
+				reader.join(5000);
+				assertNotNull(disconnected.poll(5, TimeUnit.SECONDS));
+			}
+			for (CompletableFuture<SendResult> f : futures) {
+				try {
+					f.get(5, TimeUnit.SECONDS);
+				} catch (ExecutionException e) {
+					// Not written to any client
+				}
+			}
+		} finally {
+			server.stop();
+		}
+		assertEquals(0, pool.getBorrowedCount());
+	}
+
+	/**
+	 * Returns a free local port.
+	 */
+	private static int freePort () throws Exception {
+		try (ServerSocket socket = new ServerSocket(0)) {
+			return socket.getLocalPort();
+		}
+	}
+
+	/**
+	 * Listener ignoring the events.
+	 */
+	private static class Listener implements EngineListener {
+
+		@Override
+		public void onReceive (Interface source, PooledBuffer msg) {
+			msg.release();
+		}
+
+		@Override
+		public void onConnect (Interface client) {
+		}
+
+		@Override
+		public void onDisconnect (Interface client) {
+		}
+
+		@Override
+		public void onTimeout (Interface source) {
+		}
+
+		@Override
+		public void onException (Interface source, Throwable t) {
+		}
+	}
+}
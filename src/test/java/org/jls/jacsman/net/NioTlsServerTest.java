@@ -0,0 +1,258 @@
+package org.jls.jacsman.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.toolbox.net.Interface;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of {@link NioTlsServer} and {@link NioTlsClient}, with the
+ * self-signed certificate of <code>tls/test-keystore.p12</code>.
+ */
+public class NioTlsServerTest extends TestCase {
+
+	private static final char[] PASSWORD = "jacsman".toCharArray();
+
+	/**
+	 * A message of a client is echoed by the server, and a client
+	 * reconnecting with the same context resumes its session.
+	 */
+	public void testEchoAndResumption () throws Exception {
+		int port;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+		SSLContext context = createContext();
+		BufferPool pool = new BufferPool(false, 65536, 16);
+		final NioTlsServer server = new NioTlsServer(new Interface("Server", "127.0.0.1", port), context, pool);
+		final CountDownLatch disconnected = new CountDownLatch(2);
+		server.setListener(new Listener() {
+
+			@Override
+			public void onReceive (Interface source, PooledBuffer msg) {
+				try {
+					server.send(source, msg.buffer());
+				} catch (Exception e) {
+					fail(e.getMessage());
+				} finally {
+					msg.release();
+				}
+			}
+
+			@Override
+			public void onDisconnect (Interface client) {
+				disconnected.countDown();
+			}
+		});
+		server.start();
+		try {
+			echo(new NioTlsClient(new Interface("Client", "127.0.0.1", port), context, pool));
+			echo(new NioTlsClient(new Interface("Client", "127.0.0.1", port), context, pool));
+			assertTrue(disconnected.await(5, TimeUnit.SECONDS));
+			assertEquals(2, server.getHandshakes());
+			assertEquals(1, server.getResumedHandshakes());
+			assertEquals(0, server.getFailedHandshakes());
+			assertEquals(2, server.getHandshakeLatency().getTotalCount());
+		} finally {
+			server.stop();
+		}
+		try {
+			server.send(ByteBuffer.allocate(1));
+			fail("No client is connected");
+		} catch (NoClientException e) {
+			// Expected
+		}
+	}
+
+	/**
+	 * A client rejects a trusted certificate issued to another host, unless
+	 * it does not verify the host name.
+	 */
+	public void testVerifyHost () throws Exception {
+		int port;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+		SSLContext context = createContext();
+		BufferPool pool = new BufferPool(false, 65536, 16);
+		NioTlsServer server = new NioTlsServer(new Interface("Server", "0.0.0.0", port), context, pool);
+		server.setListener(new Listener());
+		server.start();
+		try {
+			// The test certificate is issued to localhost and 127.0.0.1 only
+			NioTlsClient client = new NioTlsClient(new Interface("Client", "127.0.0.2", port), context, pool);
+			client.setListener(new Listener());
+			try {
+				client.start();
+				client.stop();
+				fail("The certificate is not issued to 127.0.0.2");
+			} catch (IOException e) {
+				// Expected
+			}
+			client.setVerifyHost(false);
+			client.start();
+			client.stop();
+			NioTlsClient named = new NioTlsClient(new Interface("Client", "localhost", port), context, pool);
+			named.setListener(new Listener());
+			named.start();
+			named.stop();
+		} finally {
+			server.stop();
+		}
+	}
+
+	/**
+	 * The messages sent to a client while it disconnects are either written
+	 * or failed : none of their futures is left pending.
+	 */
+	public void testSendWhilePeerDisconnects () throws Exception {
+		int port;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+		SSLContext context = createContext();
+		BufferPool pool = new BufferPool(false, 65536, 16);
+		NioTlsServer server = new NioTlsServer(new Interface("Server", "127.0.0.1", port), context, pool);
+		final BlockingQueue<Interface> connected = new LinkedBlockingQueue<>();
+		server.setListener(new Listener() {
+
+			@Override
+			public void onConnect (Interface client) {
+				connected.add(client);
+			}
+		});
+		server.start();
+		try {
+			for (int round = 0; round < 10; round++) {
+				final NioTlsClient client = new NioTlsClient(new Interface("Client", "127.0.0.1", port), context,
+						pool);
+				client.setListener(new Listener());
+				client.start();
+				Interface peer = connected.poll(5, TimeUnit.SECONDS);
+				assertNotNull(peer);
+				Thread closer = new Thread(new Runnable() {
+
+					@Override
+					public void run () {
+						try {
+							client.stop();
+						} catch (IOException e) {
+							// The futures are checked by the test
+						}
+					}
+				});
+				List<CompletableFuture<SendResult>> futures = new ArrayList<>();
+				ByteBuffer msg = ByteBuffer.allocate(1024);
+				for (int i = 0; i < 200; i++) {
+					if (i == 20) {
+						closer.start();
+					}
+					futures.add(server.sendAsync(peer, msg));
+				}
+				closer.join(5000);
+				for (CompletableFuture<SendResult> f : futures) {
+					try {
+						f.get(5, TimeUnit.SECONDS);
+					} catch (ExecutionException e) {
+						// Failed by the closing of the connection
+					}
+				}
+			}
+		} finally {
+			server.stop();
+		}
+	}
+
+	/**
+	 * Connects a client, waits for the echo of a message and disconnects.
+	 */
+	private static void echo (final NioTlsClient client) throws Exception {
+		final StringBuilder answer = new StringBuilder();
+		final CountDownLatch answered = new CountDownLatch(1);
+		client.setListener(new Listener() {
+
+			@Override
+			public void onReceive (Interface source, PooledBuffer msg) {
+				answer.append(new String(msg.toArray(), StandardCharsets.UTF_8));
+				msg.release();
+				if (answer.length() >= 5) {
+					answered.countDown();
+				}
+			}
+		});
+		client.start();
+		try {
+			assertEquals(1, client.getHandshakes());
+			assertEquals(5, client.sendAsync(ByteBuffer.wrap("hello".getBytes("UTF-8"))).get(5, TimeUnit.SECONDS)
+					.getBytes());
+			assertTrue(answered.await(5, TimeUnit.SECONDS));
+			assertEquals("hello", answer.toString());
+		} finally {
+			client.stop();
+		}
+	}
+
+	/**
+	 * Creates a context holding and trusting the test certificate.
+	 */
+	private static SSLContext createContext () throws Exception {
+		KeyStore keyStore = KeyStore.getInstance("PKCS12");
+		try (InputStream in = NioTlsServerTest.class.getResourceAsStream("/tls/test-keystore.p12")) {
+			keyStore.load(in, PASSWORD);
+		}
+		KeyManagerFactory kmf = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+		kmf.init(keyStore, PASSWORD);
+		TrustManagerFactory tmf = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+		tmf.init(keyStore);
+		SSLContext context = SSLContext.getInstance("TLS");
+		context.init(kmf.getKeyManagers(), tmf.getTrustManagers(), null);
+		return context;
+	}
+
+	/**
+	 * Listener ignoring the events.
+	 */
+	private static class Listener implements EngineListener {
+
+		@Override
+		public void onReceive (Interface source, PooledBuffer msg) {
+			msg.release();
+		}
+
+		@Override
+		public void onConnect (Interface client) {
+		}
+
+		@Override
+		public void onDisconnect (Interface client) {
+		}
+
+		@Override
+		public void onTimeout (Interface source) {
+		}
+
+		@Override
+		public void onException (Interface source, Throwable t) {
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package org.jls.jacsman.net;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.toolbox.net.Interface;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of {@link NioUdpServer} and {@link NioUdpClient}.
+ */
+public class NioUdpServerTest extends TestCase {
+
+	/**
+	 * Datagrams are received from a client known on its first datagram, the
+	 * skipped sequence numbers are counted as gaps and the late ones as out of
+	 * order, and the server answers the client.
+	 */
+	public void testSequenceGaps () throws Exception {
+		BufferPool pool = new BufferPool(false, 65536, 16);
+		NioUdpServer server = new NioUdpServer(new Interface("Server", "127.0.0.1", 0), 1024, pool);
+		server.setBatchSize(4);
+		server.setSequenceField(2, 4);
+		final CountDownLatch received = new CountDownLatch(5);
+		final AtomicInteger connected = new AtomicInteger();
+		server.setListener(new Listener() {
+
+			@Override
+			public void onReceive (Interface source, PooledBuffer msg) {
+				msg.release();
+				received.countDown();
+			}
+
+			@Override
+			public void onConnect (Interface client) {
+				connected.incrementAndGet();
+			}
+		});
+		server.start();
+		NioUdpClient client = new NioUdpClient(new Interface("Client", "127.0.0.1", server.getLocalPort()), 1024,
+				pool);
+		final CountDownLatch answered = new CountDownLatch(1);
+		client.setListener(new Listener() {
+
+			@Override
+			public void onReceive (Interface source, PooledBuffer msg) {
+				assertEquals(6, msg.size());
+				msg.release();
+				answered.countDown();
+			}
+		});
+		client.start();
+		try {
+			ByteBuffer msg = ByteBuffer.allocate(6);
+			for (int sequence : new int[] { 1, 2, 5, 3, 6 }) {
+				msg.putInt(2, sequence);
+				client.send(msg);
+				assertEquals(0, msg.position());
+			}
+			assertTrue(received.await(5, TimeUnit.SECONDS));
+			assertEquals(5, server.getReceivedDatagrams());
+			assertEquals(2, server.getSequenceGaps());
+			assertEquals(1, server.getOutOfOrder());
+			assertEquals(1, connected.get());
+			assertEquals(1, server.getClients().size());
+
+			server.send(msg);
+			assertTrue(answered.await(5, TimeUnit.SECONDS));
+		} finally {
+			client.stop();
+			server.stop();
+		}
+		assertTrue(server.getClients().isEmpty());
+	}
+
+	/**
+	 * Listener ignoring the events.
+	 */
+	private static class Listener implements EngineListener {
+
+		@Override
+		public void onReceive (Interface source, PooledBuffer msg) {
+			msg.release();
+		}
+
+		@Override
+		public void onConnect (Interface client) {
+		}
+
+		@Override
+		public void onDisconnect (Interface client) {
+		}
+
+		@Override
+		public void onTimeout (Interface source) {
+		}
+
+		@Override
+		public void onException (Interface source, Throwable t) {
+		}
+	}
+}
@@ -0,0 +1,122 @@
+package org.jls.jacsman.net;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.toolbox.net.Interface;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of {@link PooledClientEngine}.
+ */
+public class PooledClientEngineTest extends TestCase {
+
+	/**
+	 * The connections are opened by the start and used in turn, then reopened
+	 * once the server is restarted.
+	 */
+	public void testRoundRobinAndReconnect () throws Exception {
+		int port;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+		final BufferPool pool = new BufferPool(false, 65536, 16);
+		final Set<Interface> senders = Collections.synchronizedSet(new HashSet<Interface>());
+		// The messages of a connection may be read at once
+		final CountDownLatch received = new CountDownLatch(6 * 5);
+		Listener counter = new Listener() {
+
+			@Override
+			public void onReceive (Interface source, PooledBuffer msg) {
+				senders.add(source);
+				for (int i = 0; i < msg.size(); i++) {
+					received.countDown();
+				}
+				msg.release();
+			}
+		};
+		TcpServerEngine server = new TcpServerEngine(new Interface("Server", "127.0.0.1", port), 1024, pool);
+		server.setListener(counter);
+		server.start();
+		PooledClientEngine client = new PooledClientEngine(new Interface("Pool", "127.0.0.1", port), 3,
+				PooledClientEngine.Selection.ROUND_ROBIN, new PooledClientEngine.Factory() {
+
+					@Override
+					public ClientEngine create (Interface com) throws IOException {
+						return new TcpClientEngine(com, 1024, pool);
+					}
+				});
+		client.setBackoff(20, 200);
+		client.setListener(new Listener());
+		try {
+			client.start();
+			assertEquals(3, client.getConnectedCount());
+			for (int i = 0; i < 6; i++) {
+				client.send(ByteBuffer.wrap("hello".getBytes("UTF-8")));
+			}
+			assertTrue(received.await(5, TimeUnit.SECONDS));
+			assertEquals(3, senders.size());
+
+			// The connections are reopened once the server is back
+			server.stop();
+			waitFor(client, 0);
+			server = new TcpServerEngine(new Interface("Server", "127.0.0.1", port), 1024, pool);
+			server.setListener(new Listener());
+			server.start();
+			waitFor(client, 3);
+			assertEquals(5, client.sendAsync(ByteBuffer.wrap("hello".getBytes("UTF-8"))).get(5, TimeUnit.SECONDS)
+					.getBytes());
+		} finally {
+			client.stop();
+			server.stop();
+		}
+		assertEquals(0, client.getConnectedCount());
+	}
+
+	/**
+	 * Waits until the pool has the given number of open connections.
+	 */
+	private static void waitFor (final PooledClientEngine client, final int connected) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (client.getConnectedCount() != connected && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(connected, client.getConnectedCount());
+	}
+
+	/**
+	 * Listener ignoring the events.
+	 */
+	private static class Listener implements EngineListener {
+
+		@Override
+		public void onReceive (Interface source, PooledBuffer msg) {
+			msg.release();
+		}
+
+		@Override
+		public void onConnect (Interface client) {
+		}
+
+		@Override
+		public void onDisconnect (Interface client) {
+		}
+
+		@Override
+		public void onTimeout (Interface source) {
+		}
+
+		@Override
+		public void onException (Interface source, Throwable t) {
+		}
+	}
+}
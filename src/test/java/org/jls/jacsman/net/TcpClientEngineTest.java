@@ -0,0 +1,135 @@
+package org.jls.jacsman.net;
+
+import java.io.DataInputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.toolbox.net.Interface;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of {@link TcpClientEngine}.
+ */
+public class TcpClientEngineTest extends TestCase {
+
+	/**
+	 * Coalesced messages are written once their batch is full, or when the
+	 * client stops, and reach the server as the same stream of bytes.
+	 */
+	public void testCoalescing () throws Exception {
+		BufferPool pool = new BufferPool(false, 65536, 16);
+		try (ServerSocket server = new ServerSocket(0)) {
+			TcpClientEngine client = new TcpClientEngine(new Interface("Client", "127.0.0.1", server.getLocalPort()),
+					1024, pool);
+			// Batches of 100 bytes, with a delay long enough to never elapse
+			client.setCoalescing(100, TimeUnit.SECONDS.toMicros(60));
+			client.start();
+			try (Socket socket = server.accept()) {
+				socket.setSoTimeout(200);
+				DataInputStream in = new DataInputStream(socket.getInputStream());
+				List<CompletableFuture<SendResult>> futures = new ArrayList<>();
+				ByteBuffer msg = ByteBuffer.allocate(10);
+				for (int i = 0; i < 15; i++) {
+					msg.put(0, (byte) i);
+					futures.add(client.sendAsync(msg));
+					assertEquals(0, msg.position());
+				}
+				// The first batch is full and written
+				byte[] data = new byte[100];
+				in.readFully(data);
+				for (int i = 0; i < 10; i++) {
+					assertEquals(i, data[i * 10]);
+					assertEquals(10, futures.get(i).get(5, TimeUnit.SECONDS).getBytes());
+				}
+				// The second one waits for the delay
+				try {
+					in.read();
+					fail("Batch written before the delay");
+				} catch (SocketTimeoutException e) {
+					// Expected
+				}
+				for (int i = 10; i < 15; i++) {
+					assertFalse(futures.get(i).isDone());
+				}
+				// Larger than a batch, written at once after the pending batch
+				client.send(ByteBuffer.allocate(200));
+				in.readFully(new byte[50]);
+				in.readFully(new byte[200]);
+				for (int i = 10; i < 15; i++) {
+					assertTrue(futures.get(i).isDone());
+				}
+				client.send(ByteBuffer.allocate(10));
+				client.stop();
+				// Stopping writes the last batch
+				socket.setSoTimeout(5000);
+				in.readFully(new byte[10]);
+				assertEquals(-1, in.read());
+			} finally {
+				client.stop();
+			}
+		}
+	}
+
+	/**
+	 * A short coalescing delay writes a partial batch without waiting for
+	 * more messages.
+	 */
+	public void testCoalescingDelay () throws Exception {
+		BufferPool pool = new BufferPool(false, 65536, 16);
+		try (ServerSocket server = new ServerSocket(0)) {
+			TcpClientEngine client = new TcpClientEngine(new Interface("Client", "127.0.0.1", server.getLocalPort()),
+					1024, pool);
+			client.setCoalescing(1024, 500);
+			client.setNoDelay(true);
+			client.start();
+			try (Socket socket = server.accept()) {
+				socket.setSoTimeout(5000);
+				SendResult result = client.sendAsync(ByteBuffer.allocate(10)).get(5, TimeUnit.SECONDS);
+				assertEquals(10, result.getBytes());
+				assertTrue(result.getLatency(TimeUnit.MICROSECONDS) >= 500);
+				new DataInputStream(socket.getInputStream()).readFully(new byte[10]);
+			} finally {
+				client.stop();
+			}
+		}
+	}
+
+	/**
+	 * Without coalescing, a message sent while asynchronous sends are still
+	 * queued is written after them.
+	 */
+	public void testMixedSendOrder () throws Exception {
+		BufferPool pool = new BufferPool(false, 65536, 16);
+		try (ServerSocket server = new ServerSocket(0)) {
+			TcpClientEngine client = new TcpClientEngine(new Interface("Client", "127.0.0.1", server.getLocalPort()),
+					1024, pool);
+			client.start();
+			try (Socket socket = server.accept()) {
+				socket.setSoTimeout(5000);
+				ByteBuffer msg = ByteBuffer.allocate(4);
+				for (int i = 0; i < 1000; i++) {
+					msg.putInt(0, i);
+					if (i % 3 == 2) {
+						client.send(msg);
+					} else {
+						client.sendAsync(msg);
+					}
+				}
+				DataInputStream in = new DataInputStream(socket.getInputStream());
+				for (int i = 0; i < 1000; i++) {
+					assertEquals(i, in.readInt());
+				}
+			} finally {
+				client.stop();
+			}
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package org.jls.jacsman.net;
+
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jls.jacsman.buffer.BufferPool;
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.toolbox.net.Interface;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of {@link TcpServerEngine}.
+ */
+public class TcpServerEngineTest extends TestCase {
+
+	/**
+	 * Each connection is read by its own thread : a message of a client is
+	 * received, the reply reaches the client and its disconnection is
+	 * reported.
+	 */
+	public void testThreadPerConnection () throws Exception {
+		int port;
+		try (ServerSocket socket = new ServerSocket(0)) {
+			port = socket.getLocalPort();
+		}
+		BufferPool pool = new BufferPool(false, 65536, 16);
+		final TcpServerEngine server = new TcpServerEngine(new Interface("Server", "127.0.0.1", port), 1024, pool);
+		final CountDownLatch received = new CountDownLatch(1);
+		final CountDownLatch disconnected = new CountDownLatch(1);
+		server.setListener(new Listener() {
+
+			@Override
+			public void onReceive (Interface source, PooledBuffer msg) {
+				try {
+					assertEquals(5, msg.size());
+					server.send(source, msg.buffer());
+				} catch (Exception e) {
+					fail(e.getMessage());
+				} finally {
+					msg.release();
+				}
+				received.countDown();
+			}
+
+			@Override
+			public void onDisconnect (Interface client) {
+				disconnected.countDown();
+			}
+		});
+		server.start();
+		TcpClientEngine client = new TcpClientEngine(new Interface("Client", "127.0.0.1", port), 1024, pool);
+		final CountDownLatch answered = new CountDownLatch(1);
+		client.setListener(new Listener() {
+
+			@Override
+			public void onReceive (Interface source, PooledBuffer msg) {
+				assertEquals(5, msg.size());
+				msg.release();
+				answered.countDown();
+			}
+		});
+		try {
+			client.start();
+			client.send(ByteBuffer.wrap("hello".getBytes("UTF-8")));
+			assertTrue(received.await(5, TimeUnit.SECONDS));
+			assertTrue(answered.await(5, TimeUnit.SECONDS));
+			assertEquals(1, server.getClients().size());
+		} finally {
+			client.stop();
+		}
+		assertTrue(disconnected.await(5, TimeUnit.SECONDS));
+		assertTrue(server.getClients().isEmpty());
+		server.stop();
+		try {
+			server.send(ByteBuffer.allocate(1));
+			fail("No client is connected");
+		} catch (NoClientException e) {
+			// Expected
+		}
+	}
+
+	/**
+	 * Listener ignoring the events.
+	 */
+	private static class Listener implements EngineListener {
+
+		@Override
+		public void onReceive (Interface source, PooledBuffer msg) {
+			msg.release();
+		}
+
+		@Override
+		public void onConnect (Interface client) {
+		}
+
+		@Override
+		public void onDisconnect (Interface client) {
+		}
+
+		@Override
+		public void onTimeout (Interface source) {
+		}
+
+		@Override
+		public void onException (Interface source, Throwable t) {
+		}
+	}
+}
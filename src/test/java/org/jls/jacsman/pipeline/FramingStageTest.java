@@ -0,0 +1,109 @@
+package org.jls.jacsman.pipeline;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jls.jacsman.buffer.PooledBuffer;
+import org.jls.jacsman.util.Framing;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of {@link FramingStage} and its decoders.
+ */
+public class FramingStageTest extends TestCase {
+
+	private final List<PooledBuffer> frames = new ArrayList<>();
+
+	private FramingStage<String> createStage (final Framing framing) {
+		return new FramingStage<>(framing, new byte[] {'\r', '\n'}, 3, 1024, new FramingStage.Listener<String>() {
+
+			@Override
+			public void onFrame (String key, PooledBuffer frame) {
+				FramingStageTest.this.frames.add(frame);
+			}
+		});
+	}
+
+	/**
+	 * Feeds the stream in chunks of every size, and checks that the same
+	 * frames are decoded.
+	 */
+	private void checkFraming (final Framing framing, final byte[] stream, final String... expected)
+			throws FramingException {
+		for (int chunkSize = 1; chunkSize <= stream.length; chunkSize++) {
+			FramingStage<String> stage = createStage(framing);
+			for (int i = 0; i < stream.length; i += chunkSize) {
+				int len = Math.min(chunkSize, stream.length - i);
+				stage.decode("c", PooledBuffer.wrap(ByteBuffer.wrap(stream, i, len)));
+			}
+			assertEquals("Chunks of " + chunkSize, expected.length, this.frames.size());
+			for (int i = 0; i < expected.length; i++) {
+				PooledBuffer frame = this.frames.get(i);
+				assertEquals("Chunks of " + chunkSize, expected[i], new String(frame.toArray()));
+				frame.release();
+			}
+			this.frames.clear();
+			stage.shutdown();
+		}
+	}
+
+	public void testLengthFields () throws FramingException {
+		checkFraming(Framing.LENGTH_8, new byte[] {2, 'a', 'b', 0, 1, 'c'}, "ab", "", "c");
+		checkFraming(Framing.LENGTH_16, new byte[] {0, 2, 'a', 'b', 0, 1, 'c'}, "ab", "c");
+		checkFraming(Framing.LENGTH_32, new byte[] {0, 0, 0, 2, 'a', 'b', 0, 0, 0, 1, 'c'}, "ab", "c");
+	}
+
+	public void testVarint () throws FramingException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		StringBuilder longFrame = new StringBuilder();
+		for (int i = 0; i < 200; i++) {
+			longFrame.append('x');
+		}
+		// 200 = 0xC8 : 0x48 | 0x80, 0x01
+		out.write(0xC8);
+		out.write(0x01);
+		out.write(longFrame.toString().getBytes(), 0, 200);
+		out.write(1);
+		out.write('z');
+		checkFraming(Framing.LENGTH_VARINT, out.toByteArray(), longFrame.toString(), "z");
+	}
+
+	public void testDelimiter () throws FramingException {
+		checkFraming(Framing.DELIMITER, "ab\r\n\r\ncd\rx\r\n".getBytes(), "ab", "", "cd\rx");
+	}
+
+	public void testFixedLength () throws FramingException {
+		checkFraming(Framing.FIXED_LENGTH, "abcdefgh".getBytes(), "abc", "def");
+	}
+
+	/**
+	 * The frames of a chunk share its buffer, which is released with the
+	 * last frame.
+	 */
+	public void testZeroCopy () throws FramingException {
+		FramingStage<String> stage = createStage(Framing.LENGTH_8);
+		byte[] array = new byte[] {1, 'a', 1, 'b'};
+		PooledBuffer chunk = PooledBuffer.wrap(array);
+		stage.decode("c", chunk.retain());
+		assertEquals(2, this.frames.size());
+		assertEquals(3, chunk.refCount());
+		array[3] = 'z';
+		assertEquals('z', this.frames.get(1).buffer().get(0));
+		this.frames.get(0).release();
+		this.frames.get(1).release();
+		assertEquals(1, chunk.refCount());
+	}
+
+	public void testTooLong () {
+		FramingStage<String> stage = createStage(Framing.LENGTH_16);
+		try {
+			stage.decode("c", PooledBuffer.wrap(new byte[] {0x10, 0, 'a'}));
+			fail("Oversized frame accepted");
+		} catch (FramingException e) {
+			// Expected
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package org.jls.jacsman.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of {@link ReceiveDispatcher}.
+ */
+public class ReceiveDispatcherTest extends TestCase {
+
+	/**
+	 * Events of a connection are handled in their arrival order, without
+	 * loss when the policy is {@link BackpressurePolicy#BLOCK}.
+	 */
+	public void testOrderPerConnection () throws Exception {
+		final int count = 10000;
+		final List<Integer> a = Collections.synchronizedList(new ArrayList<Integer>());
+		final List<Integer> b = Collections.synchronizedList(new ArrayList<Integer>());
+		final CountDownLatch done = new CountDownLatch(2 * count);
+		ReceiveDispatcher<String, int[]> dispatcher = new ReceiveDispatcher<>("test", 4, 16, BackpressurePolicy.BLOCK,
+				new ReceiveDispatcher.Handler<int[]>() {
+
+					@Override
+					public void handle (int[] event) {
+						(event[0] == 0 ? a : b).add(event[1]);
+						done.countDown();
+					}
+
+					@Override
+					public void discard (int[] event) {
+						fail("No event should be dropped");
+					}
+				});
+		for (int i = 0; i < count; i++) {
+			dispatcher.dispatch("a", new int[] {0, i});
+			dispatcher.dispatch("b", new int[] {1, i});
+		}
+		assertTrue(done.await(10, TimeUnit.SECONDS));
+		for (int i = 0; i < count; i++) {
+			assertEquals(i, a.get(i).intValue());
+			assertEquals(i, b.get(i).intValue());
+		}
+		assertEquals(0, dispatcher.getDroppedCount());
+		dispatcher.shutdown();
+	}
+
+	/**
+	 * A full queue drops the new events with
+	 * {@link BackpressurePolicy#DROP_NEWEST}.
+	 */
+	public void testDropNewest () throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger discarded = new AtomicInteger();
+		ReceiveDispatcher<String, Integer> dispatcher = new ReceiveDispatcher<>("test", 1, 4,
+				BackpressurePolicy.DROP_NEWEST, new ReceiveDispatcher.Handler<Integer>() {
+
+					@Override
+					public void handle (Integer event) {
+						try {
+							release.await();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+					}
+
+					@Override
+					public void discard (Integer event) {
+						discarded.incrementAndGet();
+					}
+				});
+		int queued = 0;
+		for (int i = 0; i < 100; i++) {
+			if (dispatcher.dispatch("a", i)) {
+				queued++;
+			}
+		}
+		// The worker holds at most one event, the queue four
+		assertTrue(queued <= 5);
+		assertEquals(100 - queued, dispatcher.getDroppedCount());
+		assertEquals(100 - queued, discarded.get());
+		release.countDown();
+		dispatcher.shutdown();
+	}
+
+	/**
+	 * A full queue drops the oldest events with
+	 * {@link BackpressurePolicy#DROP_OLDEST} and keeps the most recent ones.
+	 */
+	public void testDropOldest () throws Exception {
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger discarded = new AtomicInteger();
+		final List<Integer> handled = Collections.synchronizedList(new ArrayList<Integer>());
+		ReceiveDispatcher<String, Integer> dispatcher = new ReceiveDispatcher<>("test", 1, 4,
+				BackpressurePolicy.DROP_OLDEST, new ReceiveDispatcher.Handler<Integer>() {
+
+					@Override
+					public void handle (Integer event) {
+						try {
+							release.await();
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+						handled.add(event);
+					}
+
+					@Override
+					public void discard (Integer event) {
+						discarded.incrementAndGet();
+					}
+				});
+		for (int i = 0; i < 100; i++) {
+			assertTrue(dispatcher.dispatch("a", i));
+		}
+		release.countDown();
+		long deadline = System.currentTimeMillis() + 5000;
+		while (dispatcher.getQueueDepth() > 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		Thread.sleep(50);
+		assertTrue(handled.contains(99));
+		assertEquals(100 - handled.size(), dispatcher.getDroppedCount());
+		assertEquals(100 - handled.size(), discarded.get());
+		dispatcher.shutdown();
+	}
+}
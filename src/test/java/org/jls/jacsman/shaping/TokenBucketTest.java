@@ -0,0 +1,75 @@
+package org.jls.jacsman.shaping;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jls.toolbox.net.Interface;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of {@link TokenBucket} and {@link TrafficShaper}.
+ */
+public class TokenBucketTest extends TestCase {
+
+	private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	/**
+	 * An idle bucket grants its burst at once, then one unit per interval.
+	 */
+	public void testBurstThenRate () {
+		// 1000 units per second, burst of 10
+		TokenBucket bucket = new TokenBucket(1000, 10);
+		long now = 0;
+		for (int i = 0; i < 10; i++) {
+			assertEquals(0, bucket.reserve(1, now));
+		}
+		assertEquals(MS, bucket.reserve(1, now));
+		assertEquals(2 * MS, bucket.reserve(1, now));
+		// The bucket refills at the rate
+		now += 100 * MS;
+		for (int i = 0; i < 10; i++) {
+			assertEquals(0, bucket.reserve(1, now));
+		}
+		// A reservation larger than the burst waits for the missing units
+		assertEquals(5 * MS, new TokenBucket(1000, 10).reserve(15, now));
+	}
+
+	/**
+	 * The limit changes at runtime, no limit grants everything at once.
+	 */
+	public void testLimitChange () {
+		TokenBucket bucket = new TokenBucket(0, 0);
+		assertFalse(bucket.isLimited());
+		assertEquals(0, bucket.reserve(1000000, 0));
+		bucket.setLimit(100, 0);
+		// Without burst, one second at the rate
+		assertEquals(100, bucket.getBurst());
+		assertEquals(0, bucket.reserve(100, 0));
+		assertEquals(10 * MS, bucket.reserve(1, 0));
+		// The units reserved keep their cost at the previous rate
+		bucket.setLimit(1000, 1);
+		assertEquals(1010 * MS, bucket.reserve(1, 0));
+	}
+
+	/**
+	 * The connections of a shaper are limited separately, on top of the
+	 * limit of the tab.
+	 */
+	public void testShaperConnections () throws Exception {
+		TrafficShaper shaper = new TrafficShaper();
+		assertFalse(shaper.isLimited());
+		Interface a = new Interface("A", "127.0.0.1", 1);
+		Interface b = new Interface("B", "127.0.0.1", 2);
+		shaper.setConnectionMessageRate(10);
+		shaper.setConnectionMessageBurst(1);
+		assertTrue(shaper.isLimited());
+		assertEquals(0, shaper.reserve(a, 100));
+		assertTrue(shaper.reserve(a, 100) > 50 * MS);
+		// The other connection has its own bucket
+		assertEquals(0, shaper.reserve(b, 100));
+		shaper.remove(a);
+		assertEquals(0, shaper.reserve(a, 100));
+		shaper.setConnectionMessageRate(0);
+		assertFalse(shaper.isLimited());
+	}
+}
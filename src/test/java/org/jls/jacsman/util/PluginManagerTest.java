@@ -0,0 +1,59 @@
+package org.jls.jacsman.util;
+
+import org.jls.jacsman.plugin.Plugin;
+import org.jls.jacsman.plugin.PluginInterface;
+import org.jls.toolbox.net.Interface;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of the cache of {@link PluginManager}, with the plugins of the
+ * <code>plugins</code> directory.
+ */
+public class PluginManagerTest extends TestCase {
+
+	private static final String JAR = "RawText.jar";
+
+	/**
+	 * A jar is loaded once : the instances share their class, until the jar is
+	 * evicted from the cache.
+	 */
+	public void testCache () throws Exception {
+		PluginManager manager = PluginManager.getInstance();
+		manager.evict(JAR);
+		Plugin first = manager.loadPlugin(JAR, new Host());
+		int open = manager.getOpenLoaderCount();
+		Plugin second = manager.loadPlugin(JAR, new Host());
+		assertNotSame(first, second);
+		assertSame(first.getClass(), second.getClass());
+		assertEquals(open, manager.getOpenLoaderCount());
+
+		assertTrue(manager.evict(JAR));
+		assertFalse(manager.evict(JAR));
+		Plugin third = manager.loadPlugin(JAR, new Host());
+		assertNotSame(first.getClass(), third.getClass());
+		// The evicted loader stays open while its instances are reachable
+		assertEquals(open + 1, manager.getOpenLoaderCount());
+	}
+
+	/**
+	 * Application side of the loaded plugins.
+	 */
+	private static class Host implements PluginInterface {
+
+		@Override
+		public int send (byte[] msg) {
+			return msg.length;
+		}
+
+		@Override
+		public Interface getInterface () {
+			return null;
+		}
+
+		@Override
+		public boolean isRunning () {
+			return true;
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package org.jls.jacsman.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests of {@link PluginWatcher}.
+ */
+public class PluginWatcherTest extends TestCase {
+
+	/**
+	 * The jars added, modified and removed are reported once the directory is
+	 * quiet, the other files are ignored.
+	 */
+	public void testChanges () throws Exception {
+		File dir = Files.createTempDirectory("plugins").toFile();
+		File jar = new File(dir, "Echo.jar");
+		write(jar, 10);
+		final BlockingQueue<String> changes = new LinkedBlockingQueue<>();
+		PluginWatcher watcher = new PluginWatcher(dir, 100);
+		watcher.addListener(new PluginWatcher.Listener() {
+
+			@Override
+			public void onPluginAdded (String jarName) {
+				changes.add("added " + jarName);
+			}
+
+			@Override
+			public void onPluginChanged (String jarName) {
+				changes.add("changed " + jarName);
+			}
+
+			@Override
+			public void onPluginRemoved (String jarName) {
+				changes.add("removed " + jarName);
+			}
+		});
+		watcher.start();
+		try {
+			write(new File(dir, "Other.jar"), 10);
+			write(new File(dir, "notes.txt"), 10);
+			assertEquals("added Other.jar", changes.poll(10, TimeUnit.SECONDS));
+
+			// Written in several steps, reported once
+			write(jar, 20);
+			write(jar, 30);
+			assertEquals("changed Echo.jar", changes.poll(10, TimeUnit.SECONDS));
+
+			assertTrue(jar.delete());
+			assertEquals("removed Echo.jar", changes.poll(10, TimeUnit.SECONDS));
+			assertNull(changes.poll(300, TimeUnit.MILLISECONDS));
+		} finally {
+			watcher.stop();
+			for (File file : dir.listFiles()) {
+				file.delete();
+			}
+			dir.delete();
+		}
+		assertFalse(watcher.isRunning());
+	}
+
+	private static void write (final File file, final int size) throws IOException {
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(new byte[size]);
+		}
+	}
+}